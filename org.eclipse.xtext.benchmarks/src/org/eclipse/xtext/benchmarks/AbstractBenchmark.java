@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.xtext.linking.lazy.LazyLinkingResource;
+import org.eclipse.xtext.resource.XtextResource;
+import org.eclipse.xtext.resource.XtextResourceSet;
+import org.eclipse.xtext.testing.util.InMemoryURIHandler;
+import org.eclipse.xtext.testlanguages.fileAware.FileAwareTestLanguageStandaloneSetup;
+import org.eclipse.xtext.util.CancelIndicator;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.inject.Injector;
+
+/**
+ * Common state of the benchmarks: an injector for the file aware test language and a set of {@link SyntheticModels
+ * synthetic models} in an in-memory file system. The size of the models is configured with the JMH parameters
+ * <code>files</code> and <code>elements</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public abstract class AbstractBenchmark {
+
+	@Param("10")
+	public int files;
+
+	@Param("100")
+	public int elements;
+
+	protected Injector injector;
+
+	protected SyntheticModels models;
+
+	protected InMemoryURIHandler uriHandler;
+
+	protected List<URI> uris;
+
+	@Setup(Level.Trial)
+	public void setUpModels() throws IOException {
+		injector = new FileAwareTestLanguageStandaloneSetup().createInjectorAndDoEMFRegistration();
+		models = new SyntheticModels(files, elements);
+		uriHandler = new InMemoryURIHandler();
+		uris = new ArrayList<URI>();
+		for (int i = 0; i < files; i++) {
+			URI uri = URI.createURI(InMemoryURIHandler.SCHEME + ":/" + models.getPath(i));
+			OutputStream out = uriHandler.createOutputStream(uri, Collections.emptyMap());
+			try {
+				out.write(models.getContent(i).getBytes(StandardCharsets.UTF_8));
+			} finally {
+				out.close();
+			}
+			uris.add(uri);
+		}
+	}
+
+	protected XtextResourceSet createResourceSet() {
+		XtextResourceSet result = injector.getInstance(XtextResourceSet.class);
+		result.getURIConverter().getURIHandlers().add(0, uriHandler);
+		result.setClasspathURIContext(getClass().getClassLoader());
+		return result;
+	}
+
+	/**
+	 * Loads all models into the given resource set without resolving their cross references.
+	 */
+	protected List<XtextResource> loadResources(XtextResourceSet resourceSet) {
+		List<XtextResource> result = new ArrayList<XtextResource>(uris.size());
+		for (URI uri : uris) {
+			result.add((XtextResource) resourceSet.getResource(uri, true));
+		}
+		return result;
+	}
+
+	/**
+	 * Loads all models into the given resource set and resolves their cross references.
+	 */
+	protected List<XtextResource> loadAndLinkResources(XtextResourceSet resourceSet) {
+		List<XtextResource> result = loadResources(resourceSet);
+		for (XtextResource resource : result) {
+			((LazyLinkingResource) resource).resolveLazyCrossReferences(CancelIndicator.NullImpl);
+		}
+		return result;
+	}
+
+}
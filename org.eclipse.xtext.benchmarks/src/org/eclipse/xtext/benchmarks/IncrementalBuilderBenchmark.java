@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.xtext.build.BuildRequest;
+import org.eclipse.xtext.build.IncrementalBuilder;
+import org.eclipse.xtext.build.IndexState;
+import org.eclipse.xtext.build.Source2GeneratedMapping;
+import org.eclipse.xtext.resource.IResourceServiceProvider;
+import org.eclipse.xtext.resource.XtextResourceSet;
+import org.eclipse.xtext.resource.impl.ChunkedResourceDescriptions;
+import org.eclipse.xtext.resource.impl.ProjectDescription;
+import org.eclipse.xtext.resource.impl.ResourceDescriptionsData;
+import org.eclipse.xtext.testing.util.InMemoryURIHandler;
+import org.eclipse.xtext.validation.Issue;
+import org.eclipse.xtext.xbase.lib.Functions.Function1;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Runs a full build of all models with the {@link IncrementalBuilder}, i.e. indexing, linking and validation. The file
+ * aware test language does not generate any files.
+ */
+public class IncrementalBuilderBenchmark extends AbstractBenchmark {
+
+	private IncrementalBuilder builder;
+
+	private Function1<URI, IResourceServiceProvider> languages;
+
+	@Setup(Level.Trial)
+	public void setUpBuilder() {
+		builder = injector.getInstance(IncrementalBuilder.class);
+		final IResourceServiceProvider resourceServiceProvider = injector.getInstance(IResourceServiceProvider.class);
+		languages = new Function1<URI, IResourceServiceProvider>() {
+			@Override
+			public IResourceServiceProvider apply(URI uri) {
+				return resourceServiceProvider;
+			}
+		};
+	}
+
+	@Benchmark
+	public void build(Blackhole blackhole) {
+		IncrementalBuilder.Result result = builder.build(newBuildRequest(), languages);
+		blackhole.consume(result.getIndexState());
+	}
+
+	protected BuildRequest newBuildRequest() {
+		XtextResourceSet resourceSet = createResourceSet();
+		ProjectDescription projectDescription = new ProjectDescription();
+		projectDescription.setName("benchmark");
+		projectDescription.attachToEmfObject(resourceSet);
+		ResourceDescriptionsData index = new ResourceDescriptionsData(Collections.emptySet());
+		new ChunkedResourceDescriptions(Collections.emptyMap(), resourceSet).setContainer(projectDescription.getName(), index);
+		BuildRequest result = new BuildRequest();
+		result.setBaseDir(URI.createURI(InMemoryURIHandler.SCHEME + ":/"));
+		result.setResourceSet(resourceSet);
+		result.setDirtyFiles(new ArrayList<URI>(uris));
+		result.setState(new IndexState(index, new Source2GeneratedMapping()));
+		result.setAfterValidate(new BuildRequest.IPostValidationCallback() {
+			@Override
+			public boolean afterValidate(URI validated, Iterable<Issue> issues) {
+				return true;
+			}
+		});
+		return result;
+	}
+
+}
@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.benchmarks;
+
+import java.util.List;
+
+import org.eclipse.xtext.linking.lazy.LazyLinkingResource;
+import org.eclipse.xtext.resource.XtextResource;
+import org.eclipse.xtext.util.CancelIndicator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Resolves all cross references of freshly loaded models. The proxies have been installed by the
+ * {@link org.eclipse.xtext.linking.lazy.LazyLinker LazyLinker} while loading, so this measures the scoping and the
+ * resolution of the lazy links.
+ */
+public class LinkerBenchmark extends AbstractBenchmark {
+
+	private List<XtextResource> resources;
+
+	@Setup(Level.Invocation)
+	public void setUpResources() {
+		resources = loadResources(createResourceSet());
+	}
+
+	@Benchmark
+	public void resolveLazyCrossReferences(Blackhole blackhole) {
+		for (XtextResource resource : resources) {
+			((LazyLinkingResource) resource).resolveLazyCrossReferences(CancelIndicator.NullImpl);
+			blackhole.consume(resource);
+		}
+	}
+
+}
@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.xtext.nodemodel.ICompositeNode;
+import org.eclipse.xtext.nodemodel.ILeafNode;
+import org.eclipse.xtext.resource.XtextResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Reads the offsets of all leaf nodes of the loaded models. The leafs sum up the offset shifts of their ancestors. With
+ * <code>reparsed</code>, an element in the middle of each model is renamed to a longer name before, so the offsets of
+ * the following nodes are shifted by the partial reparse and some of the shifts are not zero.
+ */
+public class NodeOffsetBenchmark extends AbstractBenchmark {
+
+	@Param({ "false", "true" })
+	public boolean reparsed;
+
+	private List<ICompositeNode> rootNodes;
+
+	@Setup(Level.Trial)
+	public void setUpRootNodes() {
+		rootNodes = new ArrayList<ICompositeNode>(files);
+		List<XtextResource> resources = loadResources(createResourceSet());
+		for (int i = 0; i < files; i++) {
+			XtextResource resource = resources.get(i);
+			if (reparsed) {
+				int offset = models.getContent(i).indexOf("element e" + elements / 2 + " ") + "element ".length();
+				resource.update(offset, 1, "xy");
+			}
+			rootNodes.add(resource.getParseResult().getRootNode());
+		}
+	}
+
+	@Benchmark
+	public void getOffsets(Blackhole blackhole) {
+		for (ICompositeNode rootNode : rootNodes) {
+			for (ILeafNode leaf : rootNode.getLeafNodes()) {
+				blackhole.consume(leaf.getTotalOffset());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.benchmarks;
+
+import java.io.StringReader;
+
+import org.eclipse.xtext.parser.IParseResult;
+import org.eclipse.xtext.parser.IParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parses all models, i.e. runs the generated ANTLR parser and builds the node model and the AST.
+ */
+public class ParserBenchmark extends AbstractBenchmark {
+
+	private IParser parser;
+
+	private String[] contents;
+
+	@Setup(Level.Trial)
+	public void setUpParser() {
+		parser = injector.getInstance(IParser.class);
+		contents = new String[files];
+		for (int i = 0; i < files; i++) {
+			contents[i] = models.getContent(i);
+		}
+	}
+
+	@Benchmark
+	public void parse(Blackhole blackhole) {
+		for (String content : contents) {
+			IParseResult result = parser.parse(new StringReader(content));
+			blackhole.consume(result.getRootASTElement());
+		}
+	}
+
+}
@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.benchmarks;
+
+import org.eclipse.xtext.resource.XtextResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Applies a small edit to a loaded model, i.e. renames an element in the middle of the first file, and reparses it
+ * with the {@link org.eclipse.xtext.parser.partial.PartialParsingHelper PartialParsingHelper}. The edit is toggled
+ * between two names of the same length, so the model does not grow over the iterations.
+ */
+public class PartialParsingBenchmark extends AbstractBenchmark {
+
+	private XtextResource resource;
+
+	private int offset;
+
+	private boolean renamed;
+
+	@Setup(Level.Trial)
+	public void setUpResource() {
+		resource = loadResources(createResourceSet()).get(0);
+		offset = models.getContent(0).indexOf("element e" + elements / 2 + " ") + "element ".length();
+	}
+
+	@Benchmark
+	public void reparse(Blackhole blackhole) {
+		resource.update(offset, 1, renamed ? "e" : "x");
+		renamed = !renamed;
+		blackhole.consume(resource.getParseResult());
+	}
+
+}
@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.benchmarks;
+
+import java.util.List;
+
+import org.eclipse.xtext.resource.SaveOptions;
+import org.eclipse.xtext.resource.XtextResource;
+import org.eclipse.xtext.serializer.ISerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Serializes all linked models, once reusing the node model and once with formatting.
+ */
+public class SerializerBenchmark extends AbstractBenchmark {
+
+	private ISerializer serializer;
+
+	private List<XtextResource> resources;
+
+	@Setup(Level.Trial)
+	public void setUpResources() {
+		serializer = injector.getInstance(ISerializer.class);
+		resources = loadAndLinkResources(createResourceSet());
+	}
+
+	@Benchmark
+	public void serialize(Blackhole blackhole) {
+		for (XtextResource resource : resources) {
+			blackhole.consume(serializer.serialize(resource.getContents().get(0)));
+		}
+	}
+
+	@Benchmark
+	public void serializeFormatted(Blackhole blackhole) {
+		SaveOptions options = SaveOptions.newBuilder().format().getOptions();
+		for (XtextResource resource : resources) {
+			blackhole.consume(serializer.serialize(resource.getContents().get(0), options));
+		}
+	}
+
+}
@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.benchmarks;
+
+/**
+ * Generates models of the file aware test language with a configurable size. Each file declares its own package
+ * with a number of elements. Every element contains a nested element, refers to its predecessor in the same file and
+ * to an element of the same name in the previous file, so the models link without errors.
+ */
+public class SyntheticModels {
+
+	public static final String FILE_EXTENSION = "fileawaretestlanguage";
+
+	private final int files;
+
+	private final int elements;
+
+	public SyntheticModels(int files, int elements) {
+		this.files = files;
+		this.elements = elements;
+	}
+
+	public int getFiles() {
+		return files;
+	}
+
+	public int getElements() {
+		return elements;
+	}
+
+	public String getPath(int file) {
+		return "pkg" + file + "/model" + file + "." + FILE_EXTENSION;
+	}
+
+	public String getContent(int file) {
+		StringBuilder result = new StringBuilder();
+		result.append("package pkg").append(file).append("\n\n");
+		int previousFile = (file + files - 1) % files;
+		if (previousFile != file) {
+			result.append("import pkg").append(previousFile).append(".e0\n\n");
+		}
+		for (int i = 0; i < elements; i++) {
+			result.append("element e").append(i).append(" {\n");
+			result.append("\telement n").append(i).append(" {\n\t}\n");
+			if (i > 0) {
+				result.append("\tref e").append(i - 1).append("\n");
+			}
+			result.append("\tref pkg").append(previousFile).append(".e").append(i).append(".n").append(i).append("\n");
+			result.append("}\n");
+		}
+		return result.toString();
+	}
+
+}
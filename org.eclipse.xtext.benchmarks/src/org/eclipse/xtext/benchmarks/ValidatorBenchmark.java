@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.benchmarks;
+
+import java.util.List;
+
+import org.eclipse.xtext.resource.XtextResource;
+import org.eclipse.xtext.util.CancelIndicator;
+import org.eclipse.xtext.validation.CheckMode;
+import org.eclipse.xtext.validation.IResourceValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Validates all linked models with the {@link IResourceValidator}, i.e. the syntax errors, the linking diagnostics
+ * and the Java validators.
+ */
+public class ValidatorBenchmark extends AbstractBenchmark {
+
+	private IResourceValidator validator;
+
+	private List<XtextResource> resources;
+
+	@Setup(Level.Trial)
+	public void setUpResources() {
+		validator = injector.getInstance(IResourceValidator.class);
+		resources = loadAndLinkResources(createResourceSet());
+	}
+
+	@Benchmark
+	public void validate(Blackhole blackhole) {
+		for (XtextResource resource : resources) {
+			blackhole.consume(validator.validate(resource, CheckMode.ALL, CancelIndicator.NullImpl));
+		}
+	}
+
+}
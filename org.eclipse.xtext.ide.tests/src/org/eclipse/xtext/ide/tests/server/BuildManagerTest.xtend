@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.ide.tests.server
+
+import com.google.inject.AbstractModule
+import com.google.inject.Guice
+import com.google.inject.Injector
+import com.google.inject.name.Names
+import java.util.List
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import org.eclipse.core.runtime.OperationCanceledException
+import org.eclipse.emf.common.util.URI
+import org.eclipse.xtext.build.IncrementalBuilder.Result
+import org.eclipse.xtext.ide.ExecutorServiceProvider
+import org.eclipse.xtext.ide.server.BuildManager
+import org.eclipse.xtext.resource.IResourceDescription.Delta
+import org.eclipse.xtext.resource.impl.DefaultResourceDescriptionDelta
+import org.eclipse.xtext.resource.impl.ProjectDescription
+import org.eclipse.xtext.resource.persistence.SerializableResourceDescription
+import org.junit.After
+import org.junit.Test
+
+import static org.junit.Assert.*
+
+class BuildManagerTest {
+
+    val events = <String>newArrayList
+
+    Injector injector
+
+    @After
+    def void tearDown() {
+        injector?.getInstance(ExecutorServiceProvider)?.dispose
+    }
+
+    @Test(timeout = 5000)
+    def void testSequentialByDefault() {
+        val a = new ProjectDescription => [ name = 'a' ]
+        val b = new ProjectDescription => [ name = 'b' ]
+        val deltas = createBuildManager(null, a, b).build(#[a, b]) [ project, upstreamDeltas |
+            record('start ' + project.name)
+            record('end ' + project.name)
+            return project.result
+        ]
+        assertEquals(#['start a', 'end a', 'start b', 'end b'], events)
+        assertEquals(#['a', 'b'], deltas.map[uri.segment(0)])
+    }
+
+    @Test(timeout = 5000)
+    def void testDependencyOrder() {
+        val a = new ProjectDescription => [ name = 'a' ]
+        val b = new ProjectDescription => [ name = 'b' dependencies = #['a'] ]
+        val c = new ProjectDescription => [ name = 'c' dependencies = #['a'] ]
+        val d = new ProjectDescription => [ name = 'd' dependencies = #['b', 'c'] ]
+        val bothStarted = new CountDownLatch(2)
+        val project2upstream = <String, List<String>>newHashMap
+        val deltas = createBuildManager(2, a, b, c, d).build(#[a, b, c, d]) [ project, upstreamDeltas |
+            record('start ' + project.name)
+            synchronized (project2upstream) {
+                project2upstream.put(project.name, upstreamDeltas.map[uri.segment(0)])
+            }
+            if (project.name == 'b' || project.name == 'c') {
+                // b and c do not depend on each other, so they are built concurrently
+                bothStarted.countDown
+                assertTrue(bothStarted.await(2, TimeUnit.SECONDS))
+            }
+            record('end ' + project.name)
+            return project.result
+        ]
+        assertEquals(#['a', 'b', 'c', 'd'], deltas.map[uri.segment(0)])
+        assertTrue(events.indexOf('end a') < events.indexOf('start b'))
+        assertTrue(events.indexOf('end a') < events.indexOf('start c'))
+        assertTrue(events.indexOf('end b') < events.indexOf('start d'))
+        assertTrue(events.indexOf('end c') < events.indexOf('start d'))
+        assertEquals(#[], project2upstream.get('a'))
+        assertEquals(#['a'], project2upstream.get('b'))
+        assertEquals(#['a'], project2upstream.get('c'))
+        assertEquals(#['a', 'b', 'c'], project2upstream.get('d'))
+    }
+
+    @Test(timeout = 5000)
+    def void testTransitiveDependencyOutsideOfBuild() {
+        val a = new ProjectDescription => [ name = 'a' ]
+        val b = new ProjectDescription => [ name = 'b' dependencies = #['a'] ]
+        val c = new ProjectDescription => [ name = 'c' dependencies = #['b'] ]
+        // b is not built, so the sorted projects do not tell that c depends on a
+        val deltas = createBuildManager(2, a, b, c).build(#[c, a]) [ project, upstreamDeltas |
+            record('start ' + project.name)
+            if (project.name == 'c') {
+                assertEquals(#['a'], upstreamDeltas.map[uri.segment(0)])
+            }
+            record('end ' + project.name)
+            return project.result
+        ]
+        assertEquals(#['start a', 'end a', 'start c', 'end c'], events)
+        assertEquals(#['c', 'a'], deltas.map[uri.segment(0)])
+    }
+
+    @Test(timeout = 5000)
+    def void testFailure() {
+        val a = new ProjectDescription => [ name = 'a' ]
+        val b = new ProjectDescription => [ name = 'b' dependencies = #['a'] ]
+        val c = new ProjectDescription => [ name = 'c' ]
+        val failed = new CountDownLatch(1)
+        val failure = new IllegalStateException
+        try {
+            createBuildManager(2, a, b, c).build(#[a, b, c]) [ project, upstreamDeltas |
+                record('start ' + project.name)
+                if (project.name == 'a') {
+                    failed.countDown
+                    throw failure
+                }
+                // the running build is awaited before the failure is rethrown
+                failed.await(2, TimeUnit.SECONDS)
+                Thread.sleep(50)
+                record('end ' + project.name)
+                return project.result
+            ]
+            fail
+        } catch (IllegalStateException e) {
+            assertSame(failure, e)
+        }
+        assertFalse(events.contains('start b'))
+        assertTrue(events.contains('end c'))
+    }
+
+    @Test(timeout = 5000)
+    def void testCancellation() {
+        val a = new ProjectDescription => [ name = 'a' ]
+        val b = new ProjectDescription => [ name = 'b' dependencies = #['a'] ]
+        val c = new ProjectDescription => [ name = 'c' dependencies = #['b'] ]
+        try {
+            createBuildManager(2, a, b, c).build(#[a, b, c]) [ project, upstreamDeltas |
+                record('start ' + project.name)
+                if (project.name == 'b') {
+                    throw new OperationCanceledException
+                }
+                record('end ' + project.name)
+                return project.result
+            ]
+            fail
+        } catch (OperationCanceledException e) {
+            // expected
+        }
+        assertEquals(#['start a', 'end a', 'start b'], events)
+    }
+
+    protected def TestBuildManager createBuildManager(Integer parallelProjectBuilds, ProjectDescription... workspace) {
+        injector = Guice.createInjector(new AbstractModule() {
+            override protected configure() {
+                if (parallelProjectBuilds !== null) {
+                    bindConstant.annotatedWith(Names.named(BuildManager.PARALLEL_PROJECT_BUILDS)).to(parallelProjectBuilds)
+                }
+            }
+        })
+        val result = injector.getInstance(TestBuildManager)
+        workspace.forEach[result.addProject(it)]
+        return result
+    }
+
+    protected def void record(String event) {
+        synchronized (events) {
+            events += event
+        }
+    }
+
+    protected def Result getResult(ProjectDescription project) {
+        val description = new SerializableResourceDescription => [
+            URI = URI.createURI(project.name + '/' + project.name + '.testlang')
+        ]
+        return new Result(null, #[new DefaultResourceDescriptionDelta(null, description)])
+    }
+
+    static class TestBuildManager extends BuildManager {
+
+        val name2project = <String, ProjectDescription>newHashMap
+
+        def void addProject(ProjectDescription project) {
+            name2project.put(project.name, project)
+        }
+
+        override protected getProjectDescription(String projectName) {
+            name2project.get(projectName)
+        }
+
+        def List<Delta> build(List<ProjectDescription> sortedDescriptions, (ProjectDescription, List<Delta>)=>Result build) {
+            buildProjects(sortedDescriptions, build)
+        }
+    }
+}
@@ -107,6 +107,18 @@ class DocumentTest {
         ]
     }
     
+    @Test def void testUpdate_sequentialChanges() {
+        new Document(1, "foo\nbar") => [
+            val result = applyChanges(#[
+                change(position(0,3), position(0,3), "\nbaz"),
+                change(position(2,0), position(2,3), "zonk")
+            ])
+            assertEquals("foo\nbaz\nzonk", result.contents)
+            assertEquals(8, result.getOffSet(position(2,0)))
+            assertEquals(position(2,4), result.getPosition(12))
+        ]
+    }
+    
     private def change(Position startPos, Position endPos, String newText) {
         new TextEdit => [
               if (startPos !== null) {
@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2018 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.ide.tests.server
+
+import com.google.inject.AbstractModule
+import com.google.inject.Guice
+import com.google.inject.name.Names
+import java.io.File
+import java.io.FileWriter
+import java.util.List
+import java.util.Map
+import java.util.concurrent.ConcurrentHashMap
+import org.eclipse.emf.common.util.URI
+import org.eclipse.xtext.diagnostics.Diagnostic
+import org.eclipse.xtext.ide.server.IndexSnapshotStore
+import org.eclipse.xtext.ide.server.ServerModule
+import org.eclipse.xtext.ide.server.WorkspaceManager
+import org.eclipse.xtext.util.Files
+import org.eclipse.xtext.util.Modules2
+import org.eclipse.xtext.validation.Issue
+import org.junit.Before
+import org.junit.Test
+
+import static org.junit.Assert.*
+
+class IndexSnapshotTest {
+
+	File workspaceRoot
+	File cacheDirectory
+	String serverVersion = '1.0'
+	// snapshots are only saved on shutdown unless a test enables the saves in the background
+	long saveDelay = -1
+	Map<URI, List<Issue>> diagnostics = new ConcurrentHashMap
+
+	@Test
+	def void testRestoreSnapshot() {
+		val foo = createFile('Foo.testlang', '''
+			type Foo {
+				Bar bar
+				Baz baz
+			}
+		''')
+		val bar = createFile('Bar.testlang', '''
+			type Bar {
+			}
+		''')
+		initializeWorkspace.saveIndexSnapshots
+		assertEquals(1, diagnostics.get(foo).size)
+		assertTrue(diagnostics.get(bar).empty)
+
+		// unchanged files are not built, their issues are reported from the snapshot
+		diagnostics.clear
+		val workspaceManager = initializeWorkspace
+		assertEquals(1, diagnostics.size)
+		assertEquals(Diagnostic.LINKING_DIAGNOSTIC, diagnostics.get(foo).head.code)
+		assertNotNull(workspaceManager.index.getResourceDescription(bar))
+
+		// changed files are built together with the files they affect
+		createFile('Bar.testlang', '''
+			type Bar {
+			}
+			type Baz {
+			}
+		''')
+		diagnostics.clear
+		initializeWorkspace
+		assertEquals(2, diagnostics.size)
+		assertTrue(diagnostics.get(foo).empty)
+		assertTrue(diagnostics.get(bar).empty)
+	}
+
+	@Test
+	def void testDiscardSnapshotOfOtherVersion() {
+		val foo = createFile('Foo.testlang', '''
+			type Foo {
+				Bar bar
+			}
+		''')
+		val bar = createFile('Bar.testlang', '''
+			type Bar {
+			}
+		''')
+		initializeWorkspace.saveIndexSnapshots
+
+		// the snapshot has been written by another version, so all files are built again
+		serverVersion = '2.0'
+		diagnostics.clear
+		initializeWorkspace
+		assertEquals(2, diagnostics.size)
+		assertTrue(diagnostics.get(foo).empty)
+		assertTrue(diagnostics.get(bar).empty)
+	}
+
+	@Test(timeout = 10000)
+	def void testSaveSnapshotInBackground() {
+		val foo = createFile('Foo.testlang', '''
+			type Foo {
+				Bar bar
+				Baz baz
+			}
+		''')
+		createFile('Bar.testlang', '''
+			type Bar {
+			}
+		''')
+		// the snapshot is saved after the build without a shutdown
+		saveDelay = 0
+		initializeWorkspace
+		while (!cacheDirectory.list.exists[endsWith('.index')]) {
+			Thread.sleep(10)
+		}
+
+		saveDelay = -1
+		diagnostics.clear
+		initializeWorkspace
+		assertEquals(1, diagnostics.size)
+		assertEquals(Diagnostic.LINKING_DIAGNOSTIC, diagnostics.get(foo).head.code)
+	}
+
+	@Before
+	def void setup() {
+		workspaceRoot = getRoot("snapshot-test-data")
+		cacheDirectory = getRoot("snapshot-test-cache")
+	}
+
+	protected def WorkspaceManager initializeWorkspace() {
+		val injector = Guice.createInjector(Modules2.mixin(new ServerModule, new AbstractModule() {
+			override protected configure() {
+				bindConstant.annotatedWith(Names.named(IndexSnapshotStore.CACHE_DIRECTORY)).to(cacheDirectory.absolutePath)
+				bindConstant.annotatedWith(Names.named(IndexSnapshotStore.VERSION)).to(serverVersion)
+				bindConstant.annotatedWith(Names.named(IndexSnapshotStore.SAVE_DELAY)).to(saveDelay)
+			}
+		}))
+		val workspaceManager = injector.getInstance(WorkspaceManager)
+		workspaceManager.initialize(URI.createFileURI(workspaceRoot.absolutePath), [diagnostics.put($0, $1.toList)], null)
+		return workspaceManager
+	}
+
+	protected def getRoot(String path) {
+		val root = new File(path)
+		if (!root.mkdirs) {
+			Files.cleanFolder(root, null, true, false)
+		}
+		root.deleteOnExit
+		root
+	}
+
+	def URI createFile(String path, CharSequence contents) {
+		val file = new File(workspaceRoot, path)
+		new FileWriter(file) => [
+			write(contents.toString)
+			close
+		]
+		return URI.createFileURI(file.absolutePath)
+	}
+
+}
@@ -31,6 +31,10 @@ class WorkspaceSymbolTest extends AbstractTestLangLanguageServerTest {
 					kind: 7
 					location: MyModel.testlang [[0, 5] .. [0, 8]]
 				}
+				symbol "Bar.foo" {
+					kind: 7
+					location: MyModel.testlang [[4, 5] .. [4, 8]]
+				}
 				symbol "Foo.bar" {
 					kind: 7
 					location: MyModel.testlang [[1, 5] .. [1, 8]]
@@ -39,10 +43,6 @@ class WorkspaceSymbolTest extends AbstractTestLangLanguageServerTest {
 					kind: 7
 					location: MyModel.testlang [[1, 1] .. [1, 4]]
 				}
-				symbol "Bar.foo" {
-					kind: 7
-					location: MyModel.testlang [[4, 5] .. [4, 8]]
-				}
 			'''
 		]
 	}
@@ -64,6 +64,10 @@ class WorkspaceSymbolTest extends AbstractTestLangLanguageServerTest {
 					kind: 7
 					location: MyModel.testlang [[0, 5] .. [0, 8]]
 				}
+				symbol "Bar.foo" {
+					kind: 7
+					location: MyModel.testlang [[4, 5] .. [4, 8]]
+				}
 				symbol "Foo.bar" {
 					kind: 7
 					location: MyModel.testlang [[1, 5] .. [1, 8]]
@@ -72,12 +76,41 @@ class WorkspaceSymbolTest extends AbstractTestLangLanguageServerTest {
 					kind: 7
 					location: MyModel.testlang [[1, 1] .. [1, 4]]
 				}
+			'''
+		]
+	}
+
+	@Test
+	def void testSymbol_03() {
+		testSymbol[
+			model = '''
+				type Foo {
+					int bar
+				}
+				type Bar {
+					Foo foo
+				}
+			'''
+			query = 'bar'
+			expectedSymbols = '''
+				symbol "Bar" {
+					kind: 7
+					location: MyModel.testlang [[3, 5] .. [3, 8]]
+				}
+				symbol "Foo.bar" {
+					kind: 7
+					location: MyModel.testlang [[1, 5] .. [1, 8]]
+				}
 				symbol "Bar.foo" {
 					kind: 7
 					location: MyModel.testlang [[4, 5] .. [4, 8]]
 				}
+				symbol "Foo.bar.int" {
+					kind: 7
+					location: MyModel.testlang [[1, 1] .. [1, 4]]
+				}
 			'''
 		]
 	}
-	
-}
\ No newline at end of file
+
+}
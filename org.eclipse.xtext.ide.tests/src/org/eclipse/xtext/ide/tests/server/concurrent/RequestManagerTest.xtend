@@ -9,10 +9,14 @@ package org.eclipse.xtext.ide.tests.server.concurrent
 
 import com.google.inject.Guice
 import com.google.inject.Inject
+import com.google.inject.name.Names
+import com.google.inject.util.Modules
+import java.util.concurrent.TimeUnit
 import java.util.concurrent.atomic.AtomicBoolean
 import java.util.concurrent.atomic.AtomicInteger
 import org.eclipse.xtext.ide.server.ServerModule
 import org.eclipse.xtext.ide.server.concurrent.RequestManager
+import org.eclipse.xtext.util.CancelIndicator
 import org.junit.After
 import org.junit.Before
 import org.junit.Ignore
@@ -133,4 +137,92 @@ class RequestManagerTest {
 		}
 	}
 
+	@Test(timeout = 1000)
+	def void testRunningReadIsNotCanceledByWrite() {
+		requestManager.cancelRunningReads = false
+		val future = requestManager.runRead [
+			sharedState.incrementAndGet
+			Thread.sleep(50)
+			return 'Foo'
+		]
+		while (sharedState.get === 0) {
+			Thread.sleep(10)
+		}
+		requestManager.runWrite([], [
+			sharedState.incrementAndGet
+		]).join
+		assertEquals('Foo', future.get)
+		assertEquals(2, sharedState.get)
+	}
+
+	@Test(timeout = 1000)
+	def void testCoalesceWrites() {
+		requestManager.shutdown
+		requestManager = Guice.createInjector(Modules.override(new ServerModule).with [
+			bindConstant.annotatedWith(Names.named(RequestManager.COALESCING_WINDOW)).to(50L)
+		]).getInstance(RequestManager)
+		assertEquals(50, requestManager.coalescingWindow)
+		val writes = new AtomicInteger
+		val ()=>Integer write = [
+			writes.incrementAndGet
+		]
+		val (CancelIndicator, Integer)=>Integer build = [
+			sharedState.incrementAndGet
+		]
+		val first = requestManager.runWrite(write, build)
+		val second = requestManager.runWrite(write, build)
+		val third = requestManager.runWrite(write, build)
+		assertEquals(1, third.get)
+		assertTrue(first.isCancelled)
+		assertTrue(second.isCancelled)
+		assertEquals(3, writes.get)
+		assertEquals(1, sharedState.get)
+		assertEquals(2, requestManager.statistics.coalescedWrites)
+	}
+
+	@Test(timeout = 1000)
+	def void testRunReadAfterDelayedWrite() {
+		requestManager.coalescingWindow = 50
+		requestManager.runWrite([], [
+			sharedState.incrementAndGet
+		])
+		val future = requestManager.runRead [
+			sharedState.get
+		]
+		assertEquals(1, future.get)
+		assertEquals(0, requestManager.statistics.coalescedWrites)
+	}
+
+	@Test(timeout = 1000)
+	def void testShutdownCancelsDelayedRequests() {
+		requestManager.coalescingWindow = 5000
+		val write = requestManager.runWrite([], [
+			sharedState.incrementAndGet
+		])
+		val read = requestManager.runRead [
+			sharedState.get
+		]
+		requestManager.shutdown
+		assertTrue(write.isCancelled)
+		assertTrue(read.isCancelled)
+		assertEquals(0, sharedState.get)
+	}
+
+	@Test(timeout = 1000)
+	def void testStatistics() {
+		requestManager.runWrite([], [
+			sharedState.incrementAndGet
+		])
+		requestManager.runRead [
+			sharedState.get
+		].join
+		val statistics = requestManager.statistics
+		assertEquals(2, statistics.startedRequests)
+		assertEquals(0, statistics.queueDepth)
+		assertTrue(statistics.maxQueueDepth >= 1)
+		statistics.reset
+		assertEquals(0, statistics.startedRequests)
+		assertEquals(0, statistics.getTotalWaitTime(TimeUnit.NANOSECONDS))
+	}
+
 }
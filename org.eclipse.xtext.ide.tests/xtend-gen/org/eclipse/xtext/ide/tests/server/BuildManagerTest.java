@@ -0,0 +1,365 @@
+/**
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.xtext.ide.tests.server;
+
+import com.google.common.base.Objects;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.name.Names;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.xtext.build.IncrementalBuilder;
+import org.eclipse.xtext.ide.ExecutorServiceProvider;
+import org.eclipse.xtext.ide.server.BuildManager;
+import org.eclipse.xtext.resource.IResourceDescription;
+import org.eclipse.xtext.resource.impl.DefaultResourceDescriptionDelta;
+import org.eclipse.xtext.resource.impl.ProjectDescription;
+import org.eclipse.xtext.resource.persistence.SerializableResourceDescription;
+import org.eclipse.xtext.xbase.lib.CollectionLiterals;
+import org.eclipse.xtext.xbase.lib.Conversions;
+import org.eclipse.xtext.xbase.lib.Exceptions;
+import org.eclipse.xtext.xbase.lib.Functions.Function1;
+import org.eclipse.xtext.xbase.lib.Functions.Function2;
+import org.eclipse.xtext.xbase.lib.IterableExtensions;
+import org.eclipse.xtext.xbase.lib.ListExtensions;
+import org.eclipse.xtext.xbase.lib.ObjectExtensions;
+import org.eclipse.xtext.xbase.lib.Procedures.Procedure1;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+@SuppressWarnings("all")
+public class BuildManagerTest {
+  public static class TestBuildManager extends BuildManager {
+    private final HashMap<String, ProjectDescription> name2project = CollectionLiterals.<String, ProjectDescription>newHashMap();
+    
+    public void addProject(final ProjectDescription project) {
+      this.name2project.put(project.getName(), project);
+    }
+    
+    @Override
+    protected ProjectDescription getProjectDescription(final String projectName) {
+      return this.name2project.get(projectName);
+    }
+    
+    public List<IResourceDescription.Delta> build(final List<ProjectDescription> sortedDescriptions, final Function2<? super ProjectDescription, ? super List<IResourceDescription.Delta>, ? extends IncrementalBuilder.Result> build) {
+      return this.buildProjects(sortedDescriptions, build);
+    }
+  }
+  
+  private final ArrayList<String> events = CollectionLiterals.<String>newArrayList();
+  
+  private Injector injector;
+  
+  @After
+  public void tearDown() {
+    ExecutorServiceProvider _instance = null;
+    if (this.injector!=null) {
+      _instance=this.injector.<ExecutorServiceProvider>getInstance(ExecutorServiceProvider.class);
+    }
+    if (_instance!=null) {
+      _instance.dispose();
+    }
+  }
+  
+  @Test(timeout = 5000)
+  public void testSequentialByDefault() {
+    ProjectDescription _projectDescription = new ProjectDescription();
+    final Procedure1<ProjectDescription> _function = (ProjectDescription it) -> {
+      it.setName("a");
+    };
+    final ProjectDescription a = ObjectExtensions.<ProjectDescription>operator_doubleArrow(_projectDescription, _function);
+    ProjectDescription _projectDescription_1 = new ProjectDescription();
+    final Procedure1<ProjectDescription> _function_1 = (ProjectDescription it) -> {
+      it.setName("b");
+    };
+    final ProjectDescription b = ObjectExtensions.<ProjectDescription>operator_doubleArrow(_projectDescription_1, _function_1);
+    final Function2<ProjectDescription, List<IResourceDescription.Delta>, IncrementalBuilder.Result> _function_2 = (ProjectDescription project, List<IResourceDescription.Delta> upstreamDeltas) -> {
+      String _name = project.getName();
+      String _plus = ("start " + _name);
+      this.record(_plus);
+      String _name_1 = project.getName();
+      String _plus_1 = ("end " + _name_1);
+      this.record(_plus_1);
+      return this.getResult(project);
+    };
+    final List<IResourceDescription.Delta> deltas = this.createBuildManager(null, a, b).build(Collections.<ProjectDescription>unmodifiableList(CollectionLiterals.<ProjectDescription>newArrayList(a, b)), _function_2);
+    Assert.assertEquals(Collections.<String>unmodifiableList(CollectionLiterals.<String>newArrayList("start a", "end a", "start b", "end b")), this.events);
+    final Function1<IResourceDescription.Delta, String> _function_3 = (IResourceDescription.Delta it) -> {
+      return it.getUri().segment(0);
+    };
+    Assert.assertEquals(Collections.<String>unmodifiableList(CollectionLiterals.<String>newArrayList("a", "b")), ListExtensions.<IResourceDescription.Delta, String>map(deltas, _function_3));
+  }
+  
+  @Test(timeout = 5000)
+  public void testDependencyOrder() {
+    ProjectDescription _projectDescription = new ProjectDescription();
+    final Procedure1<ProjectDescription> _function = (ProjectDescription it) -> {
+      it.setName("a");
+    };
+    final ProjectDescription a = ObjectExtensions.<ProjectDescription>operator_doubleArrow(_projectDescription, _function);
+    ProjectDescription _projectDescription_1 = new ProjectDescription();
+    final Procedure1<ProjectDescription> _function_1 = (ProjectDescription it) -> {
+      it.setName("b");
+      it.setDependencies(Collections.<String>unmodifiableList(CollectionLiterals.<String>newArrayList("a")));
+    };
+    final ProjectDescription b = ObjectExtensions.<ProjectDescription>operator_doubleArrow(_projectDescription_1, _function_1);
+    ProjectDescription _projectDescription_2 = new ProjectDescription();
+    final Procedure1<ProjectDescription> _function_2 = (ProjectDescription it) -> {
+      it.setName("c");
+      it.setDependencies(Collections.<String>unmodifiableList(CollectionLiterals.<String>newArrayList("a")));
+    };
+    final ProjectDescription c = ObjectExtensions.<ProjectDescription>operator_doubleArrow(_projectDescription_2, _function_2);
+    ProjectDescription _projectDescription_3 = new ProjectDescription();
+    final Procedure1<ProjectDescription> _function_3 = (ProjectDescription it) -> {
+      it.setName("d");
+      it.setDependencies(Collections.<String>unmodifiableList(CollectionLiterals.<String>newArrayList("b", "c")));
+    };
+    final ProjectDescription d = ObjectExtensions.<ProjectDescription>operator_doubleArrow(_projectDescription_3, _function_3);
+    final CountDownLatch bothStarted = new CountDownLatch(2);
+    final HashMap<String, List<String>> project2upstream = CollectionLiterals.<String, List<String>>newHashMap();
+    final Function2<ProjectDescription, List<IResourceDescription.Delta>, IncrementalBuilder.Result> _function_4 = (ProjectDescription project, List<IResourceDescription.Delta> upstreamDeltas) -> {
+      try {
+        String _name = project.getName();
+        String _plus = ("start " + _name);
+        this.record(_plus);
+        synchronized (project2upstream) {
+          final Function1<IResourceDescription.Delta, String> _function_5 = (IResourceDescription.Delta it) -> {
+            return it.getUri().segment(0);
+          };
+          project2upstream.put(project.getName(), ListExtensions.<IResourceDescription.Delta, String>map(upstreamDeltas, _function_5));
+        }
+        if ((Objects.equal(project.getName(), "b") || Objects.equal(project.getName(), "c"))) {
+          bothStarted.countDown();
+          Assert.assertTrue(bothStarted.await(2, TimeUnit.SECONDS));
+        }
+        String _name_1 = project.getName();
+        String _plus_1 = ("end " + _name_1);
+        this.record(_plus_1);
+        return this.getResult(project);
+      } catch (Throwable _e) {
+        throw Exceptions.sneakyThrow(_e);
+      }
+    };
+    final List<IResourceDescription.Delta> deltas = this.createBuildManager(Integer.valueOf(2), a, b, c, d).build(Collections.<ProjectDescription>unmodifiableList(CollectionLiterals.<ProjectDescription>newArrayList(a, b, c, d)), _function_4);
+    final Function1<IResourceDescription.Delta, String> _function_5 = (IResourceDescription.Delta it) -> {
+      return it.getUri().segment(0);
+    };
+    Assert.assertEquals(Collections.<String>unmodifiableList(CollectionLiterals.<String>newArrayList("a", "b", "c", "d")), ListExtensions.<IResourceDescription.Delta, String>map(deltas, _function_5));
+    int _indexOf = this.events.indexOf("end a");
+    int _indexOf_1 = this.events.indexOf("start b");
+    boolean _lessThan = (_indexOf < _indexOf_1);
+    Assert.assertTrue(_lessThan);
+    int _indexOf_2 = this.events.indexOf("end a");
+    int _indexOf_3 = this.events.indexOf("start c");
+    boolean _lessThan_1 = (_indexOf_2 < _indexOf_3);
+    Assert.assertTrue(_lessThan_1);
+    int _indexOf_4 = this.events.indexOf("end b");
+    int _indexOf_5 = this.events.indexOf("start d");
+    boolean _lessThan_2 = (_indexOf_4 < _indexOf_5);
+    Assert.assertTrue(_lessThan_2);
+    int _indexOf_6 = this.events.indexOf("end c");
+    int _indexOf_7 = this.events.indexOf("start d");
+    boolean _lessThan_3 = (_indexOf_6 < _indexOf_7);
+    Assert.assertTrue(_lessThan_3);
+    Assert.assertEquals(Collections.<Object>unmodifiableList(CollectionLiterals.<Object>newArrayList()), project2upstream.get("a"));
+    Assert.assertEquals(Collections.<String>unmodifiableList(CollectionLiterals.<String>newArrayList("a")), project2upstream.get("b"));
+    Assert.assertEquals(Collections.<String>unmodifiableList(CollectionLiterals.<String>newArrayList("a")), project2upstream.get("c"));
+    Assert.assertEquals(Collections.<String>unmodifiableList(CollectionLiterals.<String>newArrayList("a", "b", "c")), project2upstream.get("d"));
+  }
+  
+  @Test(timeout = 5000)
+  public void testTransitiveDependencyOutsideOfBuild() {
+    ProjectDescription _projectDescription = new ProjectDescription();
+    final Procedure1<ProjectDescription> _function = (ProjectDescription it) -> {
+      it.setName("a");
+    };
+    final ProjectDescription a = ObjectExtensions.<ProjectDescription>operator_doubleArrow(_projectDescription, _function);
+    ProjectDescription _projectDescription_1 = new ProjectDescription();
+    final Procedure1<ProjectDescription> _function_1 = (ProjectDescription it) -> {
+      it.setName("b");
+      it.setDependencies(Collections.<String>unmodifiableList(CollectionLiterals.<String>newArrayList("a")));
+    };
+    final ProjectDescription b = ObjectExtensions.<ProjectDescription>operator_doubleArrow(_projectDescription_1, _function_1);
+    ProjectDescription _projectDescription_2 = new ProjectDescription();
+    final Procedure1<ProjectDescription> _function_2 = (ProjectDescription it) -> {
+      it.setName("c");
+      it.setDependencies(Collections.<String>unmodifiableList(CollectionLiterals.<String>newArrayList("b")));
+    };
+    final ProjectDescription c = ObjectExtensions.<ProjectDescription>operator_doubleArrow(_projectDescription_2, _function_2);
+    final Function2<ProjectDescription, List<IResourceDescription.Delta>, IncrementalBuilder.Result> _function_3 = (ProjectDescription project, List<IResourceDescription.Delta> upstreamDeltas) -> {
+      String _name = project.getName();
+      String _plus = ("start " + _name);
+      this.record(_plus);
+      String _name_1 = project.getName();
+      boolean _equals = Objects.equal(_name_1, "c");
+      if (_equals) {
+        final Function1<IResourceDescription.Delta, String> _function_4 = (IResourceDescription.Delta it) -> {
+          return it.getUri().segment(0);
+        };
+        Assert.assertEquals(Collections.<String>unmodifiableList(CollectionLiterals.<String>newArrayList("a")), ListExtensions.<IResourceDescription.Delta, String>map(upstreamDeltas, _function_4));
+      }
+      String _name_2 = project.getName();
+      String _plus_1 = ("end " + _name_2);
+      this.record(_plus_1);
+      return this.getResult(project);
+    };
+    final List<IResourceDescription.Delta> deltas = this.createBuildManager(Integer.valueOf(2), a, b, c).build(Collections.<ProjectDescription>unmodifiableList(CollectionLiterals.<ProjectDescription>newArrayList(c, a)), _function_3);
+    Assert.assertEquals(Collections.<String>unmodifiableList(CollectionLiterals.<String>newArrayList("start a", "end a", "start c", "end c")), this.events);
+    final Function1<IResourceDescription.Delta, String> _function_4 = (IResourceDescription.Delta it) -> {
+      return it.getUri().segment(0);
+    };
+    Assert.assertEquals(Collections.<String>unmodifiableList(CollectionLiterals.<String>newArrayList("c", "a")), ListExtensions.<IResourceDescription.Delta, String>map(deltas, _function_4));
+  }
+  
+  @Test(timeout = 5000)
+  public void testFailure() {
+    ProjectDescription _projectDescription = new ProjectDescription();
+    final Procedure1<ProjectDescription> _function = (ProjectDescription it) -> {
+      it.setName("a");
+    };
+    final ProjectDescription a = ObjectExtensions.<ProjectDescription>operator_doubleArrow(_projectDescription, _function);
+    ProjectDescription _projectDescription_1 = new ProjectDescription();
+    final Procedure1<ProjectDescription> _function_1 = (ProjectDescription it) -> {
+      it.setName("b");
+      it.setDependencies(Collections.<String>unmodifiableList(CollectionLiterals.<String>newArrayList("a")));
+    };
+    final ProjectDescription b = ObjectExtensions.<ProjectDescription>operator_doubleArrow(_projectDescription_1, _function_1);
+    ProjectDescription _projectDescription_2 = new ProjectDescription();
+    final Procedure1<ProjectDescription> _function_2 = (ProjectDescription it) -> {
+      it.setName("c");
+    };
+    final ProjectDescription c = ObjectExtensions.<ProjectDescription>operator_doubleArrow(_projectDescription_2, _function_2);
+    final CountDownLatch failed = new CountDownLatch(1);
+    final IllegalStateException failure = new IllegalStateException();
+    try {
+      final Function2<ProjectDescription, List<IResourceDescription.Delta>, IncrementalBuilder.Result> _function_3 = (ProjectDescription project, List<IResourceDescription.Delta> upstreamDeltas) -> {
+        try {
+          String _name = project.getName();
+          String _plus = ("start " + _name);
+          this.record(_plus);
+          String _name_1 = project.getName();
+          boolean _equals = Objects.equal(_name_1, "a");
+          if (_equals) {
+            failed.countDown();
+            throw failure;
+          }
+          failed.await(2, TimeUnit.SECONDS);
+          Thread.sleep(50);
+          String _name_2 = project.getName();
+          String _plus_1 = ("end " + _name_2);
+          this.record(_plus_1);
+          return this.getResult(project);
+        } catch (Throwable _e) {
+          throw Exceptions.sneakyThrow(_e);
+        }
+      };
+      this.createBuildManager(Integer.valueOf(2), a, b, c).build(Collections.<ProjectDescription>unmodifiableList(CollectionLiterals.<ProjectDescription>newArrayList(a, b, c)), _function_3);
+      Assert.fail();
+    } catch (final Throwable _t) {
+      if (_t instanceof IllegalStateException) {
+        final IllegalStateException e = (IllegalStateException)_t;
+        Assert.assertSame(failure, e);
+      } else {
+        throw Exceptions.sneakyThrow(_t);
+      }
+    }
+    Assert.assertFalse(this.events.contains("start b"));
+    Assert.assertTrue(this.events.contains("end c"));
+  }
+  
+  @Test(timeout = 5000)
+  public void testCancellation() {
+    ProjectDescription _projectDescription = new ProjectDescription();
+    final Procedure1<ProjectDescription> _function = (ProjectDescription it) -> {
+      it.setName("a");
+    };
+    final ProjectDescription a = ObjectExtensions.<ProjectDescription>operator_doubleArrow(_projectDescription, _function);
+    ProjectDescription _projectDescription_1 = new ProjectDescription();
+    final Procedure1<ProjectDescription> _function_1 = (ProjectDescription it) -> {
+      it.setName("b");
+      it.setDependencies(Collections.<String>unmodifiableList(CollectionLiterals.<String>newArrayList("a")));
+    };
+    final ProjectDescription b = ObjectExtensions.<ProjectDescription>operator_doubleArrow(_projectDescription_1, _function_1);
+    ProjectDescription _projectDescription_2 = new ProjectDescription();
+    final Procedure1<ProjectDescription> _function_2 = (ProjectDescription it) -> {
+      it.setName("c");
+      it.setDependencies(Collections.<String>unmodifiableList(CollectionLiterals.<String>newArrayList("b")));
+    };
+    final ProjectDescription c = ObjectExtensions.<ProjectDescription>operator_doubleArrow(_projectDescription_2, _function_2);
+    try {
+      final Function2<ProjectDescription, List<IResourceDescription.Delta>, IncrementalBuilder.Result> _function_3 = (ProjectDescription project, List<IResourceDescription.Delta> upstreamDeltas) -> {
+        String _name = project.getName();
+        String _plus = ("start " + _name);
+        this.record(_plus);
+        String _name_1 = project.getName();
+        boolean _equals = Objects.equal(_name_1, "b");
+        if (_equals) {
+          throw new OperationCanceledException();
+        }
+        String _name_2 = project.getName();
+        String _plus_1 = ("end " + _name_2);
+        this.record(_plus_1);
+        return this.getResult(project);
+      };
+      this.createBuildManager(Integer.valueOf(2), a, b, c).build(Collections.<ProjectDescription>unmodifiableList(CollectionLiterals.<ProjectDescription>newArrayList(a, b, c)), _function_3);
+      Assert.fail();
+    } catch (final Throwable _t) {
+      if (_t instanceof OperationCanceledException) {
+      } else {
+        throw Exceptions.sneakyThrow(_t);
+      }
+    }
+    Assert.assertEquals(Collections.<String>unmodifiableList(CollectionLiterals.<String>newArrayList("start a", "end a", "start b")), this.events);
+  }
+  
+  protected BuildManagerTest.TestBuildManager createBuildManager(final Integer parallelProjectBuilds, final ProjectDescription... workspace) {
+    this.injector = Guice.createInjector(new AbstractModule() {
+      @Override
+      protected void configure() {
+        if ((parallelProjectBuilds != null)) {
+          this.bindConstant().annotatedWith(Names.named(BuildManager.PARALLEL_PROJECT_BUILDS)).to((parallelProjectBuilds).intValue());
+        }
+      }
+    });
+    final BuildManagerTest.TestBuildManager result = this.injector.<BuildManagerTest.TestBuildManager>getInstance(BuildManagerTest.TestBuildManager.class);
+    final Procedure1<ProjectDescription> _function = (ProjectDescription it) -> {
+      result.addProject(it);
+    };
+    IterableExtensions.<ProjectDescription>forEach(((Iterable<ProjectDescription>)Conversions.doWrapArray(workspace)), _function);
+    return result;
+  }
+  
+  protected void record(final String event) {
+    synchronized (this.events) {
+      this.events.add(event);
+    }
+  }
+  
+  protected IncrementalBuilder.Result getResult(final ProjectDescription project) {
+    SerializableResourceDescription _serializableResourceDescription = new SerializableResourceDescription();
+    final Procedure1<SerializableResourceDescription> _function = (SerializableResourceDescription it) -> {
+      String _name = project.getName();
+      String _plus = (_name + "/");
+      String _name_1 = project.getName();
+      String _plus_1 = (_plus + _name_1);
+      String _plus_2 = (_plus_1 + ".testlang");
+      it.setURI(URI.createURI(_plus_2));
+    };
+    final SerializableResourceDescription description = ObjectExtensions.<SerializableResourceDescription>operator_doubleArrow(_serializableResourceDescription, _function);
+    DefaultResourceDescriptionDelta _defaultResourceDescriptionDelta = new DefaultResourceDescriptionDelta(null, description);
+    return new IncrementalBuilder.Result(null, Collections.<IResourceDescription.Delta>unmodifiableList(CollectionLiterals.<IResourceDescription.Delta>newArrayList(_defaultResourceDescriptionDelta)));
+  }
+}
@@ -161,6 +161,21 @@ public class DocumentTest {
     ObjectExtensions.<Document>operator_doubleArrow(_document, _function);
   }
   
+  @Test
+  public void testUpdate_sequentialChanges() {
+    Document _document = new Document(Integer.valueOf(1), "foo\nbar");
+    final Procedure1<Document> _function = (Document it) -> {
+      TextEdit _change = this.change(this.position(0, 3), this.position(0, 3), "\nbaz");
+      TextEdit _change_1 = this.change(this.position(2, 0), this.position(2, 3), "zonk");
+      final Document result = it.applyChanges(
+        Collections.<TextEdit>unmodifiableList(CollectionLiterals.<TextEdit>newArrayList(_change, _change_1)));
+      Assert.assertEquals("foo\nbaz\nzonk", result.getContents());
+      Assert.assertEquals(8, result.getOffSet(this.position(2, 0)));
+      Assert.assertEquals(this.position(2, 4), result.getPosition(12));
+    };
+    ObjectExtensions.<Document>operator_doubleArrow(_document, _function);
+  }
+  
   private TextEdit change(final Position startPos, final Position endPos, final String newText) {
     TextEdit _textEdit = new TextEdit();
     final Procedure1<TextEdit> _function = (TextEdit it) -> {
@@ -0,0 +1,221 @@
+/**
+ * Copyright (c) 2018 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.xtext.ide.tests.server;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.name.Names;
+import java.io.File;
+import java.io.FileWriter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.xtend2.lib.StringConcatenation;
+import org.eclipse.xtext.diagnostics.Diagnostic;
+import org.eclipse.xtext.ide.server.IndexSnapshotStore;
+import org.eclipse.xtext.ide.server.ServerModule;
+import org.eclipse.xtext.ide.server.WorkspaceManager;
+import org.eclipse.xtext.util.Files;
+import org.eclipse.xtext.util.Modules2;
+import org.eclipse.xtext.validation.Issue;
+import org.eclipse.xtext.xbase.lib.Conversions;
+import org.eclipse.xtext.xbase.lib.Exceptions;
+import org.eclipse.xtext.xbase.lib.Functions.Function1;
+import org.eclipse.xtext.xbase.lib.IterableExtensions;
+import org.eclipse.xtext.xbase.lib.ObjectExtensions;
+import org.eclipse.xtext.xbase.lib.Procedures.Procedure1;
+import org.eclipse.xtext.xbase.lib.Procedures.Procedure2;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("all")
+public class IndexSnapshotTest {
+  private File workspaceRoot;
+  
+  private File cacheDirectory;
+  
+  private String serverVersion = "1.0";
+  
+  private long saveDelay = (-1);
+  
+  private Map<URI, List<Issue>> diagnostics = new ConcurrentHashMap<URI, List<Issue>>();
+  
+  @Test
+  public void testRestoreSnapshot() {
+    StringConcatenation _builder = new StringConcatenation();
+    _builder.append("type Foo {");
+    _builder.newLine();
+    _builder.append("\t");
+    _builder.append("Bar bar");
+    _builder.newLine();
+    _builder.append("\t");
+    _builder.append("Baz baz");
+    _builder.newLine();
+    _builder.append("}");
+    _builder.newLine();
+    final URI foo = this.createFile("Foo.testlang", _builder);
+    StringConcatenation _builder_1 = new StringConcatenation();
+    _builder_1.append("type Bar {");
+    _builder_1.newLine();
+    _builder_1.append("}");
+    _builder_1.newLine();
+    final URI bar = this.createFile("Bar.testlang", _builder_1);
+    this.initializeWorkspace().saveIndexSnapshots();
+    Assert.assertEquals(1, this.diagnostics.get(foo).size());
+    Assert.assertTrue(this.diagnostics.get(bar).isEmpty());
+    this.diagnostics.clear();
+    final WorkspaceManager workspaceManager = this.initializeWorkspace();
+    Assert.assertEquals(1, this.diagnostics.size());
+    Assert.assertEquals(Diagnostic.LINKING_DIAGNOSTIC, IterableExtensions.<Issue>head(this.diagnostics.get(foo)).getCode());
+    Assert.assertNotNull(workspaceManager.getIndex().getResourceDescription(bar));
+    StringConcatenation _builder_2 = new StringConcatenation();
+    _builder_2.append("type Bar {");
+    _builder_2.newLine();
+    _builder_2.append("}");
+    _builder_2.newLine();
+    _builder_2.append("type Baz {");
+    _builder_2.newLine();
+    _builder_2.append("}");
+    _builder_2.newLine();
+    this.createFile("Bar.testlang", _builder_2);
+    this.diagnostics.clear();
+    this.initializeWorkspace();
+    Assert.assertEquals(2, this.diagnostics.size());
+    Assert.assertTrue(this.diagnostics.get(foo).isEmpty());
+    Assert.assertTrue(this.diagnostics.get(bar).isEmpty());
+  }
+  
+  @Test
+  public void testDiscardSnapshotOfOtherVersion() {
+    StringConcatenation _builder = new StringConcatenation();
+    _builder.append("type Foo {");
+    _builder.newLine();
+    _builder.append("\t");
+    _builder.append("Bar bar");
+    _builder.newLine();
+    _builder.append("}");
+    _builder.newLine();
+    final URI foo = this.createFile("Foo.testlang", _builder);
+    StringConcatenation _builder_1 = new StringConcatenation();
+    _builder_1.append("type Bar {");
+    _builder_1.newLine();
+    _builder_1.append("}");
+    _builder_1.newLine();
+    final URI bar = this.createFile("Bar.testlang", _builder_1);
+    this.initializeWorkspace().saveIndexSnapshots();
+    this.serverVersion = "2.0";
+    this.diagnostics.clear();
+    this.initializeWorkspace();
+    Assert.assertEquals(2, this.diagnostics.size());
+    Assert.assertTrue(this.diagnostics.get(foo).isEmpty());
+    Assert.assertTrue(this.diagnostics.get(bar).isEmpty());
+  }
+  
+  @Test(timeout = 10000)
+  public void testSaveSnapshotInBackground() {
+    try {
+      StringConcatenation _builder = new StringConcatenation();
+      _builder.append("type Foo {");
+      _builder.newLine();
+      _builder.append("\t");
+      _builder.append("Bar bar");
+      _builder.newLine();
+      _builder.append("\t");
+      _builder.append("Baz baz");
+      _builder.newLine();
+      _builder.append("}");
+      _builder.newLine();
+      final URI foo = this.createFile("Foo.testlang", _builder);
+      StringConcatenation _builder_1 = new StringConcatenation();
+      _builder_1.append("type Bar {");
+      _builder_1.newLine();
+      _builder_1.append("}");
+      _builder_1.newLine();
+      this.createFile("Bar.testlang", _builder_1);
+      this.saveDelay = 0;
+      this.initializeWorkspace();
+      while ((!IterableExtensions.<String>exists(((Iterable<String>)Conversions.doWrapArray(this.cacheDirectory.list())), ((Function1<String, Boolean>) (String it) -> {
+        return Boolean.valueOf(it.endsWith(".index"));
+      })))) {
+        Thread.sleep(10);
+      }
+      this.saveDelay = (-1);
+      this.diagnostics.clear();
+      this.initializeWorkspace();
+      Assert.assertEquals(1, this.diagnostics.size());
+      Assert.assertEquals(Diagnostic.LINKING_DIAGNOSTIC, IterableExtensions.<Issue>head(this.diagnostics.get(foo)).getCode());
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+  
+  @Before
+  public void setup() {
+    this.workspaceRoot = this.getRoot("snapshot-test-data");
+    this.cacheDirectory = this.getRoot("snapshot-test-cache");
+  }
+  
+  protected WorkspaceManager initializeWorkspace() {
+    ServerModule _serverModule = new ServerModule();
+    final Injector injector = Guice.createInjector(Modules2.mixin(_serverModule, new AbstractModule() {
+      @Override
+      protected void configure() {
+        this.bindConstant().annotatedWith(Names.named(IndexSnapshotStore.CACHE_DIRECTORY)).to(IndexSnapshotTest.this.cacheDirectory.getAbsolutePath());
+        this.bindConstant().annotatedWith(Names.named(IndexSnapshotStore.VERSION)).to(IndexSnapshotTest.this.serverVersion);
+        this.bindConstant().annotatedWith(Names.named(IndexSnapshotStore.SAVE_DELAY)).to(IndexSnapshotTest.this.saveDelay);
+      }
+    }));
+    final WorkspaceManager workspaceManager = injector.<WorkspaceManager>getInstance(WorkspaceManager.class);
+    final Procedure2<URI, Iterable<Issue>> _function = (URI $0, Iterable<Issue> $1) -> {
+      this.diagnostics.put($0, IterableExtensions.<Issue>toList($1));
+    };
+    workspaceManager.initialize(URI.createFileURI(this.workspaceRoot.getAbsolutePath()), _function, null);
+    return workspaceManager;
+  }
+  
+  protected File getRoot(final String path) {
+    try {
+      File _xblockexpression = null;
+      {
+        final File root = new File(path);
+        boolean _mkdirs = root.mkdirs();
+        boolean _not = (!_mkdirs);
+        if (_not) {
+          Files.cleanFolder(root, null, true, false);
+        }
+        root.deleteOnExit();
+        _xblockexpression = root;
+      }
+      return _xblockexpression;
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+  
+  public URI createFile(final String path, final CharSequence contents) {
+    try {
+      final File file = new File(this.workspaceRoot, path);
+      FileWriter _fileWriter = new FileWriter(file);
+      final Procedure1<FileWriter> _function = (FileWriter it) -> {
+        try {
+          it.write(contents.toString());
+          it.close();
+        } catch (Throwable _e) {
+          throw Exceptions.sneakyThrow(_e);
+        }
+      };
+      ObjectExtensions.<FileWriter>operator_doubleArrow(_fileWriter, _function);
+      return URI.createFileURI(file.getAbsolutePath());
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+}
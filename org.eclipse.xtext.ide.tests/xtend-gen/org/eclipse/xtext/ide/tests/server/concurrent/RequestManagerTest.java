@@ -8,12 +8,18 @@
 package org.eclipse.xtext.ide.tests.server.concurrent;
 
 import com.google.inject.Guice;
+import com.google.inject.Binder;
 import com.google.inject.Inject;
+import com.google.inject.Module;
+import com.google.inject.name.Names;
+import com.google.inject.util.Modules;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.eclipse.xtext.ide.server.ServerModule;
 import org.eclipse.xtext.ide.server.concurrent.RequestManager;
+import org.eclipse.xtext.ide.server.concurrent.RequestStatistics;
 import org.eclipse.xtext.util.CancelIndicator;
 import org.eclipse.xtext.xbase.lib.Exceptions;
 import org.eclipse.xtext.xbase.lib.Functions.Function0;
@@ -198,4 +204,134 @@ public class RequestManagerTest {
       throw Exceptions.sneakyThrow(_e);
     }
   }
+  
+  @Test(timeout = 1000)
+  public void testRunningReadIsNotCanceledByWrite() {
+    try {
+      this.requestManager.setCancelRunningReads(false);
+      final Function1<CancelIndicator, String> _function = (CancelIndicator it) -> {
+        try {
+          this.sharedState.incrementAndGet();
+          Thread.sleep(50);
+          return "Foo";
+        } catch (Throwable _e) {
+          throw Exceptions.sneakyThrow(_e);
+        }
+      };
+      final CompletableFuture<String> future = this.requestManager.<String>runRead(_function);
+      while ((this.sharedState.get() == 0)) {
+        Thread.sleep(10);
+      }
+      final Function0<Object> _function_1 = () -> {
+        return null;
+      };
+      final Function2<CancelIndicator, Object, Integer> _function_2 = (CancelIndicator $0, Object $1) -> {
+        return Integer.valueOf(this.sharedState.incrementAndGet());
+      };
+      this.requestManager.<Object, Integer>runWrite(_function_1, _function_2).join();
+      Assert.assertEquals("Foo", future.get());
+      Assert.assertEquals(2, this.sharedState.get());
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+  
+  @Test(timeout = 1000)
+  public void testCoalesceWrites() {
+    try {
+      this.requestManager.shutdown();
+      ServerModule _serverModule = new ServerModule();
+      final Module _function = (Binder it) -> {
+        it.bindConstant().annotatedWith(Names.named(RequestManager.COALESCING_WINDOW)).to(50L);
+      };
+      this.requestManager = Guice.createInjector(Modules.override(_serverModule).with(_function)).<RequestManager>getInstance(RequestManager.class);
+      Assert.assertEquals(50, this.requestManager.getCoalescingWindow());
+      final AtomicInteger writes = new AtomicInteger();
+      final Function0<Integer> _function_1 = () -> {
+        return Integer.valueOf(writes.incrementAndGet());
+      };
+      final Function0<Integer> write = _function_1;
+      final Function2<CancelIndicator, Integer, Integer> _function_2 = (CancelIndicator $0, Integer $1) -> {
+        return Integer.valueOf(this.sharedState.incrementAndGet());
+      };
+      final Function2<CancelIndicator, Integer, Integer> build = _function_2;
+      final CompletableFuture<Integer> first = this.requestManager.<Integer, Integer>runWrite(write, build);
+      final CompletableFuture<Integer> second = this.requestManager.<Integer, Integer>runWrite(write, build);
+      final CompletableFuture<Integer> third = this.requestManager.<Integer, Integer>runWrite(write, build);
+      Assert.assertEquals(1, (third.get()).intValue());
+      Assert.assertTrue(first.isCancelled());
+      Assert.assertTrue(second.isCancelled());
+      Assert.assertEquals(3, writes.get());
+      Assert.assertEquals(1, this.sharedState.get());
+      Assert.assertEquals(2, this.requestManager.getStatistics().getCoalescedWrites());
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+  
+  @Test(timeout = 1000)
+  public void testRunReadAfterDelayedWrite() {
+    try {
+      this.requestManager.setCoalescingWindow(50);
+      final Function0<Object> _function = () -> {
+        return null;
+      };
+      final Function2<CancelIndicator, Object, Integer> _function_1 = (CancelIndicator $0, Object $1) -> {
+        return Integer.valueOf(this.sharedState.incrementAndGet());
+      };
+      this.requestManager.<Object, Integer>runWrite(_function, _function_1);
+      final Function1<CancelIndicator, Integer> _function_2 = (CancelIndicator it) -> {
+        return Integer.valueOf(this.sharedState.get());
+      };
+      final CompletableFuture<Integer> future = this.requestManager.<Integer>runRead(_function_2);
+      Assert.assertEquals(1, (future.get()).intValue());
+      Assert.assertEquals(0, this.requestManager.getStatistics().getCoalescedWrites());
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+  
+  @Test(timeout = 1000)
+  public void testShutdownCancelsDelayedRequests() {
+    this.requestManager.setCoalescingWindow(5000);
+    final Function0<Object> _function = () -> {
+      return null;
+    };
+    final Function2<CancelIndicator, Object, Integer> _function_1 = (CancelIndicator $0, Object $1) -> {
+      return Integer.valueOf(this.sharedState.incrementAndGet());
+    };
+    final CompletableFuture<Integer> write = this.requestManager.<Object, Integer>runWrite(_function, _function_1);
+    final Function1<CancelIndicator, Integer> _function_2 = (CancelIndicator it) -> {
+      return Integer.valueOf(this.sharedState.get());
+    };
+    final CompletableFuture<Integer> read = this.requestManager.<Integer>runRead(_function_2);
+    this.requestManager.shutdown();
+    Assert.assertTrue(write.isCancelled());
+    Assert.assertTrue(read.isCancelled());
+    Assert.assertEquals(0, this.sharedState.get());
+  }
+  
+  @Test(timeout = 1000)
+  public void testStatistics() {
+    final Function0<Object> _function = () -> {
+      return null;
+    };
+    final Function2<CancelIndicator, Object, Integer> _function_1 = (CancelIndicator $0, Object $1) -> {
+      return Integer.valueOf(this.sharedState.incrementAndGet());
+    };
+    this.requestManager.<Object, Integer>runWrite(_function, _function_1);
+    final Function1<CancelIndicator, Integer> _function_2 = (CancelIndicator it) -> {
+      return Integer.valueOf(this.sharedState.get());
+    };
+    this.requestManager.<Integer>runRead(_function_2).join();
+    final RequestStatistics statistics = this.requestManager.getStatistics();
+    Assert.assertEquals(2, statistics.getStartedRequests());
+    Assert.assertEquals(0, statistics.getQueueDepth());
+    int _maxQueueDepth = statistics.getMaxQueueDepth();
+    boolean _greaterEqualsThan = (_maxQueueDepth >= 1);
+    Assert.assertTrue(_greaterEqualsThan);
+    statistics.reset();
+    Assert.assertEquals(0, statistics.getStartedRequests());
+    Assert.assertEquals(0, statistics.getTotalWaitTime(TimeUnit.NANOSECONDS));
+  }
 }
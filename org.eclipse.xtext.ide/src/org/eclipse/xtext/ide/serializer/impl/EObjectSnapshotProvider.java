@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 TypeFox GmbH (http://www.typefox.io) and others.
+ * Copyright (c) 2017, 2018 TypeFox GmbH (http://www.typefox.io) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,7 @@ package org.eclipse.xtext.ide.serializer.impl;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EObject;
@@ -33,6 +34,7 @@ import org.eclipse.xtext.resource.XtextResource;
 import com.google.common.base.Joiner;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 
@@ -215,7 +217,7 @@ public class EObjectSnapshotProvider {
 		ResourceSet resourceSet = resource.getResourceSet();
 		IResourceDescriptions descriptions = resourceDescriptionsProvider.getResourceDescriptions(resourceSet);
 		URI uri = resource.getURI();
-		for (IResourceDescription desc : descriptions.getAllResourceDescriptions()) {
+		for (IResourceDescription desc : getReferencingDescriptions(descriptions, uri)) {
 			for (IReferenceDescription ref : desc.getReferenceDescriptions()) {
 				URI targetURI = ref.getTargetEObjectUri();
 				URI sourceEObjectUri = ref.getSourceEObjectUri();
@@ -240,6 +242,29 @@ public class EObjectSnapshotProvider {
 
 	}
 
+	/**
+	 * Returns the descriptions that may have references to the resource with the given URI. If the descriptions are
+	 * an {@link IResourceDescriptions.IReferenceIndex}, only the referencing resources and the resource itself are
+	 * returned.
+	 * 
+	 * @since 2.15
+	 */
+	protected Iterable<IResourceDescription> getReferencingDescriptions(IResourceDescriptions descriptions, URI uri) {
+		if (!(descriptions instanceof IResourceDescriptions.IReferenceIndex)) {
+			return descriptions.getAllResourceDescriptions();
+		}
+		Set<URI> uris = Sets.newLinkedHashSet(((IResourceDescriptions.IReferenceIndex) descriptions).getReferencingResources(uri));
+		uris.add(uri);
+		List<IResourceDescription> result = Lists.newArrayListWithExpectedSize(uris.size());
+		for (URI referencing : uris) {
+			IResourceDescription desc = descriptions.getResourceDescription(referencing);
+			if (desc != null) {
+				result.add(desc);
+			}
+		}
+		return result;
+	}
+
 	public IResourceSnapshot createResourceSnapshot(Resource resource, boolean recordReferences) {
 		return new ResourceSnapshot(this, resource, recordReferences);
 	}
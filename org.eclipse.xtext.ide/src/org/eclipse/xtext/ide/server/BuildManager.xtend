@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2017 TypeFox GmbH (http://www.typefox.io) and others.
+ * Copyright (c) 2016, 2018 TypeFox GmbH (http://www.typefox.io) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,14 +10,21 @@ package org.eclipse.xtext.ide.server
 import com.google.common.collect.HashMultimap
 import com.google.inject.Inject
 import com.google.inject.Provider
+import com.google.inject.name.Named
 import java.util.ArrayList
 import java.util.Collection
+import java.util.LinkedList
 import java.util.List
 import java.util.Set
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorCompletionService
+import java.util.concurrent.Future
 import org.eclipse.emf.common.util.URI
 import org.eclipse.xtend.lib.annotations.Accessors
 import org.eclipse.xtend.lib.annotations.Data
+import org.eclipse.xtext.build.IncrementalBuilder.Result
 import org.eclipse.xtext.diagnostics.Severity
+import org.eclipse.xtext.ide.ExecutorServiceProvider
 import org.eclipse.xtext.resource.IResourceDescription
 import org.eclipse.xtext.resource.impl.ProjectDescription
 import org.eclipse.xtext.util.CancelIndicator
@@ -30,9 +37,22 @@ class BuildManager {
     
     public static val CYCLIC_PROJECT_DEPENDENCIES = BuildManager.canonicalName + '.cyclicProjectDependencies'
 
+    /**
+     * The maximum number of projects that are built concurrently. Defaults to 1, i.e. the projects are built one after
+     * the other. Note that the issue acceptor of the workspace may be called concurrently if more than one project is
+     * built.
+     * 
+     * @since 2.15
+     */
+    public static val String PARALLEL_PROJECT_BUILDS = 'org.eclipse.xtext.ide.server.BuildManager.parallelProjectBuilds'
+
     @Accessors(PUBLIC_SETTER)
     WorkspaceManager workspaceManager
     @Inject Provider<TopologicalSorter> sorterProvider
+    @Inject ExecutorServiceProvider executorServiceProvider
+
+    @Inject(optional=true) @Named(PARALLEL_PROJECT_BUILDS)
+    int parallelProjectBuilds = 1
 
     val dirtyFiles = <URI>newLinkedHashSet
     val deletedFiles = <URI>newLinkedHashSet
@@ -54,12 +74,9 @@ class BuildManager {
 
     def List<IResourceDescription.Delta> doInitialBuild(List<ProjectDescription> projects, CancelIndicator indicator) {
         val sortedDescriptions = sortByDependencies(projects)
-        val result = newArrayList
-        for(description : sortedDescriptions) {
-            val partialresult = workspaceManager.getProjectManager(description.name).doInitialBuild(indicator)
-            result.addAll(partialresult.affectedResources)
-        }
-        return result
+        return buildProjects(sortedDescriptions) [ description, upstreamDeltas |
+            workspaceManager.getProjectManager(description.name).doInitialBuild(upstreamDeltas, indicator)
+        ]
     }
 
     protected def List<IResourceDescription.Delta> internalBuild(CancelIndicator cancelIndicator) {
@@ -75,20 +92,110 @@ class BuildManager {
             project2deleted.put(projectManager, deleted)
         }
         val sortedDescriptions = sortByDependencies(project2dirty.keySet + project2deleted.keySet)
-        val result = newArrayList()
-        for(ProjectDescription it: sortedDescriptions) {
+        return buildProjects(sortedDescriptions) [ it, upstreamDeltas |
             val projectManager = workspaceManager.getProjectManager(name)
             val projectDirty = project2dirty.get(it).toList
             val projectDeleted = project2deleted.get(it).toList
-            val partialResult = projectManager.doBuild(projectDirty, projectDeleted, result, cancelIndicator)
-            allDirty.addAll(partialResult.affectedResources.map[uri])
-            this.dirtyFiles -= projectDirty
-            this.deletedFiles -= projectDeleted
-            result.addAll(partialResult.affectedResources)
+            val partialResult = projectManager.doBuild(projectDirty, projectDeleted, upstreamDeltas, cancelIndicator)
+            synchronized (this) {
+                this.dirtyFiles -= projectDirty
+                this.deletedFiles -= projectDeleted
+            }
+            return partialResult
+        ]
+    }
+
+    /**
+     * Builds the given projects, which have to be sorted by their dependencies. A project is built as soon as the
+     * projects it depends on have been built, so independent projects are built concurrently. The build of a project
+     * receives the deltas of the projects it depends on. The returned deltas are ordered like the projects.
+     * <p>
+     * If a build fails or is canceled, no further projects are started. The builds that are already running are
+     * awaited before the failure is rethrown.
+     * 
+     * @since 2.15
+     */
+    protected def List<IResourceDescription.Delta> buildProjects(List<ProjectDescription> sortedDescriptions,
+        (ProjectDescription, List<IResourceDescription.Delta>)=>Result build) {
+        val result = <IResourceDescription.Delta>newArrayList
+        if (parallelProjectBuilds <= 1 || sortedDescriptions.size <= 1) {
+            for (description : sortedDescriptions) {
+                result.addAll(build.apply(description, result).affectedResources)
+            }
+            return result
+        }
+        // the projects to build that each project depends on, including those it only depends on through projects of
+        // the workspace that are not built
+        val names = sortedDescriptions.map[name].toSet
+        val project2upstream = <String, Set<String>>newHashMap
+        for (description : sortedDescriptions) {
+            project2upstream.put(description.name, getUpstreamProjects(description).filter[names.contains(it)].toSet)
+        }
+        val project2deltas = <String, List<IResourceDescription.Delta>>newHashMap
+        val pending = new LinkedList(sortedDescriptions)
+        val running = <Future<Result>, ProjectDescription>newHashMap
+        val completionService = new ExecutorCompletionService<Result>(executorServiceProvider.get(BuildManager.name))
+        var Throwable failure = null
+        while (!running.empty || (failure === null && !pending.empty)) {
+            if (failure === null) {
+                val iterator = pending.iterator
+                while (iterator.hasNext && running.size < parallelProjectBuilds) {
+                    val description = iterator.next
+                    val upstream = project2upstream.get(description.name)
+                    if (upstream.forall[project2deltas.containsKey(it)]) {
+                        iterator.remove
+                        val upstreamDeltas = sortedDescriptions.filter[upstream.contains(name)].map[project2deltas.get(name)].flatten.toList
+                        running.put(completionService.submit[build.apply(description, upstreamDeltas)], description)
+                    }
+                }
+            }
+            val future = completionService.take
+            val description = running.remove(future)
+            try {
+                project2deltas.put(description.name, future.get.affectedResources)
+            } catch (ExecutionException e) {
+                if (failure === null) {
+                    failure = e.cause
+                }
+            }
+        }
+        if (failure !== null) {
+            throw failure
+        }
+        for (description : sortedDescriptions) {
+            result.addAll(project2deltas.get(description.name))
         }
         return result
     }
     
+    /**
+     * Returns the names of the projects that the given project depends on, either directly or through other projects
+     * of the workspace.
+     * 
+     * @since 2.15
+     */
+    protected def Set<String> getUpstreamProjects(ProjectDescription description) {
+        val result = <String>newHashSet
+        val queue = new LinkedList(description.dependencies)
+        while (!queue.empty) {
+            val name = queue.removeFirst
+            if (name != description.name && result.add(name)) {
+                val dependency = getProjectDescription(name)
+                if (dependency !== null) {
+                    queue += dependency.dependencies
+                }
+            }
+        }
+        return result
+    }
+
+    /**
+     * @since 2.15
+     */
+    protected def ProjectDescription getProjectDescription(String projectName) {
+        return workspaceManager.getProjectManager(projectName)?.projectDescription
+    }
+
     protected def sortByDependencies(Iterable<ProjectDescription> projectDescriptions) {
         sorterProvider.get.sortByDependencies(projectDescriptions.toList) [
             workspaceManager.getProjectManager(name).reportDependencyCycle
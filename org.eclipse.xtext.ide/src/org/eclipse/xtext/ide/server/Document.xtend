@@ -8,19 +8,25 @@
 package org.eclipse.xtext.ide.server
 
 import org.eclipse.lsp4j.Position
-import org.eclipse.lsp4j.TextEdit
-import org.eclipse.xtend.lib.annotations.Data
 import org.eclipse.lsp4j.Range
+import org.eclipse.lsp4j.TextEdit
+import org.eclipse.xtext.xbase.lib.util.ToStringBuilder
 
 /**
  * @author Sven Efftinge - Initial contribution and API
  * @since 2.11
  */
-@Data class Document {
+class Document {
+
+    val Integer version
+    val String contents
+    val boolean printSourceOnError
 
-    Integer version
-    String contents
-    boolean printSourceOnError
+    /**
+     * The line index of the contents. Computed lazily unless it was passed in by {@link #applyChanges(Iterable)}.
+     * It is not part of the identity of a document and never modified once it was assigned.
+     */
+    volatile LineIndex lineIndex
 
     new(Integer version, String contents) {
         this(version, contents, true)
@@ -30,31 +36,47 @@ import org.eclipse.lsp4j.Range
      * @since 2.15
      */
     new(Integer version, String contents, boolean printSourceOnError) {
+        this(version, contents, printSourceOnError, null)
+    }
+
+    /**
+     * @since 2.15
+     */
+    protected new(Integer version, String contents, boolean printSourceOnError, LineIndex lineIndex) {
         this.version = version
         this.contents = contents
         this.printSourceOnError = printSourceOnError
+        this.lineIndex = lineIndex
+    }
+
+    /**
+     * @since 2.15
+     */
+    protected def LineIndex getLineIndex() {
+        var result = lineIndex
+        if (result === null) {
+            result = new LineIndex(contents)
+            lineIndex = result
+        }
+        return result
     }
 
     def int getOffSet(Position position) throws IndexOutOfBoundsException {
-        val l = contents.length
-        val char NL = '\n'
-        var line = 0
-        var column = 0
-        for (var i = 0; i < l; i++) {
-            val ch = contents.charAt(i)
-            if (position.line === line && position.character === column) {
-                return i
-            }
-            if (ch === NL) {
-                line++
-                column = 0
-            } else {
-                column++
+        return getOffSet(getLineIndex, position)
+    }
+
+    /**
+     * @since 2.15
+     */
+    protected def int getOffSet(LineIndex index, Position position) throws IndexOutOfBoundsException {
+        val line = position.line
+        if (line >= 0 && line < index.lineCount) {
+            val lineStart = index.getLineStart(line)
+            val column = position.character
+            if (column >= 0 && column <= index.getLineEnd(line) - lineStart) {
+                return lineStart + column
             }
         }
-        if (position.line === line && position.character === column) {
-            return l
-        }
         throw new IndexOutOfBoundsException(position.toString + if (printSourceOnError) "" else (" text was : " + contents))
     }
 
@@ -63,44 +85,49 @@ import org.eclipse.lsp4j.Range
         if (offset < 0 || offset > l)
             throw new IndexOutOfBoundsException(offset + if (printSourceOnError) "" else (" text was : " + contents))
 
-        val char NL = '\n'
-        var line = 0
-        var column = 0
-        for (var i = 0; i < l; i++) {
-            val ch = contents.charAt(i)
-            if (i === offset) {
-                return new Position(line, column)
-            }
-            if (ch === NL) {
-                line++
-                column = 0
-            } else {
-                column++
-            }
-        }
-        return new Position(line, column)
+        val index = getLineIndex
+        val line = index.getLine(offset)
+        return new Position(line, offset - index.getLineStart(line))
     }
-    
+
     def String getSubstring(Range range) {
     		val start = getOffSet(range.start)
     		val end = getOffSet(range.end)
     		return this.contents.substring(start, end)
     }
 
+    /**
+     * Applies the given changes in order, i.e. the range of a change refers to the text that results from the
+     * preceding changes. The changes are recorded in a {@link PieceTable} so the contents are copied only once, and
+     * the line index is updated incrementally.
+     */
     def Document applyChanges(Iterable<? extends TextEdit> changes) {
-        var newContent = contents
+        var newContent = new PieceTable(contents)
+        var newLineIndex = getLineIndex.copy
         for (change : changes) {
             if (change.range === null) {
-                newContent = change.newText
+                newContent = new PieceTable(change.newText)
+                newLineIndex = new LineIndex(change.newText)
             } else {
-                val start = getOffSet(change.range.start)
-                val end = getOffSet(change.range.end)
-                newContent = newContent.substring(0, start) + change.newText + newContent.substring(end)
+                val start = getOffSet(newLineIndex, change.range.start)
+                val end = getOffSet(newLineIndex, change.range.end)
+                newContent.replace(start, end - start, change.newText)
+                newLineIndex.replace(start, end - start, change.newText)
             }
         }
-        return new Document(if (version !== null) version + 1 else null, newContent)
+        return new Document(if (version !== null) version + 1 else null, newContent.toString, true, newLineIndex)
+    }
+
+    @Pure
+    def Integer getVersion() {
+    	version
+    }
+
+    @Pure
+    def String getContents() {
+    	contents
     }
-    
+
     /**
      * @since 2.15
      */
@@ -109,4 +136,32 @@ import org.eclipse.lsp4j.Range
     	printSourceOnError
     }
 
+    @Pure
+    override int hashCode() {
+        val prime = 31
+        var result = 1
+        result = prime * result + if (version === null) 0 else version.hashCode
+        result = prime * result + if (contents === null) 0 else contents.hashCode
+        return prime * result + if (printSourceOnError) 1231 else 1237
+    }
+
+    @Pure
+    override boolean equals(Object obj) {
+        if (this === obj)
+            return true
+        if (obj === null || this.getClass !== obj.getClass)
+            return false
+        val other = obj as Document
+        return version == other.version && contents == other.contents && printSourceOnError === other.printSourceOnError
+    }
+
+    @Pure
+    override String toString() {
+        val b = new ToStringBuilder(this)
+        b.add("version", version)
+        b.add("contents", contents)
+        b.add("printSourceOnError", printSourceOnError)
+        return b.toString
+    }
+
 }
@@ -0,0 +1,362 @@
+/*******************************************************************************
+ * Copyright (c) 2018 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.ide.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.xtext.build.ContentFingerprints;
+import org.eclipse.xtext.build.IndexState;
+import org.eclipse.xtext.build.Source2GeneratedMapping;
+import org.eclipse.xtext.IGrammarAccess;
+import org.eclipse.xtext.diagnostics.Severity;
+import org.eclipse.xtext.resource.IResourceDescription;
+import org.eclipse.xtext.resource.IResourceServiceProvider;
+import org.eclipse.xtext.resource.impl.ProjectDescription;
+import org.eclipse.xtext.resource.impl.ResourceDescriptionsData;
+import org.eclipse.xtext.resource.persistence.SerializableResourceDescription;
+import org.eclipse.xtext.validation.CheckType;
+import org.eclipse.xtext.validation.Issue;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+
+/**
+ * Persists the index state of a project together with the issues of its source files. A {@link ProjectManager}
+ * restores the snapshot on the next start. Since the index state contains the {@link ContentFingerprints fingerprints}
+ * of the built files, only the files whose content has changed are built again. Snapshots are only read and written if
+ * a {@link #CACHE_DIRECTORY cache directory} is configured.
+ * <p>
+ * A snapshot is only restored by the same version of the server and its languages, see {@link #getVersionHash()}.
+ * <p>
+ * Besides on shutdown, the snapshots are {@link #scheduleSave saved in the background} after builds, so a server that
+ * is not shut down properly does not lose the work of the whole session.
+ *
+ * @since 2.15
+ */
+@Singleton
+public class IndexSnapshotStore {
+
+	private static final Logger LOG = Logger.getLogger(IndexSnapshotStore.class);
+
+	/**
+	 * The directory the snapshots are stored in. If it is not bound, no snapshots are used.
+	 */
+	public static final String CACHE_DIRECTORY = "org.eclipse.xtext.ide.server.IndexSnapshotStore.cacheDirectory";
+
+	/**
+	 * The version of the language server. It is part of the {@link #getVersionHash() version hash}, so servers may
+	 * bind it to discard the snapshots of their previous releases.
+	 */
+	public static final String VERSION = "org.eclipse.xtext.ide.server.IndexSnapshotStore.version";
+
+	/**
+	 * The delay in milliseconds after which a snapshot is saved in the background once a project has been built. The
+	 * builds within that delay are covered by the same save. If it is negative, snapshots are only saved on shutdown.
+	 */
+	public static final String SAVE_DELAY = "org.eclipse.xtext.ide.server.IndexSnapshotStore.saveDelay";
+
+	private static final int FORMAT_VERSION = 3;
+
+	public static class Snapshot {
+
+		private final IndexState indexState;
+
+		private final Map<URI, List<Issue>> issues;
+
+		public Snapshot(IndexState indexState, Map<URI, List<Issue>> issues) {
+			this.indexState = indexState;
+			this.issues = issues;
+		}
+
+		public IndexState getIndexState() {
+			return indexState;
+		}
+
+		public Map<URI, List<Issue>> getIssues() {
+			return issues;
+		}
+	}
+
+	@Inject(optional = true)
+	@Named(CACHE_DIRECTORY)
+	private String cacheDirectory;
+
+	@Inject(optional = true)
+	@Named(VERSION)
+	private String version = "";
+
+	@Inject(optional = true)
+	@Named(SAVE_DELAY)
+	private long saveDelay = 30000;
+
+	@Inject
+	private IResourceServiceProvider.Registry languagesRegistry;
+
+	private String versionHash;
+
+	/**
+	 * The snapshots that are going to be saved in the background by file. They are removed and written while holding
+	 * the lock of the store, so a save in the background never overwrites a newer snapshot that has been saved directly.
+	 */
+	private final Map<File, Snapshot> pendingSaves = new ConcurrentHashMap<File, Snapshot>();
+
+	// the thread is only started once a save is scheduled
+	private final ScheduledExecutorService saveExecutor = Executors.newSingleThreadScheduledExecutor(
+			new ThreadFactoryBuilder().setDaemon(true).setNameFormat("IndexSnapshotStore-Save-%d").build());
+
+	public boolean isEnabled() {
+		return cacheDirectory != null && !cacheDirectory.isEmpty();
+	}
+
+	/**
+	 * Returns the snapshot that has been saved for the given project, or <code>null</code> if there is no readable
+	 * snapshot.
+	 */
+	public Snapshot load(ProjectDescription project, URI baseDir) {
+		if (!isEnabled()) {
+			return null;
+		}
+		File file = getSnapshotFile(project, baseDir);
+		if (!file.isFile()) {
+			return null;
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != FORMAT_VERSION || !String.valueOf(baseDir).equals(in.readUTF())) {
+				return null;
+			}
+			if (!getVersionHash().equals(in.readUTF())) {
+				LOG.info("The index snapshot " + file + " has been written by another version, the project will be built from scratch.");
+				return null;
+			}
+			int descriptionCount = in.readInt();
+			List<IResourceDescription> descriptions = new ArrayList<IResourceDescription>(descriptionCount);
+			for (int i = 0; i < descriptionCount; i++) {
+				SerializableResourceDescription description = new SerializableResourceDescription();
+				description.readExternal(in);
+				descriptions.add(description);
+			}
+			Source2GeneratedMapping fileMappings = new Source2GeneratedMapping();
+			fileMappings.readExternal(in);
+			ContentFingerprints fingerprints = new ContentFingerprints();
+			fingerprints.readExternal(in);
+			int issueCount = in.readInt();
+			Map<URI, List<Issue>> issues = new HashMap<URI, List<Issue>>(issueCount);
+			for (int i = 0; i < issueCount; i++) {
+				URI uri = URI.createURI(in.readUTF());
+				int size = in.readInt();
+				List<Issue> fileIssues = new ArrayList<Issue>(size);
+				for (int j = 0; j < size; j++) {
+					fileIssues.add(readIssue(in));
+				}
+				issues.put(uri, fileIssues);
+			}
+			IndexState indexState = new IndexState(new ResourceDescriptionsData(descriptions), fileMappings,
+					fingerprints);
+			return new Snapshot(indexState, issues);
+		} catch (IOException | ClassNotFoundException | RuntimeException e) {
+			LOG.warn("Cannot read the index snapshot " + file + ", the project will be built from scratch.", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Saves the snapshot of the given project. The file is replaced atomically, so a concurrent or interrupted save
+	 * never leaves a partial snapshot behind. A pending {@link #scheduleSave save in the background} is discarded.
+	 */
+	public synchronized void save(ProjectDescription project, URI baseDir, Snapshot snapshot) {
+		if (!isEnabled()) {
+			return;
+		}
+		File file = getSnapshotFile(project, baseDir);
+		pendingSaves.remove(file);
+		write(file, baseDir, snapshot);
+	}
+
+	/**
+	 * Saves the snapshot of the given project in the background once the {@link #SAVE_DELAY save delay} has elapsed.
+	 * If a save of the project is pending already, its snapshot is replaced by the given one.
+	 */
+	public void scheduleSave(ProjectDescription project, URI baseDir, Snapshot snapshot) {
+		if (!isEnabled() || saveDelay < 0) {
+			return;
+		}
+		File file = getSnapshotFile(project, baseDir);
+		if (pendingSaves.put(file, snapshot) == null) {
+			saveExecutor.schedule(() -> savePending(file, baseDir), saveDelay, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private synchronized void savePending(File file, URI baseDir) {
+		Snapshot snapshot = pendingSaves.remove(file);
+		if (snapshot != null) {
+			write(file, baseDir, snapshot);
+		}
+	}
+
+	private void write(File file, URI baseDir, Snapshot snapshot) {
+		File tempFile = null;
+		try {
+			file.getParentFile().mkdirs();
+			tempFile = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+			try (ObjectOutputStream out = new ObjectOutputStream(
+					new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+				out.writeInt(FORMAT_VERSION);
+				out.writeUTF(String.valueOf(baseDir));
+				out.writeUTF(getVersionHash());
+				List<IResourceDescription> descriptions = new ArrayList<IResourceDescription>();
+				for (IResourceDescription description : snapshot.getIndexState().getResourceDescriptions()
+						.getAllResourceDescriptions()) {
+					descriptions.add(description);
+				}
+				out.writeInt(descriptions.size());
+				for (IResourceDescription description : descriptions) {
+					SerializableResourceDescription.createCopy(description).writeExternal(out);
+				}
+				snapshot.getIndexState().getFileMappings().writeExternal(out);
+				snapshot.getIndexState().getFingerprints().writeExternal(out);
+				out.writeInt(snapshot.getIssues().size());
+				for (Map.Entry<URI, List<Issue>> entry : snapshot.getIssues().entrySet()) {
+					out.writeUTF(entry.getKey().toString());
+					out.writeInt(entry.getValue().size());
+					for (Issue issue : entry.getValue()) {
+						writeIssue(out, issue);
+					}
+				}
+			}
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException | RuntimeException e) {
+			LOG.warn("Cannot write the index snapshot " + file, e);
+			if (tempFile != null) {
+				tempFile.delete();
+			}
+		}
+	}
+
+	/**
+	 * Returns the hash of the server and language versions that is stored with the snapshots. It covers the bound
+	 * {@link #VERSION}, the registered file extensions, the grammars of the languages and the versions of the
+	 * libraries that contain their implementation. A library's version is its implementation version if the manifest
+	 * declares one, and its modification time otherwise.
+	 */
+	protected String getVersionHash() {
+		if (versionHash == null) {
+			Hasher hasher = Hashing.murmur3_128().newHasher();
+			hasher.putString(version, StandardCharsets.UTF_8);
+			hashClass(hasher, IndexSnapshotStore.class);
+			List<String> extensions = new ArrayList<String>(languagesRegistry.getExtensionToFactoryMap().keySet());
+			Collections.sort(extensions);
+			for (String extension : extensions) {
+				hasher.putString(extension, StandardCharsets.UTF_8);
+				IResourceServiceProvider language = languagesRegistry
+						.getResourceServiceProvider(URI.createURI("synthetic:/index." + extension));
+				if (language != null) {
+					hashClass(hasher, language.getResourceDescriptionManager().getClass());
+					IGrammarAccess grammarAccess = getGrammarAccess(language);
+					if (grammarAccess != null) {
+						hasher.putString(grammarAccess.getGrammar().getName(), StandardCharsets.UTF_8);
+						hashClass(hasher, grammarAccess.getClass());
+					}
+				}
+			}
+			versionHash = hasher.hash().toString();
+		}
+		return versionHash;
+	}
+
+	private IGrammarAccess getGrammarAccess(IResourceServiceProvider language) {
+		try {
+			return language.get(IGrammarAccess.class);
+		} catch (RuntimeException e) {
+			// not an Xtext language
+			return null;
+		}
+	}
+
+	private void hashClass(Hasher hasher, Class<?> type) {
+		hasher.putString(type.getName(), StandardCharsets.UTF_8);
+		String implementationVersion = type.getPackage() != null ? type.getPackage().getImplementationVersion() : null;
+		if (implementationVersion != null) {
+			hasher.putString(implementationVersion, StandardCharsets.UTF_8);
+			return;
+		}
+		String typeName = type.getName();
+		URL classFile = type.getResource(typeName.substring(typeName.lastIndexOf('.') + 1) + ".class");
+		if (classFile != null) {
+			try {
+				hasher.putLong(classFile.openConnection().getLastModified());
+			} catch (IOException e) {
+				hasher.putString(classFile.toString(), StandardCharsets.UTF_8);
+			}
+		}
+	}
+
+	protected File getSnapshotFile(ProjectDescription project, URI baseDir) {
+		String location = Hashing.murmur3_32().hashString(String.valueOf(baseDir), StandardCharsets.UTF_8).toString();
+		String name = project.getName().replaceAll("[^\\w.-]", "_");
+		return new File(cacheDirectory, name + "-" + location + ".index");
+	}
+
+	protected void writeIssue(ObjectOutputStream out, Issue issue) throws IOException {
+		out.writeObject(issue.getSeverity());
+		out.writeObject(issue.getType());
+		out.writeObject(issue.getCode());
+		out.writeObject(issue.getMessage());
+		out.writeObject(issue.getUriToProblem() != null ? issue.getUriToProblem().toString() : null);
+		out.writeObject(issue.getLineNumber());
+		out.writeObject(issue.getColumn());
+		out.writeObject(issue.getOffset());
+		out.writeObject(issue.getLength());
+		out.writeBoolean(issue.isSyntaxError());
+		out.writeObject(issue.getData());
+	}
+
+	protected Issue readIssue(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		Issue.IssueImpl result = new Issue.IssueImpl();
+		result.setSeverity((Severity) in.readObject());
+		result.setType((CheckType) in.readObject());
+		result.setCode((String) in.readObject());
+		result.setMessage((String) in.readObject());
+		String uriToProblem = (String) in.readObject();
+		result.setUriToProblem(uriToProblem != null ? URI.createURI(uriToProblem) : null);
+		result.setLineNumber((Integer) in.readObject());
+		result.setColumn((Integer) in.readObject());
+		result.setOffset((Integer) in.readObject());
+		result.setLength((Integer) in.readObject());
+		result.setSyntaxError(in.readBoolean());
+		result.setData((String[]) in.readObject());
+		return result;
+	}
+
+}
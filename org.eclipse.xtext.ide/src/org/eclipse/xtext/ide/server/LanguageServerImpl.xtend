@@ -176,6 +176,7 @@ import static org.eclipse.xtext.diagnostics.Severity.*
 		result.capabilities = capabilities
 		
 		access.addBuildListener(this);
+		access.addBuildListener(workspaceSymbolService);
 		
 		return requestManager.runWrite([
 			workspaceManager.initialize(baseDir, [this.publishDiagnostics($0, $1)], CancelIndicator.NullImpl)
@@ -212,7 +213,10 @@ import static org.eclipse.xtext.diagnostics.Severity.*
 
 	override CompletableFuture<Object> shutdown() {
 		this.hasShutdownBeenCalled = true;
-		return CompletableFuture.completedFuture(new Object());
+		return requestManager.runWrite([
+			workspaceManager.saveIndexSnapshots
+			return new Object
+		], [cancelIndicator, result|result])
 	}
 
 	override TextDocumentService getTextDocumentService() {
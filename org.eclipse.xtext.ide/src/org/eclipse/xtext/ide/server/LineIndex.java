@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2018 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.ide.server;
+
+import java.util.Arrays;
+
+/**
+ * The start offsets of the lines of a text. Lines are separated by <code>'\n'</code>, a preceding <code>'\r'</code> is
+ * considered part of the line. Offsets are converted to lines with a binary search, and the index can be updated for
+ * a replaced region without scanning the complete text again.
+ * <p>
+ * Instances are not thread-safe. A {@link Document} never modifies the index once it was published.
+ *
+ * @since 2.15
+ */
+public class LineIndex {
+
+	private int[] lineStarts;
+
+	private int lineCount;
+
+	private int length;
+
+	public LineIndex(CharSequence text) {
+		this.lineStarts = new int[16];
+		this.lineCount = 1;
+		this.length = text.length();
+		for (int i = 0; i < length; i++) {
+			if (text.charAt(i) == '\n') {
+				ensureCapacity(lineCount + 1);
+				lineStarts[lineCount++] = i + 1;
+			}
+		}
+	}
+
+	protected LineIndex(LineIndex original) {
+		this.lineStarts = Arrays.copyOf(original.lineStarts, original.lineCount);
+		this.lineCount = original.lineCount;
+		this.length = original.length;
+	}
+
+	public LineIndex copy() {
+		return new LineIndex(this);
+	}
+
+	/**
+	 * @return the length of the indexed text.
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	public int getLineCount() {
+		return lineCount;
+	}
+
+	/**
+	 * @return the offset of the first character of the given zero-based line.
+	 */
+	public int getLineStart(int line) throws IndexOutOfBoundsException {
+		checkLine(line);
+		return lineStarts[line];
+	}
+
+	/**
+	 * @return the offset of the line break that terminates the given zero-based line, or the length of the text for
+	 *         the last line.
+	 */
+	public int getLineEnd(int line) throws IndexOutOfBoundsException {
+		checkLine(line);
+		if (line + 1 < lineCount)
+			return lineStarts[line + 1] - 1;
+		return length;
+	}
+
+	/**
+	 * @return the zero-based line that contains the given offset.
+	 */
+	public int getLine(int offset) throws IndexOutOfBoundsException {
+		if (offset < 0 || offset > length)
+			throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length);
+		int low = 0;
+		int high = lineCount - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (lineStarts[mid] <= offset) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Updates the index after the region at <code>offset</code> with the given length has been replaced by the given
+	 * text. Only the new text is scanned for line breaks, the following line starts are shifted.
+	 */
+	public void replace(int offset, int replacedLength, CharSequence text) throws IndexOutOfBoundsException {
+		int end = offset + replacedLength;
+		if (offset < 0 || replacedLength < 0 || end > length)
+			throw new IndexOutOfBoundsException("offset: " + offset + ", replaced length: " + replacedLength
+					+ ", length: " + length);
+		int textLength = text.length();
+		int newLines = 0;
+		for (int i = 0; i < textLength; i++) {
+			if (text.charAt(i) == '\n')
+				newLines++;
+		}
+		// the line starts in the range (offset, end] belong to the replaced text
+		int first = getLine(offset) + 1;
+		int last = getLine(end) + 1;
+		int newLineCount = lineCount - (last - first) + newLines;
+		ensureCapacity(newLineCount);
+		int delta = textLength - replacedLength;
+		System.arraycopy(lineStarts, last, lineStarts, first + newLines, lineCount - last);
+		for (int i = first + newLines; i < newLineCount; i++) {
+			lineStarts[i] += delta;
+		}
+		int line = first;
+		for (int i = 0; i < textLength; i++) {
+			if (text.charAt(i) == '\n')
+				lineStarts[line++] = offset + i + 1;
+		}
+		lineCount = newLineCount;
+		length += delta;
+	}
+
+	private void checkLine(int line) {
+		if (line < 0 || line >= lineCount)
+			throw new IndexOutOfBoundsException("line: " + line + ", line count: " + lineCount);
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > lineStarts.length) {
+			lineStarts = Arrays.copyOf(lineStarts, Math.max(capacity, lineStarts.length + (lineStarts.length >> 1)));
+		}
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + " [lineCount=" + lineCount + ", length=" + length + "]";
+	}
+}
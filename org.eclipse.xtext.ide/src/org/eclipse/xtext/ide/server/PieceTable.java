@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2018 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.ide.server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A text buffer that records replacements as a sequence of pieces of the original text and of an append-only buffer
+ * for inserted text. Applying a replacement does not copy the text, the final contents are assembled once by
+ * {@link #toString()}. Used by {@link Document#applyChanges(Iterable)} for a batch of edits.
+ * <p>
+ * Instances are not thread-safe.
+ *
+ * @since 2.15
+ */
+public class PieceTable {
+
+	private static class Piece {
+		private final boolean added;
+		private final int start;
+		private final int length;
+
+		private Piece(boolean added, int start, int length) {
+			this.added = added;
+			this.start = start;
+			this.length = length;
+		}
+	}
+
+	private final String original;
+
+	private final StringBuilder added = new StringBuilder();
+
+	private final List<Piece> pieces = new ArrayList<Piece>();
+
+	private int length;
+
+	public PieceTable(String original) {
+		this.original = original;
+		this.length = original.length();
+		if (length > 0) {
+			pieces.add(new Piece(false, 0, length));
+		}
+	}
+
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * Replaces the region at <code>offset</code> with the given length by the given text.
+	 */
+	public void replace(int offset, int replacedLength, String text) throws IndexOutOfBoundsException {
+		int end = offset + replacedLength;
+		if (offset < 0 || replacedLength < 0 || end > length)
+			throw new IndexOutOfBoundsException("offset: " + offset + ", replaced length: " + replacedLength
+					+ ", length: " + length);
+		int first = split(offset);
+		int last = split(end);
+		pieces.subList(first, last).clear();
+		if (!text.isEmpty()) {
+			pieces.add(first, new Piece(true, added.length(), text.length()));
+			added.append(text);
+		}
+		length += text.length() - replacedLength;
+	}
+
+	/**
+	 * Makes sure that a piece starts at the given offset and returns its index.
+	 */
+	private int split(int offset) {
+		int pieceStart = 0;
+		for (int i = 0; i < pieces.size(); i++) {
+			if (pieceStart == offset)
+				return i;
+			Piece piece = pieces.get(i);
+			int pieceEnd = pieceStart + piece.length;
+			if (offset < pieceEnd) {
+				int head = offset - pieceStart;
+				pieces.set(i, new Piece(piece.added, piece.start, head));
+				pieces.add(i + 1, new Piece(piece.added, piece.start + head, piece.length - head));
+				return i + 1;
+			}
+			pieceStart = pieceEnd;
+		}
+		return pieces.size();
+	}
+
+	@Override
+	public String toString() {
+		if (pieces.size() == 1 && !pieces.get(0).added && length == original.length())
+			return original;
+		StringBuilder result = new StringBuilder(length);
+		for (Piece piece : pieces) {
+			if (piece.added) {
+				result.append(added, piece.start, piece.start + piece.length);
+			} else {
+				result.append(original, piece.start, piece.start + piece.length);
+			}
+		}
+		return result.toString();
+	}
+}
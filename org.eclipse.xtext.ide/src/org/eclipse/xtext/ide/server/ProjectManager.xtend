@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2017 TypeFox GmbH (http://www.typefox.io) and others.
+ * Copyright (c) 2016, 2018 TypeFox GmbH (http://www.typefox.io) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -9,8 +9,11 @@ package org.eclipse.xtext.ide.server
 
 import com.google.inject.Inject
 import com.google.inject.Provider
+import com.google.inject.name.Named
+import java.util.HashMap
 import java.util.List
 import java.util.Map
+import java.util.concurrent.ConcurrentHashMap
 import org.eclipse.emf.common.util.URI
 import org.eclipse.emf.ecore.resource.Resource
 import org.eclipse.xtend.lib.annotations.Accessors
@@ -19,6 +22,7 @@ import org.eclipse.xtext.build.IncrementalBuilder
 import org.eclipse.xtext.build.IncrementalBuilder.Result
 import org.eclipse.xtext.build.IndexState
 import org.eclipse.xtext.diagnostics.Severity
+import org.eclipse.xtext.ide.server.IndexSnapshotStore.Snapshot
 import org.eclipse.xtext.resource.IExternalContentSupport
 import org.eclipse.xtext.resource.IExternalContentSupport.IExternalContentProvider
 import org.eclipse.xtext.resource.IResourceServiceProvider
@@ -26,6 +30,7 @@ import org.eclipse.xtext.resource.XtextResourceSet
 import org.eclipse.xtext.resource.impl.ChunkedResourceDescriptions
 import org.eclipse.xtext.resource.impl.ProjectDescription
 import org.eclipse.xtext.resource.impl.ResourceDescriptionsData
+import org.eclipse.xtext.resource.impl.ResourceDescriptionsPager
 import org.eclipse.xtext.util.CancelIndicator
 import org.eclipse.xtext.util.IFileSystemScanner
 import org.eclipse.xtext.validation.Issue
@@ -39,11 +44,31 @@ import org.eclipse.xtext.resource.IResourceDescription
  */
 class ProjectManager {
     
+    /**
+     * Whether generated files whose contents are unchanged are not written again, so their time stamps stay untouched,
+     * e.g. if the client watches them. Defaults to <code>false</code>.
+     * 
+     * @see BuildRequest#isSkipUnchangedWrites()
+     * @since 2.15
+     */
+    public static val String SKIP_UNCHANGED_WRITES = 'org.eclipse.xtext.ide.server.ProjectManager.skipUnchangedWrites'
+    
     @Inject protected IncrementalBuilder incrementalBuilder
     @Inject protected Provider<XtextResourceSet> resourceSetProvider
     @Inject protected IResourceServiceProvider.Registry languagesRegistry
     @Inject protected IFileSystemScanner fileSystemScanner
     @Inject protected IExternalContentSupport externalContentSupport
+    /**
+     * @since 2.15
+     */
+    @Inject protected IndexSnapshotStore snapshotStore
+    /**
+     * @since 2.15
+     */
+    @Inject protected ResourceDescriptionsPager pager
+    
+    @Inject(optional=true) @Named(SKIP_UNCHANGED_WRITES)
+    boolean skipUnchangedWrites = false
     
     @Accessors(PUBLIC_GETTER)
     IndexState indexState = new IndexState
@@ -62,6 +87,9 @@ class ProjectManager {
     ProjectDescription projectDescription
     IProjectConfig projectConfig
     
+    // the issues of the built files, only recorded if snapshots are enabled
+    val Map<URI, List<Issue>> issues = new ConcurrentHashMap
+    
     def void initialize(ProjectDescription description, IProjectConfig projectConfig, (URI, Iterable<Issue>)=>void acceptor, IExternalContentProvider openedDocumentsContentProvider, Provider<Map<String, ResourceDescriptionsData>> indexProvider, CancelIndicator cancelIndicator) {
         this.projectDescription = description
         this.projectConfig = projectConfig
@@ -72,40 +100,121 @@ class ProjectManager {
     }
     
     def Result doInitialBuild(CancelIndicator cancelIndicator) {
+        return doInitialBuild(emptyList, cancelIndicator)
+    }
+
+    /**
+     * Builds all source files of the project. If a {@link IndexSnapshotStore snapshot} of the project has been saved,
+     * its index state is restored and only the files whose content has changed are built together with the files that
+     * are affected by the external deltas. The issues of the other files are reported from the snapshot.
+     * 
+     * @since 2.15
+     */
+    def Result doInitialBuild(List<IResourceDescription.Delta> externalDeltas, CancelIndicator cancelIndicator) {
         val uris = newArrayList
         projectConfig.sourceFolders.forEach [
             fileSystemScanner.scan(path) [uris += it]
         ] 
-        return doBuild(uris, emptyList, emptyList, cancelIndicator)        
-    } 
+        val snapshot = snapshotStore.load(projectDescription, baseDir)
+        if (snapshot === null) {
+            return doBuild(uris, emptyList, emptyList, cancelIndicator)
+        }
+        indexState = snapshot.indexState
+        indexProvider.get.put(projectDescription.name, indexState.resourceDescriptions)
+        val existing = uris.toSet
+        val deletedFiles = indexState.resourceDescriptions.allURIs.filter[!existing.contains(it)].toList
+        for (entry : snapshot.issues.entrySet) {
+            if (existing.contains(entry.key)) {
+                issues.put(entry.key, entry.value)
+            }
+        }
+        // the files whose content still matches their fingerprint in the restored index state are skipped
+        val result = doBuild(uris, deletedFiles, externalDeltas, cancelIndicator)
+        for (entry : snapshot.issues.entrySet) {
+            if (issues.get(entry.key) === entry.value && !entry.value.empty) {
+                issueAcceptor.apply(entry.key, entry.value)
+            }
+        }
+        return result
+    }
+
+    /**
+     * Saves a snapshot of the index state of the project, if snapshots are enabled.
+     * 
+     * @since 2.15
+     */
+    def void saveSnapshot() {
+        snapshotStore.save(projectDescription, baseDir, new Snapshot(indexState, new HashMap(issues)))
+    }
 
     def Result doBuild(List<URI> dirtyFiles, List<URI> deletedFiles, List<IResourceDescription.Delta> externalDeltas, CancelIndicator cancelIndicator) {
         val request = newBuildRequest(dirtyFiles, deletedFiles, externalDeltas, cancelIndicator)
         val result = incrementalBuilder.build(request, [
             languagesRegistry.getResourceServiceProvider(it)
         ])
-        indexState = result.indexState
+        pager.release(indexState.resourceDescriptions)
+        indexState = page(result.indexState)
         resourceSet = request.resourceSet
+        if (pager.enabled) {
+            ChunkedResourceDescriptions.findInEmfObject(resourceSet).setContainer(projectDescription.name, indexState.resourceDescriptions)
+        }
         indexProvider.get.put(projectDescription.name, indexState.resourceDescriptions)
+        for (deleted : deletedFiles) {
+            issues.remove(deleted)
+        }
+        if (snapshotStore.enabled) {
+            // saved in the background, so the snapshot is not lost if the server is not shut down properly
+            snapshotStore.scheduleSave(projectDescription, baseDir, new Snapshot(indexState, new HashMap(issues)))
+        }
         return result;
     }
 
     protected def BuildRequest newBuildRequest(List<URI> changedFiles, List<URI> deletedFiles, List<IResourceDescription.Delta> externalDeltas, CancelIndicator cancelIndicator) {
         new BuildRequest => [
             it.baseDir = baseDir
-            it.state = new IndexState(indexState.resourceDescriptions.copy, indexState.fileMappings.copy)
+            it.state = indexState.copy
             it.resourceSet = createFreshResourceSet(state.resourceDescriptions)
             it.dirtyFiles = changedFiles
             it.deletedFiles = deletedFiles
             it.externalDeltas = externalDeltas
+            // a restored snapshot only pays off if the files that have not changed are skipped
+            it.skipUnchangedFiles = snapshotStore.enabled
+            it.skipUnchangedWrites = this.skipUnchangedWrites
             afterValidate = [ uri, issues |
                 issueAcceptor.apply(uri, issues)
+                if (snapshotStore.enabled) {
+                    recordIssues(uri, issues)
+                }
                 return true
             ]
             it.cancelIndicator = cancelIndicator
+            it.workerResourceSetProvider = [createNewResourceSet(state.resourceDescriptions)]
         ]
     }
 
+	/**
+	 * Hands the index of the project to the {@link ResourceDescriptionsPager pager}, so it can be paged out while
+	 * other projects are worked on.
+	 * 
+	 * @since 2.15
+	 */
+	protected def IndexState page(IndexState state) {
+		val paged = pager.page(projectDescription.name, state.resourceDescriptions)
+		if (paged === state.resourceDescriptions) {
+			return state
+		}
+		return new IndexState(paged, state.fileMappings, state.fingerprints)
+	}
+
+	/**
+	 * Records the issues of a built file for the next snapshot.
+	 * 
+	 * @since 2.15
+	 */
+	protected def void recordIssues(URI uri, Iterable<Issue> fileIssues) {
+		issues.put(uri, fileIssues.toList)
+	}
+
 	def XtextResourceSet createNewResourceSet(ResourceDescriptionsData newIndex) {
 		resourceSetProvider.get => [
             projectDescription.attachToEmfObject(it)
@@ -14,6 +14,7 @@ import java.util.HashSet
 import java.util.List
 import java.util.Map
 import java.util.Set
+import java.util.concurrent.ConcurrentHashMap
 import org.eclipse.emf.common.util.URI
 import org.eclipse.lsp4j.TextEdit
 import org.eclipse.lsp4j.jsonrpc.ResponseErrorException
@@ -56,7 +57,7 @@ import org.eclipse.xtext.workspace.IWorkspaceConfig
 		this.buildListeners += listener
 	}
 
-	Map<String, ResourceDescriptionsData> fullIndex = newHashMap()
+	Map<String, ResourceDescriptionsData> fullIndex = new ConcurrentHashMap
 
 	Map<URI, Document> openDocuments = newHashMap()
 
@@ -166,6 +167,17 @@ import org.eclipse.xtext.workspace.IWorkspaceConfig
 		new ArrayList(projectName2ProjectManager.values)
 	}
 
+	/**
+	 * Saves the index snapshots of all projects, if snapshots are enabled.
+	 * 
+	 * @since 2.15
+	 */
+	def void saveIndexSnapshots() {
+		for (projectManager : projectName2ProjectManager.values) {
+			projectManager.saveSnapshot
+		}
+	}
+
 	def didChange(URI uri, Integer version, Iterable<TextEdit> changes, CancelIndicator cancelIndicator) {
 		didChange(uri, version, changes).build(cancelIndicator)
 	}
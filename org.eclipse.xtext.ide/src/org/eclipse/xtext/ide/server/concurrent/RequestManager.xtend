@@ -9,10 +9,14 @@ package org.eclipse.xtext.ide.server.concurrent
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder
 import com.google.inject.Inject
+import com.google.inject.name.Named
 import java.util.concurrent.CompletableFuture
 import java.util.concurrent.CompletionException
 import java.util.concurrent.ExecutorService
 import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import org.eclipse.xtend.lib.annotations.Accessors
 import org.eclipse.xtend.lib.annotations.FinalFieldsConstructor
 import org.eclipse.xtext.service.OperationCanceledManager
 import org.eclipse.xtext.util.CancelIndicator
@@ -24,6 +28,13 @@ import org.eclipse.xtext.util.CancelIndicator
  */
 class RequestManager {
 
+	/**
+	 * The name of the binding for the {@link #coalescingWindow}.
+	 * 
+	 * @since 2.15
+	 */
+	public static val String COALESCING_WINDOW = 'org.eclipse.xtext.ide.server.concurrent.RequestManager.coalescingWindow'
+
 	@Inject ExecutorService parallel
 
 	@Inject
@@ -32,10 +43,49 @@ class RequestManager {
 	val queue = Executors.newSingleThreadExecutor(
 		new ThreadFactoryBuilder().setDaemon(true).setNameFormat("RequestManager-Queue-%d").build
 	)
+	val delayer = Executors.newSingleThreadScheduledExecutor(
+		new ThreadFactoryBuilder().setDaemon(true).setNameFormat("RequestManager-Delay-%d").build
+	)
 	var requests = <AbstractRequest<?>>newArrayList
+	// completes when all delayed requests have been passed to the queue
+	var CompletableFuture<?> delayedSubmissions = CompletableFuture.completedFuture(null)
+	// the requests that wait for a delayed write request before they are passed to the queue
+	val delayedRequests = <AbstractRequest<?>>newHashSet
+
+	/**
+	 * Whether read requests that are already running are canceled by a subsequent write request.
+	 * If <code>false</code>, running read requests finish against the state before the write.
+	 * Read requests that did not start yet are canceled in any case.
+	 * 
+	 * @since 2.15
+	 */
+	@Accessors boolean cancelRunningReads = true
+
+	/**
+	 * The time in milliseconds a write request is delayed before it is passed to the queue. If another write request
+	 * is submitted within this window, the cancellable part of the delayed one is skipped, so that a burst of changes
+	 * results in one build. Requests that are submitted while a write request is delayed are queued after it.
+	 * 
+	 * @since 2.15
+	 */
+	@Inject(optional=true) @Named(COALESCING_WINDOW)
+	@Accessors long coalescingWindow = 0
+
+	/**
+	 * @since 2.15
+	 */
+	@Accessors(PUBLIC_GETTER) val statistics = new RequestStatistics
 
 	def void shutdown() {
-		queue.shutdown()
+		delayer.shutdownNow()
+		synchronized (delayedRequests) {
+			// the delayed requests will never be queued
+			for (request : delayedRequests) {
+				request.cancel
+			}
+			delayedRequests.clear
+			queue.shutdown()
+		}
 		parallel.shutdown()
 		cancel()
 	}
@@ -47,18 +97,84 @@ class RequestManager {
 	}
 
 	def <U, V> CompletableFuture<V> runWrite(()=>U nonCancellable, (CancelIndicator, U)=>V cancellable) {
-		val cancelFuture = cancel()
+		val cancelFuture = cancelBeforeWrite()
 		return submit(
-			new WriteRequest(nonCancellable, cancellable, cancelFuture)
+			new WriteRequest(nonCancellable, cancellable, cancelFuture), coalescingWindow
 		)
 	}
 
 	protected def <V> CompletableFuture<V> submit(AbstractRequest<V> request) {
+		return submit(request, 0)
+	}
+
+	/**
+	 * Passes the given request to the queue after the given delay in milliseconds. The requests are queued in the
+	 * order of their submission. A delayed request that is canceled in the meantime is still queued, but its
+	 * cancellable part is skipped.
+	 * 
+	 * @since 2.15
+	 */
+	protected def <V> CompletableFuture<V> submit(AbstractRequest<V> request, long delay) {
 		requests += request
-		queue.submit(request)
+		val submitted = statistics.requestSubmitted
+		val Runnable task = [
+			statistics.requestStarted(submitted)
+			request.run
+		]
+		if (delay <= 0 && delayedSubmissions.isDone) {
+			queue.submit(task)
+		} else {
+			synchronized (delayedRequests) {
+				delayedRequests += request
+			}
+			val delayed = new CompletableFuture<Void>
+			if (delay > 0) {
+				val Runnable elapsed = [
+					if (request.get.cancelled) {
+						statistics.writeCoalesced
+					}
+					delayed.complete(null)
+				]
+				delayer.schedule(elapsed, delay, TimeUnit.MILLISECONDS)
+			} else {
+				delayed.complete(null)
+			}
+			delayedSubmissions = CompletableFuture.allOf(delayedSubmissions, delayed).thenRun [
+				synchronized (delayedRequests) {
+					// the request has been canceled if the manager has been shut down in the meantime
+					if (delayedRequests.remove(request)) {
+						queue.submit(task)
+					}
+				}
+			]
+		}
 		return request.get
 	}
 
+	/**
+	 * Cancels the outstanding requests before a write request is submitted. Running read requests
+	 * are only canceled if {@link #cancelRunningReads} is set.
+	 * 
+	 * @return a future that completes when all outstanding requests are finished.
+	 * @since 2.15
+	 */
+	protected def CompletableFuture<Void> cancelBeforeWrite() {
+		if (cancelRunningReads) {
+			return cancel()
+		}
+		val localRequests = requests
+		requests = newArrayList
+
+		val cfs = newArrayList
+		for (request : localRequests) {
+			if (!(request instanceof ReadRequest<?> && (request as ReadRequest<?>).isRunning)) {
+				request.cancel
+			}
+			cfs += request.get
+		}
+		return CompletableFuture.allOf(cfs)
+	}
+
 	protected def CompletableFuture<Void> cancel() {
 		val localRequests = requests
 		requests = newArrayList
@@ -84,12 +200,14 @@ class ReadRequest<V> extends AbstractRequest<V> {
 
 	val (CancelIndicator)=>V cancellable
 	val ExecutorService executor
+	val running = new AtomicBoolean
 
 	override void run() {
 		if(result.cancelled) return;
 		executor.submit [
 			try {
 				cancelIndicator.checkCanceled
+				running.set(true)
 				result.complete(cancellable.apply(cancelIndicator))
 			} catch(Throwable e) {
 				result.completeExceptionally(e)
@@ -97,6 +215,15 @@ class ReadRequest<V> extends AbstractRequest<V> {
 		]
 	}
 
+	/**
+	 * Whether the read operation has been started by the executor.
+	 * 
+	 * @since 2.15
+	 */
+	def boolean isRunning() {
+		return running.get
+	}
+
 }
 
 @FinalFieldsConstructor
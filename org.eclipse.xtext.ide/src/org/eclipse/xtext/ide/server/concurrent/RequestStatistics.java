@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2018 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.ide.server.concurrent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for the requests that are scheduled by the {@link RequestManager}. The wait time of a request is the time
+ * between its submission and the moment the request queue starts to process it.
+ *
+ * @since 2.15
+ */
+public class RequestStatistics {
+
+	private final AtomicInteger queueDepth = new AtomicInteger();
+	private final AtomicInteger maxQueueDepth = new AtomicInteger();
+	private final AtomicLong startedRequests = new AtomicLong();
+	private final AtomicLong totalWaitTime = new AtomicLong();
+	private final AtomicLong maxWaitTime = new AtomicLong();
+	private final AtomicLong coalescedWrites = new AtomicLong();
+
+	/**
+	 * @return the time stamp of the submission that has to be passed to {@link #requestStarted(long)}.
+	 */
+	public long requestSubmitted() {
+		int depth = queueDepth.incrementAndGet();
+		updateMax(maxQueueDepth, depth);
+		return System.nanoTime();
+	}
+
+	public void requestStarted(long submitted) {
+		queueDepth.decrementAndGet();
+		long waitTime = System.nanoTime() - submitted;
+		startedRequests.incrementAndGet();
+		totalWaitTime.addAndGet(waitTime);
+		updateMax(maxWaitTime, waitTime);
+	}
+
+	/**
+	 * Records a write request whose cancellable part was skipped because it was superseded by a later write within
+	 * the coalescing window.
+	 */
+	public void writeCoalesced() {
+		coalescedWrites.incrementAndGet();
+	}
+
+	/**
+	 * @return the number of submitted requests that have not been started yet.
+	 */
+	public int getQueueDepth() {
+		return queueDepth.get();
+	}
+
+	public int getMaxQueueDepth() {
+		return maxQueueDepth.get();
+	}
+
+	public long getStartedRequests() {
+		return startedRequests.get();
+	}
+
+	public long getCoalescedWrites() {
+		return coalescedWrites.get();
+	}
+
+	public long getTotalWaitTime(TimeUnit unit) {
+		return unit.convert(totalWaitTime.get(), TimeUnit.NANOSECONDS);
+	}
+
+	public long getMaxWaitTime(TimeUnit unit) {
+		return unit.convert(maxWaitTime.get(), TimeUnit.NANOSECONDS);
+	}
+
+	public long getAverageWaitTime(TimeUnit unit) {
+		long started = startedRequests.get();
+		if (started == 0)
+			return 0;
+		return unit.convert(totalWaitTime.get() / started, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Resets all counters except for the current queue depth.
+	 */
+	public void reset() {
+		maxQueueDepth.set(queueDepth.get());
+		startedRequests.set(0);
+		totalWaitTime.set(0);
+		maxWaitTime.set(0);
+		coalescedWrites.set(0);
+	}
+
+	private static void updateMax(AtomicInteger max, int value) {
+		int current;
+		do {
+			current = max.get();
+		} while (value > current && !max.compareAndSet(current, value));
+	}
+
+	private static void updateMax(AtomicLong max, long value) {
+		long current;
+		do {
+			current = max.get();
+		} while (value > current && !max.compareAndSet(current, value));
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + " [queueDepth=" + getQueueDepth() + ", maxQueueDepth=" + getMaxQueueDepth()
+				+ ", startedRequests=" + getStartedRequests() + ", averageWaitTime="
+				+ getAverageWaitTime(TimeUnit.MILLISECONDS) + "ms, maxWaitTime=" + getMaxWaitTime(TimeUnit.MILLISECONDS)
+				+ "ms, coalescedWrites=" + getCoalescedWrites() + "]";
+	}
+}
@@ -0,0 +1,289 @@
+/*******************************************************************************
+ * Copyright (c) 2018 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.ide.server.symbol;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.eclipse.xtext.resource.IResourceDescription;
+import org.eclipse.xtext.resource.IResourceDescription.Delta;
+
+/**
+ * An index of the exported objects of a workspace that answers substring queries on their qualified names without
+ * visiting all resource descriptions. The lower case qualified names are split into trigrams, and a query only
+ * verifies the entries that contain its least frequent trigram. Queries that are shorter than a trigram are answered
+ * by a scan of the entries.
+ * <p>
+ * The matches are ranked: a match of the complete simple name comes first, followed by matches at the start of the
+ * simple name, within the simple name, at the start of the qualified name and anywhere else. Matches of the same rank
+ * are ordered by the length of their qualified name.
+ * <p>
+ * The index is maintained incrementally with the {@link Delta deltas} of the builds. The entries of a changed resource
+ * are only marked as removed and are purged once they outnumber the live entries. All methods are thread-safe.
+ *
+ * @since 2.15
+ */
+public class WorkspaceSymbolIndex {
+
+	private static final int MIN_PURGE = 1024;
+
+	private static class Entry {
+
+		private final IEObjectDescription description;
+
+		private final String name;
+
+		private final int simpleNameOffset;
+
+		Entry(IEObjectDescription description, QualifiedName lowerCaseName) {
+			this.description = description;
+			this.name = lowerCaseName.toString();
+			this.simpleNameOffset = name.length() - lowerCaseName.getLastSegment().length();
+		}
+	}
+
+	private static class Match implements Comparable<Match> {
+
+		private final Entry entry;
+
+		private final int rank;
+
+		Match(Entry entry, int rank) {
+			this.entry = entry;
+			this.rank = rank;
+		}
+
+		@Override
+		public int compareTo(Match other) {
+			if (rank != other.rank)
+				return rank < other.rank ? -1 : 1;
+			int length = entry.name.length();
+			int otherLength = other.entry.name.length();
+			if (length != otherLength)
+				return length < otherLength ? -1 : 1;
+			return entry.name.compareTo(other.entry.name);
+		}
+	}
+
+	/**
+	 * The ids of the entries that contain a trigram in ascending order.
+	 */
+	private static class Postings {
+
+		private int[] ids = new int[4];
+
+		private int size;
+
+		void add(int id) {
+			if (size > 0 && ids[size - 1] == id)
+				return;
+			if (size == ids.length) {
+				int[] newIds = new int[size * 2];
+				System.arraycopy(ids, 0, newIds, 0, size);
+				ids = newIds;
+			}
+			ids[size++] = id;
+		}
+	}
+
+	private List<Entry> entries = new ArrayList<Entry>();
+
+	private Map<Long, Postings> postings = new HashMap<Long, Postings>();
+
+	private final Map<URI, int[]> resources = new HashMap<URI, int[]>();
+
+	private int removed;
+
+	/**
+	 * Replaces the entries of the resources that have been changed, added or deleted.
+	 */
+	public synchronized void update(List<Delta> deltas) {
+		for (Delta delta : deltas) {
+			remove(delta.getUri());
+			if (delta.getNew() != null) {
+				add(delta.getNew());
+			}
+		}
+		if (removed >= MIN_PURGE && removed > entries.size() / 2) {
+			purge();
+		}
+	}
+
+	public synchronized void clear() {
+		entries = new ArrayList<Entry>();
+		postings = new HashMap<Long, Postings>();
+		resources.clear();
+		removed = 0;
+	}
+
+	/**
+	 * Returns the number of indexed objects.
+	 */
+	public synchronized int size() {
+		return entries.size() - removed;
+	}
+
+	/**
+	 * Returns the exported objects whose qualified name contains the query ignoring case, ranked from the best to the
+	 * worst match. The first <code>offset</code> matches are skipped and at most <code>limit</code> matches are
+	 * returned.
+	 */
+	public synchronized List<IEObjectDescription> find(String query, int offset, int limit) {
+		String lowerCaseQuery = query.toLowerCase();
+		int capacity = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+		if (capacity <= 0) {
+			return Collections.emptyList();
+		}
+		PriorityQueue<Match> best = new PriorityQueue<Match>(Math.min(capacity, 64), Collections.reverseOrder());
+		if (lowerCaseQuery.length() < 3) {
+			for (Entry entry : entries) {
+				collect(entry, lowerCaseQuery, capacity, best);
+			}
+		} else {
+			Postings candidates = getLeastFrequentTrigram(lowerCaseQuery);
+			if (candidates == null) {
+				return Collections.emptyList();
+			}
+			for (int i = 0; i < candidates.size; i++) {
+				collect(entries.get(candidates.ids[i]), lowerCaseQuery, capacity, best);
+			}
+		}
+		List<Match> matches = new ArrayList<Match>(best);
+		Collections.sort(matches);
+		List<IEObjectDescription> result = new ArrayList<IEObjectDescription>(Math.max(matches.size() - offset, 0));
+		for (int i = offset; i < matches.size(); i++) {
+			result.add(matches.get(i).entry.description);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the rank of the match of the query in the given lower case qualified name, or <code>-1</code> if the
+	 * name does not contain the query. Lower ranks are better.
+	 */
+	protected int getRank(String name, int simpleNameOffset, String query) {
+		int index = name.indexOf(query, simpleNameOffset);
+		if (index == simpleNameOffset) {
+			return name.length() - simpleNameOffset == query.length() ? 0 : 1;
+		}
+		if (index > simpleNameOffset) {
+			return 2;
+		}
+		index = name.indexOf(query);
+		if (index < 0) {
+			return -1;
+		}
+		return index == 0 ? 3 : 4;
+	}
+
+	private void collect(Entry entry, String query, int capacity, PriorityQueue<Match> best) {
+		if (entry == null) {
+			return;
+		}
+		int rank = getRank(entry.name, entry.simpleNameOffset, query);
+		if (rank < 0) {
+			return;
+		}
+		Match match = new Match(entry, rank);
+		if (best.size() < capacity) {
+			best.add(match);
+		} else if (match.compareTo(best.peek()) < 0) {
+			best.poll();
+			best.add(match);
+		}
+	}
+
+	private Postings getLeastFrequentTrigram(String query) {
+		Postings result = null;
+		for (int i = 0; i + 3 <= query.length(); i++) {
+			Postings candidate = postings.get(trigram(query, i));
+			if (candidate == null) {
+				return null;
+			}
+			if (result == null || candidate.size < result.size) {
+				result = candidate;
+			}
+		}
+		return result;
+	}
+
+	private void add(IResourceDescription description) {
+		List<Integer> ids = new ArrayList<Integer>();
+		for (IEObjectDescription object : description.getExportedObjects()) {
+			QualifiedName name = object.getQualifiedName();
+			if (name != null && !name.isEmpty()) {
+				ids.add(add(new Entry(object, name.toLowerCase())));
+			}
+		}
+		int[] result = new int[ids.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = ids.get(i);
+		}
+		resources.put(description.getURI(), result);
+	}
+
+	private int add(Entry entry) {
+		int id = entries.size();
+		entries.add(entry);
+		String name = entry.name;
+		for (int i = 0; i + 3 <= name.length(); i++) {
+			Long key = trigram(name, i);
+			Postings existing = postings.get(key);
+			if (existing == null) {
+				existing = new Postings();
+				postings.put(key, existing);
+			}
+			existing.add(id);
+		}
+		return id;
+	}
+
+	private void remove(URI uri) {
+		int[] ids = resources.remove(uri);
+		if (ids != null) {
+			for (int id : ids) {
+				entries.set(id, null);
+			}
+			removed += ids.length;
+		}
+	}
+
+	/**
+	 * Rebuilds the postings from the live entries.
+	 */
+	private void purge() {
+		List<Entry> oldEntries = entries;
+		int[] newIds = new int[oldEntries.size()];
+		entries = new ArrayList<Entry>(oldEntries.size() - removed);
+		postings = new HashMap<Long, Postings>();
+		removed = 0;
+		for (int i = 0; i < oldEntries.size(); i++) {
+			Entry entry = oldEntries.get(i);
+			if (entry != null) {
+				newIds[i] = add(entry);
+			}
+		}
+		for (int[] ids : resources.values()) {
+			for (int i = 0; i < ids.length; i++) {
+				ids[i] = newIds[ids[i]];
+			}
+		}
+	}
+
+	private static long trigram(String name, int offset) {
+		return ((long) name.charAt(offset) << 32) | ((long) name.charAt(offset + 1) << 16) | name.charAt(offset + 2);
+	}
+
+}
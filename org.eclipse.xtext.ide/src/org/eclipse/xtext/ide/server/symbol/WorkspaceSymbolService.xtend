@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 TypeFox GmbH (http://www.typefox.io) and others.
+ * Copyright (c) 2016, 2018 TypeFox GmbH (http://www.typefox.io) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -9,9 +9,18 @@ package org.eclipse.xtext.ide.server.symbol
 
 import com.google.inject.Inject
 import com.google.inject.Singleton
+import com.google.inject.name.Named
 import java.util.List
+import java.util.Map
+import java.util.concurrent.ConcurrentHashMap
+import org.eclipse.emf.common.util.URI
 import org.eclipse.lsp4j.SymbolInformation
 import org.eclipse.xtext.findReferences.IReferenceFinder.IResourceAccess
+import org.eclipse.xtext.ide.server.ILanguageServerAccess.IBuildListener
+import org.eclipse.xtext.resource.IEObjectDescription
+import org.eclipse.xtext.resource.IResourceDescription
+import org.eclipse.xtext.resource.IResourceDescription.Delta
+import org.eclipse.xtext.resource.impl.DefaultResourceDescriptionDelta
 import org.eclipse.xtext.resource.IResourceDescriptions
 import org.eclipse.xtext.resource.IResourceServiceProvider
 import org.eclipse.xtext.service.OperationCanceledManager
@@ -22,7 +31,15 @@ import org.eclipse.xtext.util.CancelIndicator
  * @since 2.11
  */
 @Singleton
-class WorkspaceSymbolService {
+class WorkspaceSymbolService implements IBuildListener {
+
+	/**
+	 * The maximum number of symbols that are returned for a query without paging. By default the number is not
+	 * limited.
+	 * 
+	 * @since 2.15
+	 */
+	public static val String MAX_RESULTS = "org.eclipse.xtext.ide.server.symbol.WorkspaceSymbolService.maxResults"
 
 	@Inject
 	extension IResourceServiceProvider.Registry
@@ -30,13 +47,157 @@ class WorkspaceSymbolService {
 	@Inject
 	OperationCanceledManager operationCanceledManager
 
+	@Inject
+	WorkspaceSymbolIndex symbolIndex
+
+	@Inject(optional=true)
+	@Named(MAX_RESULTS)
+	int maxResults = Integer.MAX_VALUE
+
+	// whether a build has been reported, whether the symbol index has been populated since and whether a language
+	// collects its symbols differently than the index
+	boolean built
+	boolean indexed
+	boolean customFilter
+
+	val Map<Class<?>, Boolean> customFilters = new ConcurrentHashMap
+
 	def List<? extends SymbolInformation> getSymbols(
 		String query,
 		IResourceAccess resourceAccess,
 		IResourceDescriptions indexData,
 		CancelIndicator cancelIndicator
 	) {
-		val result = newLinkedList
+		return getSymbols(query, 0, maxResults, resourceAccess, indexData, cancelIndicator)
+	}
+
+	/**
+	 * Returns a page of the symbols that match the query. Once the service has been notified about a build, the symbols
+	 * are looked up in the {@link WorkspaceSymbolIndex symbol index} and are ranked by the quality of the match. The
+	 * symbol index is populated from the index data on first use and is updated with the deltas of subsequent builds.
+	 * The page is taken from the symbols that pass the {@link DocumentSymbolService#filter(IEObjectDescription, String)
+	 * filter} of their language. Before the first build, or if a language {@link #hasCustomFilter(URI) filters its
+	 * symbols differently}, all resource descriptions of the index data are visited.
+	 * 
+	 * @since 2.15
+	 */
+	def List<? extends SymbolInformation> getSymbols(
+		String query,
+		int offset,
+		int limit,
+		IResourceAccess resourceAccess,
+		IResourceDescriptions indexData,
+		CancelIndicator cancelIndicator
+	) {
+		if (limit <= 0) {
+			return emptyList
+		}
+		if (!ensureIndexed(indexData)) {
+			val symbols = getAllSymbols(query, resourceAccess, indexData, cancelIndicator)
+			return symbols.subList(Math.min(offset, symbols.size), Math.min((offset as long) + limit, symbols.size) as int)
+		}
+		val result = <SymbolInformation>newArrayList
+		var skipped = 0
+		var start = 0
+		// descriptions may be dropped by the filter, so the index is asked for more matches until the page is full
+		var count = Math.min((offset as long) + limit, Integer.MAX_VALUE) as int
+		while (count > 0) {
+			val matches = symbolIndex.find(query, start, count)
+			for (description : matches) {
+				operationCanceledManager.checkCanceled(cancelIndicator)
+				for (symbol : createSymbols(description, query, resourceAccess, indexData)) {
+					if (skipped < offset) {
+						skipped++
+					} else if (result.size < limit) {
+						result += symbol
+					}
+				}
+				if (result.size >= limit) {
+					return result
+				}
+			}
+			if (matches.size < count) {
+				return result
+			}
+			start += count
+			count = Math.min(start, Integer.MAX_VALUE - start)
+		}
+		return result
+	}
+
+	private def List<SymbolInformation> createSymbols(
+		IEObjectDescription description,
+		String query,
+		IResourceAccess resourceAccess,
+		IResourceDescriptions indexData
+	) {
+		val result = <SymbolInformation>newArrayList
+		val resourceURI = description.EObjectURI.trimFragment
+		// entries of removed projects are not reported by a delta
+		if (indexData.getResourceDescription(resourceURI) !== null) {
+			val documentSymbolService = resourceURI.resourceServiceProvider?.get(DocumentSymbolService)
+			if (documentSymbolService !== null && documentSymbolService.filter(description, query)) {
+				documentSymbolService.createSymbol(description, resourceAccess) [ symbol |
+					result += symbol
+				]
+			}
+		}
+		return result
+	}
+
+	/**
+	 * Whether the {@link DocumentSymbolService} of the given resource collects or filters its symbols differently
+	 * than the symbol index, which only finds the descriptions whose qualified name contains the query like the default
+	 * {@link DocumentSymbolService#filter(IEObjectDescription, String) filter} does. This is the case if the class of
+	 * the service overrides one of these methods.
+	 * 
+	 * @since 2.15
+	 */
+	protected def boolean hasCustomFilter(URI uri) {
+		val documentSymbolService = uri.resourceServiceProvider?.get(DocumentSymbolService)
+		if (documentSymbolService === null) {
+			return false
+		}
+		return customFilters.computeIfAbsent(documentSymbolService.class) [ type |
+			for (var Class<?> current = type; current !== DocumentSymbolService; current = current.superclass) {
+				if (current.declares('filter', IEObjectDescription, String)
+					|| current.declares('getSymbols', IResourceDescription, String, IResourceAccess, CancelIndicator)) {
+					return true
+				}
+			}
+			return false
+		]
+	}
+
+	private def boolean declares(Class<?> type, String methodName, Class<?>... parameterTypes) {
+		try {
+			type.getDeclaredMethod(methodName, parameterTypes)
+			return true
+		} catch (NoSuchMethodException e) {
+			return false
+		}
+	}
+
+	protected def boolean ensureIndexed(IResourceDescriptions indexData) {
+		synchronized (symbolIndex) {
+			if (built && !indexed) {
+				symbolIndex.clear
+				val deltas = indexData.allResourceDescriptions.map[new DefaultResourceDescriptionDelta(null, it) as Delta].toList
+				symbolIndex.update(deltas)
+				customFilter = deltas.exists[URI.hasCustomFilter]
+				indexed = true
+			}
+			return indexed && !customFilter
+		}
+	}
+
+	protected def List<? extends SymbolInformation> getAllSymbols(
+		String query,
+		IResourceAccess resourceAccess,
+		IResourceDescriptions indexData,
+		CancelIndicator cancelIndicator
+	) {
+		val result = newArrayList
 		for (resourceDescription : indexData.allResourceDescriptions) {
 			operationCanceledManager.checkCanceled(cancelIndicator)
 			val resourceServiceProvider = resourceDescription.URI.resourceServiceProvider
@@ -48,4 +209,17 @@ class WorkspaceSymbolService {
 		return result
 	}
 
+	/**
+	 * @since 2.15
+	 */
+	override afterBuild(List<Delta> deltas) {
+		synchronized (symbolIndex) {
+			if (indexed) {
+				symbolIndex.update(deltas)
+				customFilter = customFilter || deltas.exists[getNew !== null && URI.hasCustomFilter]
+			}
+			built = true
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2016, 2017 TypeFox GmbH (http://www.typefox.io) and others.
+ * Copyright (c) 2016, 2018 TypeFox GmbH (http://www.typefox.io) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,21 +7,33 @@
  */
 package org.eclipse.xtext.ide.server;
 
+import com.google.common.base.Objects;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Iterables;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
+import com.google.inject.name.Named;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.xtend.lib.annotations.AccessorType;
 import org.eclipse.xtend.lib.annotations.Accessors;
 import org.eclipse.xtend.lib.annotations.Data;
 import org.eclipse.xtext.build.IncrementalBuilder;
 import org.eclipse.xtext.diagnostics.Severity;
+import org.eclipse.xtext.ide.ExecutorServiceProvider;
 import org.eclipse.xtext.ide.server.ProjectManager;
 import org.eclipse.xtext.ide.server.TopologicalSorter;
 import org.eclipse.xtext.ide.server.WorkspaceManager;
@@ -29,7 +41,9 @@ import org.eclipse.xtext.resource.IResourceDescription;
 import org.eclipse.xtext.resource.impl.ProjectDescription;
 import org.eclipse.xtext.util.CancelIndicator;
 import org.eclipse.xtext.xbase.lib.CollectionLiterals;
+import org.eclipse.xtext.xbase.lib.Exceptions;
 import org.eclipse.xtext.xbase.lib.Functions.Function1;
+import org.eclipse.xtext.xbase.lib.Functions.Function2;
 import org.eclipse.xtext.xbase.lib.IterableExtensions;
 import org.eclipse.xtext.xbase.lib.ListExtensions;
 import org.eclipse.xtext.xbase.lib.Procedures.Procedure1;
@@ -112,12 +126,28 @@ public class BuildManager {
   
   public final static String CYCLIC_PROJECT_DEPENDENCIES = (BuildManager.class.getCanonicalName() + ".cyclicProjectDependencies");
   
+  /**
+   * The maximum number of projects that are built concurrently. Defaults to 1, i.e. the projects are built one after
+   * the other. Note that the issue acceptor of the workspace may be called concurrently if more than one project is
+   * built.
+   * 
+   * @since 2.15
+   */
+  public final static String PARALLEL_PROJECT_BUILDS = "org.eclipse.xtext.ide.server.BuildManager.parallelProjectBuilds";
+  
   @Accessors(AccessorType.PUBLIC_SETTER)
   private WorkspaceManager workspaceManager;
   
   @Inject
   private Provider<TopologicalSorter> sorterProvider;
   
+  @Inject
+  private ExecutorServiceProvider executorServiceProvider;
+  
+  @Inject(optional = true)
+  @Named(BuildManager.PARALLEL_PROJECT_BUILDS)
+  private int parallelProjectBuilds = 1;
+  
   private final LinkedHashSet<URI> dirtyFiles = CollectionLiterals.<URI>newLinkedHashSet();
   
   private final LinkedHashSet<URI> deletedFiles = CollectionLiterals.<URI>newLinkedHashSet();
@@ -142,14 +172,10 @@ public class BuildManager {
   
   public List<IResourceDescription.Delta> doInitialBuild(final List<ProjectDescription> projects, final CancelIndicator indicator) {
     final List<ProjectDescription> sortedDescriptions = this.sortByDependencies(projects);
-    final ArrayList<IResourceDescription.Delta> result = CollectionLiterals.<IResourceDescription.Delta>newArrayList();
-    for (final ProjectDescription description : sortedDescriptions) {
-      {
-        final IncrementalBuilder.Result partialresult = this.workspaceManager.getProjectManager(description.getName()).doInitialBuild(indicator);
-        result.addAll(partialresult.getAffectedResources());
-      }
-    }
-    return result;
+    final Function2<ProjectDescription, List<IResourceDescription.Delta>, IncrementalBuilder.Result> _function = (ProjectDescription description, List<IResourceDescription.Delta> upstreamDeltas) -> {
+      return this.workspaceManager.getProjectManager(description.getName()).doInitialBuild(upstreamDeltas, indicator);
+    };
+    return this.buildProjects(sortedDescriptions, _function);
   }
   
   protected List<IResourceDescription.Delta> internalBuild(final CancelIndicator cancelIndicator) {
@@ -172,25 +198,150 @@ public class BuildManager {
     Set<ProjectDescription> _keySet_1 = project2deleted.keySet();
     Iterable<ProjectDescription> _plus = Iterables.<ProjectDescription>concat(_keySet, _keySet_1);
     final List<ProjectDescription> sortedDescriptions = this.sortByDependencies(_plus);
-    final ArrayList<IResourceDescription.Delta> result = CollectionLiterals.<IResourceDescription.Delta>newArrayList();
-    for (final ProjectDescription it : sortedDescriptions) {
-      {
-        final ProjectManager projectManager = this.workspaceManager.getProjectManager(it.getName());
-        final List<URI> projectDirty = IterableExtensions.<URI>toList(project2dirty.get(it));
-        final List<URI> projectDeleted = IterableExtensions.<URI>toList(project2deleted.get(it));
-        final IncrementalBuilder.Result partialResult = projectManager.doBuild(projectDirty, projectDeleted, result, cancelIndicator);
-        final Function1<IResourceDescription.Delta, URI> _function = (IResourceDescription.Delta it_1) -> {
-          return it_1.getUri();
-        };
-        allDirty.addAll(ListExtensions.<IResourceDescription.Delta, URI>map(partialResult.getAffectedResources(), _function));
+    final Function2<ProjectDescription, List<IResourceDescription.Delta>, IncrementalBuilder.Result> _function = (ProjectDescription it, List<IResourceDescription.Delta> upstreamDeltas) -> {
+      final ProjectManager projectManager = this.workspaceManager.getProjectManager(it.getName());
+      final List<URI> projectDirty = IterableExtensions.<URI>toList(project2dirty.get(it));
+      final List<URI> projectDeleted = IterableExtensions.<URI>toList(project2deleted.get(it));
+      final IncrementalBuilder.Result partialResult = projectManager.doBuild(projectDirty, projectDeleted, upstreamDeltas, cancelIndicator);
+      synchronized (this) {
         Iterables.removeAll(this.dirtyFiles, projectDirty);
         Iterables.removeAll(this.deletedFiles, projectDeleted);
-        result.addAll(partialResult.getAffectedResources());
+      }
+      return partialResult;
+    };
+    return this.buildProjects(sortedDescriptions, _function);
+  }
+  
+  /**
+   * Builds the given projects, which have to be sorted by their dependencies. A project is built as soon as the
+   * projects it depends on have been built, so independent projects are built concurrently. The build of a project
+   * receives the deltas of the projects it depends on. The returned deltas are ordered like the projects.
+   * <p>
+   * If a build fails or is canceled, no further projects are started. The builds that are already running are
+   * awaited before the failure is rethrown.
+   * 
+   * @since 2.15
+   */
+  protected List<IResourceDescription.Delta> buildProjects(final List<ProjectDescription> sortedDescriptions, final Function2<? super ProjectDescription, ? super List<IResourceDescription.Delta>, ? extends IncrementalBuilder.Result> build) {
+    try {
+      final ArrayList<IResourceDescription.Delta> result = CollectionLiterals.<IResourceDescription.Delta>newArrayList();
+      if (((this.parallelProjectBuilds <= 1) || (sortedDescriptions.size() <= 1))) {
+        for (final ProjectDescription description : sortedDescriptions) {
+          result.addAll(build.apply(description, result).getAffectedResources());
+        }
+        return result;
+      }
+      final Function1<ProjectDescription, String> _function = (ProjectDescription it) -> {
+        return it.getName();
+      };
+      final Set<String> names = IterableExtensions.<String>toSet(ListExtensions.<ProjectDescription, String>map(sortedDescriptions, _function));
+      final HashMap<String, Set<String>> project2upstream = CollectionLiterals.<String, Set<String>>newHashMap();
+      for (final ProjectDescription description_1 : sortedDescriptions) {
+        final Function1<String, Boolean> _function_1 = (String it) -> {
+          return Boolean.valueOf(names.contains(it));
+        };
+        project2upstream.put(description_1.getName(), IterableExtensions.<String>toSet(IterableExtensions.<String>filter(this.getUpstreamProjects(description_1), _function_1)));
+      }
+      final HashMap<String, List<IResourceDescription.Delta>> project2deltas = CollectionLiterals.<String, List<IResourceDescription.Delta>>newHashMap();
+      final LinkedList<ProjectDescription> pending = new LinkedList<ProjectDescription>(sortedDescriptions);
+      final HashMap<Future<IncrementalBuilder.Result>, ProjectDescription> running = CollectionLiterals.<Future<IncrementalBuilder.Result>, ProjectDescription>newHashMap();
+      ExecutorService _get = this.executorServiceProvider.get(BuildManager.class.getName());
+      final ExecutorCompletionService<IncrementalBuilder.Result> completionService = new ExecutorCompletionService<IncrementalBuilder.Result>(_get);
+      Throwable failure = null;
+      while (((!running.isEmpty()) || ((failure == null) && (!pending.isEmpty())))) {
+        {
+          if ((failure == null)) {
+            final Iterator<ProjectDescription> iterator = pending.iterator();
+            while ((iterator.hasNext() && (running.size() < this.parallelProjectBuilds))) {
+              {
+                final ProjectDescription description_2 = iterator.next();
+                final Set<String> upstream = project2upstream.get(description_2.getName());
+                final Function1<String, Boolean> _function_2 = (String it) -> {
+                  return Boolean.valueOf(project2deltas.containsKey(it));
+                };
+                boolean _forall = IterableExtensions.<String>forall(upstream, _function_2);
+                if (_forall) {
+                  iterator.remove();
+                  final Function1<ProjectDescription, Boolean> _function_3 = (ProjectDescription it) -> {
+                    return Boolean.valueOf(upstream.contains(it.getName()));
+                  };
+                  final Function1<ProjectDescription, List<IResourceDescription.Delta>> _function_4 = (ProjectDescription it) -> {
+                    return project2deltas.get(it.getName());
+                  };
+                  final List<IResourceDescription.Delta> upstreamDeltas = IterableExtensions.<IResourceDescription.Delta>toList(Iterables.<IResourceDescription.Delta>concat(IterableExtensions.<ProjectDescription, List<IResourceDescription.Delta>>map(IterableExtensions.<ProjectDescription>filter(sortedDescriptions, _function_3), _function_4)));
+                  final Callable<IncrementalBuilder.Result> _function_5 = () -> {
+                    return build.apply(description_2, upstreamDeltas);
+                  };
+                  running.put(completionService.submit(_function_5), description_2);
+                }
+              }
+            }
+          }
+          final Future<IncrementalBuilder.Result> future = completionService.take();
+          final ProjectDescription description_3 = running.remove(future);
+          try {
+            project2deltas.put(description_3.getName(), future.get().getAffectedResources());
+          } catch (final Throwable _t) {
+            if (_t instanceof ExecutionException) {
+              final ExecutionException e = (ExecutionException)_t;
+              if ((failure == null)) {
+                failure = e.getCause();
+              }
+            } else {
+              throw Exceptions.sneakyThrow(_t);
+            }
+          }
+        }
+      }
+      if ((failure != null)) {
+        throw failure;
+      }
+      for (final ProjectDescription description_4 : sortedDescriptions) {
+        result.addAll(project2deltas.get(description_4.getName()));
+      }
+      return result;
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+  
+  /**
+   * Returns the names of the projects that the given project depends on, either directly or through other projects
+   * of the workspace.
+   * 
+   * @since 2.15
+   */
+  protected Set<String> getUpstreamProjects(final ProjectDescription description) {
+    final HashSet<String> result = CollectionLiterals.<String>newHashSet();
+    List<String> _dependencies = description.getDependencies();
+    final LinkedList<String> queue = new LinkedList<String>(_dependencies);
+    while ((!queue.isEmpty())) {
+      {
+        final String name = queue.removeFirst();
+        if (((!Objects.equal(name, description.getName())) && result.add(name))) {
+          final ProjectDescription dependency = this.getProjectDescription(name);
+          if ((dependency != null)) {
+            List<String> _dependencies_1 = dependency.getDependencies();
+            Iterables.<String>addAll(queue, _dependencies_1);
+          }
+        }
       }
     }
     return result;
   }
   
+  /**
+   * @since 2.15
+   */
+  protected ProjectDescription getProjectDescription(final String projectName) {
+    ProjectManager _projectManager = this.workspaceManager.getProjectManager(projectName);
+    ProjectDescription _projectDescription = null;
+    if (_projectManager!=null) {
+      _projectDescription=_projectManager.getProjectDescription();
+    }
+    return _projectDescription;
+  }
+  
   protected List<ProjectDescription> sortByDependencies(final Iterable<ProjectDescription> projectDescriptions) {
     final Procedure1<ProjectDescription> _function = (ProjectDescription it) -> {
       this.reportDependencyCycle(this.workspaceManager.getProjectManager(it.getName()));
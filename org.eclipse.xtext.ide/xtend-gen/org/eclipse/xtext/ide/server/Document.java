@@ -7,10 +7,12 @@
  */
 package org.eclipse.xtext.ide.server;
 
+import com.google.common.base.Objects;
 import org.eclipse.lsp4j.Position;
 import org.eclipse.lsp4j.Range;
 import org.eclipse.lsp4j.TextEdit;
-import org.eclipse.xtend.lib.annotations.Data;
+import org.eclipse.xtext.ide.server.LineIndex;
+import org.eclipse.xtext.ide.server.PieceTable;
 import org.eclipse.xtext.xbase.lib.Pure;
 import org.eclipse.xtext.xbase.lib.util.ToStringBuilder;
 
@@ -18,7 +20,6 @@ import org.eclipse.xtext.xbase.lib.util.ToStringBuilder;
  * @author Sven Efftinge - Initial contribution and API
  * @since 2.11
  */
-@Data
 @SuppressWarnings("all")
 public class Document {
   private final Integer version;
@@ -27,6 +28,12 @@ public class Document {
   
   private final boolean printSourceOnError;
   
+  /**
+   * The line index of the contents. Computed lazily unless it was passed in by {@link #applyChanges(Iterable)}.
+   * It is not part of the identity of a document and never modified once it was assigned.
+   */
+  private volatile LineIndex lineIndex;
+  
   public Document(final Integer version, final String contents) {
     this(version, contents, true);
   }
@@ -35,33 +42,48 @@ public class Document {
    * @since 2.15
    */
   public Document(final Integer version, final String contents, final boolean printSourceOnError) {
+    this(version, contents, printSourceOnError, null);
+  }
+  
+  /**
+   * @since 2.15
+   */
+  protected Document(final Integer version, final String contents, final boolean printSourceOnError, final LineIndex lineIndex) {
     this.version = version;
     this.contents = contents;
     this.printSourceOnError = printSourceOnError;
+    this.lineIndex = lineIndex;
+  }
+  
+  /**
+   * @since 2.15
+   */
+  protected LineIndex getLineIndex() {
+    LineIndex result = this.lineIndex;
+    if ((result == null)) {
+      LineIndex _lineIndex = new LineIndex(this.contents);
+      result = _lineIndex;
+      this.lineIndex = result;
+    }
+    return result;
   }
   
   public int getOffSet(final Position position) throws IndexOutOfBoundsException {
-    final int l = this.contents.length();
-    final char NL = '\n';
-    int line = 0;
-    int column = 0;
-    for (int i = 0; (i < l); i++) {
-      {
-        final char ch = this.contents.charAt(i);
-        if (((position.getLine() == line) && (position.getCharacter() == column))) {
-          return i;
-        }
-        if ((ch == NL)) {
-          line++;
-          column = 0;
-        } else {
-          column++;
-        }
+    return this.getOffSet(this.getLineIndex(), position);
+  }
+  
+  /**
+   * @since 2.15
+   */
+  protected int getOffSet(final LineIndex index, final Position position) throws IndexOutOfBoundsException {
+    final int line = position.getLine();
+    if (((line >= 0) && (line < index.getLineCount()))) {
+      final int lineStart = index.getLineStart(line);
+      final int column = position.getCharacter();
+      if (((column >= 0) && (column <= (index.getLineEnd(line) - lineStart)))) {
+        return (lineStart + column);
       }
     }
-    if (((position.getLine() == line) && (position.getCharacter() == column))) {
-      return l;
-    }
     String _string = position.toString();
     String _xifexpression = null;
     if (this.printSourceOnError) {
@@ -85,24 +107,11 @@ public class Document {
       String _plus = (Integer.valueOf(offset) + _xifexpression);
       throw new IndexOutOfBoundsException(_plus);
     }
-    final char NL = '\n';
-    int line = 0;
-    int column = 0;
-    for (int i = 0; (i < l); i++) {
-      {
-        final char ch = this.contents.charAt(i);
-        if ((i == offset)) {
-          return new Position(line, column);
-        }
-        if ((ch == NL)) {
-          line++;
-          column = 0;
-        } else {
-          column++;
-        }
-      }
-    }
-    return new Position(line, column);
+    final LineIndex index = this.getLineIndex();
+    final int line = index.getLine(offset);
+    int _lineStart = index.getLineStart(line);
+    int _minus = (offset - _lineStart);
+    return new Position(line, _minus);
   }
   
   public String getSubstring(final Range range) {
@@ -111,22 +120,29 @@ public class Document {
     return this.contents.substring(start, end);
   }
   
+  /**
+   * Applies the given changes in order, i.e. the range of a change refers to the text that results from the
+   * preceding changes. The changes are recorded in a {@link PieceTable} so the contents are copied only once, and
+   * the line index is updated incrementally.
+   */
   public Document applyChanges(final Iterable<? extends TextEdit> changes) {
-    String newContent = this.contents;
+    PieceTable newContent = new PieceTable(this.contents);
+    LineIndex newLineIndex = this.getLineIndex().copy();
     for (final TextEdit change : changes) {
       Range _range = change.getRange();
       boolean _tripleEquals = (_range == null);
       if (_tripleEquals) {
-        newContent = change.getNewText();
-      } else {
-        final int start = this.getOffSet(change.getRange().getStart());
-        final int end = this.getOffSet(change.getRange().getEnd());
-        String _substring = newContent.substring(0, start);
         String _newText = change.getNewText();
-        String _plus = (_substring + _newText);
-        String _substring_1 = newContent.substring(end);
-        String _plus_1 = (_plus + _substring_1);
-        newContent = _plus_1;
+        PieceTable _pieceTable = new PieceTable(_newText);
+        newContent = _pieceTable;
+        String _newText_1 = change.getNewText();
+        LineIndex _lineIndex = new LineIndex(_newText_1);
+        newLineIndex = _lineIndex;
+      } else {
+        final int start = this.getOffSet(newLineIndex, change.getRange().getStart());
+        final int end = this.getOffSet(newLineIndex, change.getRange().getEnd());
+        newContent.replace(start, (end - start), change.getNewText());
+        newLineIndex.replace(start, (end - start), change.getNewText());
       }
     }
     Integer _xifexpression = null;
@@ -135,7 +151,18 @@ public class Document {
     } else {
       _xifexpression = null;
     }
-    return new Document(_xifexpression, newContent);
+    String _string = newContent.toString();
+    return new Document(_xifexpression, _string, true, newLineIndex);
+  }
+  
+  @Pure
+  public Integer getVersion() {
+    return this.version;
+  }
+  
+  @Pure
+  public String getContents() {
+    return this.contents;
   }
   
   /**
@@ -151,53 +178,51 @@ public class Document {
   public int hashCode() {
     final int prime = 31;
     int result = 1;
-    result = prime * result + ((this.version== null) ? 0 : this.version.hashCode());
-    result = prime * result + ((this.contents== null) ? 0 : this.contents.hashCode());
-    return prime * result + (this.printSourceOnError ? 1231 : 1237);
+    int _xifexpression = (int) 0;
+    if ((this.version == null)) {
+      _xifexpression = 0;
+    } else {
+      _xifexpression = this.version.hashCode();
+    }
+    int _plus = ((prime * result) + _xifexpression);
+    result = _plus;
+    int _xifexpression_1 = (int) 0;
+    if ((this.contents == null)) {
+      _xifexpression_1 = 0;
+    } else {
+      _xifexpression_1 = this.contents.hashCode();
+    }
+    int _plus_1 = ((prime * result) + _xifexpression_1);
+    result = _plus_1;
+    int _xifexpression_2 = (int) 0;
+    if (this.printSourceOnError) {
+      _xifexpression_2 = 1231;
+    } else {
+      _xifexpression_2 = 1237;
+    }
+    return ((prime * result) + _xifexpression_2);
   }
   
   @Override
   @Pure
   public boolean equals(final Object obj) {
-    if (this == obj)
+    if ((this == obj)) {
       return true;
-    if (obj == null)
-      return false;
-    if (getClass() != obj.getClass())
-      return false;
-    Document other = (Document) obj;
-    if (this.version == null) {
-      if (other.version != null)
-        return false;
-    } else if (!this.version.equals(other.version))
-      return false;
-    if (this.contents == null) {
-      if (other.contents != null)
-        return false;
-    } else if (!this.contents.equals(other.contents))
-      return false;
-    if (other.printSourceOnError != this.printSourceOnError)
+    }
+    if (((obj == null) || (this.getClass() != obj.getClass()))) {
       return false;
-    return true;
+    }
+    final Document other = ((Document) obj);
+    return ((Objects.equal(this.version, other.version) && Objects.equal(this.contents, other.contents)) && (this.printSourceOnError == other.printSourceOnError));
   }
   
   @Override
   @Pure
   public String toString() {
-    ToStringBuilder b = new ToStringBuilder(this);
+    final ToStringBuilder b = new ToStringBuilder(this);
     b.add("version", this.version);
     b.add("contents", this.contents);
-    b.add("printSourceOnError", this.printSourceOnError);
+    b.add("printSourceOnError", Boolean.valueOf(this.printSourceOnError));
     return b.toString();
   }
-  
-  @Pure
-  public Integer getVersion() {
-    return this.version;
-  }
-  
-  @Pure
-  public String getContents() {
-    return this.contents;
-  }
 }
@@ -288,6 +288,7 @@ public class LanguageServerImpl implements LanguageServer, WorkspaceService, Tex
     }
     result.setCapabilities(capabilities);
     this.access.addBuildListener(this);
+    this.access.addBuildListener(this.workspaceSymbolService);
     final Function0<Object> _function_1 = () -> {
       final Procedure2<URI, Iterable<Issue>> _function_2 = (URI $0, Iterable<Issue> $1) -> {
         this.publishDiagnostics($0, $1);
@@ -340,8 +341,14 @@ public class LanguageServerImpl implements LanguageServer, WorkspaceService, Tex
   @Override
   public CompletableFuture<Object> shutdown() {
     this.hasShutdownBeenCalled = true;
-    Object _object = new Object();
-    return CompletableFuture.<Object>completedFuture(_object);
+    final Function0<Object> _function = () -> {
+      this.workspaceManager.saveIndexSnapshots();
+      return new Object();
+    };
+    final Function2<CancelIndicator, Object, Object> _function_1 = (CancelIndicator cancelIndicator, Object result) -> {
+      return result;
+    };
+    return this.requestManager.<Object, Object>runWrite(_function, _function_1);
   }
   
   @Override
@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2016, 2017 TypeFox GmbH (http://www.typefox.io) and others.
+ * Copyright (c) 2016, 2018 TypeFox GmbH (http://www.typefox.io) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -9,21 +9,26 @@ package org.eclipse.xtext.ide.server;
 
 import com.google.inject.Inject;
 import com.google.inject.Provider;
+import com.google.inject.name.Named;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.xtend.lib.annotations.AccessorType;
 import org.eclipse.xtend.lib.annotations.Accessors;
 import org.eclipse.xtext.build.BuildRequest;
+import org.eclipse.xtext.build.ContentFingerprints;
 import org.eclipse.xtext.build.IncrementalBuilder;
 import org.eclipse.xtext.build.IndexState;
 import org.eclipse.xtext.build.Source2GeneratedMapping;
 import org.eclipse.xtext.diagnostics.Severity;
+import org.eclipse.xtext.ide.server.IndexSnapshotStore;
 import org.eclipse.xtext.resource.IExternalContentSupport;
 import org.eclipse.xtext.resource.IResourceDescription;
 import org.eclipse.xtext.resource.IResourceServiceProvider;
@@ -31,6 +36,7 @@ import org.eclipse.xtext.resource.XtextResourceSet;
 import org.eclipse.xtext.resource.impl.ChunkedResourceDescriptions;
 import org.eclipse.xtext.resource.impl.ProjectDescription;
 import org.eclipse.xtext.resource.impl.ResourceDescriptionsData;
+import org.eclipse.xtext.resource.impl.ResourceDescriptionsPager;
 import org.eclipse.xtext.util.CancelIndicator;
 import org.eclipse.xtext.util.IAcceptor;
 import org.eclipse.xtext.util.IFileSystemScanner;
@@ -40,6 +46,7 @@ import org.eclipse.xtext.workspace.ISourceFolder;
 import org.eclipse.xtext.workspace.ProjectConfigAdapter;
 import org.eclipse.xtext.xbase.lib.CollectionLiterals;
 import org.eclipse.xtext.xbase.lib.Functions.Function1;
+import org.eclipse.xtext.xbase.lib.IterableExtensions;
 import org.eclipse.xtext.xbase.lib.ObjectExtensions;
 import org.eclipse.xtext.xbase.lib.Procedures.Procedure1;
 import org.eclipse.xtext.xbase.lib.Procedures.Procedure2;
@@ -51,6 +58,15 @@ import org.eclipse.xtext.xbase.lib.Pure;
  */
 @SuppressWarnings("all")
 public class ProjectManager {
+  /**
+   * Whether generated files whose contents are unchanged are not written again, so their time stamps stay untouched,
+   * e.g. if the client watches them. Defaults to <code>false</code>.
+   * 
+   * @see BuildRequest#isSkipUnchangedWrites()
+   * @since 2.15
+   */
+  public final static String SKIP_UNCHANGED_WRITES = "org.eclipse.xtext.ide.server.ProjectManager.skipUnchangedWrites";
+  
   @Inject
   protected IncrementalBuilder incrementalBuilder;
   
@@ -66,6 +82,22 @@ public class ProjectManager {
   @Inject
   protected IExternalContentSupport externalContentSupport;
   
+  /**
+   * @since 2.15
+   */
+  @Inject
+  protected IndexSnapshotStore snapshotStore;
+  
+  /**
+   * @since 2.15
+   */
+  @Inject
+  protected ResourceDescriptionsPager pager;
+  
+  @Inject(optional = true)
+  @Named(ProjectManager.SKIP_UNCHANGED_WRITES)
+  private boolean skipUnchangedWrites = false;
+  
   @Accessors(AccessorType.PUBLIC_GETTER)
   private IndexState indexState = new IndexState();
   
@@ -86,6 +118,8 @@ public class ProjectManager {
   
   private IProjectConfig projectConfig;
   
+  private final Map<URI, List<Issue>> issues = new ConcurrentHashMap<URI, List<Issue>>();
+  
   public void initialize(final ProjectDescription description, final IProjectConfig projectConfig, final Procedure2<? super URI, ? super Iterable<Issue>> acceptor, final IExternalContentSupport.IExternalContentProvider openedDocumentsContentProvider, final Provider<Map<String, ResourceDescriptionsData>> indexProvider, final CancelIndicator cancelIndicator) {
     this.projectDescription = description;
     this.projectConfig = projectConfig;
@@ -96,6 +130,17 @@ public class ProjectManager {
   }
   
   public IncrementalBuilder.Result doInitialBuild(final CancelIndicator cancelIndicator) {
+    return this.doInitialBuild(CollectionLiterals.<IResourceDescription.Delta>emptyList(), cancelIndicator);
+  }
+  
+  /**
+   * Builds all source files of the project. If a {@link IndexSnapshotStore snapshot} of the project has been saved,
+   * its index state is restored and only the files whose content has changed are built together with the files that
+   * are affected by the external deltas. The issues of the other files are reported from the snapshot.
+   * 
+   * @since 2.15
+   */
+  public IncrementalBuilder.Result doInitialBuild(final List<IResourceDescription.Delta> externalDeltas, final CancelIndicator cancelIndicator) {
     final ArrayList<URI> uris = CollectionLiterals.<URI>newArrayList();
     final Consumer<ISourceFolder> _function = (ISourceFolder it) -> {
       final IAcceptor<URI> _function_1 = (URI it_1) -> {
@@ -104,7 +149,44 @@ public class ProjectManager {
       this.fileSystemScanner.scan(it.getPath(), _function_1);
     };
     this.projectConfig.getSourceFolders().forEach(_function);
-    return this.doBuild(uris, CollectionLiterals.<URI>emptyList(), CollectionLiterals.<IResourceDescription.Delta>emptyList(), cancelIndicator);
+    final IndexSnapshotStore.Snapshot snapshot = this.snapshotStore.load(this.projectDescription, this.baseDir);
+    if ((snapshot == null)) {
+      return this.doBuild(uris, CollectionLiterals.<URI>emptyList(), CollectionLiterals.<IResourceDescription.Delta>emptyList(), cancelIndicator);
+    }
+    this.indexState = snapshot.getIndexState();
+    this.indexProvider.get().put(this.projectDescription.getName(), this.indexState.getResourceDescriptions());
+    final Set<URI> existing = IterableExtensions.<URI>toSet(uris);
+    final Function1<URI, Boolean> _function_1 = (URI it) -> {
+      boolean _contains = existing.contains(it);
+      return Boolean.valueOf((!_contains));
+    };
+    final List<URI> deletedFiles = IterableExtensions.<URI>toList(IterableExtensions.<URI>filter(this.indexState.getResourceDescriptions().getAllURIs(), _function_1));
+    Set<Map.Entry<URI, List<Issue>>> _entrySet = snapshot.getIssues().entrySet();
+    for (final Map.Entry<URI, List<Issue>> entry : _entrySet) {
+      boolean _contains = existing.contains(entry.getKey());
+      if (_contains) {
+        this.issues.put(entry.getKey(), entry.getValue());
+      }
+    }
+    final IncrementalBuilder.Result result = this.doBuild(uris, deletedFiles, externalDeltas, cancelIndicator);
+    Set<Map.Entry<URI, List<Issue>>> _entrySet_1 = snapshot.getIssues().entrySet();
+    for (final Map.Entry<URI, List<Issue>> entry_1 : _entrySet_1) {
+      if (((this.issues.get(entry_1.getKey()) == entry_1.getValue()) && (!entry_1.getValue().isEmpty()))) {
+        this.issueAcceptor.apply(entry_1.getKey(), entry_1.getValue());
+      }
+    }
+    return result;
+  }
+  
+  /**
+   * Saves a snapshot of the index state of the project, if snapshots are enabled.
+   * 
+   * @since 2.15
+   */
+  public void saveSnapshot() {
+    HashMap<URI, List<Issue>> _hashMap = new HashMap<URI, List<Issue>>(this.issues);
+    IndexSnapshotStore.Snapshot _snapshot = new IndexSnapshotStore.Snapshot(this.indexState, _hashMap);
+    this.snapshotStore.save(this.projectDescription, this.baseDir, _snapshot);
   }
   
   public IncrementalBuilder.Result doBuild(final List<URI> dirtyFiles, final List<URI> deletedFiles, final List<IResourceDescription.Delta> externalDeltas, final CancelIndicator cancelIndicator) {
@@ -113,9 +195,23 @@ public class ProjectManager {
       return this.languagesRegistry.getResourceServiceProvider(it);
     };
     final IncrementalBuilder.Result result = this.incrementalBuilder.build(request, _function);
-    this.indexState = result.getIndexState();
+    this.pager.release(this.indexState.getResourceDescriptions());
+    this.indexState = this.page(result.getIndexState());
     this.resourceSet = request.getResourceSet();
+    boolean _isEnabled = this.pager.isEnabled();
+    if (_isEnabled) {
+      ChunkedResourceDescriptions.findInEmfObject(this.resourceSet).setContainer(this.projectDescription.getName(), this.indexState.getResourceDescriptions());
+    }
     this.indexProvider.get().put(this.projectDescription.getName(), this.indexState.getResourceDescriptions());
+    for (final URI deleted : deletedFiles) {
+      this.issues.remove(deleted);
+    }
+    boolean _isEnabled_1 = this.snapshotStore.isEnabled();
+    if (_isEnabled_1) {
+      HashMap<URI, List<Issue>> _hashMap = new HashMap<URI, List<Issue>>(this.issues);
+      IndexSnapshotStore.Snapshot _snapshot = new IndexSnapshotStore.Snapshot(this.indexState, _hashMap);
+      this.snapshotStore.scheduleSave(this.projectDescription, this.baseDir, _snapshot);
+    }
     return result;
   }
   
@@ -123,24 +219,58 @@ public class ProjectManager {
     BuildRequest _buildRequest = new BuildRequest();
     final Procedure1<BuildRequest> _function = (BuildRequest it) -> {
       it.setBaseDir(this.baseDir);
-      ResourceDescriptionsData _copy = this.indexState.getResourceDescriptions().copy();
-      Source2GeneratedMapping _copy_1 = this.indexState.getFileMappings().copy();
-      IndexState _indexState = new IndexState(_copy, _copy_1);
-      it.setState(_indexState);
+      it.setState(this.indexState.copy());
       it.setResourceSet(this.createFreshResourceSet(it.getState().getResourceDescriptions()));
       it.setDirtyFiles(changedFiles);
       it.setDeletedFiles(deletedFiles);
       it.setExternalDeltas(externalDeltas);
+      it.setSkipUnchangedFiles(this.snapshotStore.isEnabled());
+      it.setSkipUnchangedWrites(this.skipUnchangedWrites);
       final BuildRequest.IPostValidationCallback _function_1 = (URI uri, Iterable<Issue> issues) -> {
         this.issueAcceptor.apply(uri, issues);
+        boolean _isEnabled = this.snapshotStore.isEnabled();
+        if (_isEnabled) {
+          this.recordIssues(uri, issues);
+        }
         return true;
       };
       it.setAfterValidate(_function_1);
       it.setCancelIndicator(cancelIndicator);
+      final Provider<XtextResourceSet> _function_2 = () -> {
+        return this.createNewResourceSet(it.getState().getResourceDescriptions());
+      };
+      it.setWorkerResourceSetProvider(_function_2);
     };
     return ObjectExtensions.<BuildRequest>operator_doubleArrow(_buildRequest, _function);
   }
   
+  /**
+   * Hands the index of the project to the {@link ResourceDescriptionsPager pager}, so it can be paged out while
+   * other projects are worked on.
+   * 
+   * @since 2.15
+   */
+  protected IndexState page(final IndexState state) {
+    final ResourceDescriptionsData paged = this.pager.page(this.projectDescription.getName(), state.getResourceDescriptions());
+    ResourceDescriptionsData _resourceDescriptions = state.getResourceDescriptions();
+    boolean _tripleEquals = (paged == _resourceDescriptions);
+    if (_tripleEquals) {
+      return state;
+    }
+    Source2GeneratedMapping _fileMappings = state.getFileMappings();
+    ContentFingerprints _fingerprints = state.getFingerprints();
+    return new IndexState(paged, _fileMappings, _fingerprints);
+  }
+  
+  /**
+   * Records the issues of a built file for the next snapshot.
+   * 
+   * @since 2.15
+   */
+  protected void recordIssues(final URI uri, final Iterable<Issue> fileIssues) {
+    this.issues.put(uri, IterableExtensions.<Issue>toList(fileIssues));
+  }
+  
   public XtextResourceSet createNewResourceSet(final ResourceDescriptionsData newIndex) {
     XtextResourceSet _get = this.resourceSetProvider.get();
     final Procedure1<XtextResourceSet> _function = (XtextResourceSet it) -> {
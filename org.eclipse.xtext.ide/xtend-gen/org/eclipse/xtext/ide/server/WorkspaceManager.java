@@ -16,6 +16,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import org.apache.log4j.Logger;
 import org.eclipse.emf.common.util.URI;
@@ -79,7 +80,7 @@ public class WorkspaceManager {
     this.buildListeners.add(listener);
   }
   
-  private Map<String, ResourceDescriptionsData> fullIndex = CollectionLiterals.<String, ResourceDescriptionsData>newHashMap();
+  private Map<String, ResourceDescriptionsData> fullIndex = new ConcurrentHashMap<String, ResourceDescriptionsData>();
   
   private Map<URI, Document> openDocuments = CollectionLiterals.<URI, Document>newHashMap();
   
@@ -213,6 +214,18 @@ public class WorkspaceManager {
     return new ArrayList<ProjectManager>(_values);
   }
   
+  /**
+   * Saves the index snapshots of all projects, if snapshots are enabled.
+   * 
+   * @since 2.15
+   */
+  public void saveIndexSnapshots() {
+    Collection<ProjectManager> _values = this.projectName2ProjectManager.values();
+    for (final ProjectManager projectManager : _values) {
+      projectManager.saveSnapshot();
+    }
+  }
+  
   public List<IResourceDescription.Delta> didChange(final URI uri, final Integer version, final Iterable<TextEdit> changes, final CancelIndicator cancelIndicator) {
     return this.didChange(uri, version, changes).build(cancelIndicator);
   }
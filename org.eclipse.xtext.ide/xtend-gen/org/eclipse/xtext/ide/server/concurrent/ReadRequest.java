@@ -9,6 +9,7 @@ package org.eclipse.xtext.ide.server.concurrent;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.eclipse.xtend.lib.annotations.FinalFieldsConstructor;
 import org.eclipse.xtext.ide.server.concurrent.AbstractRequest;
 import org.eclipse.xtext.util.CancelIndicator;
@@ -22,6 +23,8 @@ public class ReadRequest<V extends Object> extends AbstractRequest<V> {
   
   private final ExecutorService executor;
   
+  private final AtomicBoolean running = new AtomicBoolean();
+  
   @Override
   public void run() {
     boolean _isCancelled = this.result.isCancelled();
@@ -34,6 +37,7 @@ public class ReadRequest<V extends Object> extends AbstractRequest<V> {
         boolean _xblockexpression = false;
         {
           this.cancelIndicator.checkCanceled();
+          this.running.set(true);
           _xblockexpression = this.result.complete(this.cancellable.apply(this.cancelIndicator));
         }
         _xtrycatchfinallyexpression = _xblockexpression;
@@ -50,6 +54,15 @@ public class ReadRequest<V extends Object> extends AbstractRequest<V> {
     this.executor.<Boolean>submit(_function);
   }
   
+  /**
+   * Whether the read operation has been started by the executor.
+   * 
+   * @since 2.15
+   */
+  public boolean isRunning() {
+    return this.running.get();
+  }
+  
   public ReadRequest(final Function1<? super CancelIndicator, ? extends V> cancellable, final ExecutorService executor) {
     super();
     this.cancellable = cancellable;
@@ -9,13 +9,20 @@ package org.eclipse.xtext.ide.server.concurrent;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
+import com.google.inject.name.Named;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.xtend.lib.annotations.AccessorType;
+import org.eclipse.xtend.lib.annotations.Accessors;
 import org.eclipse.xtext.ide.server.concurrent.AbstractRequest;
 import org.eclipse.xtext.ide.server.concurrent.ReadRequest;
+import org.eclipse.xtext.ide.server.concurrent.RequestStatistics;
 import org.eclipse.xtext.ide.server.concurrent.WriteRequest;
 import org.eclipse.xtext.service.OperationCanceledManager;
 import org.eclipse.xtext.util.CancelIndicator;
@@ -24,6 +31,7 @@ import org.eclipse.xtext.xbase.lib.Conversions;
 import org.eclipse.xtext.xbase.lib.Functions.Function0;
 import org.eclipse.xtext.xbase.lib.Functions.Function1;
 import org.eclipse.xtext.xbase.lib.Functions.Function2;
+import org.eclipse.xtext.xbase.lib.Pure;
 
 /**
  * @author kosyakov - Initial contribution and API
@@ -31,6 +39,13 @@ import org.eclipse.xtext.xbase.lib.Functions.Function2;
  */
 @SuppressWarnings("all")
 public class RequestManager {
+  /**
+   * The name of the binding for the {@link #coalescingWindow}.
+   * 
+   * @since 2.15
+   */
+  public final static String COALESCING_WINDOW = "org.eclipse.xtext.ide.server.concurrent.RequestManager.coalescingWindow";
+  
   @Inject
   private ExecutorService parallel;
   
@@ -40,10 +55,52 @@ public class RequestManager {
   private final ExecutorService queue = Executors.newSingleThreadExecutor(
     new ThreadFactoryBuilder().setDaemon(true).setNameFormat("RequestManager-Queue-%d").build());
   
+  private final ScheduledExecutorService delayer = Executors.newSingleThreadScheduledExecutor(
+    new ThreadFactoryBuilder().setDaemon(true).setNameFormat("RequestManager-Delay-%d").build());
+  
   private ArrayList<AbstractRequest<?>> requests = CollectionLiterals.<AbstractRequest<?>>newArrayList();
   
+  private CompletableFuture<?> delayedSubmissions = CompletableFuture.<Object>completedFuture(null);
+  
+  private final HashSet<AbstractRequest<?>> delayedRequests = CollectionLiterals.<AbstractRequest<?>>newHashSet();
+  
+  /**
+   * Whether read requests that are already running are canceled by a subsequent write request.
+   * If <code>false</code>, running read requests finish against the state before the write.
+   * Read requests that did not start yet are canceled in any case.
+   * 
+   * @since 2.15
+   */
+  @Accessors
+  private boolean cancelRunningReads = true;
+  
+  /**
+   * The time in milliseconds a write request is delayed before it is passed to the queue. If another write request
+   * is submitted within this window, the cancellable part of the delayed one is skipped, so that a burst of changes
+   * results in one build. Requests that are submitted while a write request is delayed are queued after it.
+   * 
+   * @since 2.15
+   */
+  @Inject(optional = true)
+  @Named(RequestManager.COALESCING_WINDOW)
+  @Accessors
+  private long coalescingWindow = 0;
+  
+  /**
+   * @since 2.15
+   */
+  @Accessors(AccessorType.PUBLIC_GETTER)
+  private final RequestStatistics statistics = new RequestStatistics();
+  
   public void shutdown() {
-    this.queue.shutdown();
+    this.delayer.shutdownNow();
+    synchronized (this.delayedRequests) {
+      for (final AbstractRequest<?> request : this.delayedRequests) {
+        request.cancel();
+      }
+      this.delayedRequests.clear();
+      this.queue.shutdown();
+    }
     this.parallel.shutdown();
     this.cancel();
   }
@@ -54,17 +111,90 @@ public class RequestManager {
   }
   
   public <U extends Object, V extends Object> CompletableFuture<V> runWrite(final Function0<? extends U> nonCancellable, final Function2<? super CancelIndicator, ? super U, ? extends V> cancellable) {
-    final CompletableFuture<Void> cancelFuture = this.cancel();
+    final CompletableFuture<Void> cancelFuture = this.cancelBeforeWrite();
     WriteRequest<U, V> _writeRequest = new WriteRequest<U, V>(nonCancellable, cancellable, cancelFuture);
-    return this.<V>submit(_writeRequest);
+    return this.<V>submit(_writeRequest, this.coalescingWindow);
   }
   
   protected <V extends Object> CompletableFuture<V> submit(final AbstractRequest<V> request) {
+    return this.<V>submit(request, 0);
+  }
+  
+  /**
+   * Passes the given request to the queue after the given delay in milliseconds. The requests are queued in the
+   * order of their submission. A delayed request that is canceled in the meantime is still queued, but its
+   * cancellable part is skipped.
+   * 
+   * @since 2.15
+   */
+  protected <V extends Object> CompletableFuture<V> submit(final AbstractRequest<V> request, final long delay) {
     this.requests.add(request);
-    this.queue.submit(request);
+    final long submitted = this.statistics.requestSubmitted();
+    final Runnable _function = () -> {
+      this.statistics.requestStarted(submitted);
+      request.run();
+    };
+    final Runnable task = _function;
+    if (((delay <= 0) && this.delayedSubmissions.isDone())) {
+      this.queue.submit(task);
+    } else {
+      synchronized (this.delayedRequests) {
+        this.delayedRequests.add(request);
+      }
+      final CompletableFuture<Void> delayed = new CompletableFuture<Void>();
+      if ((delay > 0)) {
+        final Runnable _function_1 = () -> {
+          boolean _isCancelled = request.get().isCancelled();
+          if (_isCancelled) {
+            this.statistics.writeCoalesced();
+          }
+          delayed.complete(null);
+        };
+        final Runnable elapsed = _function_1;
+        this.delayer.schedule(elapsed, delay, TimeUnit.MILLISECONDS);
+      } else {
+        delayed.complete(null);
+      }
+      final Runnable _function_2 = () -> {
+        synchronized (this.delayedRequests) {
+          boolean _remove = this.delayedRequests.remove(request);
+          if (_remove) {
+            this.queue.submit(task);
+          }
+        }
+      };
+      this.delayedSubmissions = CompletableFuture.allOf(this.delayedSubmissions, delayed).thenRun(_function_2);
+    }
     return request.get();
   }
   
+  /**
+   * Cancels the outstanding requests before a write request is submitted. Running read requests
+   * are only canceled if {@link #cancelRunningReads} is set.
+   * 
+   * @return a future that completes when all outstanding requests are finished.
+   * @since 2.15
+   */
+  protected CompletableFuture<Void> cancelBeforeWrite() {
+    if (this.cancelRunningReads) {
+      return this.cancel();
+    }
+    final ArrayList<AbstractRequest<?>> localRequests = this.requests;
+    this.requests = CollectionLiterals.<AbstractRequest<?>>newArrayList();
+    final ArrayList<CompletableFuture<?>> cfs = CollectionLiterals.<CompletableFuture<?>>newArrayList();
+    for (final AbstractRequest<?> request : localRequests) {
+      {
+        boolean _not = (!((request instanceof ReadRequest<?>) && ((ReadRequest<?>) request).isRunning()));
+        if (_not) {
+          request.cancel();
+        }
+        CompletableFuture<?> _get = request.get();
+        cfs.add(_get);
+      }
+    }
+    return CompletableFuture.allOf(((CompletableFuture<?>[])Conversions.unwrapArray(cfs, CompletableFuture.class)));
+  }
+  
   protected CompletableFuture<Void> cancel() {
     final ArrayList<AbstractRequest<?>> localRequests = this.requests;
     this.requests = CollectionLiterals.<AbstractRequest<?>>newArrayList();
@@ -92,4 +222,27 @@ public class RequestManager {
     final Throwable cause = _xifexpression;
     return this.operationCanceledManager.isOperationCanceledException(cause);
   }
+  
+  @Pure
+  public boolean isCancelRunningReads() {
+    return this.cancelRunningReads;
+  }
+  
+  public void setCancelRunningReads(final boolean cancelRunningReads) {
+    this.cancelRunningReads = cancelRunningReads;
+  }
+  
+  @Pure
+  public long getCoalescingWindow() {
+    return this.coalescingWindow;
+  }
+  
+  public void setCoalescingWindow(final long coalescingWindow) {
+    this.coalescingWindow = coalescingWindow;
+  }
+  
+  @Pure
+  public RequestStatistics getStatistics() {
+    return this.statistics;
+  }
 }
@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2016 TypeFox GmbH (http://www.typefox.io) and others.
+ * Copyright (c) 2016, 2018 TypeFox GmbH (http://www.typefox.io) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,18 +10,31 @@ package org.eclipse.xtext.ide.server.symbol;
 import com.google.common.collect.Iterables;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
-import java.util.LinkedList;
+import com.google.inject.name.Named;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.eclipse.emf.common.util.URI;
 import org.eclipse.lsp4j.SymbolInformation;
 import org.eclipse.xtext.findReferences.IReferenceFinder;
+import org.eclipse.xtext.ide.server.ILanguageServerAccess;
 import org.eclipse.xtext.ide.server.symbol.DocumentSymbolService;
+import org.eclipse.xtext.ide.server.symbol.WorkspaceSymbolIndex;
+import org.eclipse.xtext.resource.IEObjectDescription;
 import org.eclipse.xtext.resource.IResourceDescription;
 import org.eclipse.xtext.resource.IResourceDescriptions;
 import org.eclipse.xtext.resource.IResourceServiceProvider;
+import org.eclipse.xtext.resource.impl.DefaultResourceDescriptionDelta;
 import org.eclipse.xtext.service.OperationCanceledManager;
 import org.eclipse.xtext.util.CancelIndicator;
 import org.eclipse.xtext.xbase.lib.CollectionLiterals;
+import org.eclipse.xtext.xbase.lib.Exceptions;
 import org.eclipse.xtext.xbase.lib.Extension;
+import org.eclipse.xtext.xbase.lib.Functions.Function1;
+import org.eclipse.xtext.xbase.lib.IterableExtensions;
+import org.eclipse.xtext.xbase.lib.Procedures.Procedure1;
 
 /**
  * @author kosyakov - Initial contribution and API
@@ -29,7 +42,15 @@ import org.eclipse.xtext.xbase.lib.Extension;
  */
 @Singleton
 @SuppressWarnings("all")
-public class WorkspaceSymbolService {
+public class WorkspaceSymbolService implements ILanguageServerAccess.IBuildListener {
+  /**
+   * The maximum number of symbols that are returned for a query without paging. By default the number is not
+   * limited.
+   * 
+   * @since 2.15
+   */
+  public static final String MAX_RESULTS = "org.eclipse.xtext.ide.server.symbol.WorkspaceSymbolService.maxResults";
+  
   @Inject
   @Extension
   private IResourceServiceProvider.Registry _registry;
@@ -37,8 +58,176 @@ public class WorkspaceSymbolService {
   @Inject
   private OperationCanceledManager operationCanceledManager;
   
+  @Inject
+  private WorkspaceSymbolIndex symbolIndex;
+  
+  @Inject(optional = true)
+  @Named(WorkspaceSymbolService.MAX_RESULTS)
+  private int maxResults = Integer.MAX_VALUE;
+  
+  private boolean built;
+  
+  private boolean indexed;
+  
+  private boolean customFilter;
+  
+  private final Map<Class<?>, Boolean> customFilters = new ConcurrentHashMap<Class<?>, Boolean>();
+  
   public List<? extends SymbolInformation> getSymbols(final String query, final IReferenceFinder.IResourceAccess resourceAccess, final IResourceDescriptions indexData, final CancelIndicator cancelIndicator) {
-    final LinkedList<SymbolInformation> result = CollectionLiterals.<SymbolInformation>newLinkedList();
+    return this.getSymbols(query, 0, this.maxResults, resourceAccess, indexData, cancelIndicator);
+  }
+  
+  /**
+   * Returns a page of the symbols that match the query. Once the service has been notified about a build, the symbols
+   * are looked up in the {@link WorkspaceSymbolIndex symbol index} and are ranked by the quality of the match. The
+   * symbol index is populated from the index data on first use and is updated with the deltas of subsequent builds.
+   * The page is taken from the symbols that pass the {@link DocumentSymbolService#filter(IEObjectDescription, String)
+   * filter} of their language. Before the first build, or if a language {@link #hasCustomFilter(URI) filters its
+   * symbols differently}, all resource descriptions of the index data are visited.
+   * 
+   * @since 2.15
+   */
+  public List<? extends SymbolInformation> getSymbols(final String query, final int offset, final int limit, final IReferenceFinder.IResourceAccess resourceAccess, final IResourceDescriptions indexData, final CancelIndicator cancelIndicator) {
+    if ((limit <= 0)) {
+      return CollectionLiterals.<SymbolInformation>emptyList();
+    }
+    boolean _ensureIndexed = this.ensureIndexed(indexData);
+    boolean _not = (!_ensureIndexed);
+    if (_not) {
+      final List<? extends SymbolInformation> symbols = this.getAllSymbols(query, resourceAccess, indexData, cancelIndicator);
+      int _min = Math.min(offset, symbols.size());
+      long _min_1 = Math.min((((long) offset) + limit), symbols.size());
+      return symbols.subList(_min, ((int) _min_1));
+    }
+    final ArrayList<SymbolInformation> result = CollectionLiterals.<SymbolInformation>newArrayList();
+    int skipped = 0;
+    int start = 0;
+    long _min_2 = Math.min((((long) offset) + limit), Integer.MAX_VALUE);
+    int count = ((int) _min_2);
+    while ((count > 0)) {
+      {
+        final List<IEObjectDescription> matches = this.symbolIndex.find(query, start, count);
+        for (final IEObjectDescription description : matches) {
+          {
+            this.operationCanceledManager.checkCanceled(cancelIndicator);
+            List<SymbolInformation> _createSymbols = this.createSymbols(description, query, resourceAccess, indexData);
+            for (final SymbolInformation symbol : _createSymbols) {
+              if ((skipped < offset)) {
+                skipped++;
+              } else {
+                int _size = result.size();
+                boolean _lessThan = (_size < limit);
+                if (_lessThan) {
+                  result.add(symbol);
+                }
+              }
+            }
+            int _size = result.size();
+            boolean _greaterEqualsThan = (_size >= limit);
+            if (_greaterEqualsThan) {
+              return result;
+            }
+          }
+        }
+        int _size = matches.size();
+        boolean _lessThan = (_size < count);
+        if (_lessThan) {
+          return result;
+        }
+        int _start = start;
+        start = (_start + count);
+        count = Math.min(start, (Integer.MAX_VALUE - start));
+      }
+    }
+    return result;
+  }
+  
+  private List<SymbolInformation> createSymbols(final IEObjectDescription description, final String query, final IReferenceFinder.IResourceAccess resourceAccess, final IResourceDescriptions indexData) {
+    final ArrayList<SymbolInformation> result = CollectionLiterals.<SymbolInformation>newArrayList();
+    final URI resourceURI = description.getEObjectURI().trimFragment();
+    IResourceDescription _resourceDescription = indexData.getResourceDescription(resourceURI);
+    boolean _tripleNotEquals = (_resourceDescription != null);
+    if (_tripleNotEquals) {
+      IResourceServiceProvider _resourceServiceProvider = this._registry.getResourceServiceProvider(resourceURI);
+      DocumentSymbolService _get = null;
+      if (_resourceServiceProvider!=null) {
+        _get=_resourceServiceProvider.<DocumentSymbolService>get(DocumentSymbolService.class);
+      }
+      final DocumentSymbolService documentSymbolService = _get;
+      if (((documentSymbolService != null) && documentSymbolService.filter(description, query))) {
+        final Procedure1<SymbolInformation> _function = (SymbolInformation symbol) -> {
+          result.add(symbol);
+        };
+        documentSymbolService.createSymbol(description, resourceAccess, _function);
+      }
+    }
+    return result;
+  }
+  
+  /**
+   * Whether the {@link DocumentSymbolService} of the given resource collects or filters its symbols differently
+   * than the symbol index, which only finds the descriptions whose qualified name contains the query like the default
+   * {@link DocumentSymbolService#filter(IEObjectDescription, String) filter} does. This is the case if the class of
+   * the service overrides one of these methods.
+   * 
+   * @since 2.15
+   */
+  protected boolean hasCustomFilter(final URI uri) {
+    IResourceServiceProvider _resourceServiceProvider = this._registry.getResourceServiceProvider(uri);
+    DocumentSymbolService _get = null;
+    if (_resourceServiceProvider!=null) {
+      _get=_resourceServiceProvider.<DocumentSymbolService>get(DocumentSymbolService.class);
+    }
+    final DocumentSymbolService documentSymbolService = _get;
+    if ((documentSymbolService == null)) {
+      return false;
+    }
+    final Function<Class<?>, Boolean> _function = (Class<?> type) -> {
+      for (Class<?> current = type; (current != DocumentSymbolService.class); current = current.getSuperclass()) {
+        if ((this.declares(current, "filter", IEObjectDescription.class, String.class) || this.declares(current, "getSymbols", IResourceDescription.class, String.class, IReferenceFinder.IResourceAccess.class, CancelIndicator.class))) {
+          return Boolean.valueOf(true);
+        }
+      }
+      return Boolean.valueOf(false);
+    };
+    return (this.customFilters.computeIfAbsent(documentSymbolService.getClass(), _function)).booleanValue();
+  }
+  
+  private boolean declares(final Class<?> type, final String methodName, final Class<?>... parameterTypes) {
+    try {
+      type.getDeclaredMethod(methodName, parameterTypes);
+      return true;
+    } catch (final Throwable _t) {
+      if (_t instanceof NoSuchMethodException) {
+        return false;
+      } else {
+        throw Exceptions.sneakyThrow(_t);
+      }
+    }
+  }
+  
+  protected boolean ensureIndexed(final IResourceDescriptions indexData) {
+    synchronized (this.symbolIndex) {
+      if ((this.built && (!this.indexed))) {
+        this.symbolIndex.clear();
+        final Function1<IResourceDescription, IResourceDescription.Delta> _function = (IResourceDescription it) -> {
+          DefaultResourceDescriptionDelta _defaultResourceDescriptionDelta = new DefaultResourceDescriptionDelta(null, it);
+          return ((IResourceDescription.Delta) _defaultResourceDescriptionDelta);
+        };
+        final List<IResourceDescription.Delta> deltas = IterableExtensions.<IResourceDescription.Delta>toList(IterableExtensions.<IResourceDescription, IResourceDescription.Delta>map(indexData.getAllResourceDescriptions(), _function));
+        this.symbolIndex.update(deltas);
+        final Function1<IResourceDescription.Delta, Boolean> _function_1 = (IResourceDescription.Delta it) -> {
+          return Boolean.valueOf(this.hasCustomFilter(it.getUri()));
+        };
+        this.customFilter = IterableExtensions.<IResourceDescription.Delta>exists(deltas, _function_1);
+        this.indexed = true;
+      }
+      return (this.indexed && (!this.customFilter));
+    }
+  }
+  
+  protected List<? extends SymbolInformation> getAllSymbols(final String query, final IReferenceFinder.IResourceAccess resourceAccess, final IResourceDescriptions indexData, final CancelIndicator cancelIndicator) {
+    final ArrayList<SymbolInformation> result = CollectionLiterals.<SymbolInformation>newArrayList();
     Iterable<IResourceDescription> _allResourceDescriptions = indexData.getAllResourceDescriptions();
     for (final IResourceDescription resourceDescription : _allResourceDescriptions) {
       {
@@ -57,4 +246,21 @@ public class WorkspaceSymbolService {
     }
     return result;
   }
+  
+  /**
+   * @since 2.15
+   */
+  @Override
+  public void afterBuild(final List<IResourceDescription.Delta> deltas) {
+    synchronized (this.symbolIndex) {
+      if (this.indexed) {
+        this.symbolIndex.update(deltas);
+        final Function1<IResourceDescription.Delta, Boolean> _function = (IResourceDescription.Delta it) -> {
+          return Boolean.valueOf(((it.getNew() != null) && this.hasCustomFilter(it.getUri())));
+        };
+        this.customFilter = (this.customFilter || IterableExtensions.<IResourceDescription.Delta>exists(deltas, _function));
+      }
+      this.built = true;
+    }
+  }
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015, 2017 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2015, 2018 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -8,12 +8,25 @@
 package org.eclipse.xtext.build
 
 import com.google.inject.Inject
+import com.google.inject.Provider
+import java.util.ArrayList
+import java.util.List
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
 import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
 import org.eclipse.core.runtime.OperationCanceledException
 import org.eclipse.emf.common.util.URI
+import org.eclipse.emf.ecore.resource.Resource
 import org.eclipse.xtext.build.BuildRequest.IPostValidationCallback
+import org.eclipse.xtext.generator.GeneratorDelegate
+import org.eclipse.xtext.generator.IFileSystemAccess2
+import org.eclipse.xtext.generator.IGeneratorContext
 import org.eclipse.xtext.index.IndexTestLanguageInjectorProvider
 import org.eclipse.xtext.resource.IResourceServiceProvider
+import org.eclipse.xtext.resource.SynchronizedXtextResourceSet
+import org.eclipse.xtext.resource.impl.DefaultResourceServiceProvider
+import org.eclipse.xtext.resource.impl.ProjectDescription
 import org.eclipse.xtext.util.CancelIndicator
 import org.eclipse.xtext.testing.XtextRunner
 import org.eclipse.xtext.testing.InjectWith
@@ -34,6 +47,12 @@ class IncrementalBuilderTest extends AbstractIncrementalBuilderTest {
 	
 	@Inject IResourceServiceProvider.Registry resourceServiceProviderFactory
 	
+	@Inject Provider<SynchronizedXtextResourceSet> synchronizedResourceSetProvider
+	
+	@Inject Provider<GeneratingResourceServiceProvider> generatingResourceServiceProvider
+	
+	@Inject Provider<ValidatingResourceServiceProvider> validatingResourceServiceProvider
+	
 	override getLanguages() {
 		resourceServiceProviderFactory
 	}
@@ -347,5 +366,350 @@ class IncrementalBuilderTest extends AbstractIncrementalBuilderTest {
 		assertTrue(deleted.containsSuffix('src-gen/A.txt'))
 	}
 
+	@Test def void testParallelIndexing() {
+		val workers = new AtomicInteger
+		val buildRequest = newBuildRequest [
+			val newIndex = state.resourceDescriptions
+			indexingThreads = 2
+			workerResourceSetProvider = [
+				workers.incrementAndGet
+				return resourceSetProvider.get => [
+					getURIConverter.getURIHandlers.clear
+					getURIConverter.getURIHandlers += inMemoryURIHandler
+					classpathURIContext = IncrementalBuilderTest.classLoader
+					new ChunkedResourceDescriptions(emptyMap, it).setContainer('test-project', newIndex)
+				]
+			]
+			dirtyFiles = #[entity('A', 'B'), entity('B', 'A'), entity('C', 'A')]
+		]
+		val result = build(buildRequest)
+		assertTrue(issues.toString, issues.isEmpty)
+		assertEquals(2, workers.get)
+		assertEquals(3, result.resourceDescriptions.allResourceDescriptions.size)
+		assertEquals(3, generated.size)
+		assertTrue(generated.values.containsSuffix('src-gen/A.txt', 'src-gen/B.txt', 'src-gen/C.txt'))
+	}
+
+	@Test(timeout = 10000) def void testParallelValidation() {
+		val bothStarted = new CountDownLatch(2)
+		val overlapping = new AtomicBoolean
+		val resourceServiceProvider = validatingResourceServiceProvider.get
+		resourceServiceProvider.onValidate = [
+			// the first two resources are validated concurrently, the third one afterwards
+			bothStarted.countDown
+			if (bothStarted.await(2, TimeUnit.SECONDS)) {
+				overlapping.set(true)
+			}
+		]
+		val buildRequest = newBuildRequest [
+			validationThreads = 2
+			// resources are only validated concurrently in a synchronizable resource set
+			resourceSet = newSynchronizedResourceSet(state.resourceDescriptions)
+			dirtyFiles = #[entity('A', 'B'), entity('B', 'A'), entity('C', 'X')]
+		]
+		clean()
+		val result = incrementalBuilder.build(buildRequest, [resourceServiceProvider]).indexState
+		assertFalse(issues.isEmpty)
+		assertTrue(overlapping.get)
+		assertEquals(3, result.resourceDescriptions.allResourceDescriptions.size)
+		assertEquals(2, generated.size)
+		assertTrue(generated.values.containsSuffix('src-gen/A.txt', 'src-gen/B.txt'))
+	}
+
+	@Test def void testUnchangedFilesAreSkipped() {
+		val a = entity('A', null)
+		val b = entity('B', null)
+		build(newBuildRequest [
+			dirtyFiles = #[a, b]
+			skipUnchangedFiles = true
+		])
+		assertEquals(2, indexState.fingerprints.size)
+
+		// both files are reported as dirty, but only B has been changed
+		clean()
+		val result = incrementalBuilder.build(newBuildRequest [
+			state = new IndexState(state.resourceDescriptions, state.fileMappings, indexState.fingerprints.copy)
+			skipUnchangedFiles = true
+			dirtyFiles = #[
+				a,
+				'src/B.indextestlanguage' - '''
+					foo {
+						entity B {}
+						entity C {}
+					}
+				'''
+			]
+		], [languages.getResourceServiceProvider(it)])
+		assertEquals(1, result.skippedFiles)
+		assertEquals(2, result.fingerprintHits)
+		assertEquals(#[b], result.affectedResources.map[uri].toList)
+		assertEquals(2, result.indexState.resourceDescriptions.allResourceDescriptions.size)
+		assertTrue(generated.values.containsSuffix('src-gen/B.txt', 'src-gen/C.txt'))
+		assertFalse(generated.values.containsSuffix('src-gen/A.txt'))
+	}
+
+	@Test def void testUnchangedFilesAreBuiltByDefault() {
+		val a = entity('A', null)
+		build(newBuildRequest [
+			dirtyFiles = #[a]
+			skipUnchangedFiles = true
+		])
+		assertEquals(1, indexState.fingerprints.size)
+
+		clean()
+		val result = incrementalBuilder.build(newBuildRequest [
+			state = new IndexState(state.resourceDescriptions, state.fileMappings, indexState.fingerprints.copy)
+			dirtyFiles = #[a]
+		], [languages.getResourceServiceProvider(it)])
+		assertEquals(0, result.skippedFiles)
+		assertEquals(0, result.indexState.fingerprints.size)
+		assertTrue(generated.values.containsSuffix('src-gen/A.txt'))
+	}
+
+	@Test def void testUnchangedWritesAreSkipped() {
+		val a = entity('A', null)
+		build(newBuildRequest [
+			dirtyFiles = #[a]
+		])
+		val generatedFile = generated.get(a).findFirst[lastSegment == 'A.txt']
+		val written = inMemoryURIHandler.getInMemoryFile(generatedFile).contents
+		build(newBuildRequest [
+			dirtyFiles = #[a]
+		])
+		val rewritten = inMemoryURIHandler.getInMemoryFile(generatedFile).contents
+		assertNotSame(written, rewritten)
+
+		clean()
+		val result = incrementalBuilder.build(newBuildRequest [
+			dirtyFiles = #[a]
+			skipUnchangedWrites = true
+		], [languages.getResourceServiceProvider(it)])
+		// the file is still reported as generated, but not written again
+		assertTrue(generated.values.containsSuffix('src-gen/A.txt'))
+		assertSame(rewritten, inMemoryURIHandler.getInMemoryFile(generatedFile).contents)
+		assertEquals(0, result.writtenFiles)
+		assertTrue(result.skippedWrites > 0)
+	}
+
+	@Test(timeout = 5000) def void testParallelGeneration() {
+		val bothStarted = new CountDownLatch(2)
+		val generator = new TestGenerator(true) [
+			// A and B are generated concurrently
+			bothStarted.countDown
+			assertTrue(bothStarted.await(2, TimeUnit.SECONDS))
+		]
+		generate(generator, null, #[entity('A', null), entity('B', null)])
+		val events = generator.events
+		assertEquals(#['A', 'B'], events.names('before ').sort)
+		// afterGenerate is invoked in the order of beforeGenerate
+		assertEquals(events.names('before '), events.names('after '))
+		for (name : #['A', 'B']) {
+			assertTrue(events.toString, events.indexOf('before ' + name) < events.indexOf('do ' + name))
+			assertTrue(events.toString, events.indexOf('do ' + name) < events.indexOf('after ' + name))
+		}
+	}
+
+	@Test(timeout = 5000) def void testSequentialGeneration() {
+		val buildThread = Thread.currentThread
+		val generator = new TestGenerator(false) [
+			assertSame(buildThread, Thread.currentThread)
+		]
+		generate(generator, null, #[entity('A', null), entity('B', null)])
+		val events = generator.events
+		assertEquals(#['A', 'B'], events.names('before ').sort)
+		assertEquals(events.names('before ').map[#['before ' + it, 'do ' + it, 'after ' + it]].flatten.toList, events)
+	}
+
+	@Test(timeout = 5000) def void testSequentialGenerationWithoutSynchronizableResourceSet() {
+		val buildThread = Thread.currentThread
+		val generator = new TestGenerator(true) [
+			assertSame(buildThread, Thread.currentThread)
+		]
+		generate(generator, null, #[entity('A', null), entity('B', null)], false)
+		assertEquals(#['A', 'B'], generator.events.names('do ').sort)
+	}
+
+	@Test(timeout = 5000) def void testParallelGenerationFailure() {
+		val failure = new IllegalStateException
+		val generator = new TestGenerator(true) [
+			if (it == 'B')
+				throw failure
+		]
+		try {
+			generate(generator, null, #[entity('A', null), entity('B', null), entity('C', null)])
+			fail
+		} catch (IllegalStateException e) {
+			assertSame(failure, e)
+		}
+		val events = generator.events
+		assertTrue(events.contains('before B'))
+		assertFalse(events.contains('do B'))
+		// every generation that has begun is completed
+		assertEquals(events.names('before '), events.names('after '))
+		for (name : events.names('do ')) {
+			assertTrue(events.toString, events.indexOf('do ' + name) < events.indexOf('after ' + name))
+		}
+	}
+
+	@Test(timeout = 5000) def void testParallelGenerationCancellation() {
+		val generator = new TestGenerator(true) []
+		try {
+			generate(generator, [generator.events.names('before ').size >= 2],
+				#[entity('A', null), entity('B', null), entity('C', null)])
+			fail
+		} catch (OperationCanceledException e) {
+			// expected
+		}
+		val events = generator.events
+		assertEquals(2, events.names('before ').size)
+		// every generation that has begun is completed
+		assertEquals(events.names('before '), events.names('after '))
+		for (name : events.names('do ')) {
+			assertTrue(events.toString, events.indexOf('do ' + name) < events.indexOf('after ' + name))
+		}
+	}
+
+	/**
+	 * Builds the given files with two generator threads and the given generator in a synchronizable resource set.
+	 */
+	private def void generate(TestGenerator generator, CancelIndicator cancelIndicator, List<URI> files) {
+		generate(generator, cancelIndicator, files, true)
+	}
+
+	/**
+	 * Builds the given files with two generator threads and the given generator.
+	 */
+	private def void generate(TestGenerator generator, CancelIndicator cancelIndicator, List<URI> files,
+		boolean synchronizable) {
+		val resourceServiceProvider = generatingResourceServiceProvider.get
+		resourceServiceProvider.generator = generator
+		incrementalBuilder.build(newBuildRequest [
+			generatorThreads = 2
+			if (synchronizable)
+				resourceSet = newSynchronizedResourceSet(state.resourceDescriptions)
+			dirtyFiles = files
+			if (cancelIndicator !== null)
+				it.cancelIndicator = cancelIndicator
+		], [resourceServiceProvider])
+	}
+
+	/**
+	 * Creates a resource set for the test project that allows to validate and generate resources concurrently.
+	 */
+	private def SynchronizedXtextResourceSet newSynchronizedResourceSet(ResourceDescriptionsData index) {
+		return synchronizedResourceSetProvider.get => [
+			getURIConverter.getURIHandlers.clear
+			getURIConverter.getURIHandlers += inMemoryURIHandler
+			classpathURIContext = IncrementalBuilderTest.classLoader
+			new ProjectDescription => [
+				name = 'test-project'
+			].attachToEmfObject(it)
+			new ChunkedResourceDescriptions(emptyMap, it).setContainer('test-project', index)
+		]
+	}
+
+	private def List<String> names(List<String> events, String prefix) {
+		return events.filter[startsWith(prefix)].map[substring(prefix.length)].toList
+	}
+	
+	/**
+	 * Writes a file with a single entity that refers to the given entity unless it is <code>null</code>.
+	 */
+	private def URI entity(String name, String reference) {
+		return 'src/' + name + '.indextestlanguage' - '''
+			foo {
+				entity name {IF reference !== nullfoo.reference referenceENDIF}
+			}
+		'''
+	}
+	
+	/**
+	 * Records the invocations of beforeGenerate, doGenerate and afterGenerate by the name of the resource.
+	 */
+	static class TestGenerator extends GeneratorDelegate {
+		
+		val recorded = <String>newArrayList
+		
+		val boolean parallelSafe
+		
+		val (String)=>void onGenerate
+		
+		new(boolean parallelSafe, (String)=>void onGenerate) {
+			this.parallelSafe = parallelSafe
+			this.onGenerate = onGenerate
+		}
+		
+		override isParallelSafe() {
+			parallelSafe
+		}
+		
+		override beforeGenerate(Resource input, IFileSystemAccess2 fsa, IGeneratorContext context) {
+			record('before ' + input.name)
+		}
+		
+		override doGenerate(Resource input, IFileSystemAccess2 fsa, IGeneratorContext context) {
+			onGenerate.apply(input.name)
+			record('do ' + input.name)
+		}
+		
+		override afterGenerate(Resource input, IFileSystemAccess2 fsa, IGeneratorContext context) {
+			record('after ' + input.name)
+		}
+		
+		def List<String> getEvents() {
+			synchronized (recorded) {
+				return new ArrayList(recorded)
+			}
+		}
+		
+		private def void record(String event) {
+			synchronized (recorded) {
+				recorded += event
+			}
+		}
+		
+		private def String getName(Resource resource) {
+			resource.getURI.trimFileExtension.lastSegment
+		}
+		
+	}
+	
+	static class GeneratingResourceServiceProvider extends DefaultResourceServiceProvider {
+		
+		GeneratorDelegate generator
+		
+		def void setGenerator(GeneratorDelegate generator) {
+			this.generator = generator
+		}
+		
+		override <T> get(Class<T> type) {
+			if (type == GeneratorDelegate) {
+				return generator as T
+			}
+			return super.get(type)
+		}
+		
+	}
+	
+	/**
+	 * Invokes a callback before each resource is validated.
+	 */
+	static class ValidatingResourceServiceProvider extends DefaultResourceServiceProvider {
+		
+		()=>void onValidate
+		
+		def void setOnValidate(()=>void onValidate) {
+			this.onValidate = onValidate
+		}
+		
+		override getResourceValidator() {
+			val validator = super.getResourceValidator
+			return [ resource, mode, cancelIndicator |
+				onValidate.apply
+				return validator.validate(resource, mode, cancelIndicator)
+			]
+		}
+		
+	}
 	
 }
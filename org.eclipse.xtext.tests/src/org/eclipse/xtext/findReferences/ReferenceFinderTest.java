@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.findReferences;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.xtext.EcoreUtil2;
+import org.eclipse.xtext.findReferences.IReferenceFinder.Acceptor;
+import org.eclipse.xtext.findReferences.IReferenceFinder.IResourceAccess;
+import org.eclipse.xtext.index.IndexTestLanguageStandaloneSetup;
+import org.eclipse.xtext.index.indexTestLanguage.Namespace;
+import org.eclipse.xtext.resource.IReferenceDescription;
+import org.eclipse.xtext.resource.IResourceDescription;
+import org.eclipse.xtext.resource.IResourceDescriptions;
+import org.eclipse.xtext.resource.XtextResourceSet;
+import org.eclipse.xtext.resource.impl.ResourceDescriptionsData;
+import org.eclipse.xtext.resource.persistence.SerializableResourceDescription;
+import org.eclipse.xtext.testing.util.InMemoryURIHandler;
+import org.eclipse.xtext.tests.AbstractXtextTests;
+import org.eclipse.xtext.util.CancelIndicator;
+import org.eclipse.xtext.util.concurrent.IUnitOfWork;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReferenceFinderTest extends AbstractXtextTests {
+
+	private InMemoryURIHandler uriHandler;
+
+	private XtextResourceSet resourceSet;
+
+	private IResourceDescriptions index;
+
+	private URI targetURI;
+
+	@Override
+	@Before
+	public void setUp() throws Exception {
+		super.setUp();
+		with(IndexTestLanguageStandaloneSetup.class);
+		uriHandler = new InMemoryURIHandler();
+		resourceSet = newResourceSet();
+		List<URI> uris = new ArrayList<URI>();
+		uris.add(createFile("a.indextestlanguage", "foo { entity A {} entity X { foo.A a foo.A b } }"));
+		for (int i = 0; i < 50; i++) {
+			uris.add(createFile("b" + i + ".indextestlanguage", "foo { entity B" + i + " { foo.A a } }"));
+			uris.add(createFile("c" + i + ".indextestlanguage", "foo { entity C" + i + " { foo.X x } }"));
+		}
+		for (URI uri : uris) {
+			resourceSet.getResource(uri, true);
+		}
+		IResourceDescription.Manager manager = get(IResourceDescription.Manager.class);
+		List<IResourceDescription> descriptions = new ArrayList<IResourceDescription>();
+		for (URI uri : uris) {
+			Resource resource = resourceSet.getResource(uri, false);
+			EcoreUtil2.resolveAll(resource, CancelIndicator.NullImpl);
+			descriptions.add(SerializableResourceDescription.createCopy(manager.getResourceDescription(resource)));
+		}
+		index = new ResourceDescriptionsData(descriptions);
+		Namespace namespace = (Namespace) resourceSet.getResource(uris.get(0), false).getContents().get(0)
+				.eContents().get(0);
+		targetURI = EcoreUtil2.getPlatformResourceOrNormalizedURI(namespace.getElements().get(0));
+	}
+
+	@Test
+	public void testParallelFindAllReferences() throws Exception {
+		Set<String> expected = findAllReferences(get(ReferenceFinder.class));
+		assertEquals(52, expected.size());
+		ReferenceFinder sharedAccessFinder = newReferenceFinder();
+		sharedAccessFinder.setParallelism(4);
+		assertEquals(expected, findAllReferences(sharedAccessFinder));
+		ReferenceFinder workerResourceSetFinder = newReferenceFinder();
+		workerResourceSetFinder.setParallelism(4);
+		workerResourceSetFinder.setWorkerResourceSetProvider(() -> newResourceSet());
+		assertEquals(expected, findAllReferences(workerResourceSetFinder));
+	}
+
+	@Test
+	public void testParallelFindReferencesInCandidates() throws Exception {
+		Set<URI> candidates = new TreeSet<URI>((a, b) -> a.toString().compareTo(b.toString()));
+		for (IResourceDescription description : index.getAllResourceDescriptions()) {
+			candidates.add(description.getURI());
+		}
+		Set<String> expected = findReferences(get(ReferenceFinder.class), candidates);
+		assertEquals(52, expected.size());
+		ReferenceFinder finder = newReferenceFinder();
+		finder.setParallelism(3);
+		finder.setWorkerResourceSetProvider(() -> newResourceSet());
+		assertEquals(expected, findReferences(finder, candidates));
+	}
+
+	protected ReferenceFinder newReferenceFinder() {
+		ReferenceFinder result = new ReferenceFinder();
+		getInjector().injectMembers(result);
+		return result;
+	}
+
+	protected Set<String> findAllReferences(ReferenceFinder finder) {
+		Set<String> result = Collections.synchronizedSet(new TreeSet<String>());
+		finder.findAllReferences(newTargetURIs(), newResourceAccess(), index, newAcceptor(result), null);
+		return result;
+	}
+
+	protected Set<String> findReferences(ReferenceFinder finder, Set<URI> candidates) {
+		Set<String> result = Collections.synchronizedSet(new TreeSet<String>());
+		finder.findReferences(newTargetURIs(), candidates, newResourceAccess(), index, newAcceptor(result), null);
+		return result;
+	}
+
+	protected TargetURIs newTargetURIs() {
+		TargetURIs result = get(TargetURIs.class);
+		result.addURI(targetURI);
+		return result;
+	}
+
+	protected IResourceAccess newResourceAccess() {
+		return new IResourceAccess() {
+			@Override
+			public <R> R readOnly(URI targetURI, IUnitOfWork<R, ResourceSet> work) {
+				try {
+					return work.exec(resourceSet);
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+			}
+		};
+	}
+
+	protected Acceptor newAcceptor(final Set<String> result) {
+		return new Acceptor() {
+			@Override
+			public void accept(EObject source, URI sourceURI, EReference eReference, int index, EObject targetOrProxy,
+					URI targetURI) {
+				result.add(sourceURI + " -> " + targetURI);
+			}
+
+			@Override
+			public void accept(IReferenceDescription description) {
+				result.add(description.getSourceEObjectUri() + " -> " + description.getTargetEObjectUri());
+			}
+		};
+	}
+
+	protected XtextResourceSet newResourceSet() {
+		XtextResourceSet result = get(XtextResourceSet.class);
+		result.getURIConverter().getURIHandlers().add(0, uriHandler);
+		return result;
+	}
+
+	protected URI createFile(String name, String content) throws Exception {
+		URI uri = URI.createURI(InMemoryURIHandler.SCHEME + ":/" + name);
+		try (OutputStream out = uriHandler.createOutputStream(uri, Collections.emptyMap())) {
+			out.write(content.getBytes());
+		}
+		return uri;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2016 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2011, 2018 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -129,6 +129,34 @@ public class JavaIoFileSystemAccessTest extends Assert {
 		}
 	}
 
+	@Test
+	public void testUnchangedFilesAreSkipped() throws Exception {
+		File file = null;
+		try {
+			JavaIoFileSystemAccess fileSystemAccess = new JavaIoFileSystemAccess(
+					IResourceServiceProvider.Registry.INSTANCE, new IEncodingProvider.Runtime());
+			fileSystemAccess.setSkipUnchangedWrites(true);
+			File tmpDir = configureFileSystemAccess(fileSystemAccess);
+			file = new File(tmpDir, "tmp/Z");
+			file.delete();
+			fileSystemAccess.generateFile("tmp/Z", "ZZ");
+			assertEquals(1, fileSystemAccess.getWrittenFiles());
+			assertEquals(0, fileSystemAccess.getSkippedFiles());
+			fileSystemAccess.generateFile("tmp/Z", "ZZ");
+			fileSystemAccess.generateFile("tmp/Z", new StringInputStream("ZZ"));
+			assertEquals(1, fileSystemAccess.getWrittenFiles());
+			assertEquals(2, fileSystemAccess.getSkippedFiles());
+			fileSystemAccess.generateFile("tmp/Z", "ZY");
+			fileSystemAccess.generateFile("tmp/Z", "ZYX");
+			assertEquals(3, fileSystemAccess.getWrittenFiles());
+			assertEquals(2, fileSystemAccess.getSkippedFiles());
+			assertEquals("ZYX", fileSystemAccess.readTextFile("tmp/Z"));
+		} finally {
+			if (file != null)
+				file.delete();
+		}
+	}
+
 	@Test
 	public void testTraceIsCreated() throws Exception {
 		File file = null;
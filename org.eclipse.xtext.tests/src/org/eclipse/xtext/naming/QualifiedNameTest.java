@@ -57,6 +57,16 @@ public class QualifiedNameTest extends Assert {
 		assertEquals(lowerCase, readLowerCase);
 	}
 
+	@Test public void testLowerCaseHashCode() {
+		assertEquals(QualifiedName.EMPTY.toLowerCase().hashCode(), QualifiedName.EMPTY.lowerCaseHashCode());
+		assertEquals(QualifiedName.create("foo", "bar").hashCode(), QualifiedName.create("Foo", "BAR").lowerCaseHashCode());
+		assertEquals(QualifiedName.create("\u00e4", "b").hashCode(), QualifiedName.create("\u00c4", "B").lowerCaseHashCode());
+		QualifiedName name = QualifiedName.create("Foo", "Bar");
+		name.lowerCaseHashCode();
+		assertFalse(name.hasLowerCase());
+		assertEquals(name.toLowerCase().hashCode(), name.lowerCaseHashCode());
+	}
+
 	@Test public void testCreateNull() {
 		assertEquals(QualifiedName.EMPTY, QualifiedName.create());
 		assertEquals(QualifiedName.EMPTY, QualifiedName.create(new String[0]));
@@ -229,4 +239,40 @@ public class QualifiedNameTest extends Assert {
 		assertEquals(null, wrapper.apply(null));
 		assertEquals("foo", wrapper.apply("foo").getLastSegment());
 	}
+
+	@Test public void testIntern() throws Exception {
+		QualifiedName first = QualifiedName.create("Foo", new String("Bar")).intern();
+		QualifiedName second = QualifiedName.create(new String("Foo"), "Bar");
+		assertNotSame(first, second);
+		QualifiedName interned = second.intern();
+		assertSame(first, interned);
+		assertSame(interned, interned.intern());
+		assertSame(first.getSegment(1), QualifiedName.create("Baz", new String("Bar")).intern().getSegment(1));
+		assertSame(first.toLowerCase(), QualifiedName.create("FOO", "BAR").intern().toLowerCase());
+		assertSame(first.toLowerCase(), first.toLowerCase().intern());
+		assertSame(QualifiedName.EMPTY, QualifiedName.create().intern());
+	}
+
+	@Test public void testInternLowerCase() throws Exception {
+		QualifiedName lowerCase = QualifiedName.create("Foo", "Baz").toLowerCase().intern();
+		assertTrue(lowerCase.hasLowerCase());
+		assertSame(lowerCase, QualifiedName.create("FOO", "BAZ").intern().toLowerCase());
+		QualifiedName plain = QualifiedName.create("foo", "baz").intern();
+		assertEquals(lowerCase, plain);
+		assertNotSame(lowerCase, plain);
+		assertFalse(plain.hasLowerCase());
+	}
+
+	@Test public void testInternDoesNotModifySegments() throws Exception {
+		QualifiedName.create("Foo", "Bar").intern();
+		String[] segments = { new String("Foo"), new String("Bar") };
+		String[] copy = segments.clone();
+		QualifiedName name = new QualifiedName(segments) {
+		};
+		QualifiedName interned = name.intern();
+		assertSame(copy[0], segments[0]);
+		assertSame(copy[1], segments[1]);
+		assertNotSame(segments[0], interned.getSegment(0));
+		assertEquals(name, interned);
+	}
 }
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.nodemodel;
+
+import java.util.List;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.xtext.EcoreUtil2;
+import org.eclipse.xtext.nodemodel.impl.CompactNodeModel;
+import org.eclipse.xtext.nodemodel.impl.CompactNodeModelBuilder;
+import org.eclipse.xtext.nodemodel.impl.NodeModelBuilder;
+import org.eclipse.xtext.nodemodel.impl.RootNode;
+import org.eclipse.xtext.nodemodel.util.NodeModelUtils;
+import org.eclipse.xtext.resource.XtextResource;
+import org.eclipse.xtext.testlanguages.PartialParserTestLanguageRuntimeModule;
+import org.eclipse.xtext.testlanguages.PartialParserTestLanguageStandaloneSetup;
+import org.eclipse.xtext.testlanguages.partialParserTestLanguage.FirstConcrete;
+import org.eclipse.xtext.tests.AbstractXtextTests;
+import org.junit.Test;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+public class CompactNodeModelTest extends AbstractXtextTests {
+
+	private String model = "container c1 {\n  children {\n    -> C ( ch1 ), -> C ( ch2 )\n  }\n}";
+
+	@Override
+	public void setUp() throws Exception {
+		super.setUp();
+		with(new PartialParserTestLanguageStandaloneSetup() {
+			@Override
+			public Injector createInjector() {
+				return Guice.createInjector(new PartialParserTestLanguageRuntimeModule() {
+					@SuppressWarnings("unused")
+					public Class<? extends NodeModelBuilder> bindNodeModelBuilder() {
+						return CompactNodeModelBuilder.class;
+					}
+				});
+			}
+		});
+	}
+
+	@Test public void testParseResultIsCompact() throws Exception {
+		XtextResource resource = getResourceFromString(model);
+		ICompositeNode rootNode = resource.getParseResult().getRootNode();
+		assertTrue(rootNode instanceof CompactNodeModel.CompactNode);
+		getInvariantChecker().checkInvariant(rootNode);
+		assertEquals(model, rootNode.getText());
+		EObject container = resource.getContents().get(0);
+		assertSame(rootNode, NodeModelUtils.getNode(container));
+		assertSame(container, rootNode.getSemanticElement());
+		ILeafNode leaf = NodeModelUtils.findLeafNodeAtOffset(rootNode, model.indexOf("ch2") + 1);
+		assertEquals("ch2", leaf.getText());
+		assertEquals(3, leaf.getStartLine());
+		assertEquals("ch2", NodeModelUtils.getNode(leaf.getSemanticElement()).getText().trim());
+	}
+
+	@Test public void testNodesAreIdentical() throws Exception {
+		ICompositeNode rootNode = getRootNode(model);
+		int offset = model.indexOf("ch2") + 1;
+		ILeafNode leaf = NodeModelUtils.findLeafNodeAtOffset(rootNode, offset);
+		assertSame(leaf, NodeModelUtils.findLeafNodeAtOffset(rootNode, offset));
+		assertSame(leaf, leaf.getParent().getFirstChild());
+		assertSame(rootNode.getFirstChild(), rootNode.getLastChild().getParent().getFirstChild());
+		for (INode child : rootNode.getChildren()) {
+			assertSame(rootNode, child.getParent());
+		}
+	}
+
+	@Test public void testLinking() throws Exception {
+		String model = "container c1 {\n" +
+				"  nested {\n" +
+				"    container c2 {\n" +
+				"      abstract children { -> F ( f1 c1 ) }\n" +
+				"    }\n" +
+				"  }\n" +
+				"  abstract children { -> F ( f2 c1 ) -> F ( f3 c1 ) }\n" +
+				"}";
+		XtextResource resource = getResourceFromString(model);
+		assertTrue(resource.getParseResult().getRootNode() instanceof CompactNodeModel.CompactNode);
+		EObject container = resource.getContents().get(0);
+		List<FirstConcrete> children = EcoreUtil2.getAllContentsOfType(container, FirstConcrete.class);
+		assertEquals(3, children.size());
+		for (FirstConcrete child : children) {
+			assertSame(container, child.getReferencedContainer());
+		}
+		assertTrue(resource.getErrors().toString(), resource.getErrors().isEmpty());
+	}
+
+	@Test public void testSameStructure() throws Exception {
+		ICompositeNode compact = getRootNode(model);
+		RootNode regular = CompactNodeModel.asRootNode(compact);
+		getInvariantChecker().checkInvariant(regular);
+		assertSameStructure(regular, compact);
+	}
+
+	@Test public void testInflate() throws Exception {
+		XtextResource resource = getResourceFromString(model);
+		CompactNodeModel.CompactNode compact = (CompactNodeModel.CompactNode) resource.getParseResult().getRootNode();
+		RootNode inflated = compact.getModel().inflate();
+		getInvariantChecker().checkInvariant(inflated);
+		assertSame(inflated, NodeModelUtils.getNode(resource.getContents().get(0)));
+		assertSameStructure(inflated, compact);
+	}
+
+	@Test public void testPartialParsing() throws Exception {
+		XtextResource resource = getResourceFromString(model);
+		resource.update(model.indexOf("ch2") + 2, 1, "x");
+		ICompositeNode rootNode = resource.getParseResult().getRootNode();
+		assertTrue(rootNode instanceof RootNode);
+		getInvariantChecker().checkInvariant(rootNode);
+		String newModel = model.replace("ch2", "chx");
+		assertEquals(newModel, rootNode.getText());
+		assertSameStructure(rootNode, getRootNode(newModel));
+		assertSame(rootNode, NodeModelUtils.getNode(resource.getContents().get(0)));
+		resource.update(newModel.indexOf("chx") + 2, 1, "y");
+		assertSame(rootNode, resource.getParseResult().getRootNode());
+		assertEquals(model.replace("ch2", "chy"), rootNode.getText());
+	}
+
+	private void assertSameStructure(ICompositeNode expected, ICompositeNode actual) {
+		BidiTreeIterator<INode> expectedIter = expected.getAsTreeIterable().iterator();
+		BidiTreeIterator<INode> actualIter = actual.getAsTreeIterable().iterator();
+		while(expectedIter.hasNext()) {
+			assertTrue(actualIter.hasNext());
+			INode expectedNext = expectedIter.next();
+			INode actualNext = actualIter.next();
+			assertEquals(expectedNext.getGrammarElement(), actualNext.getGrammarElement());
+			assertEquals(expectedNext instanceof ILeafNode, actualNext instanceof ILeafNode);
+			assertEquals(expectedNext.getTotalTextRegion(), actualNext.getTotalTextRegion());
+			assertEquals(expectedNext.getTextRegion(), actualNext.getTextRegion());
+			assertEquals(expectedNext.getStartLine(), actualNext.getStartLine());
+			assertEquals(expectedNext.getEndLine(), actualNext.getEndLine());
+			assertEquals(expectedNext.getText(), actualNext.getText());
+			assertEquals(expectedNext.hasDirectSemanticElement(), actualNext.hasDirectSemanticElement());
+			if (expectedNext instanceof ICompositeNode)
+				assertEquals(((ICompositeNode) expectedNext).getLookAhead(), ((ICompositeNode) actualNext).getLookAhead());
+			else
+				assertEquals(((ILeafNode) expectedNext).isHidden(), ((ILeafNode) actualNext).isHidden());
+		}
+		assertFalse(actualIter.hasNext());
+	}
+
+}
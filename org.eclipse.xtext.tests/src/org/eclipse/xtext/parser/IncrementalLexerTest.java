@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.parser;
+
+import org.eclipse.xtext.parser.impl.IncrementalLexer;
+import org.eclipse.xtext.parser.impl.TokenRegionProvider;
+import org.eclipse.xtext.parser.impl.TokenSequence;
+import org.eclipse.xtext.resource.XtextResource;
+import org.eclipse.xtext.testlanguages.SimpleExpressionsTestLanguageStandaloneSetup;
+import org.eclipse.xtext.tests.AbstractXtextTests;
+import org.eclipse.xtext.util.EmfFormatter;
+import org.eclipse.xtext.util.ReplaceRegion;
+import org.eclipse.xtext.util.TextRegion;
+import org.junit.Before;
+import org.junit.Test;
+
+public class IncrementalLexerTest extends AbstractXtextTests {
+
+	private IncrementalLexer incrementalLexer;
+
+	@Override
+	@Before
+	public void setUp() throws Exception {
+		super.setUp();
+		with(SimpleExpressionsTestLanguageStandaloneSetup.class);
+		incrementalLexer = get(IncrementalLexer.class);
+	}
+
+	@Test
+	public void testInsertions() throws Exception {
+		String model = "a1 / /* comment */ b2 + (c3 * d4)\n// line\ne5";
+		for (String insertion : new String[] { "x", " ", "/*", "*/", "//", "\n", "9" }) {
+			for (int offset = 0; offset <= model.length(); offset++) {
+				assertRelex(model, new ReplaceRegion(offset, 0, insertion));
+			}
+		}
+	}
+
+	@Test
+	public void testDeletions() throws Exception {
+		String model = "a1 / /* comment */ b2 + (c3 * d4)\n// line\ne5";
+		for (int length = 1; length <= 3; length++) {
+			for (int offset = 0; offset + length <= model.length(); offset++) {
+				assertRelex(model, new ReplaceRegion(offset, length, ""));
+			}
+		}
+	}
+
+	@Test
+	public void testTokenRegion() throws Exception {
+		TokenRegionProvider tokenRegionProvider = get(TokenRegionProvider.class);
+		String model = "a1 / /* comment */ b2";
+		TokenSequence tokens = incrementalLexer.lex(model);
+		for (int length = 0; length < model.length(); ++length) {
+			for (int offset = 0; offset + length < model.length(); ++offset) {
+				TextRegion region = new TextRegion(offset, length);
+				assertEquals(tokenRegionProvider.getTokenRegion(model, region), tokens.getTokenRegion(region));
+			}
+		}
+	}
+
+	@Test
+	public void testReparseRecordsTokens() throws Exception {
+		String model = "a1 + b2 * (c3 - d4)";
+		XtextResource resource = getResourceFromString(model);
+		resource.update(model.indexOf("b2"), 2, "bb2");
+		resource.update(model.indexOf("c3") + 2, 1, "");
+		String newModel = resource.getParseResult().getRootNode().getText();
+		assertEquals("a1 + bb2 * (c - d4)", newModel);
+		assertEquals(toString(incrementalLexer.lex(newModel)),
+				toString(((ParseResult) resource.getParseResult()).getTokenSequence()));
+		assertEquals(EmfFormatter.objToStr(getModel(newModel)), EmfFormatter.objToStr(resource.getContents().get(0)));
+	}
+
+	protected void assertRelex(String model, ReplaceRegion change) {
+		TokenSequence previous = incrementalLexer.lex(model);
+		StringBuilder builder = new StringBuilder(model);
+		change.applyTo(builder);
+		String newModel = builder.toString();
+		assertEquals(change.toString(), toString(incrementalLexer.lex(newModel)),
+				toString(incrementalLexer.relex(previous, newModel, change)));
+	}
+
+	protected String toString(TokenSequence tokens) {
+		StringBuilder result = new StringBuilder();
+		for (int i = 0; i < tokens.size(); i++) {
+			result.append(tokens.getType(i)).append(':').append(tokens.getChannel(i)).append('[')
+					.append(tokens.getStartIndex(i)).append(',').append(tokens.getStopIndex(i)).append("]\n");
+		}
+		return result.toString();
+	}
+
+}
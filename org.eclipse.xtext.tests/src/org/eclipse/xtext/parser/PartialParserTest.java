@@ -19,6 +19,8 @@ import org.eclipse.xtext.nodemodel.ICompositeNode;
 import org.eclipse.xtext.nodemodel.ILeafNode;
 import org.eclipse.xtext.nodemodel.INode;
 import org.eclipse.xtext.nodemodel.util.NodeModelUtils;
+import org.eclipse.xtext.parser.antlr.AbstractAntlrParser;
+import org.eclipse.xtext.parser.impl.PartialParsingHelper;
 import org.eclipse.xtext.resource.XtextResource;
 import org.eclipse.xtext.serializer.impl.Serializer;
 import org.eclipse.xtext.testlanguages.LookaheadTestLanguageStandaloneSetup;
@@ -26,11 +28,20 @@ import org.eclipse.xtext.testlanguages.PartialParserTestLanguageStandaloneSetup;
 import org.eclipse.xtext.testlanguages.ReferenceGrammarTestLanguageStandaloneSetup;
 import org.eclipse.xtext.testlanguages.ReferenceGrammarTestLanguageStandaloneSetupGenerated;
 import org.eclipse.xtext.testlanguages.SimpleExpressionsTestLanguageStandaloneSetup;
+import org.eclipse.xtext.testlanguages.partialParserTestLanguage.Child;
+import org.eclipse.xtext.testlanguages.partialParserTestLanguage.Children;
+import org.eclipse.xtext.testlanguages.partialParserTestLanguage.SomeContainer;
 import org.eclipse.xtext.testlanguages.services.ReferenceGrammarTestLanguageGrammarAccess;
 import org.eclipse.xtext.testlanguages.services.SimpleExpressionsTestLanguageGrammarAccess;
+import org.eclipse.xtext.util.EmfFormatter;
 import org.junit.Test;
 
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.name.Names;
 
 /**
  * @author Jan Khnlein - Initial contribution and API
@@ -254,6 +265,78 @@ public class PartialParserTest extends AbstractPartialParserTest {
 		assertNotSame(children, findLeafNodeByText(root, model, "children"));
 	}
 
+	@Test public void testPartialParseShiftsFollowingNodes() throws Exception {
+		with(PartialParserTestLanguageStandaloneSetup.class);
+		String model = "container c1 {\n" +
+				"  children {\n" +
+				"    -> C ( ch1 )\n" +
+				"  }\n" +
+				"  children {\n" +
+				"    -> C ( ch2 )\n" +
+				"  }" +
+				"}";
+		XtextResource resource = getResourceFromString(model);
+		assertTrue(resource.getErrors().isEmpty());
+		ICompositeNode root = resource.getParseResult().getRootNode();
+		ILeafNode ch2Leaf = findLeafNodeByText(root, model, "ch2");
+		resource.update(model.indexOf("ch1"), 3, "child1");
+		assertSame(root, resource.getParseResult().getRootNode());
+		String newModel = root.getText();
+		assertEquals(newModel.indexOf("ch2"), ch2Leaf.getOffset());
+		assertSame(ch2Leaf, NodeModelUtils.findLeafNodeAtOffset(root, newModel.indexOf("ch2")));
+		int offset = 0;
+		for (ILeafNode leaf : root.getLeafNodes()) {
+			assertEquals(offset, leaf.getTotalOffset());
+			offset += leaf.getTotalLength();
+		}
+		assertEquals(newModel.length(), offset);
+	}
+
+	@Test public void testPartialParseReusesUnchangedNodes() throws Exception {
+		with(PartialParserTestLanguageStandaloneSetup.class);
+		String model = "container c1 {\n" +
+				"  children {\n" +
+				"    -> C ( ch1 ),\n" +
+				"    -> C ( ch2 )\n" +
+				"  }" +
+				"}";
+		XtextResource resource = getResourceFromString(model);
+		assertTrue(resource.getErrors().isEmpty());
+		PartialParsingHelper partialParser = (PartialParsingHelper) ((AbstractAntlrParser) resource.getParser()).getPartialParser();
+		partialParser.setReuseUnchangedNodes(true);
+		try {
+			Children children = (Children) ((SomeContainer) resource.getContents().get(0)).getContent().get(0);
+			Child ch1 = children.getChildren().get(0);
+			Child ch2 = children.getChildren().get(1);
+			ICompositeNode ch1Node = NodeModelUtils.getNode(ch1);
+			resource.update(model.indexOf("n {") + 2, 1, " {");
+			ReparseDelta delta = ((ParseResult) resource.getParseResult()).getReparseDelta();
+			assertSame(children, delta.getReplacedElement());
+			assertEquals(Sets.newHashSet(ch1, ch2), Sets.newHashSet(delta.getReusedElements()));
+			Children newChildren = (Children) ((SomeContainer) resource.getContents().get(0)).getContent().get(0);
+			assertSame(delta.getNewElement(), newChildren);
+			assertSame(ch1, newChildren.getChildren().get(0));
+			assertSame(ch2, newChildren.getChildren().get(1));
+			assertSame(ch1Node, NodeModelUtils.getNode(ch1));
+			String newModel = resource.getParseResult().getRootNode().getText();
+			assertEquals(newModel.indexOf("ch2"), NodeModelUtils.getNode(ch2.getValue()).getOffset());
+			assertEquals(EmfFormatter.objToStr(getModel(newModel)), EmfFormatter.objToStr(resource.getContents().get(0)));
+		} finally {
+			partialParser.setReuseUnchangedNodes(false);
+		}
+	}
+
+	@Test public void testReuseUnchangedNodesBinding() throws Exception {
+		assertFalse(Guice.createInjector().getInstance(PartialParsingHelper.class).isReuseUnchangedNodes());
+		Injector injector = Guice.createInjector(new AbstractModule() {
+			@Override
+			protected void configure() {
+				bindConstant().annotatedWith(Names.named(PartialParsingHelper.REUSE_UNCHANGED_NODES)).to(true);
+			}
+		});
+		assertTrue(injector.getInstance(PartialParsingHelper.class).isReuseUnchangedNodes());
+	}
+
 	private void checkGrammarAssigned(ICompositeNode rootNode) {
 		BidiTreeIterator<INode> iterator = rootNode.getAsTreeIterable().iterator();
 		while(iterator.hasNext()) {
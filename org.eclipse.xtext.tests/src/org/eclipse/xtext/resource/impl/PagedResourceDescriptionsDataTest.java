@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.resource.impl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.eclipse.xtext.resource.IResourceDescription;
+import org.eclipse.xtext.resource.impl.ResourceDescriptionsDataTest.TestResDesc;
+import org.eclipse.xtext.tests.TemporaryFolder;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
+
+public class PagedResourceDescriptionsDataTest extends Assert {
+
+	private static final URI A = URI.createURI("foo://a");
+	private static final URI B = URI.createURI("foo://b");
+	private static final URI C = URI.createURI("foo://c");
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private ResourceDescriptionsPager pager;
+
+	@Before
+	public void setUp() throws Exception {
+		pager = new ResourceDescriptionsPager();
+		pager.setMaxResidentChunks(1);
+		pager.setPageDirectory(temporaryFolder.newFolder().getAbsolutePath());
+	}
+
+	@Test public void testDisabledPagerReturnsData() {
+		ResourceDescriptionsData data = newData(new TestResDesc(A).exporting("foo"));
+		pager.setMaxResidentChunks(-1);
+		assertSame(data, pager.page("a", data));
+	}
+
+	@Test public void testLeastRecentlyUsedChunkIsPagedOut() {
+		PagedResourceDescriptionsData a = (PagedResourceDescriptionsData) pager.page("a", newData(new TestResDesc(A).exporting("foo")));
+		PagedResourceDescriptionsData b = (PagedResourceDescriptionsData) pager.page("b", newData(new TestResDesc(B).exporting("bar")));
+		assertFalse(a.isResident());
+		assertTrue(b.isResident());
+		assertEquals(1, pager.getResidentChunkCount());
+		assertEquals(ImmutableSet.of(A), getExportingResources(a, "foo"));
+		assertTrue(a.isResident());
+		assertFalse(b.isResident());
+		assertEquals(ImmutableSet.of(B), getExportingResources(b, "BAR"));
+		assertEquals(B, b.getResourceDescription(B).getURI());
+		assertEquals(1, pager.getResidentChunkCount());
+	}
+
+	@Test public void testUnknownNamesAndURIsDoNotPageIn() {
+		PagedResourceDescriptionsData a = (PagedResourceDescriptionsData) pager.page("a", newData(new TestResDesc(A).exporting("foo")));
+		pager.page("b", newData(new TestResDesc(B).exporting("bar")));
+		assertFalse(a.isResident());
+		assertEquals(Collections.emptySet(), getExportingResources(a, "bar"));
+		assertNull(a.getResourceDescription(B));
+		assertEquals(ImmutableSet.of(A), a.getAllURIs());
+		assertFalse(a.isEmpty());
+		assertFalse(a.isResident());
+	}
+
+	@Test public void testModificationsArePagedOut() {
+		PagedResourceDescriptionsData a = (PagedResourceDescriptionsData) pager.page("a", newData(new TestResDesc(A).exporting("foo")));
+		PagedResourceDescriptionsData b = (PagedResourceDescriptionsData) pager.page("b", newData(new TestResDesc(B).exporting("bar")));
+		a.addDescription(C, new TestResDesc(C).exporting("foo", "baz"));
+		a.removeDescription(A);
+		assertEquals(ImmutableSet.of(B), getExportingResources(b, "bar"));
+		assertFalse(a.isResident());
+		assertEquals(ImmutableSet.of(C), a.getAllURIs());
+		assertEquals(ImmutableSet.of(C), getExportingResources(a, "foo"));
+		assertEquals(ImmutableSet.of(C), getExportingResources(a, "baz"));
+		ResourceDescriptionsData copy = a.copy();
+		assertFalse(copy instanceof PagedResourceDescriptionsData);
+		assertEquals(ImmutableSet.of(C), copy.getAllURIs());
+	}
+
+	@Test public void testDescriptionsAreReadWhenIterated() {
+		PagedResourceDescriptionsData a = (PagedResourceDescriptionsData) pager.page("a", newData(new TestResDesc(A).exporting("foo")));
+		pager.page("b", newData(new TestResDesc(B).exporting("bar")));
+		Iterable<IResourceDescription> descriptions = a.getAllResourceDescriptions();
+		assertFalse(a.isResident());
+		assertEquals(A, Iterables.getOnlyElement(descriptions).getURI());
+		assertTrue(a.isResident());
+	}
+
+	@Test public void testPageFileOfReleasedChunkIsReused() throws Exception {
+		PagedResourceDescriptionsData a = (PagedResourceDescriptionsData) pager.page("a", newData(new TestResDesc(A).exporting("foo")));
+		PagedResourceDescriptionsData b = (PagedResourceDescriptionsData) pager.page("b", newData(new TestResDesc(B).exporting("bar")));
+		assertEquals(ImmutableSet.of(A), getExportingResources(a, "foo"));
+		assertEquals(2, pager.getDirectory().listFiles().length);
+		pager.release(a);
+		assertEquals(0, pager.getResidentChunkCount());
+		PagedResourceDescriptionsData c = (PagedResourceDescriptionsData) pager.page("c", newData(new TestResDesc(C).exporting("baz")));
+		pager.page("d", newData(new TestResDesc(A).exporting("foo")));
+		assertFalse(c.isResident());
+		assertEquals(2, pager.getDirectory().listFiles().length);
+		assertEquals(ImmutableSet.of(C), getExportingResources(c, "baz"));
+		assertEquals(ImmutableSet.of(B), getExportingResources(b, "bar"));
+		// the released chunk keeps working
+		assertEquals(ImmutableSet.of(A), getExportingResources(a, "foo"));
+		assertTrue(a.isResident());
+	}
+
+	private ResourceDescriptionsData newData(IResourceDescription... descriptions) {
+		return new ResourceDescriptionsData(Arrays.asList(descriptions));
+	}
+
+	private Set<URI> getExportingResources(ResourceDescriptionsData data, String name) {
+		Set<URI> result = Sets.newHashSet();
+		for (IEObjectDescription description : data.getExportedObjects(EcorePackage.Literals.EOBJECT, QualifiedName.create(name.split("\\.")), true)) {
+			result.add(description.getEObjectURI().trimFragment());
+		}
+		return result;
+	}
+
+}
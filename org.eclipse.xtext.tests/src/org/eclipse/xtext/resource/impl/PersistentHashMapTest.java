@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.resource.impl;
+
+import java.util.Map;
+import java.util.Random;
+
+import org.eclipse.xtext.naming.QualifiedName;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.Maps;
+
+public class PersistentHashMapTest extends Assert {
+
+	/**
+	 * A key with a configurable hash code to test colliding hashes.
+	 */
+	static class Key {
+		private final int hash;
+		private final int id;
+
+		Key(int hash, int id) {
+			this.hash = hash;
+			this.id = id;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Key && ((Key) obj).id == id;
+		}
+	}
+
+	@Test public void testPutGetRemove() {
+		PersistentHashMap<String, Integer> map = new PersistentHashMap<String, Integer>();
+		assertTrue(map.isEmpty());
+		assertNull(map.put("a", 1));
+		assertNull(map.put("b", 2));
+		assertEquals(Integer.valueOf(1), map.put("a", 3));
+		assertEquals(2, map.size());
+		assertEquals(Integer.valueOf(3), map.get("a"));
+		assertEquals(Integer.valueOf(2), map.remove("b"));
+		assertNull(map.remove("b"));
+		assertNull(map.get("b"));
+		assertEquals(1, map.size());
+	}
+
+	@Test public void testCopiesAreIndependent() {
+		PersistentHashMap<String, Integer> map = new PersistentHashMap<String, Integer>();
+		for (int i = 0; i < 1000; i++) {
+			map.put("key" + i, i);
+		}
+		PersistentHashMap<String, Integer> copy = map.copy();
+		copy.remove("key1");
+		copy.put("key2", -2);
+		copy.put("new", -1);
+		map.put("key3", -3);
+		assertEquals(1000, map.size());
+		assertEquals(Integer.valueOf(1), map.get("key1"));
+		assertEquals(Integer.valueOf(2), map.get("key2"));
+		assertNull(map.get("new"));
+		assertEquals(1000, copy.size());
+		assertNull(copy.get("key1"));
+		assertEquals(Integer.valueOf(-2), copy.get("key2"));
+		assertEquals(Integer.valueOf(3), copy.get("key3"));
+	}
+
+	@Test public void testEquivalence() {
+		PersistentHashMap<QualifiedName, String> map = new PersistentHashMap<QualifiedName, String>(ResourceDescriptionsData.IGNORE_CASE);
+		map.put(QualifiedName.create("foo", "bar"), "foo.bar");
+		assertEquals("foo.bar", map.get(QualifiedName.create("Foo", "BAR")));
+		map.put(QualifiedName.create("FOO", "bar"), "FOO.bar");
+		assertEquals(1, map.size());
+		assertEquals("FOO.bar", map.remove(QualifiedName.create("foo", "Bar")));
+		assertTrue(map.isEmpty());
+	}
+
+	@Test public void testRandomOperations() {
+		Random random = new Random(42);
+		for (int round = 0; round < 20; round++) {
+			int hashes = round % 2 == 0 ? 7 : Integer.MAX_VALUE;
+			PersistentHashMap<Key, Integer> map = new PersistentHashMap<Key, Integer>();
+			Map<Key, Integer> expected = Maps.newHashMap();
+			PersistentHashMap<Key, Integer> copy = null;
+			Map<Key, Integer> expectedCopy = null;
+			for (int i = 0; i < 2000; i++) {
+				int id = random.nextInt(500);
+				Key key = new Key((id % hashes) * 0x10001, id);
+				switch (random.nextInt(4)) {
+					case 0:
+					case 1:
+						assertEquals(expected.put(key, i), map.put(key, i));
+						break;
+					case 2:
+						assertEquals(expected.remove(key), map.remove(key));
+						break;
+					default:
+						assertEquals(expected.get(key), map.get(key));
+				}
+				assertEquals(expected.size(), map.size());
+				if (i == 1000) {
+					copy = map.copy();
+					expectedCopy = Maps.newHashMap(expected);
+				}
+			}
+			final Map<Key, Integer> actual = Maps.newHashMap();
+			map.forEach(actual::put);
+			assertEquals(expected, actual);
+			actual.clear();
+			copy.forEach(actual::put);
+			assertEquals(expectedCopy, actual);
+		}
+	}
+
+}
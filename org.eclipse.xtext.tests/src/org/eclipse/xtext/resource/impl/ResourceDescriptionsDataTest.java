@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.resource.impl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.EObjectDescription;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.eclipse.xtext.resource.IReferenceDescription;
+import org.eclipse.xtext.resource.IResourceDescription;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class ResourceDescriptionsDataTest extends Assert {
+
+	private static final URI A = URI.createURI("foo://a");
+	private static final URI B = URI.createURI("foo://b");
+	private static final URI C = URI.createURI("foo://c");
+
+	static class TestResDesc extends AbstractResourceDescription {
+
+		private final URI uri;
+		public Set<QualifiedName> imported = Sets.newHashSet();
+		public List<IReferenceDescription> references = Lists.newArrayList();
+		public List<IEObjectDescription> exported = Lists.newArrayList();
+		public int requestedImportedNames;
+
+		protected TestResDesc(URI uri) {
+			this.uri = uri;
+		}
+
+		@Override
+		public Iterable<QualifiedName> getImportedNames() {
+			requestedImportedNames++;
+			return imported;
+		}
+
+		@Override
+		public URI getURI() {
+			return uri;
+		}
+
+		@Override
+		public Iterable<IReferenceDescription> getReferenceDescriptions() {
+			return references;
+		}
+
+		@Override
+		protected List<IEObjectDescription> computeExportedObjects() {
+			return exported;
+		}
+
+		TestResDesc exporting(String... names) {
+			for (String name : names) {
+				InternalEObject element = (InternalEObject) EcoreFactory.eINSTANCE.createEClass();
+				element.eSetProxyURI(uri.appendFragment(name));
+				exported.add(EObjectDescription.create(QualifiedName.create(name.split("\\.")), element));
+			}
+			return this;
+		}
+
+		TestResDesc importing(String... names) {
+			for (String name : names) {
+				imported.add(QualifiedName.create(name.split("\\.")));
+			}
+			return this;
+		}
+
+		TestResDesc referencing(URI target) {
+			references.add(new DefaultReferenceDescription(uri.appendFragment("/"), target.appendFragment("/0"), null, -1, null));
+			return this;
+		}
+	}
+
+	@Test public void testImportingResources() {
+		ResourceDescriptionsData data = new ResourceDescriptionsData(Lists.<IResourceDescription>newArrayList(
+				new TestResDesc(A).importing("foo.bar"),
+				new TestResDesc(B).importing("foo.bar", "baz"),
+				new TestResDesc(C)));
+		assertEquals(ImmutableSet.of(A, B), data.getImportingResources(QualifiedName.create("foo", "bar")));
+		assertEquals(ImmutableSet.of(B), data.getImportingResources(QualifiedName.create("BAZ")));
+		assertEquals(Collections.emptySet(), data.getImportingResources(QualifiedName.create("zonk")));
+	}
+
+	@Test public void testReferencingResources() {
+		ResourceDescriptionsData data = new ResourceDescriptionsData(Lists.<IResourceDescription>newArrayList(
+				new TestResDesc(A).referencing(C).referencing(A),
+				new TestResDesc(B).referencing(C),
+				new TestResDesc(C).referencing(A)));
+		assertEquals(ImmutableSet.of(A, B), data.getReferencingResources(C));
+		assertEquals(ImmutableSet.of(C), data.getReferencingResources(A.appendFragment("/0")));
+		assertEquals(Collections.emptySet(), data.getReferencingResources(B));
+	}
+
+	@Test public void testResourcesReferencingEObject() {
+		ResourceDescriptionsData data = new ResourceDescriptionsData(Lists.<IResourceDescription>newArrayList(
+				new TestResDesc(A).referencing(C).referencing(A),
+				new TestResDesc(B).referencing(C),
+				new TestResDesc(C).referencing(A)));
+		assertEquals(ImmutableSet.of(A, B), data.getResourcesReferencingEObject(C.appendFragment("/0")));
+		assertEquals(ImmutableSet.of(A, C), data.getResourcesReferencingEObject(A.appendFragment("/0")));
+		assertEquals(Collections.emptySet(), data.getResourcesReferencingEObject(C.appendFragment("/1")));
+		assertEquals(Collections.emptySet(), data.getResourcesReferencingEObject(C));
+		ResourceDescriptionsData copy = data.copy();
+		copy.addDescription(B, new TestResDesc(B));
+		assertEquals(ImmutableSet.of(A), copy.getResourcesReferencingEObject(C.appendFragment("/0")));
+		// the original is not modified
+		assertEquals(ImmutableSet.of(A, B), data.getResourcesReferencingEObject(C.appendFragment("/0")));
+	}
+
+	@Test public void testUpdates() {
+		ResourceDescriptionsData data = new ResourceDescriptionsData(Lists.<IResourceDescription>newArrayList(
+				new TestResDesc(A).importing("foo"),
+				new TestResDesc(B).importing("foo").referencing(A)));
+		assertEquals(ImmutableSet.of(A, B), data.getImportingResources(QualifiedName.create("foo")));
+		ResourceDescriptionsData copy = data.copy();
+		copy.addDescription(B, new TestResDesc(B).importing("bar"));
+		copy.removeDescription(A);
+		assertEquals(Collections.emptySet(), copy.getImportingResources(QualifiedName.create("foo")));
+		assertEquals(ImmutableSet.of(B), copy.getImportingResources(QualifiedName.create("bar")));
+		assertEquals(Collections.emptySet(), copy.getReferencingResources(A));
+		// the original is not modified
+		assertEquals(ImmutableSet.of(A, B), data.getImportingResources(QualifiedName.create("foo")));
+		assertEquals(ImmutableSet.of(B), data.getReferencingResources(A));
+	}
+
+	@Test public void testExportedObjects() {
+		ResourceDescriptionsData data = new ResourceDescriptionsData(Lists.<IResourceDescription>newArrayList(
+				new TestResDesc(A).exporting("foo.Bar", "baz"),
+				new TestResDesc(B).exporting("foo.Bar"),
+				new TestResDesc(C).exporting("zonk")));
+		assertEquals(ImmutableSet.of(A, B), getExportingResources(data, "foo.bar"));
+		assertEquals(ImmutableSet.of(A, B), getExportingResources(data, "FOO.BAR"));
+		assertEquals(ImmutableSet.of(A), getExportingResources(data, "Baz"));
+		assertEquals(Collections.emptySet(), getExportingResources(data, "foo"));
+	}
+
+	@Test public void testExportedObjectsOfCopies() {
+		ResourceDescriptionsData data = new ResourceDescriptionsData(Lists.<IResourceDescription>newArrayList(
+				new TestResDesc(A).exporting("foo", "bar"),
+				new TestResDesc(B).exporting("foo"),
+				new TestResDesc(C).exporting("foo")));
+		ResourceDescriptionsData copy = data.copy();
+		copy.removeDescription(A);
+		copy.addDescription(B, new TestResDesc(B).exporting("bar"));
+		ResourceDescriptionsData copyOfCopy = copy.copy();
+		copyOfCopy.addDescription(A, new TestResDesc(A).exporting("foo"));
+		copy.removeDescription(C);
+		assertEquals(ImmutableSet.of(A, B, C), getExportingResources(data, "foo"));
+		assertEquals(ImmutableSet.of(A), getExportingResources(data, "bar"));
+		assertEquals(Collections.emptySet(), getExportingResources(copy, "foo"));
+		assertEquals(ImmutableSet.of(B), getExportingResources(copy, "bar"));
+		assertEquals(ImmutableSet.of(A, C), getExportingResources(copyOfCopy, "foo"));
+		assertEquals(ImmutableSet.of(B), getExportingResources(copyOfCopy, "bar"));
+	}
+
+	private Set<URI> getExportingResources(ResourceDescriptionsData data, String name) {
+		Set<URI> result = Sets.newHashSet();
+		for (IEObjectDescription description : data.getExportedObjects(EcorePackage.Literals.EOBJECT, QualifiedName.create(name.split("\\.")), true)) {
+			result.add(description.getEObjectURI().trimFragment());
+		}
+		return result;
+	}
+
+	@Test public void testPendingDescriptionsAreProcessedLazily() {
+		ResourceDescriptionsData data = new ResourceDescriptionsData(Collections.<IResourceDescription>emptyList());
+		TestResDesc description = new TestResDesc(A).importing("foo");
+		data.addDescription(A, description);
+		assertEquals(0, description.requestedImportedNames);
+		assertEquals(ImmutableSet.of(A), data.getImportingResources(QualifiedName.create("foo")));
+		assertEquals(ImmutableSet.of(A), data.getImportingResources(QualifiedName.create("foo")));
+		assertEquals(1, description.requestedImportedNames);
+	}
+
+	@Test public void testAffectedCandidates() {
+		ResourceDescriptionsData data = new ResourceDescriptionsData(Lists.<IResourceDescription>newArrayList(
+				new TestResDesc(A).exporting("foo"),
+				new TestResDesc(B).importing("foo"),
+				new TestResDesc(C).referencing(A)));
+		List<IResourceDescription.Delta> deltas = Lists.<IResourceDescription.Delta>newArrayList(
+				new DefaultResourceDescriptionDelta(data.getResourceDescription(A), new TestResDesc(A).exporting("bar")));
+		assertEquals(ImmutableSet.of(B, C), new DefaultResourceDescriptionManager().getAffectedCandidates(deltas, data));
+		DefaultResourceDescriptionManager customized = new DefaultResourceDescriptionManager() {
+			@Override
+			public boolean hasChanges(IResourceDescription.Delta delta, IResourceDescription candidate) {
+				return true;
+			}
+		};
+		assertNull(customized.getAffectedCandidates(deltas, data));
+	}
+
+}
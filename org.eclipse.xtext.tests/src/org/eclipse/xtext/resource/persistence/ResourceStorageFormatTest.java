@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.resource.persistence;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.common.util.WrappedException;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.xtext.linking.LangATestLanguageStandaloneSetup;
+import org.eclipse.xtext.linking.langATestLanguage.Main;
+import org.eclipse.xtext.linking.langATestLanguage.Type;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.eclipse.xtext.resource.XtextResourceSet;
+import org.eclipse.xtext.tests.AbstractXtextTests;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+
+public class ResourceStorageFormatTest extends AbstractXtextTests {
+
+	@Test public void testSections() throws IOException {
+		Map<String, ByteArrayOutputStream> sections = new LinkedHashMap<String, ByteArrayOutputStream>();
+		sections.put("first", section("foo"));
+		sections.put("empty", section(""));
+		sections.put("second", section("bar baz"));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ResourceStorageFormat.writeSections(sections, out);
+
+		ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+		assertTrue(ResourceStorageFormat.isResourceStorageFormat(buffer));
+		Map<String, ByteBuffer> read = ResourceStorageFormat.readSections(buffer);
+		assertEquals(Lists.newArrayList("first", "empty", "second"), Lists.newArrayList(read.keySet()));
+		assertEquals("bar baz", content(ResourceStorageFormat.getSection(read, "second")));
+		assertEquals("", content(ResourceStorageFormat.getSection(read, "empty")));
+		assertEquals("foo", content(ResourceStorageFormat.getSection(read, "first")));
+		// sections can be read more than once
+		assertEquals("foo", content(ResourceStorageFormat.getSection(read, "first")));
+		try {
+			ResourceStorageFormat.getSection(read, "missing");
+			fail();
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	@Test public void testZipIsNotResourceStorageFormat() {
+		ByteBuffer buffer = ByteBuffer.wrap(new byte[] { 'P', 'K', 3, 4, 0, 0, 0, 0, 0 });
+		assertFalse(ResourceStorageFormat.isResourceStorageFormat(buffer));
+	}
+
+	@Test public void testResourceDescription() throws IOException {
+		URI uri = URI.createURI("file:/foo/bar.baz.foo");
+		SerializableResourceDescription before = new SerializableResourceDescription();
+		before.setURI(uri);
+		SerializableReferenceDescription ref = new SerializableReferenceDescription();
+		ref.setSourceEObjectUri(uri.appendFragment("foo"));
+		ref.setTargetEObjectUri(URI.createURI("file:/foo/other.foo#hubble"));
+		ref.setContainerEObjectURI(null);
+		ref.setEReference(EcorePackage.eINSTANCE.getEAnnotation_Contents());
+		ref.setIndexInList(1);
+		SerializableReferenceDescription ref2 = new SerializableReferenceDescription();
+		ref2.setSourceEObjectUri(null);
+		ref2.setTargetEObjectUri(uri.appendFragment("hubble2"));
+		ref2.setContainerEObjectURI(uri.appendFragment("baz"));
+		ref2.setEReference(EcorePackage.eINSTANCE.getEAnnotation_Contents());
+		ref2.setIndexInList(-1);
+		before.setReferences(Lists.newArrayList(ref, ref2));
+		SerializableEObjectDescription desc = new SerializableEObjectDescription();
+		desc.setEObjectURI(uri.appendFragment("baz"));
+		desc.setQualifiedName(QualifiedName.create("foo", "baz"));
+		desc.setEClass(EcorePackage.eINSTANCE.getEAttribute());
+		HashMap<String, String> userData = new HashMap<String, String>();
+		userData.put("myKey", "myValue");
+		userData.put("empty", "");
+		desc.setUserData(userData);
+		before.setDescriptions(Collections.singletonList(desc));
+		before.setImportedNames(Lists.newArrayList(QualifiedName.create("foo"), QualifiedName.create("foo", "bar")));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new ResourceStorageFormat.DescriptionWriter(out).write(before);
+		SerializableResourceDescription after = new ResourceStorageFormat.DescriptionReader(
+				new ResourceStorageFormat.ByteBufferInputStream(ByteBuffer.wrap(out.toByteArray()))).read();
+
+		new SerializableResourceDescriptionTest().assertDescriptionsEqual(before, after);
+	}
+
+	@Test public void testStorageAwareResource() throws Exception {
+		with(new LangATestLanguageStandaloneSetup());
+		XtextResourceSet resourceSet = get(XtextResourceSet.class);
+		StorageAwareResource resourceA = (StorageAwareResource) resourceSet.createResource(URI.createURI("hubba:/bubba.langatestlanguage"));
+		StorageAwareResource resourceB = (StorageAwareResource) resourceSet.createResource(URI.createURI("hubba:/bubba2.langatestlanguage"));
+		resourceB.load(getAsStream("type B"), null);
+		resourceA.load(getAsStream("import 'hubba:/bubba2.langatestlanguage'\ntype A extends B"), null);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ResourceStorageWritable writable = resourceA.getResourceStorageFacade().createResourceStorageWritable(out);
+		writable.setStoreUncompressed(true);
+		writable.writeResource(resourceA);
+		assertTrue(ResourceStorageFormat.isResourceStorageFormat(ByteBuffer.wrap(out.toByteArray())));
+
+		final AtomicInteger decodedContents = new AtomicInteger();
+		ResourceStorageLoadable loadable = new ResourceStorageLoadable(new ByteArrayInputStream(out.toByteArray()), false) {
+			@Override
+			protected void readContents(StorageAwareResource resource, InputStream inputStream) throws IOException {
+				decodedContents.incrementAndGet();
+				super.readContents(resource, inputStream);
+			}
+		};
+		StorageAwareResource resourceC = (StorageAwareResource) resourceSet.createResource(URI.createURI("hubba:/bubba3.langatestlanguage"));
+		resourceC.loadFromStorage(loadable);
+		assertTrue(resourceC.isLoadedFromStorage());
+		IEObjectDescription exported = resourceC.getResourceDescription().getExportedObjects().iterator().next();
+		assertEquals(QualifiedName.create("A"), exported.getQualifiedName());
+		assertEquals(0, decodedContents.get());
+
+		Type type = ((Main) resourceC.getContents().get(0)).getTypes().get(0);
+		assertEquals(1, decodedContents.get());
+		assertEquals("A", type.getName());
+		assertSame(((Main) resourceB.getContents().get(0)).getTypes().get(0), type.getExtends());
+		assertSame(type, resourceC.getEObject(exported.getEObjectURI().fragment()));
+		assertEquals(1, decodedContents.get());
+	}
+
+	@Test public void testStorageAwareResourceDecodingFailure() throws Exception {
+		with(new LangATestLanguageStandaloneSetup());
+		XtextResourceSet resourceSet = get(XtextResourceSet.class);
+		StorageAwareResource resourceA = (StorageAwareResource) resourceSet.createResource(URI.createURI("hubba:/bubba.langatestlanguage"));
+		resourceA.load(getAsStream("type A type B"), null);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ResourceStorageWritable writable = resourceA.getResourceStorageFacade().createResourceStorageWritable(out);
+		writable.setStoreUncompressed(true);
+		writable.writeResource(resourceA);
+
+		final IOException failure = new IOException();
+		ResourceStorageLoadable loadable = new ResourceStorageLoadable(new ByteArrayInputStream(out.toByteArray()), false) {
+			@Override
+			protected void readContents(StorageAwareResource resource, InputStream inputStream) throws IOException {
+				super.readContents(resource, inputStream);
+				throw failure;
+			}
+		};
+		StorageAwareResource resourceC = (StorageAwareResource) resourceSet.createResource(URI.createURI("hubba:/bubba3.langatestlanguage"));
+		resourceC.loadFromStorage(loadable);
+		try {
+			resourceC.getContents();
+			fail();
+		} catch (WrappedException e) {
+			assertSame(failure, e.getCause());
+		}
+		// the partially decoded contents are not exposed
+		assertTrue(resourceC.getContents().isEmpty());
+		assertEquals(1, resourceC.getErrors().size());
+	}
+
+	private ByteArrayOutputStream section(String content) throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		result.write(content.getBytes(StandardCharsets.UTF_8));
+		return result;
+	}
+
+	private String content(InputStream in) throws IOException {
+		return new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8);
+	}
+
+}
@@ -16,6 +16,11 @@ import org.eclipse.xtext.util.OnChangeEvictingCache.CacheAdapter;
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Provider;
+import com.google.inject.name.Names;
+
 /**
  * @author Sven Efftinge - Initial contribution and API
  */
@@ -40,6 +45,50 @@ public class OnChangeEvictingCacheAdapterTest extends Assert {
 		setValue(ca);
 	}
 	
+	@Test public void testMaximumSize() throws Exception {
+		OnChangeEvictingCache cache = createCache(2);
+		Resource resource = new ResourceImpl();
+		CacheAdapter ca = cache.getOrCreate(resource);
+		ca.set("a", "A");
+		ca.set("b", "B");
+		assertEquals("A", ca.get("a"));
+		ca.set("c", "C");
+		assertEquals("A", ca.get("a"));
+		assertNull(ca.get("b"));
+		assertEquals("C", ca.get("c"));
+		assertEquals(1, cache.getMetrics().getStatistics("b").getEvictions());
+	}
+	
+	@Test public void testMetrics() throws Exception {
+		OnChangeEvictingCache cache = createCache(0);
+		Resource resource = new ResourceImpl();
+		Provider<String> provider = new Provider<String>() {
+			@Override
+			public String get() {
+				return value;
+			}
+		};
+		EClass eClass = EcoreFactory.eINSTANCE.createEClass();
+		cache.get(key, resource, provider);
+		cache.get(key, resource, provider);
+		cache.get(Tuples.pair(eClass, "fqn"), resource, provider);
+		CacheMetrics.Statistics statistics = cache.getMetrics().getStatistics(key);
+		assertEquals(1, statistics.getHits());
+		assertEquals(1, statistics.getMisses());
+		assertEquals(0, statistics.getEvictions());
+		assertEquals(1, cache.getMetrics().getStatistics("fqn").getMisses());
+	}
+	
+	private OnChangeEvictingCache createCache(final int maximumSize) {
+		return Guice.createInjector(new AbstractModule() {
+			@Override
+			protected void configure() {
+				bindConstant().annotatedWith(Names.named(OnChangeEvictingCache.MAXIMUM_SIZE)).to(maximumSize);
+				bindConstant().annotatedWith(Names.named(OnChangeEvictingCache.RECORD_METRICS)).to(true);
+			}
+		}).getInstance(OnChangeEvictingCache.class);
+	}
+	
 	private void assertIsSet(CacheAdapter ca) {
 		assertEquals(value, ca.get(key));
 	}
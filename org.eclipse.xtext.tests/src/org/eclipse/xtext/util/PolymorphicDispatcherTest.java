@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2017 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2008, 2018 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -168,6 +168,41 @@ public class PolymorphicDispatcherTest extends Assert {
 		assertEquals("Number_3_foo", dispatcher.invoke(BigInteger.valueOf(3), "foo"));
 	}
 
+	@Test public void testErrorHandler() throws Exception {
+		Object o1 = new Object() {
+			String label(String s) {
+				throw new UnsupportedOperationException(s);
+			}
+
+			String label(Integer i) {
+				throw new AssertionError(i);
+			}
+
+			String label(Object... o) {
+				return "Array_" + o.length;
+			}
+		};
+		List<Throwable> handled = new ArrayList<Throwable>();
+		PolymorphicDispatcher<String> dispatcher = new PolymorphicDispatcher<String>("label", 1, 1,
+				Lists.newArrayList(o1), new PolymorphicDispatcher.ErrorHandler<String>() {
+					@Override
+					public String handle(Object[] params, Throwable throwable) {
+						handled.add(throwable);
+						return "handled";
+					}
+				});
+		assertEquals("handled", dispatcher.invoke("foo"));
+		assertTrue(handled.get(0) instanceof UnsupportedOperationException);
+		assertEquals("Array_2", dispatcher.invoke((Object) new Object[] { "a", "b" }));
+		try {
+			dispatcher.invoke(3);
+			fail("errors are not handled");
+		} catch (AssertionError e) {
+			assertEquals("3", e.getMessage());
+		}
+		assertEquals(1, handled.size());
+	}
+
 	@Test public void testAmbiguous() throws Exception {
 		Object o1 = new Object() {
 
@@ -9,15 +9,19 @@ package org.eclipse.xtext.validation;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.eclipse.emf.common.util.BasicDiagnostic;
 import org.eclipse.emf.common.util.Diagnostic;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
 import org.eclipse.emf.ecore.EcoreFactory;
 import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.impl.EClassImpl;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.impl.ResourceImpl;
 import org.eclipse.xtext.validation.ValidationTestHelper.TestChain;
@@ -318,6 +322,65 @@ public class DeclarativeValidatorTest extends Assert {
 		assertEquals(Diagnostic.WARNING, diag.getSeverity());
 	}
 	
+	public static class PrivateAndStaticChecksValidator extends AbstractDeclarativeValidator {
+		@Override
+		protected List<EPackage> getEPackages() {
+			return Collections.<EPackage>singletonList(EcorePackage.eINSTANCE);
+		}
+
+		@Check
+		private void checkPrivate(EClass x) {
+			error("private", EcorePackage.Literals.ENAMED_ELEMENT__NAME);
+		}
+
+		@Check
+		protected static void checkStatic(EClassifier x) {
+			throw new NullPointerException();
+		}
+
+		@Check
+		public void checkGuarded(EObject x) {
+			guard(false);
+		}
+	}
+
+	@Test public void testPrivateAndStaticChecks() {
+		AbstractDeclarativeValidator test = new PrivateAndStaticChecksValidator();
+		TestChain chain = helper.chain();
+		test.validate(EcorePackage.eINSTANCE.getEClass(), chain, null);
+		helper.assertMatch(chain, EcorePackage.Literals.ENAMED_ELEMENT__NAME);
+		chain = helper.chain();
+		test.validate(EcorePackage.eINSTANCE.getEString(), chain, null);
+		assertTrue(chain.toString(), chain.isEmpty());
+	}
+
+	public static class ImplementationClassChecksValidator extends AbstractDeclarativeValidator {
+		@Override
+		protected List<EPackage> getEPackages() {
+			return Collections.<EPackage>singletonList(EcorePackage.eINSTANCE);
+		}
+
+		@Check
+		public void checkInterface(EClass x) {
+			warning("interface", EcorePackage.Literals.ENAMED_ELEMENT__NAME);
+		}
+
+		@Check
+		public void checkImplementation(EClassImpl x) {
+			error("implementation", EcorePackage.Literals.ECLASS__ABSTRACT);
+		}
+	}
+
+	@Test public void testChecksForImplementationClasses() {
+		AbstractDeclarativeValidator test = new ImplementationClassChecksValidator();
+		TestChain chain = helper.chain();
+		test.validate(EcorePackage.eINSTANCE.getEClass(), chain, null);
+		helper.assertMatch(chain, EcorePackage.Literals.ENAMED_ELEMENT__NAME, EcorePackage.Literals.ECLASS__ABSTRACT);
+		chain = helper.chain();
+		test.validate(EcorePackage.eINSTANCE.getEString(), chain, null);
+		assertTrue(chain.toString(), chain.isEmpty());
+	}
+
 	@Test public void testExceptionWhenGivenWrongEObject() {
 		AbstractDeclarativeValidator test = new AbstractDeclarativeValidator() {
 			@Check
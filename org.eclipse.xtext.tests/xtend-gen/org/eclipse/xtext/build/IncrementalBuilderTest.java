@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2015, 2017 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2015, 2018 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -8,26 +8,55 @@
 package org.eclipse.xtext.build;
 
 import com.google.common.base.Objects;
+import com.google.common.collect.Iterables;
 import com.google.inject.Inject;
+import com.google.inject.Provider;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.URIHandler;
 import org.eclipse.xtend2.lib.StringConcatenation;
 import org.eclipse.xtext.build.BuildRequest;
+import org.eclipse.xtext.build.ContentFingerprints;
+import org.eclipse.xtext.build.IncrementalBuilder;
 import org.eclipse.xtext.build.IndexState;
+import org.eclipse.xtext.build.Source2GeneratedMapping;
+import org.eclipse.xtext.generator.GeneratorDelegate;
+import org.eclipse.xtext.generator.IFileSystemAccess2;
+import org.eclipse.xtext.generator.IGeneratorContext;
 import org.eclipse.xtext.generator.OutputConfiguration;
 import org.eclipse.xtext.index.IndexTestLanguageInjectorProvider;
+import org.eclipse.xtext.resource.IResourceDescription;
 import org.eclipse.xtext.resource.IResourceServiceProvider;
+import org.eclipse.xtext.resource.SynchronizedXtextResourceSet;
 import org.eclipse.xtext.resource.XtextResourceSet;
 import org.eclipse.xtext.resource.impl.ChunkedResourceDescriptions;
+import org.eclipse.xtext.resource.impl.DefaultResourceServiceProvider;
+import org.eclipse.xtext.resource.impl.ProjectDescription;
+import org.eclipse.xtext.resource.impl.ResourceDescriptionsData;
 import org.eclipse.xtext.testing.InjectWith;
 import org.eclipse.xtext.testing.XtextRunner;
 import org.eclipse.xtext.testing.builder.AbstractIncrementalBuilderTest;
 import org.eclipse.xtext.util.CancelIndicator;
+import org.eclipse.xtext.validation.CheckMode;
+import org.eclipse.xtext.validation.IResourceValidator;
 import org.eclipse.xtext.validation.Issue;
 import org.eclipse.xtext.xbase.lib.CollectionLiterals;
+import org.eclipse.xtext.xbase.lib.Exceptions;
+import org.eclipse.xtext.xbase.lib.Functions.Function1;
 import org.eclipse.xtext.xbase.lib.IterableExtensions;
+import org.eclipse.xtext.xbase.lib.ListExtensions;
+import org.eclipse.xtext.xbase.lib.ObjectExtensions;
+import org.eclipse.xtext.xbase.lib.Procedures.Procedure0;
 import org.eclipse.xtext.xbase.lib.Procedures.Procedure1;
 import org.eclipse.xtext.xbase.lib.Procedures.Procedure2;
 import org.junit.Assert;
@@ -62,9 +91,115 @@ public class IncrementalBuilderTest extends AbstractIncrementalBuilderTest {
     }
   }
   
+  /**
+   * Records the invocations of beforeGenerate, doGenerate and afterGenerate by the name of the resource.
+   */
+  public static class TestGenerator extends GeneratorDelegate {
+    private final ArrayList<String> recorded = CollectionLiterals.<String>newArrayList();
+    
+    private final boolean parallelSafe;
+    
+    private final Procedure1<? super String> onGenerate;
+    
+    public TestGenerator(final boolean parallelSafe, final Procedure1<? super String> onGenerate) {
+      this.parallelSafe = parallelSafe;
+      this.onGenerate = onGenerate;
+    }
+    
+    @Override
+    public boolean isParallelSafe() {
+      return this.parallelSafe;
+    }
+    
+    @Override
+    public void beforeGenerate(final Resource input, final IFileSystemAccess2 fsa, final IGeneratorContext context) {
+      String _name = this.getName(input);
+      String _plus = ("before " + _name);
+      this.record(_plus);
+    }
+    
+    @Override
+    public void doGenerate(final Resource input, final IFileSystemAccess2 fsa, final IGeneratorContext context) {
+      this.onGenerate.apply(this.getName(input));
+      String _name = this.getName(input);
+      String _plus = ("do " + _name);
+      this.record(_plus);
+    }
+    
+    @Override
+    public void afterGenerate(final Resource input, final IFileSystemAccess2 fsa, final IGeneratorContext context) {
+      String _name = this.getName(input);
+      String _plus = ("after " + _name);
+      this.record(_plus);
+    }
+    
+    public List<String> getEvents() {
+      synchronized (this.recorded) {
+        return new ArrayList<String>(this.recorded);
+      }
+    }
+    
+    private void record(final String event) {
+      synchronized (this.recorded) {
+        this.recorded.add(event);
+      }
+    }
+    
+    private String getName(final Resource resource) {
+      return resource.getURI().trimFileExtension().lastSegment();
+    }
+  }
+  
+  public static class GeneratingResourceServiceProvider extends DefaultResourceServiceProvider {
+    private GeneratorDelegate generator;
+    
+    public void setGenerator(final GeneratorDelegate generator) {
+      this.generator = generator;
+    }
+    
+    @Override
+    public <T extends Object> T get(final Class<T> type) {
+      boolean _equals = Objects.equal(type, GeneratorDelegate.class);
+      if (_equals) {
+        return ((T) this.generator);
+      }
+      return super.<T>get(type);
+    }
+  }
+  
+  /**
+   * Invokes a callback before each resource is validated.
+   */
+  public static class ValidatingResourceServiceProvider extends DefaultResourceServiceProvider {
+    private Procedure0 onValidate;
+    
+    public void setOnValidate(final Procedure0 onValidate) {
+      this.onValidate = onValidate;
+    }
+    
+    @Override
+    public IResourceValidator getResourceValidator() {
+      final IResourceValidator validator = super.getResourceValidator();
+      final IResourceValidator _function = (Resource resource, CheckMode mode, CancelIndicator cancelIndicator) -> {
+        this.onValidate.apply();
+        return validator.validate(resource, mode, cancelIndicator);
+      };
+      return _function;
+    }
+  }
+  
   @Inject
   private IResourceServiceProvider.Registry resourceServiceProviderFactory;
   
+  @Inject
+  private Provider<SynchronizedXtextResourceSet> synchronizedResourceSetProvider;
+  
+  @Inject
+  private Provider<IncrementalBuilderTest.GeneratingResourceServiceProvider> generatingResourceServiceProvider;
+  
+  @Inject
+  private Provider<IncrementalBuilderTest.ValidatingResourceServiceProvider> validatingResourceServiceProvider;
+  
   @Override
   public IResourceServiceProvider.Registry getLanguages() {
     return this.resourceServiceProviderFactory;
@@ -468,4 +603,394 @@ public class IncrementalBuilderTest extends AbstractIncrementalBuilderTest {
     Assert.assertEquals(1, this.deleted.size());
     Assert.assertTrue(this.containsSuffix(this.deleted, "src-gen/A.txt"));
   }
+  
+  @Test
+  public void testParallelIndexing() {
+    final AtomicInteger workers = new AtomicInteger();
+    final Procedure1<BuildRequest> _function = (BuildRequest it) -> {
+      final ResourceDescriptionsData newIndex = it.getState().getResourceDescriptions();
+      it.setIndexingThreads(2);
+      final Provider<XtextResourceSet> _function_1 = () -> {
+        workers.incrementAndGet();
+        XtextResourceSet _get = this.resourceSetProvider.get();
+        final Procedure1<XtextResourceSet> _function_2 = (XtextResourceSet it_1) -> {
+          it_1.getURIConverter().getURIHandlers().clear();
+          EList<URIHandler> _uRIHandlers = it_1.getURIConverter().getURIHandlers();
+          _uRIHandlers.add(this.inMemoryURIHandler);
+          it_1.setClasspathURIContext(IncrementalBuilderTest.class.getClassLoader());
+          Map<String, ResourceDescriptionsData> _emptyMap = CollectionLiterals.<String, ResourceDescriptionsData>emptyMap();
+          new ChunkedResourceDescriptions(_emptyMap, it_1).setContainer("test-project", newIndex);
+        };
+        return ObjectExtensions.<XtextResourceSet>operator_doubleArrow(_get, _function_2);
+      };
+      it.setWorkerResourceSetProvider(_function_1);
+      URI _entity = this.entity("A", "B");
+      URI _entity_1 = this.entity("B", "A");
+      URI _entity_2 = this.entity("C", "A");
+      it.setDirtyFiles(Collections.<URI>unmodifiableList(CollectionLiterals.<URI>newArrayList(_entity, _entity_1, _entity_2)));
+    };
+    final BuildRequest buildRequest = this.newBuildRequest(_function);
+    final IndexState result = this.build(buildRequest);
+    Assert.assertTrue(this.issues.toString(), this.issues.isEmpty());
+    Assert.assertEquals(2, workers.get());
+    Assert.assertEquals(3, IterableExtensions.size(result.getResourceDescriptions().getAllResourceDescriptions()));
+    Assert.assertEquals(3, this.generated.size());
+    Assert.assertTrue(this.containsSuffix(this.generated.values(), "src-gen/A.txt", "src-gen/B.txt", "src-gen/C.txt"));
+  }
+  
+  @Test(timeout = 10000)
+  public void testParallelValidation() {
+    final CountDownLatch bothStarted = new CountDownLatch(2);
+    final AtomicBoolean overlapping = new AtomicBoolean();
+    final IncrementalBuilderTest.ValidatingResourceServiceProvider resourceServiceProvider = this.validatingResourceServiceProvider.get();
+    final Procedure0 _function = () -> {
+      try {
+        bothStarted.countDown();
+        boolean _await = bothStarted.await(2, TimeUnit.SECONDS);
+        if (_await) {
+          overlapping.set(true);
+        }
+      } catch (Throwable _e) {
+        throw Exceptions.sneakyThrow(_e);
+      }
+    };
+    resourceServiceProvider.setOnValidate(_function);
+    final Procedure1<BuildRequest> _function_1 = (BuildRequest it) -> {
+      it.setValidationThreads(2);
+      it.setResourceSet(this.newSynchronizedResourceSet(it.getState().getResourceDescriptions()));
+      URI _entity = this.entity("A", "B");
+      URI _entity_1 = this.entity("B", "A");
+      URI _entity_2 = this.entity("C", "X");
+      it.setDirtyFiles(Collections.<URI>unmodifiableList(CollectionLiterals.<URI>newArrayList(_entity, _entity_1, _entity_2)));
+    };
+    final BuildRequest buildRequest = this.newBuildRequest(_function_1);
+    this.clean();
+    final Function1<URI, IResourceServiceProvider> _function_2 = (URI it) -> {
+      return resourceServiceProvider;
+    };
+    final IndexState result = this.incrementalBuilder.build(buildRequest, _function_2).getIndexState();
+    Assert.assertFalse(this.issues.isEmpty());
+    Assert.assertTrue(overlapping.get());
+    Assert.assertEquals(3, IterableExtensions.size(result.getResourceDescriptions().getAllResourceDescriptions()));
+    Assert.assertEquals(2, this.generated.size());
+    Assert.assertTrue(this.containsSuffix(this.generated.values(), "src-gen/A.txt", "src-gen/B.txt"));
+  }
+  
+  @Test
+  public void testUnchangedFilesAreSkipped() {
+    final URI a = this.entity("A", null);
+    final URI b = this.entity("B", null);
+    final Procedure1<BuildRequest> _function = (BuildRequest it) -> {
+      it.setDirtyFiles(Collections.<URI>unmodifiableList(CollectionLiterals.<URI>newArrayList(a, b)));
+      it.setSkipUnchangedFiles(true);
+    };
+    this.build(this.newBuildRequest(_function));
+    Assert.assertEquals(2, this.indexState.getFingerprints().size());
+    this.clean();
+    final Procedure1<BuildRequest> _function_1 = (BuildRequest it) -> {
+      ResourceDescriptionsData _resourceDescriptions = it.getState().getResourceDescriptions();
+      Source2GeneratedMapping _fileMappings = it.getState().getFileMappings();
+      ContentFingerprints _copy = this.indexState.getFingerprints().copy();
+      IndexState _indexState = new IndexState(_resourceDescriptions, _fileMappings, _copy);
+      it.setState(_indexState);
+      it.setSkipUnchangedFiles(true);
+      StringConcatenation _builder = new StringConcatenation();
+      _builder.append("foo {");
+      _builder.newLine();
+      _builder.append("\t");
+      _builder.append("entity B {}");
+      _builder.newLine();
+      _builder.append("\t");
+      _builder.append("entity C {}");
+      _builder.newLine();
+      _builder.append("}");
+      _builder.newLine();
+      URI _minus = this.operator_minus(
+        "src/B.indextestlanguage", _builder.toString());
+      it.setDirtyFiles(Collections.<URI>unmodifiableList(CollectionLiterals.<URI>newArrayList(a, _minus)));
+    };
+    final Function1<URI, IResourceServiceProvider> _function_2 = (URI it) -> {
+      return this.getLanguages().getResourceServiceProvider(it);
+    };
+    final IncrementalBuilder.Result result = this.incrementalBuilder.build(this.newBuildRequest(_function_1), _function_2);
+    Assert.assertEquals(1, result.getSkippedFiles());
+    Assert.assertEquals(2, result.getFingerprintHits());
+    final Function1<IResourceDescription.Delta, URI> _function_3 = (IResourceDescription.Delta it) -> {
+      return it.getUri();
+    };
+    Assert.assertEquals(Collections.<URI>unmodifiableList(CollectionLiterals.<URI>newArrayList(b)), IterableExtensions.<URI>toList(ListExtensions.<IResourceDescription.Delta, URI>map(result.getAffectedResources(), _function_3)));
+    Assert.assertEquals(2, IterableExtensions.size(result.getIndexState().getResourceDescriptions().getAllResourceDescriptions()));
+    Assert.assertTrue(this.containsSuffix(this.generated.values(), "src-gen/B.txt", "src-gen/C.txt"));
+    Assert.assertFalse(this.containsSuffix(this.generated.values(), "src-gen/A.txt"));
+  }
+  
+  @Test
+  public void testUnchangedFilesAreBuiltByDefault() {
+    final URI a = this.entity("A", null);
+    final Procedure1<BuildRequest> _function = (BuildRequest it) -> {
+      it.setDirtyFiles(Collections.<URI>unmodifiableList(CollectionLiterals.<URI>newArrayList(a)));
+      it.setSkipUnchangedFiles(true);
+    };
+    this.build(this.newBuildRequest(_function));
+    Assert.assertEquals(1, this.indexState.getFingerprints().size());
+    this.clean();
+    final Procedure1<BuildRequest> _function_1 = (BuildRequest it) -> {
+      ResourceDescriptionsData _resourceDescriptions = it.getState().getResourceDescriptions();
+      Source2GeneratedMapping _fileMappings = it.getState().getFileMappings();
+      ContentFingerprints _copy = this.indexState.getFingerprints().copy();
+      IndexState _indexState = new IndexState(_resourceDescriptions, _fileMappings, _copy);
+      it.setState(_indexState);
+      it.setDirtyFiles(Collections.<URI>unmodifiableList(CollectionLiterals.<URI>newArrayList(a)));
+    };
+    final Function1<URI, IResourceServiceProvider> _function_2 = (URI it) -> {
+      return this.getLanguages().getResourceServiceProvider(it);
+    };
+    final IncrementalBuilder.Result result = this.incrementalBuilder.build(this.newBuildRequest(_function_1), _function_2);
+    Assert.assertEquals(0, result.getSkippedFiles());
+    Assert.assertEquals(0, result.getIndexState().getFingerprints().size());
+    Assert.assertTrue(this.containsSuffix(this.generated.values(), "src-gen/A.txt"));
+  }
+  
+  @Test
+  public void testUnchangedWritesAreSkipped() {
+    final URI a = this.entity("A", null);
+    final Procedure1<BuildRequest> _function = (BuildRequest it) -> {
+      it.setDirtyFiles(Collections.<URI>unmodifiableList(CollectionLiterals.<URI>newArrayList(a)));
+    };
+    this.build(this.newBuildRequest(_function));
+    final Function1<URI, Boolean> _function_1 = (URI it) -> {
+      String _lastSegment = it.lastSegment();
+      return Boolean.valueOf(Objects.equal(_lastSegment, "A.txt"));
+    };
+    final URI generatedFile = IterableExtensions.<URI>findFirst(this.generated.get(a), _function_1);
+    final byte[] written = this.inMemoryURIHandler.getInMemoryFile(generatedFile).getContents();
+    final Procedure1<BuildRequest> _function_2 = (BuildRequest it) -> {
+      it.setDirtyFiles(Collections.<URI>unmodifiableList(CollectionLiterals.<URI>newArrayList(a)));
+    };
+    this.build(this.newBuildRequest(_function_2));
+    final byte[] rewritten = this.inMemoryURIHandler.getInMemoryFile(generatedFile).getContents();
+    Assert.assertNotSame(written, rewritten);
+    this.clean();
+    final Procedure1<BuildRequest> _function_3 = (BuildRequest it) -> {
+      it.setDirtyFiles(Collections.<URI>unmodifiableList(CollectionLiterals.<URI>newArrayList(a)));
+      it.setSkipUnchangedWrites(true);
+    };
+    final Function1<URI, IResourceServiceProvider> _function_4 = (URI it) -> {
+      return this.getLanguages().getResourceServiceProvider(it);
+    };
+    final IncrementalBuilder.Result result = this.incrementalBuilder.build(this.newBuildRequest(_function_3), _function_4);
+    Assert.assertTrue(this.containsSuffix(this.generated.values(), "src-gen/A.txt"));
+    Assert.assertSame(rewritten, this.inMemoryURIHandler.getInMemoryFile(generatedFile).getContents());
+    Assert.assertEquals(0, result.getWrittenFiles());
+    int _skippedWrites = result.getSkippedWrites();
+    boolean _greaterThan = (_skippedWrites > 0);
+    Assert.assertTrue(_greaterThan);
+  }
+  
+  @Test(timeout = 5000)
+  public void testParallelGeneration() {
+    final CountDownLatch bothStarted = new CountDownLatch(2);
+    final Procedure1<String> _function = (String it) -> {
+      try {
+        bothStarted.countDown();
+        Assert.assertTrue(bothStarted.await(2, TimeUnit.SECONDS));
+      } catch (Throwable _e) {
+        throw Exceptions.sneakyThrow(_e);
+      }
+    };
+    final IncrementalBuilderTest.TestGenerator generator = new IncrementalBuilderTest.TestGenerator(true, _function);
+    this.generate(generator, null, Collections.<URI>unmodifiableList(CollectionLiterals.<URI>newArrayList(this.entity("A", null), this.entity("B", null))));
+    final List<String> events = generator.getEvents();
+    Assert.assertEquals(Collections.<String>unmodifiableList(CollectionLiterals.<String>newArrayList("A", "B")), IterableExtensions.<String>sort(this.names(events, "before ")));
+    Assert.assertEquals(this.names(events, "before "), this.names(events, "after "));
+    for (final String name : Collections.<String>unmodifiableList(CollectionLiterals.<String>newArrayList("A", "B"))) {
+      {
+        int _indexOf = events.indexOf(("before " + name));
+        int _indexOf_1 = events.indexOf(("do " + name));
+        boolean _lessThan = (_indexOf < _indexOf_1);
+        Assert.assertTrue(events.toString(), _lessThan);
+        int _indexOf_2 = events.indexOf(("do " + name));
+        int _indexOf_3 = events.indexOf(("after " + name));
+        boolean _lessThan_1 = (_indexOf_2 < _indexOf_3);
+        Assert.assertTrue(events.toString(), _lessThan_1);
+      }
+    }
+  }
+  
+  @Test(timeout = 5000)
+  public void testSequentialGeneration() {
+    final Thread buildThread = Thread.currentThread();
+    final Procedure1<String> _function = (String it) -> {
+      Assert.assertSame(buildThread, Thread.currentThread());
+    };
+    final IncrementalBuilderTest.TestGenerator generator = new IncrementalBuilderTest.TestGenerator(false, _function);
+    this.generate(generator, null, Collections.<URI>unmodifiableList(CollectionLiterals.<URI>newArrayList(this.entity("A", null), this.entity("B", null))));
+    final List<String> events = generator.getEvents();
+    Assert.assertEquals(Collections.<String>unmodifiableList(CollectionLiterals.<String>newArrayList("A", "B")), IterableExtensions.<String>sort(this.names(events, "before ")));
+    final Function1<String, List<String>> _function_1 = (String it) -> {
+      return Collections.<String>unmodifiableList(CollectionLiterals.<String>newArrayList(("before " + it), ("do " + it), ("after " + it)));
+    };
+    Assert.assertEquals(IterableExtensions.<String>toList(Iterables.<String>concat(ListExtensions.<String, List<String>>map(this.names(events, "before "), _function_1))), events);
+  }
+  
+  @Test(timeout = 5000)
+  public void testSequentialGenerationWithoutSynchronizableResourceSet() {
+    final Thread buildThread = Thread.currentThread();
+    final Procedure1<String> _function = (String it) -> {
+      Assert.assertSame(buildThread, Thread.currentThread());
+    };
+    final IncrementalBuilderTest.TestGenerator generator = new IncrementalBuilderTest.TestGenerator(true, _function);
+    this.generate(generator, null, Collections.<URI>unmodifiableList(CollectionLiterals.<URI>newArrayList(this.entity("A", null), this.entity("B", null))), false);
+    Assert.assertEquals(Collections.<String>unmodifiableList(CollectionLiterals.<String>newArrayList("A", "B")), IterableExtensions.<String>sort(this.names(generator.getEvents(), "do ")));
+  }
+  
+  @Test(timeout = 5000)
+  public void testParallelGenerationFailure() {
+    final IllegalStateException failure = new IllegalStateException();
+    final Procedure1<String> _function = (String it) -> {
+      boolean _equals = Objects.equal(it, "B");
+      if (_equals) {
+        throw failure;
+      }
+    };
+    final IncrementalBuilderTest.TestGenerator generator = new IncrementalBuilderTest.TestGenerator(true, _function);
+    try {
+      this.generate(generator, null, Collections.<URI>unmodifiableList(CollectionLiterals.<URI>newArrayList(this.entity("A", null), this.entity("B", null), this.entity("C", null))));
+      Assert.fail();
+    } catch (final Throwable _t) {
+      if (_t instanceof IllegalStateException) {
+        final IllegalStateException e = (IllegalStateException)_t;
+        Assert.assertSame(failure, e);
+      } else {
+        throw Exceptions.sneakyThrow(_t);
+      }
+    }
+    final List<String> events = generator.getEvents();
+    Assert.assertTrue(events.contains("before B"));
+    Assert.assertFalse(events.contains("do B"));
+    Assert.assertEquals(this.names(events, "before "), this.names(events, "after "));
+    List<String> _names = this.names(events, "do ");
+    for (final String name : _names) {
+      int _indexOf = events.indexOf(("do " + name));
+      int _indexOf_1 = events.indexOf(("after " + name));
+      boolean _lessThan = (_indexOf < _indexOf_1);
+      Assert.assertTrue(events.toString(), _lessThan);
+    }
+  }
+  
+  @Test(timeout = 5000)
+  public void testParallelGenerationCancellation() {
+    final Procedure1<String> _function = (String it) -> {
+    };
+    final IncrementalBuilderTest.TestGenerator generator = new IncrementalBuilderTest.TestGenerator(true, _function);
+    try {
+      final CancelIndicator _function_1 = () -> {
+        int _size = this.names(generator.getEvents(), "before ").size();
+        return (_size >= 2);
+      };
+      this.generate(generator, _function_1, 
+        Collections.<URI>unmodifiableList(CollectionLiterals.<URI>newArrayList(this.entity("A", null), this.entity("B", null), this.entity("C", null))));
+      Assert.fail();
+    } catch (final Throwable _t) {
+      if (_t instanceof OperationCanceledException) {
+      } else {
+        throw Exceptions.sneakyThrow(_t);
+      }
+    }
+    final List<String> events = generator.getEvents();
+    Assert.assertEquals(2, this.names(events, "before ").size());
+    Assert.assertEquals(this.names(events, "before "), this.names(events, "after "));
+    List<String> _names = this.names(events, "do ");
+    for (final String name : _names) {
+      int _indexOf = events.indexOf(("do " + name));
+      int _indexOf_1 = events.indexOf(("after " + name));
+      boolean _lessThan = (_indexOf < _indexOf_1);
+      Assert.assertTrue(events.toString(), _lessThan);
+    }
+  }
+  
+  /**
+   * Builds the given files with two generator threads and the given generator in a synchronizable resource set.
+   */
+  private void generate(final IncrementalBuilderTest.TestGenerator generator, final CancelIndicator cancelIndicator, final List<URI> files) {
+    this.generate(generator, cancelIndicator, files, true);
+  }
+  
+  /**
+   * Builds the given files with two generator threads and the given generator.
+   */
+  private void generate(final IncrementalBuilderTest.TestGenerator generator, final CancelIndicator cancelIndicator, final List<URI> files, final boolean synchronizable) {
+    final IncrementalBuilderTest.GeneratingResourceServiceProvider resourceServiceProvider = this.generatingResourceServiceProvider.get();
+    resourceServiceProvider.setGenerator(generator);
+    final Procedure1<BuildRequest> _function = (BuildRequest it) -> {
+      it.setGeneratorThreads(2);
+      if (synchronizable) {
+        it.setResourceSet(this.newSynchronizedResourceSet(it.getState().getResourceDescriptions()));
+      }
+      it.setDirtyFiles(files);
+      if ((cancelIndicator != null)) {
+        it.setCancelIndicator(cancelIndicator);
+      }
+    };
+    final Function1<URI, IResourceServiceProvider> _function_1 = (URI it) -> {
+      return resourceServiceProvider;
+    };
+    this.incrementalBuilder.build(this.newBuildRequest(_function), _function_1);
+  }
+  
+  /**
+   * Creates a resource set for the test project that allows to validate and generate resources concurrently.
+   */
+  private SynchronizedXtextResourceSet newSynchronizedResourceSet(final ResourceDescriptionsData index) {
+    SynchronizedXtextResourceSet _get = this.synchronizedResourceSetProvider.get();
+    final Procedure1<SynchronizedXtextResourceSet> _function = (SynchronizedXtextResourceSet it) -> {
+      it.getURIConverter().getURIHandlers().clear();
+      EList<URIHandler> _uRIHandlers = it.getURIConverter().getURIHandlers();
+      _uRIHandlers.add(this.inMemoryURIHandler);
+      it.setClasspathURIContext(IncrementalBuilderTest.class.getClassLoader());
+      ProjectDescription _projectDescription = new ProjectDescription();
+      final Procedure1<ProjectDescription> _function_1 = (ProjectDescription it_1) -> {
+        it_1.setName("test-project");
+      };
+      ObjectExtensions.<ProjectDescription>operator_doubleArrow(_projectDescription, _function_1).attachToEmfObject(it);
+      Map<String, ResourceDescriptionsData> _emptyMap = CollectionLiterals.<String, ResourceDescriptionsData>emptyMap();
+      new ChunkedResourceDescriptions(_emptyMap, it).setContainer("test-project", index);
+    };
+    return ObjectExtensions.<SynchronizedXtextResourceSet>operator_doubleArrow(_get, _function);
+  }
+  
+  private List<String> names(final List<String> events, final String prefix) {
+    final Function1<String, Boolean> _function = (String it) -> {
+      return Boolean.valueOf(it.startsWith(prefix));
+    };
+    final Function1<String, String> _function_1 = (String it) -> {
+      return it.substring(prefix.length());
+    };
+    return IterableExtensions.<String>toList(IterableExtensions.<String, String>map(IterableExtensions.<String>filter(events, _function), _function_1));
+  }
+  
+  /**
+   * Writes a file with a single entity that refers to the given entity unless it is <code>null</code>.
+   */
+  private URI entity(final String name, final String reference) {
+    StringConcatenation _builder = new StringConcatenation();
+    _builder.append("foo {");
+    _builder.newLine();
+    _builder.append("\t");
+    _builder.append("entity ");
+    _builder.append(name, "\t");
+    _builder.append(" {");
+    {
+      if ((reference != null)) {
+        _builder.append("foo.");
+        _builder.append(reference, "\t");
+        _builder.append(" reference");
+      }
+    }
+    _builder.append("}");
+    _builder.newLineIfNotEmpty();
+    _builder.append("}");
+    _builder.newLine();
+    return this.operator_minus((("src/" + name) + ".indextestlanguage"), _builder.toString());
+  }
 }
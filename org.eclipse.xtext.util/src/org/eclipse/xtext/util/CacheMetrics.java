@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.util;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the hits, misses, evictions and the time spent to compute the missing values of an
+ * {@link OnChangeEvictingCache}. The statistics are grouped by the {@link #getKeyType(Object) type} of the cache keys.
+ * All methods are thread-safe.
+ *
+ * @since 2.15
+ */
+public class CacheMetrics {
+
+	/**
+	 * The statistics for the keys of a single type.
+	 */
+	public static class Statistics {
+
+		private final LongAdder hits = new LongAdder();
+
+		private final LongAdder misses = new LongAdder();
+
+		private final LongAdder evictions = new LongAdder();
+
+		private final LongAdder computeNanos = new LongAdder();
+
+		public long getHits() {
+			return hits.sum();
+		}
+
+		public long getMisses() {
+			return misses.sum();
+		}
+
+		/**
+		 * Returns the number of values that have been evicted because a cache exceeded its maximum size. Values that
+		 * are discarded due to a change of their resource are not counted.
+		 */
+		public long getEvictions() {
+			return evictions.sum();
+		}
+
+		/**
+		 * Returns the total time in nanoseconds that has been spent to compute missing values.
+		 */
+		public long getComputeNanos() {
+			return computeNanos.sum();
+		}
+
+		public double getHitRate() {
+			long hits = getHits();
+			long requests = hits + getMisses();
+			return requests == 0 ? 0 : (double) hits / requests;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("hits: %d, misses: %d (hit rate: %.1f%%), evictions: %d, compute time: %dms", getHits(),
+					getMisses(), getHitRate() * 100, getEvictions(), TimeUnit.NANOSECONDS.toMillis(getComputeNanos()));
+		}
+	}
+
+	private final ConcurrentMap<String, Statistics> statistics = new ConcurrentHashMap<String, Statistics>();
+
+	public void recordHit(Object key) {
+		getOrCreate(key).hits.increment();
+	}
+
+	public void recordMiss(Object key, long computeNanos) {
+		Statistics result = getOrCreate(key);
+		result.misses.increment();
+		result.computeNanos.add(computeNanos);
+	}
+
+	public void recordEviction(Object key) {
+		getOrCreate(key).evictions.increment();
+	}
+
+	/**
+	 * Returns the statistics for the given key type or <code>null</code> if no key of that type has been recorded.
+	 */
+	public Statistics getStatistics(String keyType) {
+		return statistics.get(keyType);
+	}
+
+	/**
+	 * Returns an unmodifiable live view of the statistics per key type.
+	 */
+	public Map<String, Statistics> getStatistics() {
+		return Collections.unmodifiableMap(statistics);
+	}
+
+	public void reset() {
+		statistics.clear();
+	}
+
+	/**
+	 * Returns the type of the given key. Cache keys are often strings or {@link Pair pairs} and {@link Triple triples}
+	 * that combine a context with a string that denotes the kind of the cached value. That string is used as the key
+	 * type. For other keys the name of their class is used.
+	 */
+	protected String getKeyType(Object key) {
+		if (key instanceof String) {
+			return (String) key;
+		}
+		if (key instanceof Pair<?, ?>) {
+			Pair<?, ?> pair = (Pair<?, ?>) key;
+			if (pair.getFirst() instanceof String)
+				return (String) pair.getFirst();
+			if (pair.getSecond() instanceof String)
+				return (String) pair.getSecond();
+			if (key instanceof Triple<?, ?, ?> && ((Triple<?, ?, ?>) key).getThird() instanceof String)
+				return (String) ((Triple<?, ?, ?>) key).getThird();
+		}
+		return key.getClass().getName();
+	}
+
+	private Statistics getOrCreate(Object key) {
+		String keyType = getKeyType(key);
+		Statistics result = statistics.get(keyType);
+		if (result == null) {
+			Statistics newStatistics = new Statistics();
+			result = statistics.putIfAbsent(keyType, newStatistics);
+			if (result == null) {
+				result = newStatistics;
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder();
+		for (Map.Entry<String, Statistics> entry : statistics.entrySet()) {
+			result.append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+		}
+		return result.toString();
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2009, 2018 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -8,7 +8,9 @@
 package org.eclipse.xtext.util;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -22,16 +24,28 @@ import org.eclipse.emf.ecore.resource.Resource.Diagnostic;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.xtext.util.concurrent.IUnitOfWork;
 
+import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
+import com.google.inject.name.Named;
 
 /**
  * A cache implementation that stores its values in the scope of a resource.
  * The values will be discarded as soon as the contents of the resource changes semantically.
  * Clients may override this behavior for certain transactions by means of {@link #execWithoutCacheClear(Resource, IUnitOfWork)}
  * or {@link #execWithTemporaryCaching(Resource, IUnitOfWork)}.
+ * <p>
+ * By default the number of values per resource is not limited. A limit can be configured by binding the constant
+ * {@link #MAXIMUM_SIZE}, e.g.
+ * <pre>
+ * binder.bindConstant().annotatedWith(Names.named(OnChangeEvictingCache.MAXIMUM_SIZE)).to(1000);
+ * </pre>
+ * The least recently used values of a resource are evicted if the limit is exceeded. Statistics about the
+ * hits, misses, evictions and compute times are collected in the {@link #getMetrics() metrics} if
+ * {@link #RECORD_METRICS} is bound to <code>true</code>.
  * 
  * @author Sven Efftinge - Initial contribution and API
  * @author Sebastian Zarnekow
@@ -41,6 +55,27 @@ public class OnChangeEvictingCache implements IResourceScopeCache {
 	
 	private static final Logger log = Logger.getLogger(OnChangeEvictingCache.class);
 	
+	/**
+	 * @since 2.15
+	 */
+	public static final String MAXIMUM_SIZE = "org.eclipse.xtext.util.OnChangeEvictingCache.maximumSize";
+	
+	/**
+	 * @since 2.15
+	 */
+	public static final String RECORD_METRICS = "org.eclipse.xtext.util.OnChangeEvictingCache.recordMetrics";
+	
+	/** The maximum number of values per resource. Zero or less means unlimited. */
+	@Inject(optional = true)
+	@Named(MAXIMUM_SIZE)
+	private int maximumSize = 0;
+	
+	@Inject(optional = true)
+	@Named(RECORD_METRICS)
+	private boolean recordMetrics = false;
+	
+	private final CacheMetrics metrics = new CacheMetrics();
+	
 	/**
 	 * A simple cache listener. It will be notified if the cache is cleared. 
 	 * The notification will only occur once. Listeners that are interested in subsequent notifications 
@@ -73,10 +108,19 @@ public class OnChangeEvictingCache implements IResourceScopeCache {
 		CacheAdapter adapter = getOrCreate(resource);
 		T element = adapter.<T>internalGet(key);
 		if (element==null) {
-			element = provider.get();
+			if (recordMetrics) {
+				long start = System.nanoTime();
+				element = provider.get();
+				metrics.recordMiss(key, System.nanoTime() - start);
+			} else {
+				element = provider.get();
+			}
 			cacheMiss(adapter);
 			adapter.set(key, element);
 		} else {
+			if (recordMetrics) {
+				metrics.recordHit(key);
+			}
 			cacheHit(adapter);
 		}
 		if (element == CacheAdapter.NULL) {
@@ -101,6 +145,15 @@ public class OnChangeEvictingCache implements IResourceScopeCache {
 		adapter.cacheHit();
 	}
 	
+	/**
+	 * Returns the statistics of this cache. They are only collected if {@link #RECORD_METRICS} is bound to
+	 * <code>true</code>.
+	 * @since 2.15
+	 */
+	public CacheMetrics getMetrics() {
+		return metrics;
+	}
+	
 	/**
 	 * Returns the cache adapter that is associated with the resource. The lifecycle of the cache
 	 * is strongly connected to the resource and its change notifications. Will not return <code>null</code>.
@@ -110,13 +163,23 @@ public class OnChangeEvictingCache implements IResourceScopeCache {
 	public CacheAdapter getOrCreate(Resource resource) {
 		CacheAdapter adapter = (CacheAdapter) EcoreUtil.getAdapter(resource.eAdapters(), CacheAdapter.class);
 		if (adapter == null) {
-			adapter = new CacheAdapter();
+			adapter = createCacheAdapter();
 			resource.eAdapters().add(adapter);
 			adapter.setResource(resource);
 		}
 		return adapter;
 	}
 	
+	/**
+	 * @since 2.15
+	 */
+	protected CacheAdapter createCacheAdapter() {
+		if (maximumSize > 0) {
+			return new CacheAdapter(maximumSize, recordMetrics ? metrics : null);
+		}
+		return new CacheAdapter();
+	}
+	
 	/**
 	 * The transaction will be executed. While it is running, any semantic state change
 	 * in the given resource will be ignored and the cache will not be cleared.
@@ -152,6 +215,34 @@ public class OnChangeEvictingCache implements IResourceScopeCache {
 		}
 	}
 	
+	/**
+	 * An access ordered map that removes its eldest entry if it exceeds the maximum size.
+	 */
+	private static class LeastRecentlyUsedMap extends LinkedHashMap<Object, Object> {
+		private static final long serialVersionUID = 1L;
+		
+		private final int maximumSize;
+		
+		private final transient CacheMetrics metrics;
+		
+		private LeastRecentlyUsedMap(int maximumSize, CacheMetrics metrics) {
+			super(Math.min(maximumSize, 500), 0.75f, true);
+			this.maximumSize = maximumSize;
+			this.metrics = metrics;
+		}
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+			if (size() > maximumSize) {
+				if (metrics != null) {
+					metrics.recordEviction(eldest.getKey());
+				}
+				return true;
+			}
+			return false;
+		}
+	}
+	
 	private static class IgnoreValuesMemento {
 		private final List<Object> keys = Lists.newArrayList();
 		private final IgnoreValuesMemento previous;
@@ -180,7 +271,7 @@ public class OnChangeEvictingCache implements IResourceScopeCache {
 		
 		private static final Object NULL = new Object();
 		
-		private final Map<Object, Object> values = new ConcurrentHashMap<Object, Object>(500);
+		private final Map<Object, Object> values;
 
 		private final Collection<Listener> listeners = Sets.newLinkedHashSet();
 		
@@ -197,6 +288,25 @@ public class OnChangeEvictingCache implements IResourceScopeCache {
 		
 		private int misses = 0;
 		private int hits = 0;
+		
+		public CacheAdapter() {
+			values = new ConcurrentHashMap<Object, Object>(500);
+		}
+		
+		/**
+		 * Creates an adapter that holds at most the given number of values. The least recently used values are evicted
+		 * if more values are added.
+		 * 
+		 * @param maximumSize
+		 *            the maximum number of values. Must be positive.
+		 * @param metrics
+		 *            records the evictions. May be <code>null</code>.
+		 * @since 2.15
+		 */
+		public CacheAdapter(int maximumSize, CacheMetrics metrics) {
+			Preconditions.checkArgument(maximumSize > 0, "maximumSize must be positive");
+			values = Collections.synchronizedMap(new LeastRecentlyUsedMap(maximumSize, metrics));
+		}
 
 		public void set(Object name, Object value) {
 			empty = false;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2017 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2008, 2018 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,25 +10,32 @@ package org.eclipse.xtext.util;
 
 import static org.eclipse.xtext.util.ReflectionUtil.*;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.log4j.Logger;
 
-import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 
 /**
+ * Invokes the most specific method of the targets for the runtime types of the arguments. The resolved methods are
+ * cached per tuple of argument types and invoked through {@link MethodHandle method handles}.
+ * 
  * @author Sven Efftinge - Initial contribution and API
  */
 public class PolymorphicDispatcher<RT> {
 
-	@SuppressWarnings("unused")
 	private static final Logger log = Logger.getLogger(PolymorphicDispatcher.class);
 	private final List<? extends Object> targets;
 	private final Predicate<Method> methodFilter;
@@ -169,6 +176,9 @@ public class PolymorphicDispatcher<RT> {
 	protected class MethodDesc {
 		private final Object target;
 		private final Method method;
+		// created on first use, a race only leads to an equivalent handle
+		private MethodHandle handle;
+		private boolean reflective;
 
 		protected MethodDesc(Object target, Method method) {
 			super();
@@ -192,6 +202,33 @@ public class PolymorphicDispatcher<RT> {
 			return target;
 		}
 
+		/**
+		 * Returns a handle of type <code>(Object[])Object</code> that invokes the method on the target with the
+		 * elements of the array as arguments, or <code>null</code> if the method has to be invoked reflectively.
+		 * 
+		 * @since 2.15
+		 */
+		protected MethodHandle getHandle() {
+			MethodHandle result = handle;
+			if (result == null && !reflective) {
+				try {
+					method.setAccessible(true);
+					result = MethodHandles.lookup().unreflect(method).asFixedArity();
+					if (!Modifier.isStatic(method.getModifiers())) {
+						result = result.bindTo(target);
+					}
+					int parameterCount = method.getParameterTypes().length;
+					result = result.asType(MethodType.genericMethodType(parameterCount)).asSpreader(Object[].class,
+							parameterCount);
+					handle = result;
+				} catch (IllegalAccessException | RuntimeException e) {
+					log.debug("Cannot create a method handle for " + method + ", it is invoked reflectively.", e);
+					reflective = true;
+				}
+			}
+			return result;
+		}
+
 		public boolean isInvokeable(final List<Class<?>> paramTypes) {
 			if (getParameterTypes().length != paramTypes.size())
 				return false;
@@ -246,39 +283,49 @@ public class PolymorphicDispatcher<RT> {
 		return compareTo;
 	}
 
-	private final SimpleCache<List<Class<?>>, List<MethodDesc>> cache =
-		new SimpleCache<List<Class<?>>, List<MethodDesc>>(
-			new Function<List<Class<?>>, List<MethodDesc>>() {
-				@Override
-				public List<MethodDesc> apply(List<Class<?>> paramTypes) {
-					// 'result' contains all best-matched MethodDesc for which 
-					// pairwise compare(m1, m2) == 0, meaning they're equal or unrelated. 
-					List<MethodDesc> result = new ArrayList<MethodDesc>();
-					Iterator<MethodDesc> iterator = methods.iterator();
-					NEXT: while (iterator.hasNext()) {
-						MethodDesc methodDesc = iterator.next();
-						if (methodDesc.isInvokeable(paramTypes)) {
-							if (result.isEmpty()) {
-								result.add(methodDesc);
-							} else {
-								Iterator<MethodDesc> it = result.iterator();
-								while(it.hasNext()) {
-									MethodDesc next = it.next();
-									int compare = compare(next, methodDesc);
-									if (compare < 0) {
-										it.remove();
-									} else if (compare > 0) {
-										continue NEXT;
-									}
-								}
-								result.add(methodDesc);
-							}
+	/*
+	 * The resolved methods per argument types. The key is the class of the argument for a single argument and the list
+	 * of the argument classes otherwise.
+	 */
+	private final ConcurrentMap<Object, List<MethodDesc>> cache = new ConcurrentHashMap<Object, List<MethodDesc>>();
+
+	private List<MethodDesc> getMethods(Object[] params) {
+		Object key = params.length == 1 ? getType(params, 0) : getTypes(params);
+		List<MethodDesc> result = cache.get(key);
+		if (result == null) {
+			result = findMethods(params.length == 1 ? Collections.<Class<?>>singletonList(getType(params, 0)) : getTypes(params));
+			cache.put(key, result);
+		}
+		return result;
+	}
+
+	private List<MethodDesc> findMethods(List<Class<?>> paramTypes) {
+		// 'result' contains all best-matched MethodDesc for which 
+		// pairwise compare(m1, m2) == 0, meaning they're equal or unrelated. 
+		List<MethodDesc> result = new ArrayList<MethodDesc>();
+		Iterator<MethodDesc> iterator = methods.iterator();
+		NEXT: while (iterator.hasNext()) {
+			MethodDesc methodDesc = iterator.next();
+			if (methodDesc.isInvokeable(paramTypes)) {
+				if (result.isEmpty()) {
+					result.add(methodDesc);
+				} else {
+					Iterator<MethodDesc> it = result.iterator();
+					while(it.hasNext()) {
+						MethodDesc next = it.next();
+						int compare = compare(next, methodDesc);
+						if (compare < 0) {
+							it.remove();
+						} else if (compare > 0) {
+							continue NEXT;
 						}
 					}
-					return result;
+					result.add(methodDesc);
 				}
 			}
-		);
+		}
+		return result;
+	}
 
 	@SuppressWarnings("unchecked")
 	public RT invoke(Object... params) {
@@ -288,7 +335,7 @@ public class PolymorphicDispatcher<RT> {
 				throw new IllegalArgumentException("Wrong number of arguments. Expected "+filter.getMinParams()+" to "+filter.getMaxParams()+".");
 			}
 		}
-		List<MethodDesc> result = cache.get(getTypes(params));
+		List<MethodDesc> result = getMethods(params);
 		// check if ambiguous
 		if (result.size()>1)
 			return handleAmbigousMethods(result, params);
@@ -296,8 +343,19 @@ public class PolymorphicDispatcher<RT> {
 		if (result.isEmpty())
 			return handleNoSuchMethod(params);
 
+		MethodDesc current = result.get(0);
+		MethodHandle handle = current.getHandle();
+		if (handle != null) {
+			try {
+				Object value = handle.invokeExact(params);
+				return (RT) value;
+			} catch (Error e) {
+				throw e;
+			} catch (Throwable e) {
+				return handler.handle(params, e);
+			}
+		}
 		try {
-			MethodDesc current = result.get(0);
 			current.method.setAccessible(true);
 			return (RT) current.method.invoke(current.target, params);
 		} catch (InvocationTargetException e) {
@@ -326,15 +384,15 @@ public class PolymorphicDispatcher<RT> {
 	private List<Class<?>> getTypes(Object[] params) {
 		List<Class<?>> result = new ArrayList<Class<?>>(params.length);
 		for (int i = 0; i < params.length; i++) {
-			if (params[i]!=null) {
-				result.add(params[i].getClass());
-			} else {
-				result.add(getDefaultClass(i));
-			}
+			result.add(getType(params, i));
 		}
 		return result;
 	}
 
+	private Class<?> getType(Object[] params, int index) {
+		return params[index] != null ? params[index].getClass() : getDefaultClass(index);
+	}
+
 	/**
 	 * @return {@code Void.class}
 	 */
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.util.concurrent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.xtext.util.DisposableRegistry;
+import org.eclipse.xtext.util.IDisposable;
+
+import com.google.common.annotations.Beta;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Provides the thread pools that parallelize the work of a single operation, e.g. the indexing or validation of a
+ * build. The pools are shared between the operations instead of being created for each of them. There is one pool
+ * per key and number of threads, so an operation never runs on more threads than it asked for. Idle threads are
+ * discarded after a while.
+ * <p>
+ * Clients must not shut down the returned pools. Instead, they cancel the futures of their tasks. All pools are shut
+ * down when this provider is {@link #dispose() disposed}.
+ *
+ * @since 2.15
+ */
+@Beta
+@Singleton
+public class WorkerThreadPools implements IDisposable {
+
+	private static final long KEEP_ALIVE_SECONDS = 30;
+
+	private final Map<String, ExecutorService> pools = new ConcurrentHashMap<String, ExecutorService>();
+
+	@Inject
+	public void registerTo(DisposableRegistry disposableRegistry) {
+		disposableRegistry.register(this);
+	}
+
+	/**
+	 * Returns the shared pool for the given key that runs up to the given number of tasks concurrently.
+	 */
+	public ExecutorService get(String key, int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads must be positive: " + threads);
+		}
+		return pools.computeIfAbsent(key + "-" + threads, name -> createPool(name, threads));
+	}
+
+	protected ExecutorService createPool(String name, int threads) {
+		ThreadPoolExecutor result = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), createThreadFactory(name));
+		result.allowCoreThreadTimeOut(true);
+		return result;
+	}
+
+	protected ThreadFactory createThreadFactory(String name) {
+		AtomicInteger count = new AtomicInteger();
+		return runnable -> {
+			Thread result = new Thread(runnable, name + "-" + count.incrementAndGet());
+			result.setDaemon(true);
+			return result;
+		};
+	}
+
+	@Override
+	public void dispose() {
+		for (ExecutorService pool : pools.values()) {
+			pool.shutdownNow();
+		}
+		pools.clear();
+	}
+
+}
@@ -7,6 +7,7 @@
  *******************************************************************************/
 package org.eclipse.xtext.build
 
+import java.util.List
 import org.eclipse.emf.common.util.URI
 import org.eclipse.emf.ecore.resource.Resource
 import org.eclipse.xtend.lib.annotations.Accessors
@@ -36,6 +37,18 @@ class BuildContext {
 		return loader.executeClustered(uri.filter[canHandle], operation)
 	}
 	
+	/**
+	 * Like {@link #executeClustered}, but passes each cluster of loaded resources to the operation
+	 * at once.
+	 * 
+	 * @since 2.15
+	 */
+	def <T> Iterable<T> executeClusterwise(Iterable<URI> uri, (List<Resource>)=>Iterable<? extends T> operation) {
+		if(loader === null) 
+			loader = new ClusteringStorageAwareResourceLoader(this)
+		return loader.executeClusterwise(uri.filter[canHandle], operation)
+	}
+	
 	protected def boolean canHandle(URI uri) {
         val resourceServiceProvider = resourceServiceProviderProvider.apply(uri)
         if (resourceServiceProvider === null)
@@ -49,4 +62,13 @@ class BuildContext {
 		return resourceServiceProvider
 	}
 	
+	/**
+	 * Creates a context with the same state that loads resources into the given resource set.
+	 * 
+	 * @since 2.15
+	 */
+	def BuildContext withResourceSet(XtextResourceSet resourceSet) {
+		return new BuildContext(resourceServiceProviderProvider, resourceSet, oldState, clusteringPolicy, cancelIndicator)
+	}
+	
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015, 2016 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2015, 2018 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,6 +7,7 @@
  *******************************************************************************/
 package org.eclipse.xtext.build
 
+import com.google.inject.Provider
 import java.io.File
 import java.util.List
 import org.eclipse.emf.common.util.URI
@@ -53,6 +54,62 @@ class BuildRequest {
 	XtextResourceSet resourceSet
 	CancelIndicator cancelIndicator = CancelIndicator.NullImpl
 	
+	/**
+	 * The number of threads that are used to index the changed and affected resources.
+	 * Values greater than one only take effect if a {@link #workerResourceSetProvider} is set.
+	 * 
+	 * @since 2.15
+	 */
+	int indexingThreads = 1
+	
+	/**
+	 * Creates the resource sets for the parallel indexing workers. Each worker loads its
+	 * resources into a fresh resource set which has to be configured like the {@link #resourceSet}.
+	 * 
+	 * @since 2.15
+	 */
+	Provider<XtextResourceSet> workerResourceSetProvider
+	
+	/**
+	 * The number of threads that are used to validate the resources of a cluster once they are linked.
+	 * Generation is not affected, see {@link #generatorThreads}. Values greater than one require the
+	 * resource validators of all languages to be safe to run concurrently on different resources of
+	 * the same resource set, which has to be {@link org.eclipse.xtext.resource.ISynchronizable synchronizable},
+	 * e.g. a {@link org.eclipse.xtext.resource.SynchronizedXtextResourceSet}. Otherwise the resources are
+	 * validated sequentially.
+	 * 
+	 * @since 2.15
+	 */
+	int validationThreads = 1
+	
+	/**
+	 * The number of threads that are used to generate the resources of a cluster once they are validated.
+	 * With values greater than one, the generators run concurrently on different resources of the same
+	 * resource set, unless they {@link org.eclipse.xtext.generator.GeneratorDelegate#isParallelSafe() opt out}.
+	 * The resource set has to be {@link org.eclipse.xtext.resource.ISynchronizable synchronizable}, otherwise
+	 * the resources are generated sequentially.
+	 * 
+	 * @since 2.15
+	 */
+	int generatorThreads = 1
+	
+	/**
+	 * Whether dirty files are skipped if their content still matches the {@link IndexState#getFingerprints()
+	 * fingerprint} that has been recorded when they were built. Fingerprints are only recorded if this is enabled.
+	 * 
+	 * @since 2.15
+	 */
+	boolean skipUnchangedFiles = false
+	
+	/**
+	 * Whether generated files whose current content is identical to the generated content are left untouched instead
+	 * of being written again, see {@link org.eclipse.xtext.generator.URIBasedFileSystemAccess#isSkipUnchangedWrites()
+	 * URIBasedFileSystemAccess}.
+	 * 
+	 * @since 2.15
+	 */
+	boolean skipUnchangedWrites = false
+	
 	interface IPostValidationCallback {
 		
 		/**
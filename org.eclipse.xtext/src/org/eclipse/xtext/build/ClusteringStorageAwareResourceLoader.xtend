@@ -7,6 +7,7 @@
  *******************************************************************************/
 package org.eclipse.xtext.build
 
+import java.util.List
 import org.eclipse.emf.common.util.URI
 import org.eclipse.emf.ecore.resource.Resource
 import org.eclipse.xtend.lib.annotations.FinalFieldsConstructor
@@ -23,6 +24,18 @@ class ClusteringStorageAwareResourceLoader {
 	val extension BuildContext context
 
 	def <T> Iterable<T> executeClustered(Iterable<URI> uris, (Resource)=>T operation) {
+		executeClusterwise(uris) [ resources |
+			resources.map[operation.apply(it)]
+		]
+	}
+
+	/**
+	 * Loads the resources cluster by cluster and passes each complete cluster to the given operation before the
+	 * resource set is cleared for the next one.
+	 * 
+	 * @since 2.15
+	 */
+	def <T> Iterable<T> executeClusterwise(Iterable<URI> uris, (List<Resource>)=>Iterable<? extends T> operation) {
 		val loadedURIs = <URI>newArrayList
 		val sourceLevelURIs = <URI>newArrayList
 		val resources = newArrayList
@@ -31,7 +44,7 @@ class ClusteringStorageAwareResourceLoader {
 		while (iter.hasNext) {
 			val uri = iter.next
 			if (!clusteringPolicy.continueProcessing(resourceSet, uri, loadedURIs.size)) {
-				result += resources.map[operation.apply(it)]
+				result += operation.apply(resources.unmodifiableView)
 				resources.clear
 				clearResourceSet
 				loadedURIs.clear
@@ -48,7 +61,7 @@ class ClusteringStorageAwareResourceLoader {
 			}
 			resources += resourceSet.getResource(uri, true)
 		}
-		result += resources.map[operation.apply(it)]
+		result += operation.apply(resources.unmodifiableView)
 		result
 	}
 	
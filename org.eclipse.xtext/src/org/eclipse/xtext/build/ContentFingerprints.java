@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.build;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.UncheckedIOException;
+import java.util.function.BiConsumer;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.URIConverter;
+import org.eclipse.xtext.resource.impl.PersistentHashMap;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * The hashes of the contents of the source files that have been built. The {@link IncrementalBuilder} does not build a
+ * dirty file again if its content still has the recorded hash, so touching files or switching to a branch with
+ * identical files does not cause a rebuild.
+ * <p>
+ * A {@link #copy() copy} shares its entries with the original and is created in constant time. Instances are not
+ * thread-safe.
+ *
+ * @since 2.15
+ */
+public class ContentFingerprints implements Externalizable {
+
+	private final PersistentHashMap<URI, String> fingerprints;
+
+	public ContentFingerprints() {
+		this(new PersistentHashMap<URI, String>());
+	}
+
+	private ContentFingerprints(PersistentHashMap<URI, String> fingerprints) {
+		this.fingerprints = fingerprints;
+	}
+
+	public ContentFingerprints copy() {
+		return new ContentFingerprints(fingerprints.copy());
+	}
+
+	/**
+	 * Returns the recorded fingerprint of the given file or <code>null</code> if it has not been recorded.
+	 */
+	public String get(URI uri) {
+		return fingerprints.get(uri);
+	}
+
+	public void put(URI uri, String fingerprint) {
+		fingerprints.put(uri, fingerprint);
+	}
+
+	public void remove(URI uri) {
+		fingerprints.remove(uri);
+	}
+
+	public int size() {
+		return fingerprints.size();
+	}
+
+	public void forEach(BiConsumer<? super URI, ? super String> consumer) {
+		fingerprints.forEach(consumer);
+	}
+
+	/**
+	 * Computes the fingerprint of the current content of the given file.
+	 *
+	 * @return the fingerprint or <code>null</code> if the file cannot be read.
+	 */
+	public static String compute(URI uri, URIConverter uriConverter) {
+		try (InputStream in = uriConverter.createInputStream(uri)) {
+			Hasher hasher = Hashing.murmur3_128().newHasher();
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) > 0) {
+				hasher.putBytes(buffer, 0, read);
+			}
+			return hasher.hash().toString();
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Computes the fingerprint of the given content.
+	 */
+	public static String compute(byte[] content) {
+		return Hashing.murmur3_128().hashBytes(content).toString();
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			fingerprints.put(URI.createURI(in.readUTF()), in.readUTF());
+		}
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeInt(fingerprints.size());
+		try {
+			fingerprints.forEach((uri, fingerprint) -> {
+				try {
+					out.writeUTF(uri.toString());
+					out.writeUTF(fingerprint);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+}
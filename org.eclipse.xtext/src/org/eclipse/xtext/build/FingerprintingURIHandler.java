@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.build;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.URIConverter;
+import org.eclipse.emf.ecore.resource.URIHandler;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Lets the {@link IncrementalBuilder} check and record the {@link ContentFingerprints fingerprints} of the dirty files
+ * without reading them in addition to loading them. It is installed into the URI converter of the build's resource
+ * set for the duration of a build.
+ * <ul>
+ * <li>The content that has been read to compare it with a recorded fingerprint is handed to the first load of the
+ * file.</li>
+ * <li>The fingerprints of files that have no recorded fingerprint are computed from the stream the file is first
+ * loaded from.</li>
+ * </ul>
+ * All other requests are passed on to the handler that would have been used without this one.
+ *
+ * @since 2.15
+ */
+class FingerprintingURIHandler implements URIHandler {
+
+	private final URIConverter uriConverter;
+
+	private final ContentFingerprints fingerprints;
+
+	private final Map<URI, byte[]> contents = new ConcurrentHashMap<URI, byte[]>();
+
+	private final Set<URI> unrecorded = ConcurrentHashMap.newKeySet();
+
+	FingerprintingURIHandler(URIConverter uriConverter, ContentFingerprints fingerprints) {
+		this.uriConverter = uriConverter;
+		this.fingerprints = fingerprints;
+	}
+
+	void install() {
+		uriConverter.getURIHandlers().add(0, this);
+	}
+
+	void uninstall() {
+		uriConverter.getURIHandlers().remove(this);
+		contents.clear();
+		unrecorded.clear();
+	}
+
+	/**
+	 * Reads the current content of the given file.
+	 *
+	 * @return the content or <code>null</code> if the file cannot be read.
+	 */
+	byte[] read(URI uri) {
+		try (InputStream in = uriConverter.createInputStream(uri)) {
+			return ByteStreams.toByteArray(in);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Hands the given content to the next load of the file, so it is not read again.
+	 */
+	void provide(URI uri, byte[] content) {
+		contents.put(uri, content);
+	}
+
+	/**
+	 * Records the fingerprint of the given file when it is loaded next.
+	 */
+	void record(URI uri) {
+		unrecorded.add(uri);
+	}
+
+	@Override
+	public boolean canHandle(URI uri) {
+		return contents.containsKey(uri) || unrecorded.contains(uri);
+	}
+
+	@Override
+	public InputStream createInputStream(URI uri, Map<?, ?> options) throws IOException {
+		byte[] content = contents.remove(uri);
+		if (content != null) {
+			return new ByteArrayInputStream(content);
+		}
+		InputStream in = getDelegate(uri).createInputStream(uri, options);
+		if (!unrecorded.remove(uri)) {
+			return in;
+		}
+		return new FilterInputStream(in) {
+
+			private final Hasher hasher = Hashing.murmur3_128().newHasher();
+
+			private boolean closed;
+
+			@Override
+			public int read() throws IOException {
+				int result = super.read();
+				if (result != -1) {
+					hasher.putByte((byte) result);
+				}
+				return result;
+			}
+
+			@Override
+			public int read(byte[] buffer, int offset, int length) throws IOException {
+				int result = super.read(buffer, offset, length);
+				if (result > 0) {
+					hasher.putBytes(buffer, offset, result);
+				}
+				return result;
+			}
+
+			@Override
+			public long skip(long n) throws IOException {
+				// the skipped bytes are part of the fingerprint
+				byte[] buffer = new byte[(int) Math.min(n, 8192)];
+				int read = read(buffer, 0, buffer.length);
+				return Math.max(read, 0);
+			}
+
+			@Override
+			public boolean markSupported() {
+				return false;
+			}
+
+			@Override
+			public void close() throws IOException {
+				if (closed) {
+					return;
+				}
+				closed = true;
+				try {
+					// the loader may stop before the end of the file
+					byte[] buffer = new byte[8192];
+					while (read(buffer, 0, buffer.length) > 0) {
+						// hash the remaining content
+					}
+					String fingerprint = hasher.hash().toString();
+					synchronized (fingerprints) {
+						fingerprints.put(uri, fingerprint);
+					}
+				} finally {
+					super.close();
+				}
+			}
+		};
+	}
+
+	@Override
+	public OutputStream createOutputStream(URI uri, Map<?, ?> options) throws IOException {
+		return getDelegate(uri).createOutputStream(uri, options);
+	}
+
+	@Override
+	public void delete(URI uri, Map<?, ?> options) throws IOException {
+		getDelegate(uri).delete(uri, options);
+	}
+
+	@Override
+	public Map<String, ?> contentDescription(URI uri, Map<?, ?> options) throws IOException {
+		return getDelegate(uri).contentDescription(uri, options);
+	}
+
+	@Override
+	public boolean exists(URI uri, Map<?, ?> options) {
+		return getDelegate(uri).exists(uri, options);
+	}
+
+	@Override
+	public Map<String, ?> getAttributes(URI uri, Map<?, ?> options) {
+		return getDelegate(uri).getAttributes(uri, options);
+	}
+
+	@Override
+	public void setAttributes(URI uri, Map<String, ?> attributes, Map<?, ?> options) throws IOException {
+		getDelegate(uri).setAttributes(uri, attributes, options);
+	}
+
+	private URIHandler getDelegate(URI uri) {
+		for (URIHandler handler : uriConverter.getURIHandlers()) {
+			if (handler != this && handler.canHandle(uri)) {
+				return handler;
+			}
+		}
+		throw new IllegalStateException("No URI handler for " + uri);
+	}
+
+}
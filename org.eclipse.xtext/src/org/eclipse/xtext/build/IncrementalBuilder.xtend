@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015, 2017 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2015, 2018 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -9,7 +9,15 @@ package org.eclipse.xtext.build
 
 import com.google.inject.Inject
 import com.google.inject.Provider
+import java.util.LinkedList
 import java.util.List
+import java.util.Set
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Future
+import java.util.concurrent.atomic.AtomicBoolean
 import org.eclipse.emf.common.util.URI
 import org.eclipse.emf.ecore.resource.Resource
 import org.eclipse.xtend.lib.annotations.Accessors
@@ -26,14 +34,18 @@ import org.eclipse.xtext.generator.trace.TraceRegionSerializer
 import org.eclipse.xtext.parser.IEncodingProvider
 import org.eclipse.xtext.resource.IResourceDescription
 import org.eclipse.xtext.resource.IResourceServiceProvider
+import org.eclipse.xtext.resource.ISynchronizable
 import org.eclipse.xtext.resource.clustering.DisabledClusteringPolicy
 import org.eclipse.xtext.resource.clustering.IResourceClusteringPolicy
+import org.eclipse.xtext.resource.impl.ResourceDescriptionsData
 import org.eclipse.xtext.resource.persistence.SerializableResourceDescription
 import org.eclipse.xtext.resource.persistence.StorageAwareResource
 import org.eclipse.xtext.service.OperationCanceledManager
 import org.eclipse.xtext.util.CancelIndicator
+import org.eclipse.xtext.util.concurrent.WorkerThreadPools
 import org.eclipse.xtext.util.internal.Log
 import org.eclipse.xtext.validation.CheckMode
+import org.eclipse.xtext.validation.Issue
 import org.eclipse.xtext.workspace.IProjectConfigProvider
 import org.eclipse.xtext.generator.GeneratorContext
 
@@ -46,6 +58,55 @@ import org.eclipse.xtext.generator.GeneratorContext
 	@Data static class Result {
 		IndexState indexState
 		List<IResourceDescription.Delta> affectedResources
+		/**
+		 * The number of dirty files that have not been built because their content matched their fingerprint.
+		 * 
+		 * @since 2.15
+		 */
+		int skippedFiles
+		/**
+		 * The number of dirty files whose fingerprint had been recorded by a previous build.
+		 * 
+		 * @since 2.15
+		 */
+		int fingerprintHits
+		/**
+		 * The number of generated files that have been written, including trace files.
+		 * 
+		 * @since 2.15
+		 */
+		int writtenFiles
+		/**
+		 * The number of generated files that have not been written because their contents were unchanged.
+		 * 
+		 * @see BuildRequest#isSkipUnchangedWrites()
+		 * @since 2.15
+		 */
+		int skippedWrites
+		
+		new(IndexState indexState, List<IResourceDescription.Delta> affectedResources) {
+			this(indexState, affectedResources, 0, 0)
+		}
+		
+		/**
+		 * @since 2.15
+		 */
+		new(IndexState indexState, List<IResourceDescription.Delta> affectedResources, int skippedFiles, int fingerprintHits) {
+			this(indexState, affectedResources, skippedFiles, fingerprintHits, 0, 0)
+		}
+		
+		/**
+		 * @since 2.15
+		 */
+		new(IndexState indexState, List<IResourceDescription.Delta> affectedResources, int skippedFiles, int fingerprintHits,
+			int writtenFiles, int skippedWrites) {
+			this.indexState = indexState
+			this.affectedResources = affectedResources
+			this.skippedFiles = skippedFiles
+			this.fingerprintHits = fingerprintHits
+			this.writtenFiles = writtenFiles
+			this.skippedWrites = skippedWrites
+		}
 	}
 	
 	@Log static class InternalStatefulIncrementalBuilder {
@@ -55,6 +116,13 @@ import org.eclipse.xtext.generator.GeneratorContext
 	
 		@Inject Indexer indexer
 		@Inject extension OperationCanceledManager
+		@Inject WorkerThreadPools workerThreadPools
+		
+		ExecutorService generatorExecutor
+		
+		// the written and skipped files of the generators, only updated on the build thread
+		int writtenFiles
+		int skippedWrites
 		
 		protected def void unloadResource(URI uri) {
 		    val resource = request.resourceSet.getResource(uri, false)
@@ -64,8 +132,44 @@ import org.eclipse.xtext.generator.GeneratorContext
             }
 		}
 		
+		FingerprintingURIHandler fingerprinting
+		
 		def Result launch() {
+			if (request.skipUnchangedFiles) {
+				fingerprinting = new FingerprintingURIHandler(request.resourceSet.getURIConverter, request.state.fingerprints)
+				fingerprinting.install
+			}
+			try {
+				return internalLaunch
+			} finally {
+				fingerprinting?.uninstall
+				fingerprinting = null
+			}
+		}
+		
+		private def Result internalLaunch() {
 			val newSource2GeneratedMapping = request.state.fileMappings
+			var fingerprintHits = 0
+			var skippedFiles = 0
+			if (fingerprinting !== null) {
+				val changedFiles = newArrayList
+				for (dirty : request.dirtyFiles) {
+					val fingerprint = request.state.fingerprints.get(dirty)
+					if (fingerprint !== null) {
+						fingerprintHits++
+					}
+					if (!dirty.checkFingerprint(fingerprint)) {
+						changedFiles += dirty
+					}
+				}
+				skippedFiles = request.dirtyFiles.size - changedFiles.size
+				request.dirtyFiles = changedFiles
+			} else {
+				// the content of the dirty files is not tracked
+				for (dirty : request.dirtyFiles) {
+					request.state.fingerprints.remove(dirty)
+				}
+			}
 			val unloaded = newHashSet()
 		    for (deleted : request.deletedFiles) {
                 if (unloaded.add(deleted)) {
@@ -78,6 +182,7 @@ import org.eclipse.xtext.generator.GeneratorContext
                 }
             }
 			request.deletedFiles.forEach [ source |
+				request.state.fingerprints.remove(source)
 				request.afterValidate.afterValidate(source, newArrayList)
 				newSource2GeneratedMapping.deleteSource(source).forEach [ generated |
 					if (LOG.isInfoEnabled)
@@ -104,40 +209,250 @@ import org.eclipse.xtext.generator.GeneratorContext
 			// add deleted deltas
 			resolvedDeltas += result.resourceDeltas.filter[getNew === null]
 			// add changed and added as fully resolved
-			resolvedDeltas += result.resourceDeltas.filter[getNew !== null].map[uri]
-				.executeClustered [
-					Resource resource |
-					request.cancelIndicator.checkCanceled
-					resource.contents // fully initialize
-					EcoreUtil2.resolveLazyCrossReferences(resource, CancelIndicator.NullImpl)
-					request.cancelIndicator.checkCanceled
-					val serviceProvider = context.getResourceServiceProvider(resource.getURI)
-					val manager = serviceProvider.resourceDescriptionManager
-					val description = manager.getResourceDescription(resource);
-                    val copiedDescription = SerializableResourceDescription.createCopy(description);
-                    result.newIndex.addDescription(resource.getURI, copiedDescription)
-                    request.cancelIndicator.checkCanceled
-					if (!request.indexOnly 
-						&& resource.validate 
-						&& serviceProvider.get(IShouldGenerate).shouldGenerate(resource, CancelIndicator.NullImpl)
-					) {
+			val changedURIs = result.resourceDeltas.filter[getNew !== null].map[uri]
+			if (isGenerateInParallel) {
+				generatorExecutor = workerThreadPools.get('generation', request.generatorThreads)
+			}
+			try {
+				if (isValidateInParallel) {
+					resolvedDeltas += changedURIs.validateInParallel(result.newIndex, newSource2GeneratedMapping)
+				} else if (generatorExecutor !== null) {
+					resolvedDeltas += changedURIs.executeClusterwise [ List<Resource> resources |
+						val toGenerate = <Resource>newArrayList
+						val deltas = <IResourceDescription.Delta>newArrayList
+						for (resource : resources) {
+							val copiedDescription = resource.linkAndIndex(result.newIndex)
+							if (resource.validate && resource.shouldGenerate) {
+								toGenerate += resource
+							}
+							deltas += resource.createDelta(copiedDescription)
+						}
+						toGenerate.generateInParallel(newSource2GeneratedMapping)
+						return deltas
+					].toList
+				} else {
+					resolvedDeltas += changedURIs.executeClustered [
+						Resource resource |
+						val copiedDescription = resource.linkAndIndex(result.newIndex)
+						if (!request.indexOnly 
+							&& resource.validate 
+							&& resource.shouldGenerate
+						) {
+							request.cancelIndicator.checkCanceled
+							resource.generate(request, newSource2GeneratedMapping)
+						}
+						return resource.createDelta(copiedDescription)
+					]
+				}
+			} finally {
+				generatorExecutor = null
+			}
+			return new Result(request.state, resolvedDeltas, skippedFiles, fingerprintHits, writtenFiles, skippedWrites)
+		}
+		
+		/**
+		 * Records the fingerprint of the current content of a dirty file if {@link BuildRequest#isSkipUnchangedFiles()
+		 * unchanged files are skipped}. The content is only read here if a fingerprint has been recorded before, and it
+		 * is then handed to the build of the file. Otherwise the fingerprint is computed when the file is loaded. Files
+		 * that are only indexed are not recorded, since they still have to be validated and generated by a later build.
+		 * 
+		 * @param fingerprint the fingerprint that has been recorded by a previous build or <code>null</code>.
+		 * @return whether the file is unchanged since it has been built and does not have to be built again.
+		 * @since 2.15
+		 */
+		protected def boolean checkFingerprint(URI uri, String fingerprint) {
+			if (fingerprint === null || oldState.resourceDescriptions.getResourceDescription(uri) === null) {
+				request.state.fingerprints.remove(uri)
+				if (!request.indexOnly) {
+					fingerprinting.record(uri)
+				}
+				return false
+			}
+			val content = fingerprinting.read(uri)
+			val current = if (content !== null) ContentFingerprints.compute(content)
+			if (current !== null && current == fingerprint) {
+				return true
+			}
+			if (current !== null && !request.indexOnly) {
+				request.state.fingerprints.put(uri, current)
+			} else {
+				request.state.fingerprints.remove(uri)
+			}
+			if (content !== null) {
+				fingerprinting.provide(uri, content)
+			}
+			return false
+		}
+		
+		/**
+		 * Resolves all cross references of the resource and puts its description into the new index.
+		 * 
+		 * @return the description that was put into the index.
+		 * @since 2.15
+		 */
+		protected def IResourceDescription linkAndIndex(Resource resource, ResourceDescriptionsData newIndex) {
+			request.cancelIndicator.checkCanceled
+			resource.contents // fully initialize
+			EcoreUtil2.resolveLazyCrossReferences(resource, CancelIndicator.NullImpl)
+			request.cancelIndicator.checkCanceled
+			val manager = getResourceServiceProvider(resource.getURI).resourceDescriptionManager
+			val description = manager.getResourceDescription(resource);
+			val copiedDescription = SerializableResourceDescription.createCopy(description);
+			newIndex.addDescription(resource.getURI, copiedDescription)
+			request.cancelIndicator.checkCanceled
+			return copiedDescription
+		}
+		
+		/**
+		 * @since 2.15
+		 */
+		protected def IResourceDescription.Delta createDelta(Resource resource, IResourceDescription newDescription) {
+			val manager = getResourceServiceProvider(resource.getURI).resourceDescriptionManager
+			val old = oldState.resourceDescriptions.getResourceDescription(resource.getURI)
+			return manager.createDelta(old, newDescription)
+		}
+		
+		/**
+		 * @since 2.15
+		 */
+		protected def boolean shouldGenerate(Resource resource) {
+			val serviceProvider = getResourceServiceProvider(resource.getURI)
+			return serviceProvider.get(IShouldGenerate).shouldGenerate(resource, CancelIndicator.NullImpl)
+		}
+		
+		/**
+		 * Whether the resources of a cluster are {@link #validateInParallel validated concurrently}. This requires
+		 * a request with more than one {@link BuildRequest#getValidationThreads() validation thread}, an
+		 * {@link ISynchronizable synchronizable} resource set, since validators may load further resources, and a
+		 * builder that {@link #isParallelValidationSupported() supports parallel validation}.
+		 * 
+		 * @since 2.15
+		 */
+		protected def boolean isValidateInParallel() {
+			if (request.indexOnly || request.validationThreads <= 1 || !isParallelValidationSupported) {
+				return false
+			}
+			if (!(request.resourceSet instanceof ISynchronizable<?>)) {
+				LOG.info("Validating sequentially since the resource set is not synchronizable.")
+				return false
+			}
+			return true
+		}
+		
+		/**
+		 * Whether this builder may validate resources concurrently. Parallel validation uses
+		 * {@link #validate(Resource, CancelIndicator)} and the validation callbacks directly, thus
+		 * {@link #validate(Resource)} is not invoked. Builders that override it have to return <code>false</code>
+		 * here, so that the override is called.
+		 * 
+		 * @since 2.15
+		 */
+		protected def boolean isParallelValidationSupported() {
+			return true
+		}
+		
+		/**
+		 * Whether the {@link GeneratorDelegate#isParallelSafe() parallel safe} generators of a cluster are
+		 * {@link #generateInParallel run concurrently}. This requires a request with more than one
+		 * {@link BuildRequest#getGeneratorThreads() generator thread} and an {@link ISynchronizable synchronizable}
+		 * resource set, since generators may load further resources.
+		 * 
+		 * @since 2.15
+		 */
+		protected def boolean isGenerateInParallel() {
+			if (request.indexOnly || request.generatorThreads <= 1) {
+				return false
+			}
+			if (!(request.resourceSet instanceof ISynchronizable<?>)) {
+				LOG.info("Generating sequentially since the resource set is not synchronizable.")
+				return false
+			}
+			return true
+		}
+		
+		/**
+		 * Links and indexes the resources cluster by cluster. The resources of a cluster are validated concurrently
+		 * with {@link #validate(Resource, CancelIndicator)} by up to {@link BuildRequest#getValidationThreads()
+		 * validationThreads} workers of a shared pool once the whole cluster is linked. The validation callbacks
+		 * happen afterwards on the calling thread in the order of the resources, followed by the generation of the
+		 * valid ones.
+		 * 
+		 * @since 2.15
+		 */
+		protected def List<IResourceDescription.Delta> validateInParallel(Iterable<URI> uris,
+			ResourceDescriptionsData newIndex, Source2GeneratedMapping newMappings) {
+			val executor = workerThreadPools.get('validation', request.validationThreads)
+			return uris.executeClusterwise [ List<Resource> resources |
+				val descriptions = resources.map[resource | resource.linkAndIndex(newIndex)].toList
+				val futures = resources.map [ resource |
+					val Callable<List<Issue>> task = [
 						request.cancelIndicator.checkCanceled
-						resource.generate(request, newSource2GeneratedMapping)
+						return resource.validate(request.cancelIndicator)
+					]
+					return executor.submit(task)
+				].toList
+				val issues = <List<Issue>>newArrayList
+				try {
+					for (future : futures) {
+						issues += future.waitFor
 					}
-					val old = oldState.resourceDescriptions.getResourceDescription(resource.getURI)
-					return manager.createDelta(old, copiedDescription)
-				]
-			return new Result(request.state, resolvedDeltas)
+				} finally {
+					futures.forEach[cancel(true)]
+				}
+				val toGenerate = <Resource>newArrayList
+				val deltas = <IResourceDescription.Delta>newArrayList
+				for (i : 0 ..< resources.size) {
+					val resource = resources.get(i)
+					val resourceIssues = issues.get(i)
+					if ((resourceIssues === null || request.afterValidate.afterValidate(resource.getURI, resourceIssues))
+						&& resource.shouldGenerate
+					) {
+						if (generatorExecutor !== null) {
+							toGenerate += resource
+						} else {
+							request.cancelIndicator.checkCanceled
+							resource.generate(request, newMappings)
+						}
+					}
+					deltas += resource.createDelta(descriptions.get(i))
+				}
+				if (!toGenerate.empty) {
+					toGenerate.generateInParallel(newMappings)
+				}
+				return deltas
+			].toList
+		}
+		
+		private def <T> T waitFor(Future<T> future) {
+			try {
+				return future.get
+			} catch (ExecutionException e) {
+				throw e.cause
+			}
 		}
 		
 		def protected boolean validate(Resource resource) {
+			val validationResult = resource.validate(null)
+			if (validationResult === null) {
+				return true
+			}
+			return request.afterValidate.afterValidate(resource.getURI, validationResult)
+		}
+		
+		/**
+		 * Validates the resource. May be called concurrently for different resources if the request allows for more
+		 * than one {@link BuildRequest#getValidationThreads() validation thread}.
+		 * 
+		 * @return the issues or <code>null</code> if the language does not have a resource validator.
+		 * @since 2.15
+		 */
+		def protected List<Issue> validate(Resource resource, CancelIndicator cancelIndicator) {
 			val resourceValidator = getResourceServiceProvider(resource.getURI).getResourceValidator();
 			if (resourceValidator === null) {
-				return true
+				return null
 			}
 			LOG.info("Starting validation for input: '" + resource.getURI.lastSegment + "'");
-			val validationResult = resourceValidator.validate(resource, CheckMode.ALL, null);
-			return request.afterValidate.afterValidate(resource.getURI, validationResult)
+			return resourceValidator.validate(resource, CheckMode.ALL, cancelIndicator);
 		}
 	
 		protected def void generate(Resource resource, BuildRequest request, Source2GeneratedMapping newMappings) {
@@ -147,16 +462,116 @@ import org.eclipse.xtext.generator.GeneratorContext
 				return;
 			}
 			val previous = newMappings.deleteSource(resource.getURI)
+			val fileSystemAccess = prepareFileSystemAccess(serviceProvider, resource, request, previous, newMappings)
+			generator.generate(resource, fileSystemAccess, createGeneratorContext(request))
+			fileSystemAccess.recordWrites
+			// delete everything that was previously generated, but not this time
+			deleteStaleFiles(previous, request)
+		}
+		
+		/**
+		 * Generates the resources of a cluster. For each resource, the generator's {@link GeneratorDelegate#beforeGenerate
+		 * beforeGenerate}, {@link GeneratorDelegate#doGenerate doGenerate} and {@link GeneratorDelegate#afterGenerate
+		 * afterGenerate} are invoked in this order, like in {@link GeneratorDelegate#generate generate}. The
+		 * {@link GeneratorDelegate#isParallelSafe() parallel safe} generators run doGenerate on up to
+		 * {@link BuildRequest#getGeneratorThreads() generatorThreads} workers of a shared pool. Their afterGenerate is
+		 * invoked on the calling thread in the order of the resources once doGenerate has completed. The other
+		 * generators run completely on the calling thread. afterGenerate is invoked even if doGenerate fails or the
+		 * build is cancelled. The file mappings and the callbacks of the request are updated while holding the lock of
+		 * the mappings.
+		 * 
+		 * @since 2.15
+		 */
+		protected def void generateInParallel(List<Resource> resources, Source2GeneratedMapping newMappings) {
+			// the submitted doGenerate tasks and the completions that wait for them and invoke afterGenerate
+			val pending = new LinkedList<Pair<Future<?>, ()=>void>>
+			val stale = <Set<URI>>newArrayList
+			try {
+				for (resource : resources) {
+					request.cancelIndicator.checkCanceled
+					val serviceProvider = resource.getURI.getResourceServiceProvider
+					val generator = serviceProvider.get(GeneratorDelegate)
+					if (generator !== null) {
+						val previous = synchronized (newMappings) {
+							newMappings.deleteSource(resource.getURI)
+						}
+						val fileSystemAccess = prepareFileSystemAccess(serviceProvider, resource, request, previous, newMappings)
+						val generatorContext = createGeneratorContext(request)
+						stale += previous
+						generator.beforeGenerate(resource, fileSystemAccess, generatorContext)
+						if (generator.isParallelSafe) {
+							val started = new AtomicBoolean
+							val finished = new CountDownLatch(1)
+							val Runnable task = [
+								if (started.compareAndSet(false, true)) {
+									try {
+										generator.doGenerate(resource, fileSystemAccess, generatorContext)
+									} finally {
+										finished.countDown
+									}
+								}
+							]
+							pending += generatorExecutor.submit(task) -> [|
+								// a task that has not started yet will not run anymore, a running one is awaited
+								if (!started.compareAndSet(false, true)) {
+									finished.await
+								}
+								generator.afterGenerate(resource, fileSystemAccess, generatorContext)
+								fileSystemAccess.recordWrites
+							]
+						} else {
+							try {
+								generator.doGenerate(resource, fileSystemAccess, generatorContext)
+							} finally {
+								generator.afterGenerate(resource, fileSystemAccess, generatorContext)
+							}
+							fileSystemAccess.recordWrites
+						}
+					}
+					pending.completeGeneration(false)
+				}
+				pending.completeGeneration(true)
+			} finally {
+				pending.forEach[key.cancel(true)]
+				pending.forEach[value.apply]
+			}
+			// delete everything that was previously generated, but not this time
+			for (previous : stale) {
+				deleteStaleFiles(previous, request)
+			}
+		}
+		
+		/**
+		 * Invokes the completions of the submitted tasks in order, as long as the tasks are done. Waits for each task
+		 * if <code>wait</code> is <code>true</code>. The failure of a task is rethrown after its completion.
+		 */
+		private def void completeGeneration(LinkedList<Pair<Future<?>, ()=>void>> pending, boolean wait) {
+			while (!pending.empty && (wait || pending.peekFirst.key.isDone)) {
+				val next = pending.removeFirst
+				try {
+					next.key.waitFor
+				} finally {
+					next.value.apply
+				}
+			}
+		}
+		
+		private def URIBasedFileSystemAccess prepareFileSystemAccess(IResourceServiceProvider serviceProvider,
+			Resource resource, BuildRequest request, Set<URI> previous, Source2GeneratedMapping newMappings) {
 			val fileSystemAccess = createFileSystemAccess(serviceProvider, resource) => [
 				beforeWrite = [ uri, outputCfgName, contents |
-					newMappings.addSource2Generated(resource.getURI, uri, outputCfgName)
-					previous.remove(uri)
-					request.afterGenerateFile.apply(resource.getURI, uri)
+					synchronized (newMappings) {
+						newMappings.addSource2Generated(resource.getURI, uri, outputCfgName)
+						previous.remove(uri)
+						request.afterGenerateFile.apply(resource.getURI, uri)
+					}
 					return contents
 				]
 				beforeDelete = [ uri |
-					newMappings.deleteGenerated(uri)
-					request.afterDeleteFile.apply(uri)
+					synchronized (newMappings) {
+						newMappings.deleteGenerated(uri)
+						request.afterDeleteFile.apply(uri)
+					}
 					return true
 				]
 			]
@@ -168,10 +583,24 @@ import org.eclipse.xtext.generator.GeneratorContext
 					}
 				}
 			}
+			return fileSystemAccess
+		}
+		
+		/**
+		 * Adds the files that have been written or skipped by a file system access to the result of the build.
+		 */
+		private def void recordWrites(URIBasedFileSystemAccess fileSystemAccess) {
+			writtenFiles += fileSystemAccess.writtenFiles
+			skippedWrites += fileSystemAccess.skippedFiles
+		}
+		
+		private def GeneratorContext createGeneratorContext(BuildRequest request) {
 			val generatorContext = new GeneratorContext
 			generatorContext.cancelIndicator = request.cancelIndicator
-			generator.generate(resource, fileSystemAccess, generatorContext)
-			// delete everything that was previously generated, but not this time
+			return generatorContext
+		}
+		
+		private def void deleteStaleFiles(Set<URI> previous, BuildRequest request) {
 			previous.forEach[
 				LOG.info('Deleting stale generated file ' + it)
 				context.resourceSet.getURIConverter.delete(it, emptyMap)
@@ -194,6 +623,7 @@ import org.eclipse.xtext.generator.GeneratorContext
 				traceFileNameProvider = serviceProvider.get(TraceFileNameProvider)
 				traceRegionSerializer = serviceProvider.get(TraceRegionSerializer)
 				generateTraces = true
+				skipUnchangedWrites = request.skipUnchangedWrites
 				
 				baseDir = request.baseDir
 				currentSource = sourceFolder?.name
@@ -212,7 +642,7 @@ import org.eclipse.xtext.generator.GeneratorContext
 	
 	def Result build(BuildRequest request, (URI)=>IResourceServiceProvider languages, IResourceClusteringPolicy clusteringPolicy) {
 		val resourceSet = request.resourceSet
-		val oldState = new IndexState(request.state.resourceDescriptions.copy, request.state.fileMappings.copy)
+		val oldState = request.state.copy
 		val context = new BuildContext(languages
 									, resourceSet
 									, oldState
@@ -19,8 +19,28 @@ import org.eclipse.xtext.resource.impl.ResourceDescriptionsData
 	val ResourceDescriptionsData resourceDescriptions
 	val Source2GeneratedMapping fileMappings
 	
+	/**
+	 * The fingerprints of the contents of the built files.
+	 * 
+	 * @since 2.15
+	 */
+	val ContentFingerprints fingerprints
+	
 	new () {
 		this(new ResourceDescriptionsData(emptySet), new Source2GeneratedMapping)
 	}
 	
+	new (ResourceDescriptionsData resourceDescriptions, Source2GeneratedMapping fileMappings) {
+		this(resourceDescriptions, fileMappings, new ContentFingerprints)
+	}
+	
+	/**
+	 * Returns a copy of this state that can be modified independently.
+	 * 
+	 * @since 2.15
+	 */
+	def IndexState copy() {
+		new IndexState(resourceDescriptions.copy, fileMappings.copy, fingerprints.copy)
+	}
+	
 }
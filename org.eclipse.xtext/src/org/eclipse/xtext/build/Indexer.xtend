@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015, 2016 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2015, 2018 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -8,12 +8,18 @@
 package org.eclipse.xtext.build
 
 import com.google.common.collect.ImmutableList
+import com.google.common.collect.Lists
 import com.google.common.collect.Maps
 import com.google.inject.Inject
+import com.google.inject.Provider
 import java.util.Collection
 import java.util.HashSet
 import java.util.List
 import java.util.Map
+import java.util.Set
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Future
 import org.eclipse.emf.common.util.URI
 import org.eclipse.emf.ecore.InternalEObject
 import org.eclipse.emf.ecore.resource.Resource
@@ -28,9 +34,13 @@ import org.eclipse.xtext.resource.IReferenceDescription
 import org.eclipse.xtext.resource.IResourceDescription
 import org.eclipse.xtext.resource.IResourceDescription.Delta
 import org.eclipse.xtext.resource.IResourceDescriptions
+import org.eclipse.xtext.resource.IResourceServiceProvider
+import org.eclipse.xtext.resource.XtextResourceSet
 import org.eclipse.xtext.resource.impl.AbstractResourceDescription
 import org.eclipse.xtext.resource.impl.DefaultResourceDescriptionDelta
+import org.eclipse.xtext.resource.impl.DefaultResourceDescriptionManager
 import org.eclipse.xtext.resource.impl.ResourceDescriptionsData
+import org.eclipse.xtext.util.concurrent.WorkerThreadPools
 import org.eclipse.xtext.util.internal.Log
 import org.eclipse.xtext.service.OperationCanceledManager
 import org.eclipse.xtext.resource.persistence.SerializableEObjectDescriptionProvider
@@ -43,6 +53,8 @@ import org.eclipse.xtext.resource.persistence.SerializableEObjectDescriptionProv
 
 	@Inject CompilerPhases compilerPhases
 	@Inject extension OperationCanceledManager
+	@Inject WorkerThreadPools workerThreadPools
+	@Inject IResourceServiceProvider.Registry resourceServiceProviderRegistry
 
 	@Data static class IndexResult {
 		List<Delta> resourceDeltas
@@ -60,7 +72,7 @@ import org.eclipse.xtext.resource.persistence.SerializableEObjectDescriptionProv
 				'Creating Deltas for changes. Deleted : ' + request.deletedFiles.toSet + ', Changed : ' +
 					request.dirtyFiles.toSet + '.')
 		deltas.addAll(getDeltasForDeletedResources(request, previousIndex, context))
-		deltas.addAll(getDeltasForChangedResources(request.dirtyFiles, previousIndex, context))
+		deltas.addAll(getDeltasForChangedResources(request, request.dirtyFiles, previousIndex, context))
 		// update the index with the direct deltas
 		for (delta : deltas)
 			newIndex.register(delta)
@@ -70,18 +82,21 @@ import org.eclipse.xtext.resource.persistence.SerializableEObjectDescriptionProv
 		if (!request.externalDeltas.empty)
 			allDeltas.addAll(request.externalDeltas)
 
-		val remainingURIs = previousIndex.allResourceDescriptions.map[getURI].toSet
+		val candidates = <IResourceDescription.Manager, Set<URI>>newHashMap
+		val remainingURIs = getAffectionCandidates(candidates, allDeltas, previousIndex)
 		remainingURIs.removeAll(deltas.map[uri])
 
 		val allAffected = remainingURIs.filter [
 			val manager = getResourceServiceProvider.resourceDescriptionManager
+			if (!isAffectionCandidate(it, manager, candidates, allDeltas, previousIndex))
+				return false
 			val resourceDescription = previousIndex.getResourceDescription(it)
 			val isAffected = resourceDescription.isAffected(manager, allDeltas, allDeltas, newIndex)
 			return isAffected
 		].toList
 		if (LOG.isInfoEnabled && !allAffected.empty)
 			LOG.info('Creating Deltas for affected resources : ' + allAffected.toSet + ".")
-		deltas.addAll(getDeltasForChangedResources(allAffected, previousIndex, context))
+		deltas.addAll(getDeltasForChangedResources(request, allAffected, previousIndex, context))
 
 		return new IndexResult(deltas, newIndex)
 	}
@@ -112,6 +127,64 @@ import org.eclipse.xtext.resource.persistence.SerializableEObjectDescriptionProv
 		}
 	}
 
+	/**
+	 * Computes the deltas for the given URIs. If the request allows for more than one
+	 * {@link BuildRequest#getIndexingThreads() indexing thread}, the URIs are indexed concurrently.
+	 * 
+	 * @since 2.15
+	 */
+	protected def List<Delta> getDeltasForChangedResources(BuildRequest request, Iterable<URI> affectedUris,
+		ResourceDescriptionsData oldIndex, BuildContext context) {
+		val uris = affectedUris.toList
+		val threads = Math.min(request.indexingThreads, uris.size)
+		if (threads <= 1 || request.workerResourceSetProvider === null) {
+			return getDeltasForChangedResources(uris, oldIndex, context)
+		}
+		return getDeltasForChangedResourcesInParallel(uris, threads, request.workerResourceSetProvider, oldIndex, context)
+	}
+
+	/**
+	 * Splits the URIs into consecutive partitions that are indexed by separate workers. Each worker uses its own
+	 * resource set and clustering loader. The workers run on a shared pool. The deltas are returned in the order of
+	 * the given URIs.
+	 * 
+	 * @since 2.15
+	 */
+	protected def List<Delta> getDeltasForChangedResourcesInParallel(List<URI> uris, int threads,
+		Provider<XtextResourceSet> resourceSetProvider, ResourceDescriptionsData oldIndex, BuildContext context) {
+		val partitions = Lists.partition(uris, (uris.size + threads - 1) / threads)
+		val executor = workerThreadPools.get('indexing', threads)
+		val futures = <Future<List<Delta>>>newArrayList
+		try {
+			for (partition : partitions) {
+				val Callable<List<Delta>> task = [
+					val workerResourceSet = resourceSetProvider.get
+					try {
+						return getDeltasForChangedResources(partition, oldIndex, context.withResourceSet(workerResourceSet))
+					} finally {
+						workerResourceSet.resources.clear
+					}
+				]
+				futures += executor.submit(task)
+			}
+			val result = <Delta>newArrayList
+			for (future : futures) {
+				result += future.waitFor
+			}
+			return result
+		} finally {
+			futures.forEach[cancel(true)]
+		}
+	}
+
+	private def <T> T waitFor(Future<T> future) {
+		try {
+			return future.get
+		} catch (ExecutionException e) {
+			throw e.cause
+		}
+	}
+
 	def protected Delta addToIndex(Resource resource, boolean isPreIndexing, ResourceDescriptionsData oldIndex,
 		BuildContext context) {
 		context.cancelIndicator.checkCanceled
@@ -124,6 +197,80 @@ import org.eclipse.xtext.resource.persistence.SerializableEObjectDescriptionProv
 		return delta
 	}
 
+	/**
+	 * Whether the resource with the given URI has to be checked with {@link #isAffected}. The candidates
+	 * of a {@link DefaultResourceDescriptionManager} are looked up in the reverse dependency index of the
+	 * previous index if the manager {@link DefaultResourceDescriptionManager#getAffectedCandidates supports
+	 * that}, all other resources are always checked.
+	 * 
+	 * @since 2.15
+	 */
+	def protected boolean isAffectionCandidate(URI uri, IResourceDescription.Manager manager,
+		Map<IResourceDescription.Manager, Set<URI>> candidates, Collection<Delta> allDeltas,
+		ResourceDescriptionsData previousIndex) {
+		val managerCandidates = manager.getCandidates(candidates, allDeltas, previousIndex)
+		return managerCandidates === null || managerCandidates.contains(uri)
+	}
+
+	/**
+	 * Returns the URIs of the resources in the previous index that have to be checked with {@link #isAffected}. If the
+	 * managers of all {@link #getRegisteredManagers() registered languages} look up their candidates in the reverse
+	 * dependency index, these are only the looked up candidates. Otherwise all resources of the previous index are
+	 * checked. The returned set may be modified.
+	 * 
+	 * @since 2.15
+	 */
+	def protected Set<URI> getAffectionCandidates(Map<IResourceDescription.Manager, Set<URI>> candidates,
+		Collection<Delta> allDeltas, ResourceDescriptionsData previousIndex) {
+		val managers = registeredManagers
+		if (managers !== null) {
+			val result = <URI>newHashSet
+			for (manager : managers) {
+				val managerCandidates = manager.getCandidates(candidates, allDeltas, previousIndex)
+				if (managerCandidates === null)
+					return new HashSet(previousIndex.allURIs)
+				result += managerCandidates
+			}
+			return result
+		}
+		return new HashSet(previousIndex.allURIs)
+	}
+
+	/**
+	 * Returns the resource description managers of the languages in the {@link IResourceServiceProvider.Registry}, or
+	 * <code>null</code> if they cannot be determined without a concrete URI. The resources of languages that are not
+	 * registered are only checked if they are candidates of a registered language.
+	 * 
+	 * @since 2.15
+	 */
+	def protected Set<IResourceDescription.Manager> getRegisteredManagers() {
+		val result = <IResourceDescription.Manager>newHashSet
+		for (registered : resourceServiceProviderRegistry.extensionToFactoryMap.values
+			+ resourceServiceProviderRegistry.protocolToFactoryMap.values
+			+ resourceServiceProviderRegistry.contentTypeToFactoryMap.values) {
+			if (!(registered instanceof IResourceServiceProvider))
+				return null
+			result += (registered as IResourceServiceProvider).resourceDescriptionManager
+		}
+		if (result.empty)
+			return null
+		return result
+	}
+
+	/**
+	 * The candidates that the given manager looks up in the reverse dependency index, or <code>null</code> if all
+	 * resources have to be checked.
+	 */
+	def private Set<URI> getCandidates(IResourceDescription.Manager manager,
+		Map<IResourceDescription.Manager, Set<URI>> candidates, Collection<Delta> allDeltas,
+		ResourceDescriptionsData previousIndex) {
+		if (!(manager instanceof DefaultResourceDescriptionManager) || manager instanceof IResourceDescription.Manager.AllChangeAware)
+			return null
+		if (!candidates.containsKey(manager))
+			candidates.put(manager, (manager as DefaultResourceDescriptionManager).getAffectedCandidates(allDeltas, previousIndex))
+		return candidates.get(manager)
+	}
+
 	def protected boolean isAffected(IResourceDescription affectionCandidate, IResourceDescription.Manager manager,
 		Collection<IResourceDescription.Delta> newDeltas, Collection<IResourceDescription.Delta> allDeltas,
 		IResourceDescriptions resourceDescriptions) {
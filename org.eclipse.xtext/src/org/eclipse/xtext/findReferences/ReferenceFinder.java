@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2016 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2011, 2018 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -9,9 +9,22 @@ package org.eclipse.xtext.findReferences;
 
 import static com.google.common.collect.Iterables.*;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.emf.common.util.URI;
@@ -28,11 +41,16 @@ import org.eclipse.xtext.resource.IResourceDescription;
 import org.eclipse.xtext.resource.IResourceDescriptions;
 import org.eclipse.xtext.resource.IResourceServiceProvider;
 import org.eclipse.xtext.util.concurrent.IUnitOfWork;
+import org.eclipse.xtext.util.concurrent.WorkerThreadPools;
+import org.eclipse.xtext.xbase.lib.Exceptions;
 
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import com.google.inject.Singleton;
+import com.google.inject.name.Named;
 
 /**
  * @author Sebastian Zarnekow - Initial contribution and API
@@ -45,6 +63,23 @@ public class ReferenceFinder implements IReferenceFinder {
 	
 	protected static final int MONITOR_CHUNK_SIZE = 100;
 	
+	/**
+	 * The number of threads that search the candidate resources. If it is not bound, the candidates are searched
+	 * sequentially on the calling thread.
+	 * 
+	 * @since 2.15
+	 */
+	public static final String PARALLELISM = "org.eclipse.xtext.findReferences.ReferenceFinder.parallelism";
+	
+	@Inject(optional = true)
+	@Named(PARALLELISM)
+	private int parallelism = 1;
+	
+	private Provider<? extends ResourceSet> workerResourceSetProvider;
+	
+	@Inject
+	private WorkerThreadPools workerThreadPools;
+	
 	@Inject
 	public ReferenceFinder() {
 		super();
@@ -58,15 +93,90 @@ public class ReferenceFinder implements IReferenceFinder {
 		return serviceProviderRegistry;
 	}
 	
+	/**
+	 * @since 2.15
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+	
+	/**
+	 * Sets the number of threads that search the candidate resources in
+	 * {@link #findReferences(TargetURIs, Set, IResourceAccess, IResourceDescriptions, Acceptor, IProgressMonitor)} and
+	 * {@link #findAllReferences(TargetURIs, IResourceAccess, IResourceDescriptions, Acceptor, IProgressMonitor)}. With
+	 * more than one thread, the acceptor is called from the worker threads, one match at a time, as soon as a match is
+	 * found. The order of the matches is not defined.
+	 * 
+	 * @since 2.15
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+	
+	/**
+	 * Returns the shared pools that run the parallel searches. Instances that have not been injected create their own.
+	 * 
+	 * @since 2.15
+	 */
+	protected synchronized WorkerThreadPools getWorkerThreadPools() {
+		if (workerThreadPools == null) {
+			workerThreadPools = new WorkerThreadPools();
+		}
+		return workerThreadPools;
+	}
+	
+	/**
+	 * @since 2.15
+	 */
+	public Provider<? extends ResourceSet> getWorkerResourceSetProvider() {
+		return workerResourceSetProvider;
+	}
+	
+	/**
+	 * Sets the provider of the resource sets that the worker threads of a parallel search load resources into. Each
+	 * worker uses its own resource set, so local references are searched concurrently. Such a resource set only
+	 * sees the persisted state of the indexed resources. Candidates that are not indexed are still searched with the
+	 * given {@link IResourceAccess} on the calling thread.
+	 * <p>
+	 * If no provider is set, the workers share the given {@link IResourceAccess} and use it one at a time.
+	 * 
+	 * @since 2.15
+	 */
+	public void setWorkerResourceSetProvider(Provider<? extends ResourceSet> workerResourceSetProvider) {
+		this.workerResourceSetProvider = workerResourceSetProvider;
+	}
+	
 	@Override
 	public void findReferences(
-			TargetURIs targetURIs,
+			final TargetURIs targetURIs,
 			Set<URI> candidates,
 			IResourceAccess resourceAccess,
-			IResourceDescriptions descriptions,
+			final IResourceDescriptions descriptions,
 			Acceptor acceptor,
 			IProgressMonitor monitor) {
 		if (!targetURIs.isEmpty() && !candidates.isEmpty()) {
+			candidates = filterCandidates(targetURIs, candidates, descriptions);
+			if (isParallel(candidates.size())) {
+				List<URI> workerCandidates = new ArrayList<URI>(candidates.size());
+				List<URI> localCandidates = new ArrayList<URI>();
+				for (URI candidate : candidates) {
+					if (workerResourceSetProvider != null && descriptions.getResourceDescription(candidate) == null) {
+						localCandidates.add(candidate);
+					} else {
+						workerCandidates.add(candidate);
+					}
+				}
+				findReferencesInParallel(workerCandidates, localCandidates, new CandidateSearch() {
+					@Override
+					public void search(URI candidate, IResourceAccess resourceAccess, Acceptor acceptor,
+							IProgressMonitor monitor) {
+						IReferenceFinder languageSpecific = getLanguageSpecificReferenceFinder(candidate);
+						doFindReferencesWith(languageSpecific, targetURIs, candidate, resourceAccess, descriptions,
+								acceptor, monitor);
+					}
+				}, resourceAccess, acceptor, monitor);
+				return;
+			}
 			SubMonitor subMonitor = SubMonitor.convert(monitor, targetURIs.size() / MONITOR_CHUNK_SIZE + 1);
 			IProgressMonitor useMe = subMonitor.newChild(1);
 			int i = 0;
@@ -167,10 +277,31 @@ public class ReferenceFinder implements IReferenceFinder {
 	}
 	
 	@Override
-	public void findAllReferences(TargetURIs targetURIs, IResourceAccess resourceAccess,
-			IResourceDescriptions indexData, Acceptor acceptor, IProgressMonitor monitor) {
+	public void findAllReferences(final TargetURIs targetURIs, IResourceAccess resourceAccess,
+			final IResourceDescriptions indexData, Acceptor acceptor, IProgressMonitor monitor) {
 		if (!targetURIs.isEmpty()) {
-			Iterable<IResourceDescription> allResourceDescriptions = indexData.getAllResourceDescriptions();
+			Iterable<IResourceDescription> allResourceDescriptions = getCandidateDescriptions(targetURIs, indexData);
+			if (parallelism > 1) {
+				List<URI> candidates = new ArrayList<URI>();
+				for (IResourceDescription resourceDescription : allResourceDescriptions) {
+					candidates.add(resourceDescription.getURI());
+				}
+				if (isParallel(candidates.size())) {
+					findReferencesInParallel(candidates, new ArrayList<URI>(), new CandidateSearch() {
+						@Override
+						public void search(URI candidate, IResourceAccess resourceAccess, Acceptor acceptor,
+								IProgressMonitor monitor) {
+							IResourceDescription resourceDescription = indexData.getResourceDescription(candidate);
+							if (resourceDescription != null) {
+								IReferenceFinder languageSpecific = getLanguageSpecificReferenceFinder(candidate);
+								languageSpecific.findReferences(targetURIs, resourceDescription, resourceAccess, acceptor,
+										monitor);
+							}
+						}
+					}, resourceAccess, acceptor, monitor);
+					return;
+				}
+			}
 			SubMonitor subMonitor = SubMonitor.convert(monitor, size(allResourceDescriptions) / MONITOR_CHUNK_SIZE + 1);
 			IProgressMonitor useMe = subMonitor.newChild(1);
 			int i = 0;
@@ -187,6 +318,240 @@ public class ReferenceFinder implements IReferenceFinder {
 		}
 	}
 
+	/**
+	 * Removes the candidates that cannot contain a reference to the target URIs. If the index is an
+	 * {@link IResourceDescriptions.IReferenceIndex}, only the resources that contain a target, the resources that
+	 * refer to one of the targets and the resources that are not indexed are kept.
+	 * <p>
+	 * Subclasses should return the given candidates if their language specific reference finders find references
+	 * that are not part of the {@link IResourceDescription#getReferenceDescriptions() reference descriptions}.
+	 * 
+	 * @since 2.15
+	 */
+	protected Set<URI> filterCandidates(TargetURIs targetURIs, Set<URI> candidates, IResourceDescriptions descriptions) {
+		if (!(descriptions instanceof IResourceDescriptions.IReferenceIndex)) {
+			return candidates;
+		}
+		IResourceDescriptions.IReferenceIndex referenceIndex = (IResourceDescriptions.IReferenceIndex) descriptions;
+		Set<URI> referencing = new LinkedHashSet<URI>();
+		for (URI targetURI : targetURIs) {
+			referencing.addAll(referenceIndex.getResourcesReferencingEObject(targetURI));
+		}
+		Collection<URI> targetResourceURIs = targetURIs.getTargetResourceURIs();
+		Set<URI> result = new LinkedHashSet<URI>();
+		for (URI candidate : candidates) {
+			if (referencing.contains(candidate) || targetResourceURIs.contains(candidate)
+					|| descriptions.getResourceDescription(candidate) == null) {
+				result.add(candidate);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the descriptions that
+	 * {@link #findAllReferences(TargetURIs, IResourceAccess, IResourceDescriptions, Acceptor, IProgressMonitor)}
+	 * searches. If the index is an {@link IResourceDescriptions.IReferenceIndex}, these are the resources that contain
+	 * a target, since they may have local references, and the resources that refer to one of the targets. Otherwise,
+	 * all descriptions of the index are searched.
+	 * <p>
+	 * Subclasses should return all descriptions if their language specific reference finders find references that
+	 * are not part of the {@link IResourceDescription#getReferenceDescriptions() reference descriptions}.
+	 * 
+	 * @since 2.15
+	 */
+	protected Iterable<IResourceDescription> getCandidateDescriptions(TargetURIs targetURIs,
+			IResourceDescriptions indexData) {
+		if (!(indexData instanceof IResourceDescriptions.IReferenceIndex)) {
+			return indexData.getAllResourceDescriptions();
+		}
+		IResourceDescriptions.IReferenceIndex referenceIndex = (IResourceDescriptions.IReferenceIndex) indexData;
+		Set<URI> candidates = new LinkedHashSet<URI>(targetURIs.getTargetResourceURIs());
+		for (URI targetURI : targetURIs) {
+			candidates.addAll(referenceIndex.getResourcesReferencingEObject(targetURI));
+		}
+		List<IResourceDescription> result = new ArrayList<IResourceDescription>(candidates.size());
+		for (URI candidate : candidates) {
+			IResourceDescription resourceDescription = indexData.getResourceDescription(candidate);
+			if (resourceDescription != null) {
+				result.add(resourceDescription);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Searches a single candidate resource.
+	 * 
+	 * @since 2.15
+	 */
+	protected interface CandidateSearch {
+		void search(URI candidate, IResourceAccess resourceAccess, Acceptor acceptor, IProgressMonitor monitor);
+	}
+
+	/**
+	 * @since 2.15
+	 */
+	protected boolean isParallel(int candidateCount) {
+		return parallelism > 1 && candidateCount > 1;
+	}
+
+	/**
+	 * Partitions the worker candidates into chunks that are searched on up to {@link #getParallelism()} threads.
+	 * Meanwhile, the local candidates are searched on the calling thread with the given resource access. Matches are
+	 * passed to the acceptor as they are found. The progress is reported and the monitor is checked for cancellation
+	 * on the calling thread. If a search fails or is canceled, the remaining chunks are skipped and the exception is
+	 * rethrown.
+	 * 
+	 * @since 2.15
+	 */
+	protected void findReferencesInParallel(List<URI> workerCandidates, List<URI> localCandidates,
+			final CandidateSearch search, IResourceAccess resourceAccess, Acceptor acceptor, IProgressMonitor monitor) {
+		SubMonitor subMonitor = SubMonitor.convert(monitor, workerCandidates.size() + localCandidates.size());
+		final AtomicBoolean canceled = new AtomicBoolean();
+		final IProgressMonitor workerMonitor = new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return canceled.get();
+			}
+		};
+		final Acceptor synchronizedAcceptor = new SynchronizedAcceptor(acceptor);
+		final IResourceAccess sharedResourceAccess = resourceAccess != null && workerResourceSetProvider == null
+				? new SynchronizedResourceAccess(resourceAccess) : null;
+		int chunkSize = Math.max(1, Math.min(MONITOR_CHUNK_SIZE, workerCandidates.size() / (parallelism * 4)));
+		List<List<URI>> chunks = Lists.partition(workerCandidates, chunkSize);
+		ExecutorService executor = getWorkerThreadPools().get("references", Math.max(1, parallelism));
+		List<Future<Integer>> futures = new ArrayList<Future<Integer>>(chunks.size());
+		try {
+			CompletionService<Integer> completionService = new ExecutorCompletionService<Integer>(executor);
+			for (final List<URI> chunk : chunks) {
+				final IResourceAccess workerResourceAccess = sharedResourceAccess != null || resourceAccess == null
+						? sharedResourceAccess : new WorkerResourceAccess(workerResourceSetProvider);
+				futures.add(completionService.submit(new Callable<Integer>() {
+					@Override
+					public Integer call() throws Exception {
+						for (URI candidate : chunk) {
+							if (canceled.get())
+								throw new OperationCanceledException();
+							search.search(candidate, workerResourceAccess, synchronizedAcceptor, workerMonitor);
+						}
+						return chunk.size();
+					}
+				}));
+			}
+			for (URI candidate : localCandidates) {
+				checkCanceled(subMonitor, canceled);
+				search.search(candidate, resourceAccess, synchronizedAcceptor, subMonitor.newChild(1));
+			}
+			int pending = chunks.size();
+			while (pending > 0) {
+				checkCanceled(subMonitor, canceled);
+				Future<Integer> done = completionService.poll(50, TimeUnit.MILLISECONDS);
+				if (done != null) {
+					subMonitor.worked(done.get());
+					pending--;
+				}
+			}
+		} catch (ExecutionException e) {
+			canceled.set(true);
+			throw Exceptions.sneakyThrow(e.getCause());
+		} catch (InterruptedException e) {
+			canceled.set(true);
+			Thread.currentThread().interrupt();
+			throw new OperationCanceledException();
+		} catch (RuntimeException | Error e) {
+			canceled.set(true);
+			throw e;
+		} finally {
+			for (Future<Integer> future : futures) {
+				future.cancel(true);
+			}
+		}
+	}
+
+	private void checkCanceled(SubMonitor monitor, AtomicBoolean canceled) {
+		if (monitor.isCanceled()) {
+			canceled.set(true);
+			throw new OperationCanceledException();
+		}
+	}
+
+	/**
+	 * Passes the matches of concurrent searches to the delegate one at a time.
+	 * 
+	 * @since 2.15
+	 */
+	protected static class SynchronizedAcceptor implements Acceptor {
+
+		private final Acceptor delegate;
+
+		public SynchronizedAcceptor(Acceptor delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public synchronized void accept(EObject source, URI sourceURI, EReference eReference, int index,
+				EObject targetOrProxy, URI targetURI) {
+			delegate.accept(source, sourceURI, eReference, index, targetOrProxy, targetURI);
+		}
+
+		@Override
+		public synchronized void accept(IReferenceDescription description) {
+			delegate.accept(description);
+		}
+	}
+
+	/**
+	 * Lets concurrent searches use the same resource access one at a time.
+	 * 
+	 * @since 2.15
+	 */
+	protected static class SynchronizedResourceAccess implements IResourceAccess {
+
+		private final IResourceAccess delegate;
+
+		public SynchronizedResourceAccess(IResourceAccess delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public synchronized <R> R readOnly(URI targetURI, IUnitOfWork<R, ResourceSet> work) {
+			return delegate.readOnly(targetURI, work);
+		}
+	}
+
+	/**
+	 * Loads the resources for a single chunk of candidates into its own resource set. The resource set is cleared after
+	 * each unit of work, so it does not grow with the number of searched resources.
+	 * 
+	 * @since 2.15
+	 */
+	protected static class WorkerResourceAccess implements IResourceAccess {
+
+		private final Provider<? extends ResourceSet> resourceSetProvider;
+
+		private ResourceSet resourceSet;
+
+		public WorkerResourceAccess(Provider<? extends ResourceSet> resourceSetProvider) {
+			this.resourceSetProvider = resourceSetProvider;
+		}
+
+		@Override
+		public <R> R readOnly(URI targetURI, IUnitOfWork<R, ResourceSet> work) {
+			if (resourceSet == null) {
+				resourceSet = resourceSetProvider.get();
+			}
+			try {
+				resourceSet.getResource(targetURI.trimFragment(), true);
+				return work.exec(resourceSet);
+			} catch (Exception e) {
+				throw Exceptions.sneakyThrow(e);
+			} finally {
+				resourceSet.getResources().clear();
+			}
+		}
+	}
+
 	protected void findLocalReferencesFromElement(
 			Predicate<URI> targetURIs, 
 			EObject sourceCandidate,
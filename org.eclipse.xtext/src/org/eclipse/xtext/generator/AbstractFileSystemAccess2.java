@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2013, 2018 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -87,4 +87,29 @@ public abstract class AbstractFileSystemAccess2 extends AbstractFileSystemAccess
 		}
 	}
 
+	/**
+	 * Compares the given stream with the given contents chunk by chunk and stops at the first difference. The stream
+	 * is not closed.
+	 * 
+	 * @return <code>true</code> if the stream provides exactly the given contents.
+	 * @since 2.15
+	 */
+	protected boolean contentEquals(InputStream existing, byte[] contents) throws IOException {
+		byte[] buffer = new byte[8192];
+		int offset = 0;
+		int read;
+		while ((read = existing.read(buffer)) != -1) {
+			if (offset + read > contents.length) {
+				return false;
+			}
+			for (int i = 0; i < read; i++) {
+				if (buffer[i] != contents[offset + i]) {
+					return false;
+				}
+			}
+			offset += read;
+		}
+		return offset == contents.length;
+	}
+
 }
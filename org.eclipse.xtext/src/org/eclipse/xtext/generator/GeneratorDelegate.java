@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2015, 2018 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -27,6 +27,18 @@ public class GeneratorDelegate implements IGenerator, IGenerator2 {
 	public IGenerator getLegacyGenerator() {
 		return legacyGenerator;
 	}
+
+	/**
+	 * Returns <code>true</code> if {@link #doGenerate(Resource, IFileSystemAccess2, IGeneratorContext)} may be
+	 * executed concurrently for different resources. This holds for {@link IGenerator2} implementations unless they
+	 * are marked as {@link ISequentialGenerator sequential}. Legacy {@link IGenerator generators} are never executed
+	 * concurrently.
+	 * 
+	 * @since 2.15
+	 */
+	public boolean isParallelSafe() {
+		return generator != null && !(generator instanceof ISequentialGenerator);
+	}
 	
 	public void generate(Resource input, IFileSystemAccess2 fsa, IGeneratorContext context) {
 		try {
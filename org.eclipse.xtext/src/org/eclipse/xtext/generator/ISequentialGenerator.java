@@ -0,0 +1,22 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.generator;
+
+import org.eclipse.emf.ecore.resource.Resource;
+
+/**
+ * Marks an {@link IGenerator2} whose {@link IGenerator2#doGenerate(Resource, IFileSystemAccess2, IGeneratorContext)
+ * doGenerate} must not be executed concurrently for different resources, e.g. because it keeps state between the
+ * invocations. Such generators are always invoked sequentially, even if the caller parallelizes the generation of
+ * other languages.
+ * 
+ * @since 2.15
+ */
+public interface ISequentialGenerator {
+
+}
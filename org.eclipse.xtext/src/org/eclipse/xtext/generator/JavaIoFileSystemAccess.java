@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2011, 2018 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -9,6 +9,7 @@ package org.eclipse.xtext.generator;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -16,8 +17,8 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.xtext.generator.trace.AbstractTraceRegion;
@@ -66,6 +67,12 @@ public class JavaIoFileSystemAccess extends AbstractFileSystemAccess2 {
 
 	private boolean writeTrace = true;
 
+	private boolean skipUnchangedWrites = false;
+
+	private final AtomicInteger writtenFiles = new AtomicInteger();
+
+	private final AtomicInteger skippedFiles = new AtomicInteger();
+
 	public JavaIoFileSystemAccess() {
 	}
 
@@ -102,18 +109,12 @@ public class JavaIoFileSystemAccess extends AbstractFileSystemAccess2 {
 			return;
 		}
 		try {
-			createFolder(file.getParentFile());
 			String encoding = getEncoding(getURI(fileName, outputConfigName));
-			OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream(file), encoding);
-			try {
-				writer.append(postProcess(fileName, outputConfigName, contents, encoding));
-				if(callBack != null) 
-					callBack.fileAdded(file);
-				if (writeTrace)
-					generateTrace(fileName, outputConfigName, contents);
-			} finally {
-				writer.close();
-			}
+			writeFile(file, postProcess(fileName, outputConfigName, contents, encoding).toString().getBytes(encoding));
+			if(callBack != null) 
+				callBack.fileAdded(file);
+			if (writeTrace)
+				generateTrace(fileName, outputConfigName, contents);
 		} catch (IOException e) {
 			throw new RuntimeIOException(e);
 		}
@@ -122,21 +123,17 @@ public class JavaIoFileSystemAccess extends AbstractFileSystemAccess2 {
 	protected void generateTrace(String generatedFile, String outputConfigName, CharSequence contents) {
 		try {
 			if (contents instanceof ITraceRegionProvider) {
-				OutputStream out = null;
 				try {
 					AbstractTraceRegion traceRegion = ((ITraceRegionProvider) contents).getTraceRegion();
 					String traceFileName = traceFileNameProvider.getTraceFromJava(generatedFile);
 					File traceFile = getFile(traceFileName, outputConfigName);
-					out = new BufferedOutputStream(new FileOutputStream(traceFile));
+					ByteArrayOutputStream out = new ByteArrayOutputStream();
 					traceSerializer.writeTraceRegionTo(traceRegion, out);
+					writeFile(traceFile, out.toByteArray());
 					if(callBack != null) 
 						callBack.fileAdded(traceFile);
 				} catch (TraceNotFoundException e) {
 					// ok
-				}finally {
-					if (out != null) {
-						out.close();
-					}
 				}
 			}
 		} catch (FileNotFoundException e) {
@@ -160,6 +157,78 @@ public class JavaIoFileSystemAccess extends AbstractFileSystemAccess2 {
 		this.writeTrace = writeTrace;
 	}
 
+	/**
+	 * If set to <code>true</code>, files whose current contents are identical to the generated contents are not
+	 * written again, so their time stamps stay untouched. The {@link IFileCallback callback} is notified anyway.
+	 * Defaults to <code>false</code>.
+	 * 
+	 * @since 2.15
+	 */
+	public void setSkipUnchangedWrites(boolean skipUnchangedWrites) {
+		this.skipUnchangedWrites = skipUnchangedWrites;
+	}
+
+	/**
+	 * @since 2.15
+	 */
+	public boolean isSkipUnchangedWrites() {
+		return skipUnchangedWrites;
+	}
+
+	/**
+	 * Returns the number of files that have been written by this file system access, including trace files.
+	 * 
+	 * @since 2.15
+	 */
+	public int getWrittenFiles() {
+		return writtenFiles.get();
+	}
+
+	/**
+	 * Returns the number of files that have not been written because their contents were unchanged.
+	 * 
+	 * @since 2.15
+	 */
+	public int getSkippedFiles() {
+		return skippedFiles.get();
+	}
+
+	/**
+	 * Writes the contents to the file at once, unless {@link #isSkipUnchangedWrites() unchanged writes are skipped}
+	 * and the file already has these contents.
+	 * 
+	 * @since 2.15
+	 */
+	protected void writeFile(File file, byte[] contents) throws IOException {
+		if (skipUnchangedWrites && hasContents(file, contents)) {
+			skippedFiles.incrementAndGet();
+			return;
+		}
+		createFolder(file.getParentFile());
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write(contents);
+		} finally {
+			out.close();
+		}
+		writtenFiles.incrementAndGet();
+	}
+
+	/**
+	 * @since 2.15
+	 */
+	protected boolean hasContents(File file, byte[] contents) throws IOException {
+		if (!file.isFile() || file.length() != contents.length) {
+			return false;
+		}
+		InputStream in = new FileInputStream(file);
+		try {
+			return contentEquals(in, contents);
+		} finally {
+			in.close();
+		}
+	}
+
 	/**
 	 * @since 2.3
 	 */
@@ -217,6 +286,16 @@ public class JavaIoFileSystemAccess extends AbstractFileSystemAccess2 {
 	      return;
 		}
 		try {
+			if (skipUnchangedWrites) {
+				try {
+					writeFile(file, ByteStreams.toByteArray(content));
+				} finally {
+					content.close();
+				}
+				if(callBack != null) 
+					callBack.fileAdded(file);
+				return;
+			}
 			createFolder(file.getParentFile());
 			OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
 			try {
@@ -224,6 +303,7 @@ public class JavaIoFileSystemAccess extends AbstractFileSystemAccess2 {
 			} finally {
 				try {
 					out.close();
+					writtenFiles.incrementAndGet();
 					if(callBack != null) 
 						callBack.fileAdded(file);
 				} finally {
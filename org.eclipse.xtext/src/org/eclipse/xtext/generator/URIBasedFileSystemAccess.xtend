@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015, 2017 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2015, 2018 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,6 +15,7 @@ import java.io.File
 import java.io.FileNotFoundException
 import java.io.InputStream
 import java.io.InputStreamReader
+import java.util.concurrent.atomic.AtomicInteger
 import org.eclipse.emf.common.util.URI
 import org.eclipse.emf.ecore.resource.URIConverter
 import org.eclipse.xtend.lib.annotations.Accessors
@@ -56,6 +57,33 @@ class URIBasedFileSystemAccess extends AbstractFileSystemAccess2 {
 	@Accessors BeforeDelete beforeDelete = [true]
 	@Accessors BeforeWrite beforeWrite = [$2]
 	@Accessors BeforeRead beforeRead = [$1]
+	/**
+	 * If set to <code>true</code>, files whose current contents are identical to the generated contents are not
+	 * written again, so their time stamps stay untouched. The {@link BeforeWrite} callback is invoked anyway.
+	 * 
+	 * @since 2.15
+	 */
+	@Accessors boolean skipUnchangedWrites = false
+	val writtenFiles = new AtomicInteger
+	val skippedFiles = new AtomicInteger
+	
+	/**
+	 * The number of files that have been written, including trace files.
+	 * 
+	 * @since 2.15
+	 */
+	def int getWrittenFiles() {
+		writtenFiles.get
+	}
+	
+	/**
+	 * The number of files that have not been written because their contents were unchanged.
+	 * 
+	 * @since 2.15
+	 */
+	def int getSkippedFiles() {
+		skippedFiles.get
+	}
 	
 	override void setPostProcessor(IFilePostProcessor filePostProcessor) {
 		super.postProcessor = filePostProcessor
@@ -106,12 +134,42 @@ class URIBasedFileSystemAccess extends AbstractFileSystemAccess2 {
 	
 	override generateFile(String fileName, String outputCfgName, InputStream content) throws RuntimeIOException {
 		val uri = getURI(fileName, outputCfgName)
-		val out = converter.createOutputStream(uri)
+		if (skipUnchangedWrites) {
+			val processedContent = ByteStreams.toByteArray(beforeWrite.beforeWrite(uri, outputCfgName, content))
+			if (hasContents(uri, processedContent)) {
+				skippedFiles.incrementAndGet
+				return;
+			}
+			val out = converter.createOutputStream(uri)
+			try {
+				out.write(processedContent)
+			} finally {
+				out.close
+			}
+		} else {
+			val out = converter.createOutputStream(uri)
+			try {
+				val processedContent = beforeWrite.beforeWrite(uri, outputCfgName, content)
+				ByteStreams.copy(processedContent, out);
+			} finally {
+				out.close
+			}
+		}
+		writtenFiles.incrementAndGet
+	}
+	
+	/**
+	 * @since 2.15
+	 */
+	protected def boolean hasContents(URI uri, byte[] contents) {
+		if (!converter.exists(uri, emptyMap)) {
+			return false
+		}
+		val in = converter.createInputStream(uri)
 		try {
-			val processedContent = beforeWrite.beforeWrite(uri, outputCfgName, content)
-			ByteStreams.copy(processedContent, out);
+			return contentEquals(in, contents)
 		} finally {
-			out.close
+			in.close
 		}
 	}
 	
@@ -93,10 +93,10 @@ class SyntheticLinkingLeafNode extends LeafNode {
 		this.text = text;
 		this.semanticElement = semanticElement;
 
-		basicSetTotalOffset(offset);
 		basicSetTotalLength(length);
 		basicSetGrammarElement(grammarElement);
 		basicSetParent(parent);
+		basicSetTotalOffset(offset - getAncestorOffsetShift());
 	}
 	
 	@Override
@@ -11,6 +11,7 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 
 import org.eclipse.emf.common.util.CommonUtil;
 import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl.EObjectInputStream;
@@ -19,10 +20,13 @@ import org.eclipse.xtext.util.Strings;
 
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 
 /**
  * A datatype for dealing with qualified names.
  * Instances are usually provided by a {@link IQualifiedNameProvider}.
+ * Names that are kept for a long time, e.g. the names in an index, should be {@link #intern() interned}.
  *
  * @author Jan Koehnlein - Initial contribution and API
  * @author Sebastian Zarnekow
@@ -35,8 +39,17 @@ public class QualifiedName implements Comparable<QualifiedName> {
 
 	private QualifiedName lowerCase;
 
+	private final boolean interned;
+
 	private static final boolean USE_INTERNING = Boolean.getBoolean("xtext.qn.interning");
 
+	private static final Interner<QualifiedName> NAMES = Interners.newWeakInterner();
+
+	// lower case names are equal to the names with the same segments, so they have a table of their own
+	private static final Interner<QualifiedName> LOWER_CASE_NAMES = Interners.newWeakInterner();
+
+	private static final Interner<String> SEGMENTS = Interners.newWeakInterner();
+
 	public static final QualifiedName EMPTY = new QualifiedName() {
 		@Override
 		public QualifiedName append(QualifiedName relativeQualifiedName) {
@@ -130,9 +143,9 @@ public class QualifiedName implements Comparable<QualifiedName> {
 
 		String[] segments = readSegmentArray(eObjectInputStream, segmentCount, firstSegment);
 		if (lowerCase) {
-			return new QualifiedNameLowerCase(segments);
+			return new QualifiedNameLowerCase(segments).intern();
 		} else {
-			return new QualifiedName(segments);
+			return new QualifiedName(segments).intern();
 		}
 	}
 
@@ -222,11 +235,44 @@ public class QualifiedName implements Comparable<QualifiedName> {
 	}
 
 	protected QualifiedName(String... segments) {
+		this(segments, false);
+	}
+
+	private QualifiedName(String[] segments, boolean interned) {
 		if (segments == null || segments.length == 0)
 			this.segments = Strings.EMPTY_ARRAY;
 		else
 			this.segments = segments;
 		hash = Arrays.hashCode(this.segments);
+		this.interned = interned;
+	}
+
+	/**
+	 * Returns the canonical instance of this name. Interned names that are equal are identical, so they are compared
+	 * by identity. They share their segment strings and their {@link #toLowerCase() lower case} representation, which
+	 * is interned as well. Interned names are weakly referenced by the table of canonical instances, so they are
+	 * garbage collected once they are no longer used.
+	 * 
+	 * @since 2.15
+	 */
+	public QualifiedName intern() {
+		if (interned)
+			return this;
+		if (segments.length == 0)
+			return EMPTY;
+		return NAMES.intern(new QualifiedName(internSegments(segments), true));
+	}
+
+	/**
+	 * Returns a copy of the given segments with canonical strings. The given array may be shared with the creator of
+	 * a name, so it is not modified.
+	 */
+	private static String[] internSegments(String[] segments) {
+		String[] result = new String[segments.length];
+		for (int i = 0; i < segments.length; i++) {
+			result[i] = SEGMENTS.intern(segments[i]);
+		}
+		return result;
 	}
 
 	public boolean isEmpty() {
@@ -317,21 +363,72 @@ public class QualifiedName implements Comparable<QualifiedName> {
 		}
 		if (isLowerCase) {
 			lowerCase = this;
+		} else if (interned) {
+			lowerCase = LOWER_CASE_NAMES.intern(new QualifiedNameLowerCase(internSegments(newSegments), true));
 		} else {
 			lowerCase = new QualifiedNameLowerCase(newSegments);
 		}
 		return lowerCase;
 	}
 
+	/**
+	 * Returns the hash code of the {@link #toLowerCase() lower case} representation of this name. Unlike
+	 * <code>toLowerCase().hashCode()</code>, it does not create the lower case representation if all segments are
+	 * ASCII strings. Together with {@link #equalsIgnoreCase(Object)} it allows to look up names case insensitively
+	 * without allocating anything.
+	 * 
+	 * @since 2.15
+	 */
+	public int lowerCaseHashCode() {
+		if (hasLowerCase() || !hasAsciiLowerCase())
+			return toLowerCase().hashCode();
+		int result = 1;
+		for (String segment : segments) {
+			int segmentHash = 0;
+			for (int i = 0, length = segment.length(); i < length; i++) {
+				char c = segment.charAt(i);
+				if (c >= 0x80)
+					return toLowerCase().hashCode();
+				if (c >= 'A' && c <= 'Z')
+					c += 'a' - 'A';
+				segmentHash = 31 * segmentHash + c;
+			}
+			result = 31 * result + segmentHash;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns <code>false</code> if the default locale does not map the ASCII upper case letters to the ASCII lower
+	 * case letters, e.g. the Turkish locale.
+	 */
+	private static boolean hasAsciiLowerCase() {
+		String language = Locale.getDefault().getLanguage();
+		return !"tr".equals(language) && !"az".equals(language);
+	}
+
 	private static class QualifiedNameLowerCase extends QualifiedName {
 		public QualifiedNameLowerCase(String[] segments) {
 			super(segments);
 		}
+
+		private QualifiedNameLowerCase(String[] segments, boolean interned) {
+			super(segments, interned);
+		}
+
 		@Override
 		public QualifiedName toLowerCase() {
 			return this;
 		}
 
+		@Override
+		public QualifiedName intern() {
+			QualifiedName name = this;
+			if (name.interned || name.segments.length == 0)
+				return super.intern();
+			return LOWER_CASE_NAMES.intern(new QualifiedNameLowerCase(internSegments(name.segments), true));
+		}
+
 		@Override
 		boolean hasLowerCase() {
 			return true;
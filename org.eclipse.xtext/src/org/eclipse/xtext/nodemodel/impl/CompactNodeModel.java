@@ -0,0 +1,721 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.nodemodel.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.xtext.nodemodel.BidiIterable;
+import org.eclipse.xtext.nodemodel.BidiTreeIterable;
+import org.eclipse.xtext.nodemodel.BidiTreeIterator;
+import org.eclipse.xtext.nodemodel.ICompositeNode;
+import org.eclipse.xtext.nodemodel.ILeafNode;
+import org.eclipse.xtext.nodemodel.INode;
+import org.eclipse.xtext.nodemodel.SyntaxErrorMessage;
+import org.eclipse.xtext.nodemodel.util.EmptyBidiIterable;
+import org.eclipse.xtext.nodemodel.util.NodeIterable;
+import org.eclipse.xtext.nodemodel.util.NodeTreeIterator;
+import org.eclipse.xtext.nodemodel.util.ReversedBidiTreeIterable;
+import org.eclipse.xtext.nodemodel.util.SingletonBidiIterable;
+import org.eclipse.xtext.util.ITextRegion;
+import org.eclipse.xtext.util.ITextRegionWithLineInformation;
+import org.eclipse.xtext.util.TextRegion;
+import org.eclipse.xtext.util.TextRegionWithLineInformation;
+
+import com.google.common.annotations.Beta;
+import com.google.common.collect.Iterables;
+
+/**
+ * A read-only node model that stores the complete tree in parallel primitive arrays instead of one object per node.
+ * The nodes are numbered in pre-order, i.e. the root has the index <code>0</code>, the first child of a composite node
+ * directly follows its parent and the nodes of a subtree occupy a contiguous range of indexes.
+ * <p>
+ * Clients access the model through the usual {@link INode} API. The node instances are lightweight views that are
+ * created when a node is accessed for the first time. There is exactly one view per node, thus nodes can be compared
+ * by identity just like the nodes of a regular node model. The views of the root node and of the composite nodes with
+ * a direct semantic element are created eagerly, since the latter are registered as adapters of their semantic
+ * elements.
+ * <p>
+ * Folded composite nodes of the regular node model are expanded. A compact node model cannot be modified, clients
+ * that need to change it, e.g. the {@link org.eclipse.xtext.parser.impl.PartialParsingHelper partial parser}, convert
+ * it back to a regular node model by means of {@link #inflate()}.
+ *
+ * @see CompactNodeModelBuilder
+ * @since 2.15
+ */
+@Beta
+public class CompactNodeModel {
+
+	private static final byte COMPOSITE = 1;
+	private static final byte HIDDEN = 2;
+	private static final byte CACHED = 4;
+	private static final byte SYNTAX_ERROR = 8;
+
+	/**
+	 * Creates a compact copy of the node model with the given root. The composite nodes of the new model take over
+	 * the semantic elements, the given node model should not be used afterwards.
+	 *
+	 * @return the root node of the compact node model.
+	 */
+	public static ICompositeNode compact(ICompositeNode rootNode) {
+		int size = Iterables.size(rootNode.getAsTreeIterable());
+		CompactNodeModel result = new CompactNodeModel(rootNode.getText(), size);
+		result.append(rootNode, -1, new IdentityHashMap<EObject, Integer>(), new ArrayList<EObject>());
+		return result.getRootNode();
+	}
+
+	/**
+	 * Returns the given root node as a regular {@link RootNode}. If it belongs to a compact node model, a detached copy
+	 * is created that does not take over the semantic elements. Used to serialize a node model.
+	 *
+	 * @noreference This method is not intended to be referenced by clients.
+	 */
+	public static RootNode asRootNode(ICompositeNode rootNode) {
+		if (rootNode instanceof CompactNode) {
+			return ((CompactNode) rootNode).getModel().inflate(false);
+		}
+		return (RootNode) rootNode;
+	}
+
+	private final String completeContent;
+
+	private final int[] totalOffsets;
+	private final int[] totalLengths;
+	private final int[] parents;
+	private final int[] nextSiblings;
+	private final int[] previousSiblings;
+	private final int[] lastChildren;
+	private final int[] grammarElements;
+	private final int[] lookAheads;
+	private final byte[] flags;
+
+	private EObject[] grammarElementTable;
+
+	private int size;
+
+	private final AtomicReferenceArray<CompactNode> nodes;
+
+	/**
+	 * The indexes of the nodes with a syntax error in ascending order, the messages are stored at the same position in
+	 * {@link #syntaxErrorMessages}.
+	 */
+	private int[] syntaxErrorIndexes = new int[0];
+
+	private SyntaxErrorMessage[] syntaxErrorMessages = new SyntaxErrorMessage[0];
+
+	private int syntaxErrorCount;
+
+	private volatile int[] lineBreakOffsets;
+
+	protected CompactNodeModel(String completeContent, int size) {
+		this.completeContent = completeContent;
+		this.totalOffsets = new int[size];
+		this.totalLengths = new int[size];
+		this.parents = new int[size];
+		this.nextSiblings = new int[size];
+		this.previousSiblings = new int[size];
+		this.lastChildren = new int[size];
+		this.grammarElements = new int[size];
+		this.lookAheads = new int[size];
+		this.flags = new byte[size];
+		this.nodes = new AtomicReferenceArray<CompactNode>(size);
+	}
+
+	private int append(INode node, int parent, Map<EObject, Integer> grammarElementIds, List<EObject> grammarElementList) {
+		int index = size++;
+		totalOffsets[index] = node.getTotalOffset();
+		totalLengths[index] = node.getTotalLength();
+		parents[index] = parent;
+		nextSiblings[index] = -1;
+		previousSiblings[index] = -1;
+		lastChildren[index] = -1;
+		EObject grammarElement = node.getGrammarElement();
+		if (grammarElement == null) {
+			grammarElements[index] = -1;
+		} else {
+			Integer id = grammarElementIds.get(grammarElement);
+			if (id == null) {
+				id = grammarElementList.size();
+				grammarElementIds.put(grammarElement, id);
+				grammarElementList.add(grammarElement);
+			}
+			grammarElements[index] = id;
+		}
+		SyntaxErrorMessage syntaxError = node.getSyntaxErrorMessage();
+		if (syntaxError != null) {
+			flags[index] |= SYNTAX_ERROR;
+			addSyntaxError(index, syntaxError);
+		}
+		if (node instanceof ICompositeNode) {
+			ICompositeNode composite = (ICompositeNode) node;
+			flags[index] |= COMPOSITE;
+			lookAheads[index] = composite.getLookAhead();
+			if (index == 0 || composite.hasDirectSemanticElement()) {
+				CompactCompositeNode view = new CompactCompositeNode(this, index);
+				flags[index] |= CACHED;
+				nodes.set(index, view);
+				if (composite.hasDirectSemanticElement()) {
+					EObject semanticElement = composite.getSemanticElement();
+					if (composite instanceof Adapter) {
+						semanticElement.eAdapters().remove(composite);
+					}
+					semanticElement.eAdapters().add(view);
+				}
+			}
+			int previous = -1;
+			for (INode child : composite.getChildren()) {
+				int childIndex = append(child, index, grammarElementIds, grammarElementList);
+				if (previous != -1) {
+					nextSiblings[previous] = childIndex;
+					previousSiblings[childIndex] = previous;
+				}
+				previous = childIndex;
+			}
+			lastChildren[index] = previous;
+		} else if (((ILeafNode) node).isHidden()) {
+			flags[index] |= HIDDEN;
+		}
+		if (index == 0) {
+			grammarElementTable = grammarElementList.toArray(new EObject[grammarElementList.size()]);
+		}
+		return index;
+	}
+
+	private void addSyntaxError(int index, SyntaxErrorMessage syntaxError) {
+		if (syntaxErrorCount == syntaxErrorIndexes.length) {
+			int capacity = Math.max(4, syntaxErrorCount * 2);
+			syntaxErrorIndexes = Arrays.copyOf(syntaxErrorIndexes, capacity);
+			syntaxErrorMessages = Arrays.copyOf(syntaxErrorMessages, capacity);
+		}
+		syntaxErrorIndexes[syntaxErrorCount] = index;
+		syntaxErrorMessages[syntaxErrorCount] = syntaxError;
+		syntaxErrorCount++;
+	}
+
+	/**
+	 * Creates a regular node model with the same structure and moves the semantic elements over to it. This compact
+	 * node model should not be used afterwards.
+	 */
+	public RootNode inflate() {
+		return inflate(true);
+	}
+
+	protected RootNode inflate(boolean moveSemanticElements) {
+		NodeModelBuilder builder = new NodeModelBuilder();
+		AbstractNode[] nodes = new AbstractNode[size];
+		RootNode root = new RootNode();
+		root.basicSetCompleteContent(completeContent);
+		initializeCompositeNode(root, 0, moveSemanticElements);
+		root.basicSetSyntaxErrorMessage(getSyntaxErrorMessage(0));
+		nodes[0] = root;
+		for (int i = 1; i < size; i++) {
+			AbstractNode node = isComposite(i) ? newCompositeNode(i, moveSemanticElements) : newLeafNode(i);
+			builder.addChild((CompositeNode) nodes[parents[i]], node);
+			nodes[i] = node;
+		}
+		return root;
+	}
+
+	private CompositeNode newCompositeNode(int index, boolean moveSemanticElements) {
+		SyntaxErrorMessage syntaxError = getSyntaxErrorMessage(index);
+		CompositeNode result;
+		if (getDirectSemanticElement(index) != null) {
+			if (syntaxError != null) {
+				CompositeNodeWithSemanticElementAndSyntaxError node = new CompositeNodeWithSemanticElementAndSyntaxError();
+				node.basicSetSyntaxErrorMessage(syntaxError);
+				result = node;
+			} else {
+				result = new CompositeNodeWithSemanticElement();
+			}
+		} else if (syntaxError != null) {
+			CompositeNodeWithSyntaxError node = new CompositeNodeWithSyntaxError();
+			node.basicSetSyntaxErrorMessage(syntaxError);
+			result = node;
+		} else {
+			result = new CompositeNode();
+		}
+		initializeCompositeNode(result, index, moveSemanticElements);
+		return result;
+	}
+
+	private void initializeCompositeNode(CompositeNode node, int index, boolean moveSemanticElements) {
+		node.basicSetGrammarElement(getGrammarElement(index));
+		node.basicSetLookAhead(lookAheads[index]);
+		EObject semanticElement = getDirectSemanticElement(index);
+		if (semanticElement != null) {
+			CompositeNodeWithSemanticElement casted = (CompositeNodeWithSemanticElement) node;
+			casted.basicSetSemanticElement(semanticElement);
+			if (moveSemanticElements) {
+				semanticElement.eAdapters().remove(nodes.get(index));
+				semanticElement.eAdapters().add(casted);
+			}
+		}
+	}
+
+	private LeafNode newLeafNode(int index) {
+		SyntaxErrorMessage syntaxError = getSyntaxErrorMessage(index);
+		LeafNode result;
+		if (isHidden(index)) {
+			if (syntaxError != null) {
+				HiddenLeafNodeWithSyntaxError node = new HiddenLeafNodeWithSyntaxError();
+				node.basicSetSyntaxErrorMessage(syntaxError);
+				result = node;
+			} else {
+				result = new HiddenLeafNode();
+			}
+		} else if (syntaxError != null) {
+			LeafNodeWithSyntaxError node = new LeafNodeWithSyntaxError();
+			node.basicSetSyntaxErrorMessage(syntaxError);
+			result = node;
+		} else {
+			result = new LeafNode();
+		}
+		result.basicSetGrammarElement(getGrammarElement(index));
+		result.basicSetTotalOffset(totalOffsets[index]);
+		result.basicSetTotalLength(totalLengths[index]);
+		return result;
+	}
+
+	public CompactCompositeNode getRootNode() {
+		return (CompactCompositeNode) nodes.get(0);
+	}
+
+	/**
+	 * @return the number of nodes in this model.
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return the view of the node with the given index or <code>null</code> if the index is <code>-1</code>. Subsequent
+	 *         calls with the same index return the same instance.
+	 */
+	public INode getNode(int index) {
+		if (index == -1)
+			return null;
+		CompactNode result = nodes.get(index);
+		if (result == null) {
+			CompactNode newNode = isComposite(index) ? new CompactCompositeNode(this, index) : new CompactLeafNode(this, index);
+			if (nodes.compareAndSet(index, null, newNode))
+				return newNode;
+			result = nodes.get(index);
+		}
+		return result;
+	}
+
+	protected boolean isComposite(int index) {
+		return (flags[index] & COMPOSITE) != 0;
+	}
+
+	protected boolean isHidden(int index) {
+		return (flags[index] & HIDDEN) != 0;
+	}
+
+	protected EObject getGrammarElement(int index) {
+		int id = grammarElements[index];
+		return id == -1 ? null : grammarElementTable[id];
+	}
+
+	protected SyntaxErrorMessage getSyntaxErrorMessage(int index) {
+		if ((flags[index] & SYNTAX_ERROR) == 0)
+			return null;
+		return syntaxErrorMessages[Arrays.binarySearch(syntaxErrorIndexes, 0, syntaxErrorCount, index)];
+	}
+
+	protected EObject getDirectSemanticElement(int index) {
+		if ((flags[index] & CACHED) == 0)
+			return null;
+		return ((CompactCompositeNode) nodes.get(index)).semanticElement;
+	}
+
+	protected EObject getSemanticElement(int index) {
+		for (int i = index; i != -1; i = parents[i]) {
+			EObject result = getDirectSemanticElement(i);
+			if (result != null)
+				return result;
+		}
+		return null;
+	}
+
+	/**
+	 * @return the index of the first node after the subtree of the node with the given index.
+	 */
+	protected int getSubtreeEnd(int index) {
+		int current = index;
+		while (nextSiblings[current] == -1) {
+			current = parents[current];
+			if (current == -1)
+				return size;
+		}
+		return nextSiblings[current];
+	}
+
+	protected int getOffset(int index) {
+		if (!isComposite(index))
+			return totalOffsets[index];
+		int end = getSubtreeEnd(index);
+		int firstLeafOffset = -1;
+		for (int i = index + 1; i < end; i++) {
+			if (!isComposite(i)) {
+				if (firstLeafOffset == -1)
+					firstLeafOffset = totalOffsets[i];
+				if (!isHidden(i))
+					return totalOffsets[i];
+			}
+		}
+		if (firstLeafOffset != -1)
+			return firstLeafOffset;
+		return totalOffsets[index];
+	}
+
+	protected int getEndOffset(int index) {
+		if (isComposite(index)) {
+			for (int i = getSubtreeEnd(index) - 1; i > index; i--) {
+				if (!isComposite(i) && !isHidden(i))
+					return totalOffsets[i] + totalLengths[i];
+			}
+		}
+		return totalOffsets[index] + totalLengths[index];
+	}
+
+	protected int getLength(int index) {
+		if (isComposite(index)) {
+			for (int i = getSubtreeEnd(index) - 1; i > index; i--) {
+				if (!isComposite(i) && !isHidden(i))
+					return totalOffsets[i] + totalLengths[i] - getOffset(index);
+			}
+		}
+		return totalLengths[index];
+	}
+
+	protected String getText(int index) {
+		if (index == 0)
+			return completeContent;
+		int offset = totalOffsets[index];
+		return completeContent.substring(offset, offset + totalLengths[index]);
+	}
+
+	protected int getLine(int offset) {
+		return InternalNodeModelUtils.getLineAndColumn(getRootNode(), offset).getLine();
+	}
+
+	/**
+	 * @see RootNode#basicGetLineBreakOffsets()
+	 */
+	protected int[] basicGetLineBreakOffsets() {
+		int[] result = lineBreakOffsets;
+		if (result == null) {
+			result = InternalNodeModelUtils.computeLineBreaks(completeContent);
+			lineBreakOffsets = result;
+		}
+		return result;
+	}
+
+	/**
+	 * A view of a single node of a {@link CompactNodeModel}.
+	 */
+	public static abstract class CompactNode implements INode, BidiTreeIterable<INode> {
+
+		protected final CompactNodeModel model;
+
+		protected final int index;
+
+		protected CompactNode(CompactNodeModel model, int index) {
+			this.model = model;
+			this.index = index;
+		}
+
+		public CompactNodeModel getModel() {
+			return model;
+		}
+
+		public int getIndex() {
+			return index;
+		}
+
+		@Override
+		public ICompositeNode getParent() {
+			return (ICompositeNode) model.getNode(model.parents[index]);
+		}
+
+		@Override
+		public boolean hasSiblings() {
+			return hasPreviousSibling() || hasNextSibling();
+		}
+
+		@Override
+		public boolean hasPreviousSibling() {
+			return model.previousSiblings[index] != -1;
+		}
+
+		@Override
+		public boolean hasNextSibling() {
+			return model.nextSiblings[index] != -1;
+		}
+
+		@Override
+		public INode getPreviousSibling() {
+			return model.getNode(model.previousSiblings[index]);
+		}
+
+		@Override
+		public INode getNextSibling() {
+			return model.getNode(model.nextSiblings[index]);
+		}
+
+		@Override
+		public ICompositeNode getRootNode() {
+			return model.getRootNode();
+		}
+
+		@Override
+		public Iterable<ILeafNode> getLeafNodes() {
+			return Iterables.filter(this, ILeafNode.class);
+		}
+
+		@Override
+		public int getTotalOffset() {
+			return model.totalOffsets[index];
+		}
+
+		@Override
+		public int getOffset() {
+			return model.getOffset(index);
+		}
+
+		@Override
+		public int getTotalLength() {
+			return model.totalLengths[index];
+		}
+
+		@Override
+		public int getLength() {
+			return model.getLength(index);
+		}
+
+		@Override
+		public int getTotalEndOffset() {
+			return getTotalOffset() + getTotalLength();
+		}
+
+		@Override
+		public int getEndOffset() {
+			return model.getEndOffset(index);
+		}
+
+		@Override
+		public int getTotalStartLine() {
+			return model.getLine(getTotalOffset());
+		}
+
+		@Override
+		public int getStartLine() {
+			return model.getLine(getOffset());
+		}
+
+		@Override
+		public int getTotalEndLine() {
+			return model.getLine(getTotalEndOffset());
+		}
+
+		@Override
+		public int getEndLine() {
+			return model.getLine(getEndOffset());
+		}
+
+		@Override
+		public String getText() {
+			return model.getText(index);
+		}
+
+		@Override
+		public EObject getGrammarElement() {
+			return model.getGrammarElement(index);
+		}
+
+		@Override
+		public EObject getSemanticElement() {
+			return model.getSemanticElement(index);
+		}
+
+		@Override
+		public boolean hasDirectSemanticElement() {
+			return false;
+		}
+
+		@Override
+		public SyntaxErrorMessage getSyntaxErrorMessage() {
+			return model.getSyntaxErrorMessage(index);
+		}
+
+		@Override
+		public BidiTreeIterable<INode> getAsTreeIterable() {
+			return this;
+		}
+
+		@Override
+		public BidiTreeIterator<INode> iterator() {
+			return new NodeTreeIterator(this);
+		}
+
+		@Override
+		public BidiTreeIterable<INode> reverse() {
+			return new ReversedBidiTreeIterable<INode>(this);
+		}
+
+		@Override
+		public ITextRegion getTextRegion() {
+			int offset = getOffset();
+			return new TextRegion(offset, getEndOffset() - offset);
+		}
+
+		@Override
+		public ITextRegion getTotalTextRegion() {
+			return new TextRegion(getTotalOffset(), getTotalLength());
+		}
+
+		@Override
+		public ITextRegionWithLineInformation getTextRegionWithLineInformation() {
+			int offset = getOffset();
+			return getTextRegionWithLineInformation(offset, getEndOffset() - offset);
+		}
+
+		@Override
+		public ITextRegionWithLineInformation getTotalTextRegionWithLineInformation() {
+			return getTextRegionWithLineInformation(getTotalOffset(), getTotalLength());
+		}
+
+		protected ITextRegionWithLineInformation getTextRegionWithLineInformation(int offset, int length) {
+			return new TextRegionWithLineInformation(offset, length, model.getLine(offset), model.getLine(offset + length));
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this)
+				return true;
+			if (!(obj instanceof CompactNode))
+				return false;
+			CompactNode casted = (CompactNode) obj;
+			return model == casted.model && index == casted.index;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(model) ^ index;
+		}
+
+		@Override
+		public String toString() {
+			return getClass().getSimpleName() + " [" + index + "] " + getTotalTextRegion();
+		}
+
+	}
+
+	/**
+	 * A view of a composite node of a {@link CompactNodeModel}. Views of nodes with a direct semantic element are
+	 * registered as adapters of that element.
+	 */
+	public static class CompactCompositeNode extends CompactNode implements ICompositeNode, Adapter {
+
+		private EObject semanticElement;
+
+		protected CompactCompositeNode(CompactNodeModel model, int index) {
+			super(model, index);
+		}
+
+		@Override
+		public BidiIterable<INode> getChildren() {
+			if (hasChildren()) {
+				INode firstChild = getFirstChild();
+				if (firstChild.hasSiblings()) {
+					return new NodeIterable(firstChild);
+				} else {
+					return SingletonBidiIterable.<INode>create(firstChild);
+				}
+			}
+			return EmptyBidiIterable.instance();
+		}
+
+		@Override
+		public boolean hasChildren() {
+			return model.lastChildren[index] != -1;
+		}
+
+		@Override
+		public INode getFirstChild() {
+			if (hasChildren())
+				return model.getNode(index + 1);
+			return null;
+		}
+
+		@Override
+		public INode getLastChild() {
+			return model.getNode(model.lastChildren[index]);
+		}
+
+		@Override
+		public int getLookAhead() {
+			return model.lookAheads[index];
+		}
+
+		@Override
+		public boolean hasDirectSemanticElement() {
+			return semanticElement != null;
+		}
+
+		@Override
+		public void notifyChanged(Notification notification) {
+			// ignore
+		}
+
+		@Override
+		public Notifier getTarget() {
+			return semanticElement;
+		}
+
+		@Override
+		public void setTarget(Notifier newTarget) {
+			if (newTarget == null || newTarget instanceof EObject)
+				semanticElement = (EObject) newTarget;
+			else
+				throw new IllegalArgumentException("Notifier must be an Eobject");
+		}
+
+		@Override
+		public boolean isAdapterForType(Object type) {
+			return type instanceof Class<?> && INode.class.isAssignableFrom((Class<?>) type);
+		}
+
+	}
+
+	/**
+	 * A view of a leaf node of a {@link CompactNodeModel}.
+	 */
+	public static class CompactLeafNode extends CompactNode implements ILeafNode {
+
+		protected CompactLeafNode(CompactNodeModel model, int index) {
+			super(model, index);
+		}
+
+		@Override
+		public boolean isHidden() {
+			return model.isHidden(index);
+		}
+
+	}
+
+}
@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.nodemodel.impl;
+
+import org.eclipse.xtext.nodemodel.ICompositeNode;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * A node model builder that converts the node model of a complete parse result to a {@link CompactNodeModel}. The
+ * node models of partial parse results are not converted since they are merged into an existing node model.
+ * <p>
+ * The partial parser converts a compact node model back to a regular node model once, on the first partial reparse.
+ * The merged node model is not compacted again, thus a document that is being edited keeps its regular node model
+ * until it is parsed completely the next time.
+ * <p>
+ * Can be enabled by binding it in the runtime module, e.g.
+ *
+ * <pre>
+ * public Class&lt;? extends NodeModelBuilder&gt; bindNodeModelBuilder() {
+ * 	return CompactNodeModelBuilder.class;
+ * }
+ * </pre>
+ *
+ * @since 2.15
+ */
+@Beta
+public class CompactNodeModelBuilder extends NodeModelBuilder {
+
+	@Override
+	public ICompositeNode completeRootNode(ICompositeNode rootNode) {
+		if (isCompressRoot() && rootNode instanceof RootNode) {
+			return CompactNodeModel.compact(rootNode);
+		}
+		return rootNode;
+	}
+
+}
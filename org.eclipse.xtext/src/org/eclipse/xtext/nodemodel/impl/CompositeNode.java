@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2010, 2018 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -37,6 +37,8 @@ public class CompositeNode extends AbstractNode implements ICompositeNode {
 	
 	private int lookAhead;
 	
+	private int offsetShift;
+	
 	@Override
 	public BidiIterable<INode> getChildren() {
 		if (hasChildren()) {
@@ -115,6 +117,23 @@ public class CompositeNode extends AbstractNode implements ICompositeNode {
 		this.lookAhead = lookAhead;
 	}
 	
+	/**
+	 * Returns the amount by which the offsets of all leafs below this node are shifted. The node model builder shifts
+	 * the nodes that follow a replaced node by adjusting this value instead of updating each leaf.
+	 * 
+	 * @since 2.15
+	 */
+	protected int basicGetOffsetShift() {
+		return offsetShift;
+	}
+	
+	/**
+	 * @since 2.15
+	 */
+	protected void basicSetOffsetShift(int offsetShift) {
+		this.offsetShift = offsetShift;
+	}
+	
 	@Override
 	public INode getFirstChild() {
 		if (isFolded()) {
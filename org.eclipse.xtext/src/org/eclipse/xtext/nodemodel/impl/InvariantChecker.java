@@ -70,7 +70,12 @@ public class InvariantChecker {
 		if (node.getTotalOffset() != startsAt)
 			throw new InconsistentNodeModelException("node with unexpected offset");
 		int length = 0;
-		Iterator<AbstractNode> iter = ((CompositeNode) node).basicGetChildren().iterator();
+		Iterator<? extends INode> iter;
+		if (node instanceof CompositeNode) {
+			iter = ((CompositeNode) node).basicGetChildren().iterator();
+		} else {
+			iter = node.getChildren().iterator();
+		}
 		while(iter.hasNext()) {
 			INode child = iter.next();
 			length += doCheckChildNodeAndReturnTotalLength(child, node, startsAt + length);
@@ -82,16 +87,10 @@ public class InvariantChecker {
 	
 	protected int doCheckChildNodeAndReturnTotalLength(INode child, ICompositeNode parent, int startsAt) {
 		exceptionSeen |= child.getSyntaxErrorMessage() != null;
-		if (((AbstractNode) child).basicGetNextSibling().basicGetPreviousSibling() != child)
-			throw new InconsistentNodeModelException("child.next.previous != child");
-		if (((AbstractNode) child).basicGetPreviousSibling().basicGetNextSibling() != child)
-			throw new InconsistentNodeModelException("child.previous.next != child");
-		if (((AbstractNode) child).basicGetPreviousSibling().basicGetParent() != ((AbstractNode) child).basicGetParent())
-			throw new InconsistentNodeModelException("child.previous.parent != child.parent");
-		if (((AbstractNode) child).basicGetNextSibling().basicGetParent() != ((AbstractNode) child).basicGetParent())
-			throw new InconsistentNodeModelException("child.next.parent != child.parent");
-		if (((AbstractNode) child).basicGetParent() != parent) {
-			throw new InconsistentNodeModelException("node does not point to its parent");
+		if (child instanceof AbstractNode) {
+			doCheckSiblingsAndParent((AbstractNode) child, parent);
+		} else {
+			doCheckSiblingsAndParent(child, parent);
 		}
 		if (child instanceof ILeafNode) {
 			if (child.getGrammarElement() == null) {
@@ -108,6 +107,42 @@ public class InvariantChecker {
 		}
 	}
 	
+	/**
+	 * @since 2.15
+	 */
+	protected void doCheckSiblingsAndParent(AbstractNode child, ICompositeNode parent) {
+		if (child.basicGetNextSibling().basicGetPreviousSibling() != child)
+			throw new InconsistentNodeModelException("child.next.previous != child");
+		if (child.basicGetPreviousSibling().basicGetNextSibling() != child)
+			throw new InconsistentNodeModelException("child.previous.next != child");
+		if (child.basicGetPreviousSibling().basicGetParent() != child.basicGetParent())
+			throw new InconsistentNodeModelException("child.previous.parent != child.parent");
+		if (child.basicGetNextSibling().basicGetParent() != child.basicGetParent())
+			throw new InconsistentNodeModelException("child.next.parent != child.parent");
+		if (child.basicGetParent() != parent) {
+			throw new InconsistentNodeModelException("node does not point to its parent");
+		}
+	}
+	
+	/**
+	 * Checks the pointers of nodes that are not an {@link AbstractNode}, e.g. the views of a {@link CompactNodeModel}.
+	 * 
+	 * @since 2.15
+	 */
+	protected void doCheckSiblingsAndParent(INode child, ICompositeNode parent) {
+		if (child.hasNextSibling() && !child.equals(child.getNextSibling().getPreviousSibling()))
+			throw new InconsistentNodeModelException("child.next.previous != child");
+		if (child.hasPreviousSibling() && !child.equals(child.getPreviousSibling().getNextSibling()))
+			throw new InconsistentNodeModelException("child.previous.next != child");
+		if (child.hasPreviousSibling() && !child.getPreviousSibling().getParent().equals(child.getParent()))
+			throw new InconsistentNodeModelException("child.previous.parent != child.parent");
+		if (child.hasNextSibling() && !child.getNextSibling().getParent().equals(child.getParent()))
+			throw new InconsistentNodeModelException("child.next.parent != child.parent");
+		if (parent == null ? child.getParent() != null : !parent.equals(child.getParent())) {
+			throw new InconsistentNodeModelException("node does not point to its parent");
+		}
+	}
+	
 	protected int doCheckLeafNodeAndReturnLength(ILeafNode leafNode, int startsAt) {
 		if (leafNode.getTotalOffset() != startsAt)
 			throw new InconsistentNodeModelException("node with unexpected offset");
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2010, 2018 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -35,7 +35,7 @@ public class LeafNode extends AbstractNode implements ILeafNode {
 
 	@Override
 	public int getTotalOffset() {
-		return totalOffset;
+		return totalOffset + getAncestorOffsetShift();
 	}
 
 	@Override
@@ -45,7 +45,7 @@ public class LeafNode extends AbstractNode implements ILeafNode {
 	
 	@Override
 	public int getOffset() {
-		return totalOffset;
+		return getTotalOffset();
 	}
 	
 	@Override
@@ -53,9 +53,40 @@ public class LeafNode extends AbstractNode implements ILeafNode {
 		return totalLength;
 	}
 	
+	/**
+	 * Sets the stored offset of this leaf. The {@link #getTotalOffset() total offset} is the stored offset plus the
+	 * {@link #getAncestorOffsetShift() offset shift} of the ancestors.
+	 * <p>
+	 * Since 2.15, the given offset is no longer the total offset if one of the ancestors of this leaf has been shifted
+	 * by a partial reparse. Subclasses that know the total offset of a leaf in an existing node model have to set it
+	 * after the parent, and subtract the {@link #getAncestorOffsetShift() offset shift} of the ancestors from it.
+	 * </p>
+	 */
 	protected void basicSetTotalOffset(int offset) {
 		this.totalOffset = offset;
 	}
+
+	/**
+	 * @since 2.15
+	 */
+	protected int basicGetTotalOffset() {
+		return totalOffset;
+	}
+
+	/**
+	 * Returns the sum of the {@link CompositeNode#basicGetOffsetShift() offset shifts} of the ancestors of this leaf.
+	 * Like the offset of a composite node, it is computed by visiting the ancestors, since the shifts are local to the
+	 * tree this leaf belongs to.
+	 * 
+	 * @since 2.15
+	 */
+	protected int getAncestorOffsetShift() {
+		int result = 0;
+		for (CompositeNode parent = basicGetParent(); parent != null; parent = parent.basicGetParent()) {
+			result += parent.basicGetOffsetShift();
+		}
+		return result;
+	}
 	
 	protected void basicSetTotalLength(int length) {
 		this.totalLength = length;
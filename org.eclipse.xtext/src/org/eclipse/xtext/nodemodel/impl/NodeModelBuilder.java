@@ -8,14 +8,15 @@
 package org.eclipse.xtext.nodemodel.impl;
 
 import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.RandomAccess;
 
 import org.eclipse.emf.common.notify.Adapter;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.xtext.RuleCall;
-import org.eclipse.xtext.nodemodel.BidiTreeIterator;
 import org.eclipse.xtext.nodemodel.ICompositeNode;
 import org.eclipse.xtext.nodemodel.ILeafNode;
 import org.eclipse.xtext.nodemodel.INode;
@@ -290,7 +291,7 @@ public class NodeModelBuilder {
 				newNode = newLeaf;
 			}
 			newNode.basicSetTotalLength(oldNode.getTotalLength());
-			newNode.basicSetTotalOffset(oldNode.getTotalOffset());
+			newNode.basicSetTotalOffset(oldNode.basicGetTotalOffset());
 			newNode.basicSetGrammarElement(oldNode.basicGetGrammarElement());
 			replace(oldNode, newNode);
 			return newNode;
@@ -328,6 +329,7 @@ public class NodeModelBuilder {
 			CompositeNode newComposite = (CompositeNode) newNode;
 			AbstractNode child = oldComposite.basicGetFirstChild();
 			newComposite.basicSetFirstChild(child);
+			newComposite.basicSetOffsetShift(newComposite.basicGetOffsetShift() + oldComposite.basicGetOffsetShift());
 			if (child != null) {
 				while(child.basicGetParent() != newComposite) {
 					child.basicSetParent(newComposite);
@@ -337,25 +339,53 @@ public class NodeModelBuilder {
 		}
 	}
 	
+	/**
+	 * Replaces the old node with the first child of the new root node. The offsets of the new nodes are relative to the
+	 * start of the old node, and the nodes that follow the old node are shifted by the difference of the lengths. Both
+	 * is done by adjusting the {@link CompositeNode#basicGetOffsetShift() offset shifts} of the nodes along the path to
+	 * the root, so the leafs are not visited.
+	 */
 	public void replaceAndTransferLookAhead(INode oldNode, INode newRootNode) {
 		AbstractNode newNode = ((CompositeNode) newRootNode).basicGetFirstChild();
+		int offset = oldNode.getTotalOffset();
+		int lengthDelta = newNode.getTotalLength() - oldNode.getTotalLength();
 		replaceWithoutChildren((AbstractNode) oldNode, newNode);
 		if (oldNode instanceof ICompositeNode && newNode instanceof CompositeNode) {
 			CompositeNode newCompositeNode = (CompositeNode) newNode;
 			newCompositeNode.basicSetLookAhead(((ICompositeNode) oldNode).getLookAhead());
 		}
-		ICompositeNode root = newNode.getRootNode();
-		BidiTreeIterator<AbstractNode> iterator = ((AbstractNode) root).basicIterator();
-		int offset = 0;
-		while(iterator.hasNext()) {
-			AbstractNode node = iterator.next();
-			if (node instanceof LeafNode) {
-				((LeafNode) node).basicSetTotalOffset(offset);
-				offset += node.getTotalLength();
+		shiftOffsets(newNode, offset - newNode.getTotalOffset());
+		if (lengthDelta != 0) {
+			AbstractNode node = newNode;
+			CompositeNode parent = node.basicGetParent();
+			while (parent != null) {
+				AbstractNode firstChild = parent.basicGetFirstChild();
+				for (AbstractNode sibling = node.basicGetNextSibling(); sibling != firstChild; sibling = sibling.basicGetNextSibling()) {
+					shiftOffsets(sibling, lengthDelta);
+				}
+				node = parent;
+				parent = parent.basicGetParent();
 			}
 		}
 	}
 
+	/**
+	 * Shifts the offsets of all leafs below the given node.
+	 * 
+	 * @since 2.15
+	 */
+	protected void shiftOffsets(AbstractNode node, int delta) {
+		if (delta == 0)
+			return;
+		if (node instanceof LeafNode) {
+			LeafNode leafNode = (LeafNode) node;
+			leafNode.basicSetTotalOffset(leafNode.basicGetTotalOffset() + delta);
+		} else {
+			CompositeNode compositeNode = (CompositeNode) node;
+			compositeNode.basicSetOffsetShift(compositeNode.basicGetOffsetShift() + delta);
+		}
+	}
+
 	protected void replaceWithoutChildren(AbstractNode oldNode, AbstractNode newNode) {
 		CompositeNode parent = oldNode.basicGetParent();
 		newNode.basicSetParent(parent);
@@ -378,6 +408,78 @@ public class NodeModelBuilder {
 		}
 	}
 
+	/**
+	 * Returns the direct children of the given node. Unlike {@link ICompositeNode#getChildren()}, folded nodes are not
+	 * expanded into synthetic nodes.
+	 * 
+	 * @since 2.15
+	 */
+	public List<INode> getDirectChildren(ICompositeNode node) {
+		List<INode> result = new ArrayList<INode>();
+		AbstractNode firstChild = ((CompositeNode) node).basicGetFirstChild();
+		if (firstChild != null) {
+			AbstractNode child = firstChild;
+			do {
+				result.add(child);
+				child = child.basicGetNextSibling();
+			} while (child != firstChild);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns <code>true</code> if both nodes are of the same type, have the same grammar elements, lengths and look
+	 * ahead and if their children are equivalent, too. Nodes with syntax errors are not equivalent to any node.
+	 * 
+	 * @since 2.15
+	 */
+	public boolean isEquivalent(INode node, INode other) {
+		AbstractNode casted = (AbstractNode) node;
+		AbstractNode castedOther = (AbstractNode) other;
+		if (casted.getClass() != castedOther.getClass() || casted.getTotalLength() != castedOther.getTotalLength())
+			return false;
+		if (casted.getSyntaxErrorMessage() != null || castedOther.getSyntaxErrorMessage() != null)
+			return false;
+		Object grammarElement = casted.basicGetGrammarElement();
+		Object otherGrammarElement = castedOther.basicGetGrammarElement();
+		if (grammarElement instanceof EObject[] && otherGrammarElement instanceof EObject[]) {
+			if (!Arrays.equals((EObject[]) grammarElement, (EObject[]) otherGrammarElement))
+				return false;
+		} else if (grammarElement != otherGrammarElement) {
+			return false;
+		}
+		if (casted instanceof CompositeNode) {
+			if (((CompositeNode) casted).getLookAhead() != ((CompositeNode) castedOther).getLookAhead())
+				return false;
+			AbstractNode firstChild = ((CompositeNode) casted).basicGetFirstChild();
+			AbstractNode otherFirstChild = ((CompositeNode) castedOther).basicGetFirstChild();
+			if (firstChild == null || otherFirstChild == null)
+				return firstChild == otherFirstChild;
+			AbstractNode child = firstChild;
+			AbstractNode otherChild = otherFirstChild;
+			do {
+				if (!isEquivalent(child, otherChild))
+					return false;
+				child = child.basicGetNextSibling();
+				otherChild = otherChild.basicGetNextSibling();
+			} while (child != firstChild && otherChild != otherFirstChild);
+			return child == firstChild && otherChild == otherFirstChild;
+		}
+		return true;
+	}
+
+	/**
+	 * Puts the reused node of a previous node model at the position of the replaced node. The children of the reused
+	 * node are kept and shifted to the offset of the replaced node.
+	 * 
+	 * @since 2.15
+	 */
+	public void reuseNode(INode replacedNode, INode reusedNode) {
+		int offset = replacedNode.getTotalOffset();
+		replaceWithoutChildren((AbstractNode) replacedNode, (AbstractNode) reusedNode);
+		shiftOffsets((AbstractNode) reusedNode, offset - reusedNode.getTotalOffset());
+	}
+
 	public void setCompleteContent(ICompositeNode rootNode, String completeContent) {
 		((RootNode)rootNode).basicSetCompleteContent(completeContent);
 	}
@@ -386,7 +488,24 @@ public class NodeModelBuilder {
 		this.forcedGrammarElement = ruleCall;
 		compressRoot = false;
 	}
-	
+
+	/**
+	 * @since 2.15
+	 */
+	protected boolean isCompressRoot() {
+		return compressRoot;
+	}
+
+	/**
+	 * Invoked when the node model of a parse result is complete. Returns the root node that should be used
+	 * for the parse result, this implementation returns the given node.
+	 *
+	 * @since 2.15
+	 */
+	public ICompositeNode completeRootNode(ICompositeNode rootNode) {
+		return rootNode;
+	}
+
 	/**
 	 * @nooverride This method is not intended to be re-implemented or extended by clients.
 	 * @noreference This method is not intended to be referenced by clients.
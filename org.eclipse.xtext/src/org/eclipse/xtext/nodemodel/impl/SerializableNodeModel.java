@@ -33,7 +33,7 @@ public class SerializableNodeModel {
 		IParseResult parseResult = resource.getParseResult();
 		if (parseResult != null) {
 			ICompositeNode rootNode = parseResult.getRootNode();
-			root = (RootNode) rootNode;
+			root = CompactNodeModel.asRootNode(rootNode);
 		}
 		formatVersion = 1;
 		date = new Date();
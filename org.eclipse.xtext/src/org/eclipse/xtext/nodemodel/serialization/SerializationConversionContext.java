@@ -12,6 +12,7 @@ import java.util.Map;
 
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.xtext.nodemodel.impl.CompactNodeModel;
 import org.eclipse.xtext.nodemodel.impl.RootNode;
 import org.eclipse.xtext.parser.IParseResult;
 import org.eclipse.xtext.resource.XtextResource;
@@ -59,7 +60,7 @@ public class SerializationConversionContext {
 	protected void fillGrammarElementToIdMap(XtextResource r) {
 		IParseResult parseResult = r.getParseResult();
 		if (parseResult != null) {
-			RootNode it = (RootNode) parseResult.getRootNode();
+			RootNode it = CompactNodeModel.asRootNode(parseResult.getRootNode());
 			it.fillGrammarElementToIdMap(grammarElementToIdMap, grammarIdToURIMap);
 		}
 	}
@@ -29,6 +29,7 @@ import org.eclipse.xtext.nodemodel.ILeafNode;
 import org.eclipse.xtext.nodemodel.INode;
 import org.eclipse.xtext.nodemodel.SyntaxErrorMessage;
 import org.eclipse.xtext.nodemodel.impl.AbstractNode;
+import org.eclipse.xtext.nodemodel.impl.CompactNodeModel;
 import org.eclipse.xtext.nodemodel.impl.InternalNodeModelUtils;
 import org.eclipse.xtext.nodemodel.impl.RootNode;
 import org.eclipse.xtext.resource.EObjectAtOffsetHelper;
@@ -67,15 +68,22 @@ public class NodeModelUtils extends InternalNodeModelUtils {
 	/* @Nullable */
 	public static ILeafNode findLeafNodeAtOffset(/* @NonNull */ INode node, int leafNodeOffset) {
 		INode localNode = node;
-		while(!(localNode instanceof AbstractNode)) {
+		while(localNode != null && !(localNode instanceof AbstractNode)) {
 			localNode = localNode.getParent();
 		}
+		BidiTreeIterator<? extends INode> iterator;
+		if (localNode != null) {
+			iterator = ((AbstractNode) localNode).basicIterator();
+		} else {
+			// e.g. a node of a compact node model
+			localNode = node;
+			iterator = node.getAsTreeIterable().iterator();
+		}
 		int offset = localNode.getTotalOffset();
 		int length = localNode.getTotalLength();
-		BidiTreeIterator<AbstractNode> iterator = ((AbstractNode) localNode).basicIterator();
 		if (leafNodeOffset > (offset + length) / 2) {
 			while (iterator.hasPrevious()) {
-				AbstractNode previous = iterator.previous();
+				INode previous = iterator.previous();
 				int previousOffset = previous.getTotalOffset();
 				int previousLength = previous.getTotalLength();
 				if (!intersects(previousOffset, previousLength, leafNodeOffset)) {
@@ -90,7 +98,7 @@ public class NodeModelUtils extends InternalNodeModelUtils {
 			}
 		} else {
 			while (iterator.hasNext()) {
-				AbstractNode next = iterator.next();
+				INode next = iterator.next();
 				int nextOffset = next.getTotalOffset();
 				int nextLength = next.getTotalLength();
 				if (!intersects(nextOffset, nextLength, leafNodeOffset)) {
@@ -124,7 +132,7 @@ public class NodeModelUtils extends InternalNodeModelUtils {
 	 */
 	public static LineAndColumn getLineAndColumn(INode anyNode, int documentOffset) {
 		// special treatment for inconsistent nodes such as SyntheticLinkingLeafNode
-		if (anyNode.getParent() == null && !(anyNode instanceof RootNode)) {
+		if (anyNode.getParent() == null && !(anyNode instanceof RootNode || anyNode instanceof CompactNodeModel.CompactNode)) {
 			return LineAndColumn.from(1,1);
 		}
 		return InternalNodeModelUtils.getLineAndColumn(anyNode, documentOffset);
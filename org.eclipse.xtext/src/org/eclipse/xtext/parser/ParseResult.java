@@ -16,6 +16,7 @@ import org.eclipse.xtext.nodemodel.ICompositeNode;
 import org.eclipse.xtext.nodemodel.INode;
 import org.eclipse.xtext.nodemodel.impl.AbstractNode;
 import org.eclipse.xtext.nodemodel.impl.CompositeNode;
+import org.eclipse.xtext.parser.impl.TokenSequence;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
@@ -31,6 +32,8 @@ public class ParseResult implements IParseResult {
     private EObject rootAstElement;
     private ICompositeNode rootNode;
 	private final boolean hasErrors;
+	private TokenSequence tokenSequence;
+	private ReparseDelta reparseDelta;
     
     public ParseResult(/* @Nullable */ EObject rootAstElement, /* @NonNull */ ICompositeNode rootNode, boolean hasErrors) {
     	Preconditions.checkNotNull(rootNode);
@@ -58,6 +61,14 @@ public class ParseResult implements IParseResult {
 			@Override
 			@SuppressWarnings("unchecked")
 			public Iterator<INode> iterator() {
+				if (!(rootNode instanceof CompositeNode)) {
+					return Iterators.filter(rootNode.getAsTreeIterable().iterator(), new Predicate<INode>() {
+						@Override
+						public boolean apply(INode input) {
+							return input.getSyntaxErrorMessage() != null;
+						}
+					});
+				}
 				Iterator<? extends INode> result = Iterators.filter(((CompositeNode) rootNode).basicIterator(),
 						new Predicate<AbstractNode>() {
 					@Override
@@ -85,4 +96,38 @@ public class ParseResult implements IParseResult {
 	public boolean hasSyntaxErrors() {
 		return hasErrors;
 	}
+
+	/**
+	 * Returns the tokens of the parsed text, or <code>null</code> if they have not been recorded. The tokens are
+	 * recorded when a text is reparsed, so the next change can be lexed incrementally.
+	 * 
+	 * @since 2.15
+	 */
+	public TokenSequence getTokenSequence() {
+		return tokenSequence;
+	}
+
+	/**
+	 * @since 2.15
+	 */
+	public void setTokenSequence(TokenSequence tokenSequence) {
+		this.tokenSequence = tokenSequence;
+	}
+
+	/**
+	 * Returns the changes of the semantic model if this result has been created by a partial reparse, otherwise
+	 * <code>null</code>.
+	 * 
+	 * @since 2.15
+	 */
+	public ReparseDelta getReparseDelta() {
+		return reparseDelta;
+	}
+
+	/**
+	 * @since 2.15
+	 */
+	public void setReparseDelta(ReparseDelta reparseDelta) {
+		this.reparseDelta = reparseDelta;
+	}
 }
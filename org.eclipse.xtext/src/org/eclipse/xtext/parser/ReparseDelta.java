@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.parser;
+
+import java.util.List;
+
+import org.eclipse.emf.ecore.EObject;
+
+/**
+ * Describes how a partial reparse changed the semantic model. The {@link #getReplacedElement() replaced element} has
+ * been removed from the model and the {@link #getNewElement() new element} took its place. The
+ * {@link #getReusedElements() reused elements} have been moved from the replaced element into the new one, so they
+ * and their contents kept their identity.
+ *
+ * @since 2.15
+ */
+public class ReparseDelta {
+
+	private final EObject replacedElement;
+
+	private final EObject newElement;
+
+	private final List<EObject> reusedElements;
+
+	public ReparseDelta(/* @Nullable */ EObject replacedElement, /* @Nullable */ EObject newElement, List<EObject> reusedElements) {
+		this.replacedElement = replacedElement;
+		this.newElement = newElement;
+		this.reusedElements = reusedElements;
+	}
+
+	/* @Nullable */
+	public EObject getReplacedElement() {
+		return replacedElement;
+	}
+
+	/* @Nullable */
+	public EObject getNewElement() {
+		return newElement;
+	}
+
+	public List<EObject> getReusedElements() {
+		return reusedElements;
+	}
+
+	@Override
+	public String toString() {
+		return "ReparseDelta [replaced: " + replacedElement + ", new: " + newElement + ", reused: "
+				+ reusedElements.size() + "]";
+	}
+
+}
@@ -12,6 +12,7 @@ import java.io.Reader;
 import java.io.StringReader;
 
 import org.antlr.runtime.ANTLRReaderStream;
+import org.antlr.runtime.ANTLRStringStream;
 import org.antlr.runtime.CharStream;
 import org.antlr.runtime.TokenSource;
 import org.eclipse.emf.common.util.WrappedException;
@@ -22,6 +23,7 @@ import org.eclipse.xtext.parser.AbstractParser;
 import org.eclipse.xtext.parser.IAstFactory;
 import org.eclipse.xtext.parser.IParseResult;
 import org.eclipse.xtext.parser.ParseException;
+import org.eclipse.xtext.parser.impl.TokenSequence;
 import org.eclipse.xtext.util.ReplaceRegion;
 
 import com.google.inject.Inject;
@@ -86,6 +88,13 @@ public abstract class AbstractAntlrParser extends AbstractParser {
 
 	protected IParseResult doParse(String ruleName, CharStream in, NodeModelBuilder nodeModelBuilder, int initialLookAhead) {
 		TokenSource tokenSource = createLexer(in);
+		return doParse(ruleName, tokenSource, nodeModelBuilder, initialLookAhead);
+	}
+
+	/**
+	 * @since 2.15
+	 */
+	protected IParseResult doParse(String ruleName, TokenSource tokenSource, NodeModelBuilder nodeModelBuilder, int initialLookAhead) {
 		XtextTokenStream tokenStream = createTokenStream(tokenSource);
 		tokenStream.initCurrentLookAhead(initialLookAhead);
 		setInitialHiddenTokens(tokenStream);
@@ -133,6 +142,39 @@ public abstract class AbstractAntlrParser extends AbstractParser {
 		}
 	}
 
+	/**
+	 * Parses the given text with the rule. The parser consumes the given tokens of the text instead of lexing it, unless
+	 * the tokens contain lexer errors or the language {@link #createLexer(CharStream) creates} a token source that
+	 * is not a plain {@link Lexer}, e.g. one that splits tokens or inserts synthetic ones.
+	 * 
+	 * @since 2.15
+	 */
+	public IParseResult parse(ParserRule rule, TokenSequence tokens, String text) {
+		return doParse(rule.getName(), tokens, text, nodeModelBuilder.get(), 0);
+	}
+
+	/**
+	 * Parses the given text with the rule of the rule call. The parser consumes the given tokens of the text if
+	 * possible.
+	 * 
+	 * @see #parse(ParserRule, TokenSequence, String)
+	 * @since 2.15
+	 */
+	public IParseResult parse(RuleCall ruleCall, TokenSequence tokens, String text, int initialLookAhead) {
+		NodeModelBuilder builder = nodeModelBuilder.get();
+		builder.setForcedFirstGrammarElement(ruleCall);
+		return doParse(ruleCall.getRule().getName(), tokens, text, builder, initialLookAhead);
+	}
+
+	private IParseResult doParse(String ruleName, TokenSequence tokens, String text, NodeModelBuilder nodeModelBuilder, int initialLookAhead) {
+		CharStream in = new ANTLRStringStream(text);
+		TokenSource tokenSource = createLexer(in);
+		if (!tokens.hasErrors() && tokenSource instanceof Lexer) {
+			tokenSource = tokens.createTokenSource(text);
+		}
+		return doParse(ruleName, tokenSource, nodeModelBuilder, initialLookAhead);
+	}
+
 	@Override
 	protected IParseResult doReparse(IParseResult previousParseResult, ReplaceRegion replaceRegion) {
 		return partialParser.reparse(this, previousParseResult, replaceRegion);
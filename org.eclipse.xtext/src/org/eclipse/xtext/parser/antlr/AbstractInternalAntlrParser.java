@@ -567,7 +567,7 @@ public abstract class AbstractInternalAntlrParser extends Parser {
 				appendAllTokens();
 			} finally {
 				ICompositeNode root = nodeBuilder.compressAndReturnParent(currentNode);
-				result = new ParseResult(current, root, hadErrors);
+				result = new ParseResult(current, nodeBuilder.completeRootNode(root), hadErrors);
 			}
 		} catch (InvocationTargetException ite) {
 			Throwable targetException = ite.getTargetException();
@@ -576,7 +576,7 @@ public abstract class AbstractInternalAntlrParser extends Parser {
 					appendAllTokens();
 				} finally {
 					ICompositeNode root = nodeBuilder.compressAndReturnParent(currentNode);
-					result = new ParseResult(current, root, hadErrors);
+					result = new ParseResult(current, nodeBuilder.completeRootNode(root), hadErrors);
 				}
 				throw (RecognitionException) targetException;
 			}
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.parser.impl;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.CommonToken;
+import org.antlr.runtime.Token;
+import org.eclipse.xtext.parser.antlr.Lexer;
+import org.eclipse.xtext.parser.antlr.LexerBindings;
+import org.eclipse.xtext.util.ReplaceRegion;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.name.Named;
+
+/**
+ * Lexes a changed text by reusing the tokens of its previous version. Only the text between the token that precedes
+ * the change and the first token after the change that matches a previous token is lexed again. The tokens before and
+ * after that range are copied from the previous sequence.
+ * <p>
+ * This assumes that the runtime lexer of the language does not keep state between tokens, which holds for the lexers
+ * that are generated from Xtext grammars.
+ *
+ * @since 2.15
+ */
+public class IncrementalLexer {
+
+	@Inject
+	@Named(LexerBindings.RUNTIME)
+	private Provider<Lexer> lexerProvider;
+
+	/**
+	 * Lexes the complete text.
+	 */
+	public TokenSequence lex(String text) {
+		Lexer lexer = lexerProvider.get();
+		lexer.setCharStream(new ANTLRStringStream(text));
+		TokenSequence.Builder result = new TokenSequence.Builder();
+		Token token = lexer.nextToken();
+		while (token != Token.EOF_TOKEN) {
+			result.add(token);
+			token = lexer.nextToken();
+		}
+		return result.build();
+	}
+
+	/**
+	 * Lexes the new text that is the result of applying the change to the text of the previous tokens.
+	 *
+	 * @param previous
+	 *            the tokens of the text before the change.
+	 * @param newText
+	 *            the text after the change.
+	 * @param change
+	 *            the change with offsets relative to the previous text.
+	 */
+	public TokenSequence relex(TokenSequence previous, String newText, ReplaceRegion change) {
+		int delta = change.getText().length() - change.getLength();
+		int oldChangeEnd = change.getEndOffset();
+		int newChangeEnd = change.getOffset() + change.getText().length();
+		// the token that ends right before the change may be extended by it
+		int restartIndex = Math.max(previous.getFirstTokenEndingAfter(change.getOffset()) - 1, 0);
+		int restartOffset = restartIndex == 0 ? 0 : previous.getStartIndex(restartIndex);
+		TokenSequence.Builder result = new TokenSequence.Builder();
+		result.addAll(previous, 0, restartIndex, 0);
+		ANTLRStringStream input = new ANTLRStringStream(newText);
+		input.seek(restartOffset);
+		Lexer lexer = lexerProvider.get();
+		lexer.setCharStream(input);
+		int candidate = previous.getFirstTokenEndingAfter(oldChangeEnd);
+		CommonToken token = (CommonToken) lexer.nextToken();
+		while (token != Token.EOF_TOKEN) {
+			int start = token.getStartIndex();
+			if (start >= newChangeEnd) {
+				while (candidate < previous.size() && previous.getStartIndex(candidate) + delta < start) {
+					candidate++;
+				}
+				if (candidate < previous.size() && isSameToken(previous, candidate, token, delta)) {
+					result.addAll(previous, candidate, previous.size(), delta);
+					return result.build();
+				}
+			}
+			result.add(token);
+			token = (CommonToken) lexer.nextToken();
+		}
+		return result.build();
+	}
+
+	protected boolean isSameToken(TokenSequence previous, int index, CommonToken token, int delta) {
+		return previous.getStartIndex(index) + delta == token.getStartIndex()
+				&& previous.getStopIndex(index) + delta == token.getStopIndex()
+				&& previous.getType(index) == token.getType()
+				&& previous.getChannel(index) == token.getChannel();
+	}
+
+	public Provider<Lexer> getLexerProvider() {
+		return lexerProvider;
+	}
+
+	public void setLexerProvider(Provider<Lexer> lexerProvider) {
+		this.lexerProvider = lexerProvider;
+	}
+
+}
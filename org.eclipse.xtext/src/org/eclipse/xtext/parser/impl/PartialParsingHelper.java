@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2017 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2008, 2018 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,13 +13,16 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.ListIterator;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.log4j.Logger;
 import org.eclipse.emf.common.util.TreeIterator;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.xtext.AbstractElement;
 import org.eclipse.xtext.AbstractRule;
 import org.eclipse.xtext.Action;
@@ -36,6 +39,7 @@ import org.eclipse.xtext.nodemodel.ICompositeNode;
 import org.eclipse.xtext.nodemodel.ILeafNode;
 import org.eclipse.xtext.nodemodel.INode;
 import org.eclipse.xtext.nodemodel.impl.AbstractNode;
+import org.eclipse.xtext.nodemodel.impl.CompactNodeModel.CompactNode;
 import org.eclipse.xtext.nodemodel.impl.CompositeNode;
 import org.eclipse.xtext.nodemodel.impl.NodeModelBuilder;
 import org.eclipse.xtext.nodemodel.impl.SyntheticCompositeNode;
@@ -44,12 +48,15 @@ import org.eclipse.xtext.parser.IParseResult;
 import org.eclipse.xtext.parser.IParser;
 import org.eclipse.xtext.parser.ParseException;
 import org.eclipse.xtext.parser.ParseResult;
+import org.eclipse.xtext.parser.ReparseDelta;
+import org.eclipse.xtext.parser.antlr.AbstractAntlrParser;
 import org.eclipse.xtext.parser.antlr.IPartialParsingHelper;
 import org.eclipse.xtext.parser.antlr.IReferableElementsUnloader;
 import org.eclipse.xtext.util.ReplaceRegion;
 import org.eclipse.xtext.util.XtextSwitch;
 
 import com.google.inject.Inject;
+import com.google.inject.name.Named;
 
 /**
  * @author Jan Khnlein - Initial contribution and API
@@ -68,8 +75,22 @@ public class PartialParsingHelper implements IPartialParsingHelper {
 	@Inject(optional=true)
 	private TokenRegionProvider tokenRegionProvider;
 
+	@Inject(optional=true)
+	private IncrementalLexer incrementalLexer;
+
+	/**
+	 * Whether the unchanged children of a reparsed node are reused, so the nodes and semantic elements that are not
+	 * affected by a change keep their identity. Disabled unless it is bound to <code>true</code>.
+	 * 
+	 * @since 2.15
+	 */
+	public static final String REUSE_UNCHANGED_NODES = "org.eclipse.xtext.parser.impl.PartialParsingHelper.reuseUnchangedNodes";
+
+	@Inject(optional = true)
+	@Named(REUSE_UNCHANGED_NODES)
+	private boolean reuseUnchangedNodes = false;
+
 	@Override
-	@SuppressWarnings({ "unchecked", "rawtypes" })
 	public IParseResult reparse(IParser parser, IParseResult previousParseResult, ReplaceRegion changedRegion) {
 		if (parser == null)
 			throw new NullPointerException("parser may not be null");
@@ -77,6 +98,10 @@ public class PartialParsingHelper implements IPartialParsingHelper {
 			throw new NullPointerException("previousParseResult and previousParseResult.rootNode may not be null");
 		}
 		ICompositeNode oldRootNode = previousParseResult.getRootNode();
+		if (oldRootNode instanceof CompactNode) {
+			oldRootNode = ((CompactNode) oldRootNode).getModel().inflate();
+			((ParseResult) previousParseResult).setRootNode(oldRootNode);
+		}
 		if (changedRegion.getEndOffset() > oldRootNode.getTotalLength()) {
 			log.error("Invalid " + changedRegion + " originalLength=" + oldRootNode.getTotalLength());
 			return fullyReparse(parser, previousParseResult, changedRegion);
@@ -84,12 +109,45 @@ public class PartialParsingHelper implements IPartialParsingHelper {
 		if (changedRegion.getOffset() >= oldRootNode.getTotalLength() && changedRegion.getText().trim().length() == 0) {
 			return fullyReparse(parser, previousParseResult, changedRegion);
 		}
-		ReplaceRegion replaceRegion;
-		if (tokenRegionProvider != null) {
-			replaceRegion = tokenRegionProvider.getTokenReplaceRegion(insertChangeIntoReplaceRegion(oldRootNode, changedRegion), changedRegion);
-		} else {
-			replaceRegion = changedRegion;
+		TokenSequence tokens = null;
+		ReplaceRegion replaceRegion = changedRegion;
+		if (tokenRegionProvider != null || incrementalLexer != null) {
+			String changedText = insertChangeIntoReplaceRegion(oldRootNode, changedRegion);
+			tokens = lex(previousParseResult, changedText, changedRegion);
+			if (tokenRegionProvider != null) {
+				if (tokens != null)
+					replaceRegion = tokenRegionProvider.getTokenReplaceRegion(tokens, changedText, changedRegion);
+				else
+					replaceRegion = tokenRegionProvider.getTokenReplaceRegion(changedText, changedRegion);
+			}
+		}
+		IParseResult result = reparse(parser, previousParseResult, oldRootNode, replaceRegion, tokens);
+		if (tokens != null && result instanceof ParseResult) {
+			((ParseResult) result).setTokenSequence(tokens);
 		}
+		return result;
+	}
+
+	/**
+	 * Lexes the changed text incrementally if the tokens of the previous text are known.
+	 * 
+	 * @return the tokens of the changed text or <code>null</code> if no {@link IncrementalLexer} is available.
+	 * @since 2.15
+	 */
+	protected TokenSequence lex(IParseResult previousParseResult, String changedText, ReplaceRegion changedRegion) {
+		if (incrementalLexer == null)
+			return null;
+		TokenSequence previousTokens = null;
+		if (previousParseResult instanceof ParseResult)
+			previousTokens = ((ParseResult) previousParseResult).getTokenSequence();
+		if (previousTokens != null)
+			return incrementalLexer.relex(previousTokens, changedText, changedRegion);
+		return incrementalLexer.lex(changedText);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private IParseResult reparse(IParser parser, IParseResult previousParseResult, ICompositeNode oldRootNode,
+			ReplaceRegion replaceRegion, TokenSequence tokens) {
 		if (isNullEdit(oldRootNode, replaceRegion)) {
 			return previousParseResult;
 		}
@@ -113,21 +171,36 @@ public class PartialParsingHelper implements IPartialParsingHelper {
 			}
 		}
 		if (oldCompositeNode == null || reparseRegion.equals("") || oldCompositeNode == oldRootNode) {
-			return fullyReparse(parser, previousParseResult, replaceRegion);
+			return fullyReparse(parser, previousParseResult, replaceRegion, tokens);
 		}
 		EObject entryRuleOrRuleCall = parsingPointers.findEntryRuleOrRuleCall(oldCompositeNode);
+		TokenSequence reparseTokens = null;
+		if (tokens != null && parser instanceof AbstractAntlrParser) {
+			int reparseOffset = oldCompositeNode.getTotalOffset();
+			reparseTokens = tokens.subSequence(reparseOffset, reparseOffset + reparseRegion.length());
+		}
 		IParseResult newParseResult = null;
 		try {
-			if (entryRuleOrRuleCall instanceof RuleCall)
-				newParseResult = parser.parse((RuleCall)entryRuleOrRuleCall, new StringReader(reparseRegion), oldCompositeNode.getLookAhead());
-			else
-				newParseResult = parser.parse((ParserRule)entryRuleOrRuleCall, new StringReader(reparseRegion));
+			if (entryRuleOrRuleCall instanceof RuleCall) {
+				if (reparseTokens != null)
+					newParseResult = ((AbstractAntlrParser) parser).parse((RuleCall)entryRuleOrRuleCall, reparseTokens, reparseRegion, oldCompositeNode.getLookAhead());
+				else
+					newParseResult = parser.parse((RuleCall)entryRuleOrRuleCall, new StringReader(reparseRegion), oldCompositeNode.getLookAhead());
+			} else {
+				if (reparseTokens != null)
+					newParseResult = ((AbstractAntlrParser) parser).parse((ParserRule)entryRuleOrRuleCall, reparseTokens, reparseRegion);
+				else
+					newParseResult = parser.parse((ParserRule)entryRuleOrRuleCall, new StringReader(reparseRegion));
+			}
 		} catch (ParseException exc) {
 		}
+		if (newParseResult != null && newParseResult.getRootNode() instanceof CompactNode) {
+			((ParseResult) newParseResult).setRootNode(((CompactNode) newParseResult.getRootNode()).getModel().inflate());
+		}
 		if (newParseResult == null || newParseResult.hasSyntaxErrors()) {
 			// TODO: Should we reparse if the complete input was parsed?
 			// on error fully reparse
-			return fullyReparse(parser, previousParseResult, replaceRegion);
+			return fullyReparse(parser, previousParseResult, replaceRegion, tokens);
 		}
 		if (oldRootNode.equals(oldCompositeNode)) {
 			unloadSemanticObject(previousParseResult.getRootASTElement());
@@ -148,15 +221,22 @@ public class PartialParsingHelper implements IPartialParsingHelper {
 					oldSemanticElement = enclosingNode.getSemanticElement();
 			}
 			if (oldSemanticElement == null)
-				return fullyReparse(parser, previousParseResult, replaceRegion);
+				return fullyReparse(parser, previousParseResult, replaceRegion, tokens);
 		}
 		if (oldSemanticElement == oldSemanticParentElement) {
 			throw new IllegalStateException("oldParent == oldElement");
 		}
+		if (oldSemanticParentElement != null && oldSemanticElement.eContainingFeature() == null) {
+			return fullyReparse(parser, previousParseResult, replaceRegion, tokens);
+		}
+		EObject newSemanticElement = newParseResult.getRootASTElement();
+		List<EObject> reusedElements = Collections.emptyList();
+		Map<INode, INode> reusedNodes = new LinkedHashMap<INode, INode>();
+		if (reuseUnchangedNodes) {
+			reusedElements = reuseUnchangedNodes(oldCompositeNode, oldSemanticElement, newParseResult, replaceRegion, reusedNodes);
+		}
 		if (oldSemanticParentElement != null) {
 			EStructuralFeature feature = oldSemanticElement.eContainingFeature();
-			if (feature == null)
-				return fullyReparse(parser, previousParseResult, replaceRegion);
 			oldSemanticParentElement = oldSemanticElement.eContainer();
 			if (feature.isMany()) {
 				List featureValueList = (List) oldSemanticParentElement.eGet(feature);
@@ -178,13 +258,107 @@ public class PartialParsingHelper implements IPartialParsingHelper {
 		}
 		if (oldCompositeNode != oldRootNode) {
 			nodeModelBuilder.replaceAndTransferLookAhead(oldCompositeNode, newParseResult.getRootNode());
+			for (Map.Entry<INode, INode> entry : reusedNodes.entrySet()) {
+				nodeModelBuilder.reuseNode(entry.getKey(), entry.getValue());
+			}
 			((ParseResult) newParseResult).setRootNode(oldRootNode);
 			StringBuilder builder = new StringBuilder(oldRootNode.getText());
 			replaceRegion.applyTo(builder);
 			nodeModelBuilder.setCompleteContent(oldRootNode, builder.toString());
 		} 
+		((ParseResult) newParseResult).setReparseDelta(new ReparseDelta(oldSemanticElement, newSemanticElement, reusedElements));
 		return newParseResult;
 	}
+
+	/**
+	 * Finds the children of the old composite node that are not affected by the change and are equivalent to the newly
+	 * parsed ones. The semantic elements of these nodes replace the newly created ones, so they keep their identity.
+	 * The nodes themselves are put into the new node model once it has replaced the old composite node.
+	 * 
+	 * @param reusedNodes
+	 *            receives the new nodes that should be replaced and the old nodes that replace them.
+	 * @return the reused semantic elements.
+	 * @since 2.15
+	 */
+	protected List<EObject> reuseUnchangedNodes(ICompositeNode oldCompositeNode, EObject oldSemanticElement,
+			IParseResult newParseResult, ReplaceRegion replaceRegion, Map<INode, INode> reusedNodes) {
+		List<INode> newRootChildren = nodeModelBuilder.getDirectChildren(newParseResult.getRootNode());
+		if (newRootChildren.isEmpty() || !(newRootChildren.get(0) instanceof ICompositeNode))
+			return Collections.emptyList();
+		INode newNode = newRootChildren.get(0);
+		EObject newSemanticElement = newParseResult.getRootASTElement();
+		List<INode> oldChildren = nodeModelBuilder.getDirectChildren(oldCompositeNode);
+		List<INode> newChildren = nodeModelBuilder.getDirectChildren((ICompositeNode) newNode);
+		int oldOffset = oldCompositeNode.getTotalOffset();
+		int delta = replaceRegion.getText().length() - replaceRegion.getLength();
+		int max = Math.min(oldChildren.size(), newChildren.size());
+		int prefix = 0;
+		while (prefix < max) {
+			INode oldChild = oldChildren.get(prefix);
+			INode newChild = newChildren.get(prefix);
+			if (oldChild.getTotalEndOffset() > replaceRegion.getOffset()
+					|| oldChild.getTotalOffset() - oldOffset != newChild.getTotalOffset()
+					|| !nodeModelBuilder.isEquivalent(oldChild, newChild))
+				break;
+			prefix++;
+		}
+		int suffix = 0;
+		while (prefix + suffix < max) {
+			INode oldChild = oldChildren.get(oldChildren.size() - 1 - suffix);
+			INode newChild = newChildren.get(newChildren.size() - 1 - suffix);
+			if (oldChild.getTotalOffset() < replaceRegion.getEndOffset()
+					|| oldChild.getTotalOffset() - oldOffset + delta != newChild.getTotalOffset()
+					|| !nodeModelBuilder.isEquivalent(oldChild, newChild))
+				break;
+			suffix++;
+		}
+		List<EObject> result = new ArrayList<EObject>();
+		for (int i = 0; i < prefix; i++) {
+			reuseNode(oldChildren.get(i), oldSemanticElement, newChildren.get(i), newSemanticElement, result, reusedNodes);
+		}
+		for (int i = 1; i <= suffix; i++) {
+			reuseNode(oldChildren.get(oldChildren.size() - i), oldSemanticElement,
+					newChildren.get(newChildren.size() - i), newSemanticElement, result, reusedNodes);
+		}
+		return result;
+	}
+
+	private void reuseNode(INode oldNode, EObject oldSemanticElement, INode newNode, EObject newSemanticElement,
+			List<EObject> reusedElements, Map<INode, INode> reusedNodes) {
+		if (oldNode.hasDirectSemanticElement() != newNode.hasDirectSemanticElement())
+			return;
+		if (oldNode.hasDirectSemanticElement()) {
+			EObject oldElement = oldNode.getSemanticElement();
+			EObject newElement = newNode.getSemanticElement();
+			if (oldElement == oldSemanticElement || newElement == newSemanticElement
+					|| oldElement.eClass() != newElement.eClass()
+					|| oldElement.eContainingFeature() != newElement.eContainingFeature()
+					|| !EcoreUtil.isAncestor(oldSemanticElement, oldElement)
+					|| !EcoreUtil.isAncestor(newSemanticElement, newElement)
+					|| !isSelfContained(oldNode, oldElement))
+				return;
+			EcoreUtil.replace(newElement, oldElement);
+			reusedElements.add(oldElement);
+		} else if (!isSelfContained(oldNode, null)) {
+			return;
+		}
+		reusedNodes.put(newNode, oldNode);
+	}
+
+	/**
+	 * Returns <code>true</code> if the semantic elements of all nodes below the given node are contained in the given
+	 * element.
+	 */
+	private boolean isSelfContained(INode node, EObject element) {
+		if (!(node instanceof ICompositeNode))
+			return true;
+		for (INode child : node.getAsTreeIterable()) {
+			if (child != node && child.hasDirectSemanticElement()
+					&& (element == null || !EcoreUtil.isAncestor(element, child.getSemanticElement())))
+				return false;
+		}
+		return true;
+	}
 	
 	private boolean isRangePartOfExceedingLookAhead(CompositeNode node, ReplaceRegion replaceRegion) {
 		TreeIterator<AbstractNode> iterator = node.basicIterator();
@@ -226,6 +400,23 @@ public class PartialParsingHelper implements IPartialParsingHelper {
 		return parser.parse(parserRule, new StringReader(reparseRegion));
 	}
 
+	/**
+	 * Parses the complete changed text. If the tokens of the changed text are known, they are fed to the parser instead
+	 * of lexing the text again.
+	 * 
+	 * @since 2.15
+	 */
+	protected IParseResult fullyReparse(IParser parser, IParseResult previousParseResult, ReplaceRegion replaceRegion, TokenSequence tokens) {
+		if (tokens == null || !(parser instanceof AbstractAntlrParser)) {
+			return fullyReparse(parser, previousParseResult, replaceRegion);
+		}
+		unloadSemanticObject(previousParseResult.getRootASTElement());
+		ICompositeNode node = previousParseResult.getRootNode();
+		ParserRule parserRule = NodeModelUtils.getEntryParserRule(node);
+		String reparseRegion = insertChangeIntoReplaceRegion(previousParseResult.getRootNode(), replaceRegion);
+		return ((AbstractAntlrParser) parser).parse(parserRule, tokens, reparseRegion);
+	}
+
 	public void unloadNode(INode node) {
 		if (node != null) {
 			EObject semantic = node.getSemanticElement();
@@ -615,4 +806,29 @@ public class PartialParsingHelper implements IPartialParsingHelper {
 		this.tokenRegionProvider = tokenRegionProvider;
 	}
 
+	/**
+	 * @since 2.15
+	 */
+	public void setIncrementalLexer(IncrementalLexer incrementalLexer) {
+		this.incrementalLexer = incrementalLexer;
+	}
+
+	/**
+	 * Enables or disables the reuse of the unchanged children of a reparsed node. If enabled, the nodes and semantic
+	 * elements that are not affected by a change keep their identity. The default can be bound with
+	 * {@link #REUSE_UNCHANGED_NODES}.
+	 * 
+	 * @since 2.15
+	 */
+	public void setReuseUnchangedNodes(boolean reuseUnchangedNodes) {
+		this.reuseUnchangedNodes = reuseUnchangedNodes;
+	}
+
+	/**
+	 * @since 2.15
+	 */
+	public boolean isReuseUnchangedNodes() {
+		return reuseUnchangedNodes;
+	}
+
 }
@@ -57,9 +57,25 @@ public class TokenRegionProvider {
 	}
 
 	public ReplaceRegion getTokenReplaceRegion(String changedText, ReplaceRegion replaceRegion) {
-		int lengthDelta = replaceRegion.getText().length() - replaceRegion.getLength();
 		ITextRegion tokenRegion = getTokenRegion(changedText, new TextRegion(replaceRegion.getOffset(), replaceRegion
 				.getText().length()));
+		return getTokenReplaceRegion(changedText, replaceRegion, tokenRegion);
+	}
+
+	/**
+	 * Expands the replace region like {@link #getTokenReplaceRegion(String, ReplaceRegion)} but uses the given tokens
+	 * of the changed text instead of lexing it again.
+	 * 
+	 * @since 2.15
+	 */
+	public ReplaceRegion getTokenReplaceRegion(TokenSequence changedTokens, String changedText, ReplaceRegion replaceRegion) {
+		ITextRegion tokenRegion = changedTokens.getTokenRegion(new TextRegion(replaceRegion.getOffset(), replaceRegion
+				.getText().length()));
+		return getTokenReplaceRegion(changedText, replaceRegion, tokenRegion);
+	}
+
+	private ReplaceRegion getTokenReplaceRegion(String changedText, ReplaceRegion replaceRegion, ITextRegion tokenRegion) {
+		int lengthDelta = replaceRegion.getText().length() - replaceRegion.getLength();
 		if (tokenRegion.getOffset() == replaceRegion.getOffset()
 				&& tokenRegion.getLength() == replaceRegion.getText().length())
 			return replaceRegion;
@@ -0,0 +1,250 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.parser.impl;
+
+import java.util.Arrays;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.CharStream;
+import org.antlr.runtime.CommonToken;
+import org.antlr.runtime.Token;
+import org.antlr.runtime.TokenSource;
+import org.eclipse.xtext.util.ITextRegion;
+import org.eclipse.xtext.util.TextRegion;
+
+/**
+ * The tokens of a text as produced by the runtime lexer of a language. The tokens are stored as arrays of their types,
+ * channels and offsets, so a sequence is considerably smaller than the corresponding list of {@link CommonToken
+ * tokens}. Sequences are immutable and can be {@link #createTokenSource(String) replayed} to a parser without lexing
+ * the text again.
+ *
+ * @see IncrementalLexer
+ * @since 2.15
+ */
+public class TokenSequence {
+
+	/**
+	 * Collects the tokens of a new sequence in the order of their offsets.
+	 */
+	public static class Builder {
+
+		private int[] types = new int[16];
+
+		private int[] channels = new int[16];
+
+		private int[] starts = new int[16];
+
+		private int[] stops = new int[16];
+
+		private int size;
+
+		private boolean hasErrors;
+
+		public void add(Token token) {
+			CommonToken commonToken = (CommonToken) token;
+			add(token.getType(), token.getChannel(), commonToken.getStartIndex(), commonToken.getStopIndex());
+		}
+
+		public void add(int type, int channel, int startIndex, int stopIndex) {
+			if (size == types.length) {
+				int newLength = size * 2;
+				types = Arrays.copyOf(types, newLength);
+				channels = Arrays.copyOf(channels, newLength);
+				starts = Arrays.copyOf(starts, newLength);
+				stops = Arrays.copyOf(stops, newLength);
+			}
+			types[size] = type;
+			channels[size] = channel;
+			starts[size] = startIndex;
+			stops[size] = stopIndex;
+			size++;
+			hasErrors |= type == Token.INVALID_TOKEN_TYPE;
+		}
+
+		/**
+		 * Adds the tokens <code>from</code> (inclusive) to <code>to</code> (exclusive) of the given sequence with their
+		 * offsets shifted by <code>delta</code>.
+		 */
+		public void addAll(TokenSequence sequence, int from, int to, int delta) {
+			for (int i = from; i < to; i++) {
+				add(sequence.types[i], sequence.channels[i], sequence.starts[i] + delta, sequence.stops[i] + delta);
+			}
+		}
+
+		public int size() {
+			return size;
+		}
+
+		public TokenSequence build() {
+			return new TokenSequence(Arrays.copyOf(types, size), Arrays.copyOf(channels, size),
+					Arrays.copyOf(starts, size), Arrays.copyOf(stops, size), hasErrors);
+		}
+	}
+
+	private final int[] types;
+
+	private final int[] channels;
+
+	private final int[] starts;
+
+	private final int[] stops;
+
+	private final boolean hasErrors;
+
+	protected TokenSequence(int[] types, int[] channels, int[] starts, int[] stops, boolean hasErrors) {
+		this.types = types;
+		this.channels = channels;
+		this.starts = starts;
+		this.stops = stops;
+		this.hasErrors = hasErrors;
+	}
+
+	public int size() {
+		return types.length;
+	}
+
+	public int getType(int index) {
+		return types[index];
+	}
+
+	public int getChannel(int index) {
+		return channels[index];
+	}
+
+	public int getStartIndex(int index) {
+		return starts[index];
+	}
+
+	/**
+	 * Returns the offset of the last character of the token at the given index.
+	 */
+	public int getStopIndex(int index) {
+		return stops[index];
+	}
+
+	/**
+	 * Returns <code>true</code> if the lexer failed to recognize some characters. The messages of these errors are not
+	 * kept, so such a sequence should not be {@link #createTokenSource(String) replayed} to a parser.
+	 */
+	public boolean hasErrors() {
+		return hasErrors;
+	}
+
+	/**
+	 * Returns the index of the first token that ends after the given offset, or {@link #size()} if there is no such
+	 * token.
+	 */
+	public int getFirstTokenEndingAfter(int offset) {
+		int low = 0;
+		int high = types.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (stops[mid] < offset)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+
+	/**
+	 * Expands the region such that it contains only complete tokens. The result is the same as the one of
+	 * {@link TokenRegionProvider#getTokenRegion(String, ITextRegion)} for the text of this sequence.
+	 */
+	public ITextRegion getTokenRegion(ITextRegion region) {
+		int regionStart = region.getOffset();
+		int regionEnd = regionStart + region.getLength();
+		int currentStart = 0;
+		int currentEnd = 0;
+		int index = getFirstTokenEndingAfter(regionStart);
+		if (index == types.length) {
+			index--;
+		}
+		if (index >= 0) {
+			currentStart = starts[index];
+			currentEnd = stops[index] + 1;
+			while (index + 1 < types.length && currentEnd < regionEnd) {
+				index++;
+				currentEnd = stops[index] + 1;
+			}
+		}
+		if (currentStart != regionStart || currentEnd != regionEnd)
+			return new TextRegion(currentStart, currentEnd - currentStart);
+		else
+			return region;
+	}
+
+	/**
+	 * Returns the tokens between the given offsets with offsets relative to <code>offset</code>, or <code>null</code> if
+	 * a token crosses one of the offsets.
+	 */
+	public TokenSequence subSequence(int offset, int endOffset) {
+		int from = getFirstTokenEndingAfter(offset);
+		if (from < types.length && starts[from] < offset)
+			return null;
+		int to = getFirstTokenEndingAfter(endOffset);
+		if (to < types.length && starts[to] < endOffset)
+			return null;
+		Builder result = new Builder();
+		result.addAll(this, from, to, -offset);
+		return result.build();
+	}
+
+	/**
+	 * Creates a token source that emits the tokens of this sequence for the given text. The text has to be the one
+	 * the tokens have been lexed from.
+	 */
+	public TokenSource createTokenSource(String text) {
+		return new ReplayingTokenSource(new ANTLRStringStream(text), text);
+	}
+
+	protected class ReplayingTokenSource implements TokenSource {
+
+		private final CharStream input;
+
+		private final String text;
+
+		private int index;
+
+		private int line = 1;
+
+		private int lineOffset;
+
+		private int scannedOffset;
+
+		protected ReplayingTokenSource(CharStream input, String text) {
+			this.input = input;
+			this.text = text;
+		}
+
+		@Override
+		public Token nextToken() {
+			if (index == types.length) {
+				return Token.EOF_TOKEN;
+			}
+			int start = starts[index];
+			for (; scannedOffset < start; scannedOffset++) {
+				if (text.charAt(scannedOffset) == '\n') {
+					line++;
+					lineOffset = scannedOffset + 1;
+				}
+			}
+			CommonToken result = new CommonToken(input, types[index], channels[index], start, stops[index]);
+			result.setLine(line);
+			result.setCharPositionInLine(start - lineOffset);
+			index++;
+			return result;
+		}
+
+		@Override
+		public String getSourceName() {
+			return input.getSourceName();
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2009, 2018 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -8,6 +8,7 @@
 package org.eclipse.xtext.resource;
 
 import java.util.Collections;
+import java.util.Set;
 
 import org.eclipse.emf.common.notify.Notifier;
 import org.eclipse.emf.common.util.URI;
@@ -44,6 +45,27 @@ public interface IResourceDescriptions extends ISelectable {
 		void setContext(Notifier ctx);
 	}
 
+	/**
+	 * An instance of {@link IResourceDescriptions} that knows which resources refer to an object, so clients do not
+	 * have to visit the {@link IResourceDescription#getReferenceDescriptions() references} of all resources.
+	 * 
+	 * @since 2.15
+	 */
+	interface IReferenceIndex extends IResourceDescriptions {
+
+		/**
+		 * Returns the URIs of the resources that have a {@link IResourceDescription#getReferenceDescriptions()
+		 * reference} to an object of the resource with the given URI.
+		 */
+		Set<URI> getReferencingResources(URI resourceURI);
+
+		/**
+		 * Returns the URIs of the resources that have a {@link IResourceDescription#getReferenceDescriptions()
+		 * reference} to the object with the given {@link IReferenceDescription#getTargetEObjectUri() URI}.
+		 */
+		Set<URI> getResourcesReferencingEObject(URI objectURI);
+	}
+
 	class NullImpl implements IResourceDescriptions {
 
 		@Override
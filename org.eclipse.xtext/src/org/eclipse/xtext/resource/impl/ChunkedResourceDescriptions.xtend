@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015, 2016 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2015, 2018 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -16,6 +16,7 @@ import java.io.Serializable
 import java.util.ArrayList
 import java.util.HashMap
 import java.util.Map
+import java.util.Set
 import java.util.concurrent.ConcurrentHashMap
 import org.eclipse.emf.common.util.URI
 import org.eclipse.emf.ecore.resource.ResourceSet
@@ -37,7 +38,7 @@ import org.eclipse.xtext.util.internal.EmfAdaptable
  * @since 2.9
  */
 @Beta
-@EmfAdaptable class ChunkedResourceDescriptions extends AbstractCompoundSelectable implements IResourceDescriptions, Externalizable {
+@EmfAdaptable class ChunkedResourceDescriptions extends AbstractCompoundSelectable implements IResourceDescriptions.IReferenceIndex, Externalizable {
 	
 	protected ConcurrentHashMap<String, ResourceDescriptionsData> chunk2resourceDescriptions = new ConcurrentHashMap;
 	
@@ -89,8 +90,12 @@ import org.eclipse.xtext.util.internal.EmfAdaptable
 		return chunk2resourceDescriptions.values
 	}
 	
-	override getAllResourceDescriptions() {
-		chunk2resourceDescriptions.values.map[it.getAllResourceDescriptions()].flatten
+	/**
+	 * Returns the descriptions of one chunk after the other. A chunk is only asked for its descriptions when an iteration
+	 * reaches it, so {@link PagedResourceDescriptionsData paged out} chunks are read one at a time.
+	 */
+	override Iterable<IResourceDescription> getAllResourceDescriptions() {
+		return [chunk2resourceDescriptions.values.iterator.map[allResourceDescriptions.iterator].flatten]
 	}
 	
 	override getResourceDescription(URI uri) {
@@ -115,6 +120,28 @@ import org.eclipse.xtext.util.internal.EmfAdaptable
 		return chunk2resourceDescriptions.get(containerHandle)
 	}
 	
+	/**
+	 * @since 2.15
+	 */
+	override Set<URI> getReferencingResources(URI resourceURI) {
+		val result = <URI>newLinkedHashSet
+		for (container : chunk2resourceDescriptions.values) {
+			result += container.getReferencingResources(resourceURI)
+		}
+		return result
+	}
+	
+	/**
+	 * @since 2.15
+	 */
+	override Set<URI> getResourcesReferencingEObject(URI objectURI) {
+		val result = <URI>newLinkedHashSet
+		for (container : chunk2resourceDescriptions.values) {
+			result += container.getResourcesReferencingEObject(objectURI)
+		}
+		return result
+	}
+	
 	override readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
 		val numChunks = in.readInt
 		for(i: 0..<numChunks) {
@@ -97,8 +97,12 @@ public class DefaultResourceDescription extends AbstractResourceDescription {
 		EcoreUtil2.resolveLazyCrossReferences(resource, CancelIndicator.NullImpl);
 		ImportedNamesAdapter adapter = ImportedNamesAdapter.find(getResource());
 		if (adapter != null) {
-			ImmutableSet<QualifiedName> result = ImmutableSet.copyOf(adapter.getImportedNames());
-			return result;
+			// the same names are imported by many resources
+			ImmutableSet.Builder<QualifiedName> result = ImmutableSet.builder();
+			for (QualifiedName importedName : adapter.getImportedNames()) {
+				result.add(importedName.intern());
+			}
+			return result.build();
 		}
 		return Collections.emptySet();
 	}
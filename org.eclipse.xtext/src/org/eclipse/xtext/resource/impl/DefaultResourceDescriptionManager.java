@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2009, 2018 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -54,6 +54,8 @@ public class DefaultResourceDescriptionManager implements IResourceDescription.M
 	
 	private static final String CACHE_KEY = DefaultResourceDescriptionManager.class.getName() + "#getResourceDescription";
 	
+	private volatile Boolean candidateLookupSupported;
+	
 	@Override
 	public IResourceDescription getResourceDescription(final Resource resource) {
 		return cache.get(CACHE_KEY, resource, new Provider<IResourceDescription>() {
@@ -150,6 +152,70 @@ public class DefaultResourceDescriptionManager implements IResourceDescription.M
         }
         return false;
     }
+    
+	/**
+	 * Returns the URIs of the resources in the given index that may be affected by the given deltas according to
+	 * {@link #isAffected(Collection, IResourceDescription, IResourceDescriptions)}, i.e. the resources that refer to
+	 * one of the changed resources or import a name that is exported by one of the deltas. The candidates are looked up
+	 * in the reverse dependency index of the given data, so the result is a superset of the affected resources.
+	 * <p>
+	 * Returns <code>null</code>, which means that every resource has to be checked, unless the
+	 * {@link #isCandidateLookupSupported() lookup is supported} by this manager.
+	 * </p>
+	 * 
+	 * @since 2.15
+	 */
+	public Set<URI> getAffectedCandidates(Collection<Delta> deltas, ResourceDescriptionsData index) {
+		if (!isCandidateLookupSupported()) {
+			return null;
+		}
+		Set<URI> result = Sets.newHashSet();
+		Set<QualifiedName> names = Sets.newHashSet();
+		for (IResourceDescription.Delta delta : deltas) {
+			result.addAll(index.getReferencingResources(delta.getUri()));
+			addExportedNames(names, delta.getOld());
+			addExportedNames(names, delta.getNew());
+		}
+		for (QualifiedName name : names) {
+			result.addAll(index.getImportingResources(name));
+		}
+		return result;
+	}
+
+	/**
+	 * Whether {@link #getAffectedCandidates(Collection, ResourceDescriptionsData)} may look up the candidates in the
+	 * reverse dependency index. The index records the {@link IResourceDescription#getImportedNames() imported names}
+	 * and references of the descriptions as they are, so this is only the case if the class of this manager does not
+	 * override one of the methods that decide whether a resource is affected. Subclasses may return <code>true</code>
+	 * if their overrides only narrow the set of affected resources.
+	 * 
+	 * @since 2.15
+	 */
+	protected boolean isCandidateLookupSupported() {
+		Boolean result = candidateLookupSupported;
+		if (result == null) {
+			result = !overrides("isAffected", Delta.class, IResourceDescription.class)
+					&& !overrides("isAffected", Collection.class, IResourceDescription.class, IResourceDescriptions.class)
+					&& !overrides("isAffected", Collection.class, IResourceDescription.class)
+					&& !overrides("hasChanges", Delta.class, IResourceDescription.class)
+					&& !overrides("getImportedNames", IResourceDescription.class)
+					&& !overrides("addExportedNames", Set.class, IResourceDescription.class);
+			candidateLookupSupported = result;
+		}
+		return result;
+	}
+
+	private boolean overrides(String methodName, Class<?>... parameterTypes) {
+		for (Class<?> type = getClass(); type != DefaultResourceDescriptionManager.class; type = type.getSuperclass()) {
+			try {
+				type.getDeclaredMethod(methodName, parameterTypes);
+				return true;
+			} catch (NoSuchMethodException e) {
+				// check the super class
+			}
+		}
+		return false;
+	}
 
 	/**
 	 * Whether the given delta is considered to have changed from the candidate's perspective. By default this will just call
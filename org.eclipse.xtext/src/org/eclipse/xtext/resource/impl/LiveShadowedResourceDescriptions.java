@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2011, 2018 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,7 +7,9 @@
  *******************************************************************************/
 package org.eclipse.xtext.resource.impl;
 
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.emf.common.notify.Notifier;
 import org.eclipse.emf.common.util.URI;
@@ -19,6 +21,7 @@ import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
 import org.eclipse.xtext.EcoreUtil2;
 import org.eclipse.xtext.naming.QualifiedName;
 import org.eclipse.xtext.resource.IEObjectDescription;
+import org.eclipse.xtext.resource.IReferenceDescription;
 import org.eclipse.xtext.resource.IResourceDescription;
 import org.eclipse.xtext.resource.IResourceDescriptions;
 import org.eclipse.xtext.resource.ISelectable;
@@ -42,7 +45,7 @@ import com.google.inject.Provider;
  * 
  * @since 2.1
  */
-public class LiveShadowedResourceDescriptions extends ResourceSetBasedResourceDescriptions implements IShadowedResourceDescriptions {
+public class LiveShadowedResourceDescriptions extends ResourceSetBasedResourceDescriptions implements IShadowedResourceDescriptions, IResourceDescriptions.IReferenceIndex {
 	
 	@Inject
 	private ResourceSetBasedResourceDescriptions localDescriptions;
@@ -190,6 +193,60 @@ public class LiveShadowedResourceDescriptions extends ResourceSetBasedResourceDe
 		this.localDescriptions = localDescriptions;
 	}
 
+	/**
+	 * @since 2.15
+	 */
+	@Override
+	public Set<URI> getReferencingResources(URI resourceURI) {
+		final URI targetResourceURI = resourceURI.trimFragment();
+		Set<URI> indexed = null;
+		if (globalDescriptions instanceof IReferenceIndex)
+			indexed = ((IReferenceIndex) globalDescriptions).getReferencingResources(targetResourceURI);
+		Set<URI> result = collectReferencingResources(indexed, targetURI -> targetResourceURI.equals(targetURI.trimFragment()));
+		result.remove(targetResourceURI);
+		return result;
+	}
+
+	/**
+	 * @since 2.15
+	 */
+	@Override
+	public Set<URI> getResourcesReferencingEObject(URI objectURI) {
+		Set<URI> indexed = null;
+		if (globalDescriptions instanceof IReferenceIndex)
+			indexed = ((IReferenceIndex) globalDescriptions).getResourcesReferencingEObject(objectURI);
+		return collectReferencingResources(indexed, targetURI -> objectURI.equals(targetURI));
+	}
+
+	/**
+	 * Combines the referencing resources of the global index that are not shadowed with the live resources that
+	 * refer to a matching target. If the global descriptions are not an {@link IReferenceIndex}, all descriptions are
+	 * visited.
+	 */
+	private Set<URI> collectReferencingResources(Set<URI> indexed, Predicate<URI> isTarget) {
+		Set<URI> result = new LinkedHashSet<URI>();
+		Iterable<IResourceDescription> candidates;
+		if (indexed != null) {
+			for (URI uri : indexed) {
+				if (!isExistingOrRenamedResourceURI(uri))
+					result.add(uri);
+			}
+			candidates = localDescriptions.getAllResourceDescriptions();
+		} else {
+			candidates = getAllResourceDescriptions();
+		}
+		for (IResourceDescription description : candidates) {
+			for (IReferenceDescription reference : description.getReferenceDescriptions()) {
+				URI targetURI = reference.getTargetEObjectUri();
+				if (targetURI != null && isTarget.apply(targetURI)) {
+					result.add(description.getURI());
+					break;
+				}
+			}
+		}
+		return result;
+	}
+
 	@Override
 	public boolean isShadowed(EClass type, QualifiedName name, boolean ignoreCase) {
 		return !Iterables.isEmpty(localDescriptions.getExportedObjects(type, name, ignoreCase))
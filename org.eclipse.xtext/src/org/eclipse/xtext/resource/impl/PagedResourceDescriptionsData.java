@@ -0,0 +1,283 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.resource.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.eclipse.xtext.resource.IResourceDescription;
+import org.eclipse.xtext.xbase.lib.Exceptions;
+
+import com.google.common.annotations.Beta;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * An index chunk whose contents can be paged out by a {@link ResourceDescriptionsPager}. The URIs of the resources
+ * and the hash codes of the exported names stay in memory, so queries for resources or names that the chunk does not
+ * contain are answered without reading the page file. All other queries read the contents back into memory.
+ * <p>
+ * Modifications are supported, but they make the chunk resident until it is paged out again. {@link #copy() Copies}
+ * are plain {@link ResourceDescriptionsData}.
+ *
+ * @since 2.15
+ */
+@Beta
+public class PagedResourceDescriptionsData extends ResourceDescriptionsData {
+
+	private final ResourceDescriptionsPager pager;
+
+	private final String name;
+
+	private volatile ResourceDescriptionsData data;
+
+	private volatile long lastAccess;
+
+	private volatile Set<URI> uris;
+
+	// the sorted hash codes of the lower case exported names
+	private volatile int[] nameHashes;
+
+	private File pageFile;
+
+	private boolean dirty = true;
+
+	private boolean released;
+
+	protected PagedResourceDescriptionsData(ResourceDescriptionsPager pager, String name, ResourceDescriptionsData data) {
+		super(new LinkedHashMap<URI, IResourceDescription>(), new PersistentHashMap<QualifiedName, Object>(IGNORE_CASE),
+				new ReverseDependencyIndex(Collections.<URI>emptySet()));
+		this.pager = pager;
+		this.name = name;
+		this.data = data;
+		this.lastAccess = pager.tick();
+		updateResidentInfo(data);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns <code>true</code> if the contents of this chunk are in memory.
+	 */
+	public boolean isResident() {
+		return data != null;
+	}
+
+	protected long getLastAccess() {
+		return lastAccess;
+	}
+
+	/**
+	 * Returns the contents of this chunk and reads them from the page file if they have been paged out.
+	 */
+	protected ResourceDescriptionsData load() {
+		lastAccess = pager.tick();
+		ResourceDescriptionsData result = data;
+		if (result != null) {
+			return result;
+		}
+		File obsoletePageFile = null;
+		synchronized (this) {
+			result = data;
+			if (result == null) {
+				try {
+					result = pager.read(pageFile);
+				} catch (IOException | ClassNotFoundException e) {
+					throw Exceptions.sneakyThrow(e);
+				}
+				data = result;
+				if (released) {
+					// a released chunk is not paged out again
+					obsoletePageFile = pageFile;
+					pageFile = null;
+				}
+			}
+		}
+		if (obsoletePageFile != null) {
+			pager.recyclePageFile(obsoletePageFile);
+		} else if (!isReleased()) {
+			pager.pagedIn(this);
+		}
+		return result;
+	}
+
+	/**
+	 * Marks this chunk as released by the {@link ResourceDescriptionsPager pager}. It is not paged out anymore, so its
+	 * page file is returned if the contents are in memory. Otherwise the page file is returned to the pager once the
+	 * contents have been read back.
+	 * 
+	 * @return the page file that is not needed anymore or <code>null</code>.
+	 */
+	protected synchronized File release() {
+		released = true;
+		if (data == null) {
+			return null;
+		}
+		File result = pageFile;
+		pageFile = null;
+		return result;
+	}
+
+	protected synchronized boolean isReleased() {
+		return released;
+	}
+
+	/**
+	 * Writes the contents of this chunk to its page file unless they are unchanged since they have been read, and
+	 * drops them from memory. Returns <code>false</code> if the page file could not be written.
+	 */
+	protected synchronized boolean pageOut() {
+		ResourceDescriptionsData current = data;
+		if (current == null || released) {
+			return true;
+		}
+		if (dirty) {
+			try {
+				if (pageFile == null) {
+					pageFile = pager.createPageFile(name);
+				}
+				pager.write(pageFile, current);
+			} catch (IOException e) {
+				pager.handlePageOutFailure(name, e);
+				return false;
+			}
+			dirty = false;
+		}
+		data = null;
+		return true;
+	}
+
+	protected boolean mayContainName(QualifiedName qualifiedName) {
+		return Arrays.binarySearch(nameHashes, qualifiedName.toLowerCase().hashCode()) >= 0;
+	}
+
+	private void updateResidentInfo(ResourceDescriptionsData current) {
+		uris = ImmutableSet.copyOf(current.getAllURIs());
+		int[] hashes = new int[16];
+		int size = 0;
+		for (IResourceDescription description : current.getAllResourceDescriptions()) {
+			for (IEObjectDescription object : description.getExportedObjects()) {
+				if (size == hashes.length) {
+					hashes = Arrays.copyOf(hashes, size * 2);
+				}
+				hashes[size++] = object.getName().toLowerCase().hashCode();
+			}
+		}
+		hashes = Arrays.copyOf(hashes, size);
+		Arrays.sort(hashes);
+		nameHashes = hashes;
+	}
+
+	@Override
+	public ResourceDescriptionsData copy() {
+		return load().copy();
+	}
+
+	@Deprecated
+	@Override
+	protected Map<QualifiedName, Object> copyLookupMap() {
+		return load().copyLookupMap();
+	}
+
+	/**
+	 * Returns the descriptions of this chunk. The contents are only read when the descriptions are iterated, so
+	 * holding on to the result does not keep them in memory.
+	 */
+	@Override
+	public Iterable<IResourceDescription> getAllResourceDescriptions() {
+		return () -> load().getAllResourceDescriptions().iterator();
+	}
+
+	@Override
+	public IResourceDescription getResourceDescription(URI uri) {
+		if (!uris.contains(uri)) {
+			return null;
+		}
+		return load().getResourceDescription(uri);
+	}
+
+	@Override
+	public Iterable<IEObjectDescription> getExportedObjects(EClass type, QualifiedName qualifiedName, boolean ignoreCase) {
+		if (!mayContainName(qualifiedName)) {
+			return Collections.emptyList();
+		}
+		return load().getExportedObjects(type, qualifiedName, ignoreCase);
+	}
+
+	@Override
+	protected Iterable<IResourceDescription> getSelectables() {
+		return load().getSelectables();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return uris.isEmpty();
+	}
+
+	@Override
+	public Set<URI> getAllURIs() {
+		return uris;
+	}
+
+	@Override
+	public Set<URI> getImportingResources(QualifiedName importedName) {
+		return load().getImportingResources(importedName);
+	}
+
+	@Override
+	public Set<URI> getReferencingResources(URI resourceURI) {
+		return load().getReferencingResources(resourceURI);
+	}
+
+	@Override
+	public Set<URI> getResourcesReferencingEObject(URI objectURI) {
+		return load().getResourcesReferencingEObject(objectURI);
+	}
+
+	@Override
+	public void addDescription(URI uri, IResourceDescription newDescription) {
+		modify(current -> current.addDescription(uri, newDescription));
+	}
+
+	@Override
+	public void removeDescription(URI uri) {
+		modify(current -> current.removeDescription(uri));
+	}
+
+	private void modify(Consumer<ResourceDescriptionsData> modification) {
+		while (true) {
+			// loading may page out other chunks, so it must not happen while this chunk is locked
+			ResourceDescriptionsData current = load();
+			synchronized (this) {
+				if (data == current) {
+					modification.accept(current);
+					dirty = true;
+					updateResidentInfo(current);
+					return;
+				}
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + " [" + name + ", " + (isResident() ? "resident" : "paged out") + "]";
+	}
+
+}
@@ -0,0 +1,389 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.resource.impl;
+
+import java.util.function.BiConsumer;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Equivalence;
+import com.google.common.base.Preconditions;
+
+/**
+ * A hash map that can be {@link #copy() copied} in constant time. It is implemented as a hash array mapped trie whose
+ * nodes are shared between a map and its copies. A shared node is copied on its first modification, so modifying a
+ * copy costs time proportional to the number of changes, not to the size of the map.
+ * <p>
+ * Keys are compared and hashed with an {@link Equivalence} which allows to look up entries with keys that are only
+ * equivalent to the stored ones, e.g. qualified names that differ in case. Neither keys nor values may be
+ * <code>null</code>. Instances are not thread-safe, but a copy can be read while the original is modified and vice
+ * versa.
+ *
+ * @since 2.15
+ */
+@Beta
+public class PersistentHashMap<K, V> {
+
+	private static final int BITS = 5;
+
+	private static final int MASK = (1 << BITS) - 1;
+
+	private static final Object[] EMPTY_ARRAY = new Object[0];
+
+	private final Equivalence<Object> equivalence;
+
+	private Node root;
+
+	private int size;
+
+	/**
+	 * The nodes that have been created by this map since it was copied for the last time. Only these nodes may be
+	 * modified in place.
+	 */
+	private Object owner = new Object();
+
+	public PersistentHashMap() {
+		this(Equivalence.equals());
+	}
+
+	public PersistentHashMap(Equivalence<Object> equivalence) {
+		this(equivalence, null, 0);
+	}
+
+	private PersistentHashMap(Equivalence<Object> equivalence, Node root, int size) {
+		this.equivalence = equivalence;
+		this.root = root;
+		this.size = size;
+	}
+
+	/**
+	 * Returns a map with the same entries that shares the structure of this map. Subsequent modifications of either map
+	 * are not visible in the other one.
+	 */
+	public PersistentHashMap<K, V> copy() {
+		owner = new Object();
+		return new PersistentHashMap<K, V>(equivalence, root, size);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V get(Object key) {
+		if (root == null)
+			return null;
+		return (V) root.find(0, hash(key), key, equivalence);
+	}
+
+	public boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+
+	/**
+	 * Associates the value with the given key. If the map already contains an equivalent key, the existing key is
+	 * kept.
+	 *
+	 * @return the previous value or <code>null</code>.
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(K key, V value) {
+		Preconditions.checkNotNull(key);
+		Preconditions.checkNotNull(value);
+		Change change = new Change();
+		Node node = root != null ? root : new BitmapNode(owner, 0, EMPTY_ARRAY);
+		root = node.put(owner, 0, hash(key), key, value, change, equivalence);
+		if (change.oldValue == null)
+			size++;
+		return (V) change.oldValue;
+	}
+
+	/**
+	 * @return the removed value or <code>null</code> if the map did not contain the key.
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(Object key) {
+		if (root == null)
+			return null;
+		Change change = new Change();
+		root = root.remove(owner, 0, hash(key), key, change, equivalence);
+		if (change.oldValue != null)
+			size--;
+		return (V) change.oldValue;
+	}
+
+	public void clear() {
+		root = null;
+		size = 0;
+	}
+
+	/**
+	 * Passes all entries to the given consumer. The order of the entries is unspecified.
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEach(BiConsumer<? super K, ? super V> consumer) {
+		if (root != null)
+			root.forEach((BiConsumer<Object, Object>) consumer);
+	}
+
+	private int hash(Object key) {
+		int h = equivalence.hash(key);
+		return h ^ (h >>> 16);
+	}
+
+	private static int bit(int hash, int shift) {
+		return 1 << ((hash >>> shift) & MASK);
+	}
+
+	private static Node createNode(Object owner, int shift, Object key1, Object value1, int hash2, Object key2,
+			Object value2, Equivalence<Object> equivalence) {
+		int hash1 = equivalence.hash(key1);
+		hash1 = hash1 ^ (hash1 >>> 16);
+		if (hash1 == hash2)
+			return new CollisionNode(owner, hash1, new Object[] { key1, value1, key2, value2 });
+		Change change = new Change();
+		return new BitmapNode(owner, 0, EMPTY_ARRAY)
+				.put(owner, shift, hash1, key1, value1, change, equivalence)
+				.put(owner, shift, hash2, key2, value2, change, equivalence);
+	}
+
+	private static Object[] insertPair(Object[] array, int index, Object key, Object value) {
+		Object[] result = new Object[array.length + 2];
+		System.arraycopy(array, 0, result, 0, index);
+		result[index] = key;
+		result[index + 1] = value;
+		System.arraycopy(array, index, result, index + 2, array.length - index);
+		return result;
+	}
+
+	private static Object[] removePair(Object[] array, int index) {
+		Object[] result = new Object[array.length - 2];
+		System.arraycopy(array, 0, result, 0, index);
+		System.arraycopy(array, index + 2, result, index, result.length - index);
+		return result;
+	}
+
+	private static class Change {
+		private Object oldValue;
+	}
+
+	private static abstract class Node {
+
+		protected final Object owner;
+
+		protected Object[] array;
+
+		protected Node(Object owner, Object[] array) {
+			this.owner = owner;
+			this.array = array;
+		}
+
+		abstract Object find(int shift, int hash, Object key, Equivalence<Object> equivalence);
+
+		abstract Node put(Object owner, int shift, int hash, Object key, Object value, Change change,
+				Equivalence<Object> equivalence);
+
+		/**
+		 * @return the node without the key or <code>null</code> if the node became empty.
+		 */
+		abstract Node remove(Object owner, int shift, int hash, Object key, Change change,
+				Equivalence<Object> equivalence);
+
+		void forEach(BiConsumer<Object, Object> consumer) {
+			for (int i = 0; i < array.length; i += 2) {
+				Object key = array[i];
+				if (key == null) {
+					((Node) array[i + 1]).forEach(consumer);
+				} else {
+					consumer.accept(key, array[i + 1]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stores pairs of keys and values in an array that is indexed by a bitmap of the used hash fragments. A pair with
+	 * a <code>null</code> key refers to a sub node for the next hash fragment instead.
+	 */
+	private static class BitmapNode extends Node {
+
+		private int bitmap;
+
+		BitmapNode(Object owner, int bitmap, Object[] array) {
+			super(owner, array);
+			this.bitmap = bitmap;
+		}
+
+		private int index(int bit) {
+			return 2 * Integer.bitCount(bitmap & (bit - 1));
+		}
+
+		@Override
+		Object find(int shift, int hash, Object key, Equivalence<Object> equivalence) {
+			int bit = bit(hash, shift);
+			if ((bitmap & bit) == 0)
+				return null;
+			int index = index(bit);
+			Object existingKey = array[index];
+			if (existingKey == null)
+				return ((Node) array[index + 1]).find(shift + BITS, hash, key, equivalence);
+			if (equivalence.equivalent(existingKey, key))
+				return array[index + 1];
+			return null;
+		}
+
+		@Override
+		Node put(Object owner, int shift, int hash, Object key, Object value, Change change,
+				Equivalence<Object> equivalence) {
+			int bit = bit(hash, shift);
+			int index = index(bit);
+			if ((bitmap & bit) == 0) {
+				Object[] newArray = insertPair(array, index, key, value);
+				if (owner == this.owner) {
+					bitmap |= bit;
+					array = newArray;
+					return this;
+				}
+				return new BitmapNode(owner, bitmap | bit, newArray);
+			}
+			Object existingKey = array[index];
+			Object existingValue = array[index + 1];
+			if (existingKey == null) {
+				Node node = ((Node) existingValue).put(owner, shift + BITS, hash, key, value, change, equivalence);
+				if (node == existingValue)
+					return this;
+				return set(owner, index, null, node);
+			}
+			if (equivalence.equivalent(existingKey, key)) {
+				change.oldValue = existingValue;
+				if (existingValue == value)
+					return this;
+				return set(owner, index, existingKey, value);
+			}
+			Node node = createNode(owner, shift + BITS, existingKey, existingValue, hash, key, value, equivalence);
+			return set(owner, index, null, node);
+		}
+
+		@Override
+		Node remove(Object owner, int shift, int hash, Object key, Change change, Equivalence<Object> equivalence) {
+			int bit = bit(hash, shift);
+			if ((bitmap & bit) == 0)
+				return this;
+			int index = index(bit);
+			Object existingKey = array[index];
+			Object existingValue = array[index + 1];
+			if (existingKey == null) {
+				Node node = ((Node) existingValue).remove(owner, shift + BITS, hash, key, change, equivalence);
+				if (node == existingValue)
+					return this;
+				if (node != null) {
+					if (node.array.length == 2 && node.array[0] != null) {
+						// inline the single remaining entry of the sub node
+						return set(owner, index, node.array[0], node.array[1]);
+					}
+					return set(owner, index, null, node);
+				}
+			} else if (equivalence.equivalent(existingKey, key)) {
+				change.oldValue = existingValue;
+			} else {
+				return this;
+			}
+			if (bitmap == bit)
+				return null;
+			Object[] newArray = removePair(array, index);
+			if (owner == this.owner) {
+				bitmap ^= bit;
+				array = newArray;
+				return this;
+			}
+			return new BitmapNode(owner, bitmap ^ bit, newArray);
+		}
+
+		private Node set(Object owner, int index, Object key, Object value) {
+			BitmapNode result = this;
+			if (owner != this.owner)
+				result = new BitmapNode(owner, bitmap, array.clone());
+			result.array[index] = key;
+			result.array[index + 1] = value;
+			return result;
+		}
+	}
+
+	/**
+	 * Stores the pairs of keys and values whose hashes are equal.
+	 */
+	private static class CollisionNode extends Node {
+
+		private final int hash;
+
+		CollisionNode(Object owner, int hash, Object[] array) {
+			super(owner, array);
+			this.hash = hash;
+		}
+
+		private int indexOf(Object key, Equivalence<Object> equivalence) {
+			for (int i = 0; i < array.length; i += 2) {
+				if (equivalence.equivalent(array[i], key))
+					return i;
+			}
+			return -1;
+		}
+
+		@Override
+		Object find(int shift, int hash, Object key, Equivalence<Object> equivalence) {
+			if (hash != this.hash)
+				return null;
+			int index = indexOf(key, equivalence);
+			return index >= 0 ? array[index + 1] : null;
+		}
+
+		@Override
+		Node put(Object owner, int shift, int hash, Object key, Object value, Change change,
+				Equivalence<Object> equivalence) {
+			if (hash != this.hash) {
+				BitmapNode parent = new BitmapNode(owner, bit(this.hash, shift), new Object[] { null, this });
+				return parent.put(owner, shift, hash, key, value, change, equivalence);
+			}
+			int index = indexOf(key, equivalence);
+			if (index >= 0) {
+				change.oldValue = array[index + 1];
+				if (change.oldValue == value)
+					return this;
+				Object[] newArray = owner == this.owner ? array : array.clone();
+				newArray[index + 1] = value;
+				return update(owner, newArray);
+			}
+			return update(owner, insertPair(array, array.length, key, value));
+		}
+
+		@Override
+		Node remove(Object owner, int shift, int hash, Object key, Change change, Equivalence<Object> equivalence) {
+			if (hash != this.hash)
+				return this;
+			int index = indexOf(key, equivalence);
+			if (index < 0)
+				return this;
+			change.oldValue = array[index + 1];
+			if (array.length == 2)
+				return null;
+			return update(owner, removePair(array, index));
+		}
+
+		private Node update(Object owner, Object[] newArray) {
+			if (owner == this.owner) {
+				array = newArray;
+				return this;
+			}
+			return new CollisionNode(owner, hash, newArray);
+		}
+	}
+
+}
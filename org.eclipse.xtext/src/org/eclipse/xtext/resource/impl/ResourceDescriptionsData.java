@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2016 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2010, 2018 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -28,6 +28,7 @@ import org.eclipse.xtext.resource.IResourceDescription.Delta;
 import org.eclipse.xtext.resource.IResourceDescriptions;
 
 import com.google.common.annotations.Beta;
+import com.google.common.base.Equivalence;
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
@@ -41,7 +42,7 @@ import com.google.common.collect.Sets;
  * @since 2.5
  * 
  */
-@Beta public class ResourceDescriptionsData extends AbstractCompoundSelectable implements IResourceDescriptions {
+@Beta public class ResourceDescriptionsData extends AbstractCompoundSelectable implements IResourceDescriptions.IReferenceIndex {
 	
 	public static class ResourceSetAdapter extends AdapterImpl {
 		
@@ -80,15 +81,45 @@ import com.google.common.collect.Sets;
 		}
 	}
 
+	/**
+	 * Compares qualified names case insensitively. Lookups with names that consist of ASCII characters don't have to
+	 * create the lower case representation of the name.
+	 */
+	static final Equivalence<Object> IGNORE_CASE = new Equivalence<Object>() {
+		@Override
+		protected boolean doEquivalent(Object a, Object b) {
+			return ((QualifiedName) a).equalsIgnoreCase(b);
+		}
+
+		@Override
+		protected int doHash(Object name) {
+			return ((QualifiedName) name).lowerCaseHashCode();
+		}
+	};
+
 	private final Map<URI, IResourceDescription> resourceDescriptionMap;
 	/**
 	 * The lookup map contains either a single {@link IResourceDescription} or a 
 	 * {@link Set Set&lt;IResourceDescription&gt;} as values. It is maintained by 
 	 * {@link #removeDescription(URI)} and {@link #addDescription(URI, IResourceDescription)} 
 	 * which take care of creating the {@link Set Sets} and discarding them if the number
-	 * of elements becomes small enough.  
+	 * of elements becomes small enough.
+	 * <p>
+	 * The map and the sets are shared with the {@link #copy() copies} of this instance. A shared set is
+	 * copied before it is modified.
+	 */
+	private final PersistentHashMap<QualifiedName, Object> lookupMap;
+
+	/**
+	 * Tags the sets of the lookup map that have been created since this instance was copied for the last time.
+	 * Only these sets may be modified in place.
 	 */
-	private final Map<QualifiedName, Object> lookupMap;
+	private Object owner = new Object();
+	
+	/**
+	 * Maps imported names, referenced resources and referenced objects to the URIs of the dependent resources.
+	 */
+	private final ReverseDependencyIndex reverseDependencyIndex;
 
 	public ResourceDescriptionsData(Iterable<IResourceDescription> descriptions) {
 		int expectedSize = 500; // magic number in case it's not a Collection
@@ -99,36 +130,69 @@ import com.google.common.collect.Sets;
 		for (IResourceDescription desc : descriptions) {
 			resourceDescriptionMap.put(desc.getURI(), desc);
 		}
-		// magic number - it is assumend that we export at least 2 entries per resource description
-		lookupMap = new LinkedHashMap<>(resourceDescriptionMap.size() * 2);
+		lookupMap = new PersistentHashMap<QualifiedName, Object>(IGNORE_CASE);
 	    for (IResourceDescription description: descriptions) {
-	    	registerDescription(description, lookupMap);
+	    	registerDescription(description);
 	    }
+	    reverseDependencyIndex = new ReverseDependencyIndex(resourceDescriptionMap.keySet());
 	}
 
+	/**
+	 * @deprecated the lookup map is a {@link PersistentHashMap} now, use
+	 *             {@link #ResourceDescriptionsData(Map, PersistentHashMap, ReverseDependencyIndex)} instead.
+	 */
+	@Deprecated
 	protected ResourceDescriptionsData(Map<URI, IResourceDescription> resourceDescriptionMap, Map<QualifiedName, Object> lookupMap) {
+		this(resourceDescriptionMap, toPersistentLookupMap(lookupMap), new ReverseDependencyIndex(resourceDescriptionMap.keySet()));
+	}
+	
+	/**
+	 * @since 2.15
+	 */
+	protected ResourceDescriptionsData(Map<URI, IResourceDescription> resourceDescriptionMap, PersistentHashMap<QualifiedName, Object> lookupMap, ReverseDependencyIndex reverseDependencyIndex) {
 		this.resourceDescriptionMap = resourceDescriptionMap;
 		this.lookupMap = lookupMap;
+		this.reverseDependencyIndex = reverseDependencyIndex;
 	}
 	
+	private static PersistentHashMap<QualifiedName, Object> toPersistentLookupMap(Map<QualifiedName, Object> lookupMap) {
+		PersistentHashMap<QualifiedName, Object> result = new PersistentHashMap<QualifiedName, Object>(IGNORE_CASE);
+		for(Map.Entry<QualifiedName, Object> entry: lookupMap.entrySet()) {
+			result.put(entry.getKey().toLowerCase(), entry.getValue());
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns a copy of this index. The lookup map is shared with the copy, so the costs of the copy and of its
+	 * subsequent modifications do not depend on the number of exported names.
+	 */
 	public ResourceDescriptionsData copy() {
+		owner = new Object();
 		return new ResourceDescriptionsData(
 				Maps.newLinkedHashMap(resourceDescriptionMap),
-				copyLookupMap());
+				lookupMap.copy(),
+				reverseDependencyIndex.copy());
 	}
 	
+	/**
+	 * Since 2.15 this method is no longer invoked by {@link #copy()}. Subclasses that override it to customize the
+	 * copied lookup map have to override {@link #copy()} instead.
+	 * 
+	 * @deprecated the lookup map is copied in constant time by {@link #copy()}.
+	 */
+	@Deprecated
 	protected Map<QualifiedName, Object> copyLookupMap() {
-		Map<QualifiedName, Object> result = Maps.newLinkedHashMap(lookupMap);
-		for(Map.Entry<QualifiedName, Object> entry: result.entrySet()) {
-			Object value = entry.getValue();
+		final Map<QualifiedName, Object> result = Maps.newLinkedHashMap();
+		lookupMap.forEach((name, value) -> {
 			if (value instanceof Set<?>) {
 				@SuppressWarnings("unchecked")
 				Set<IResourceDescription> copiedValue = new LinkedHashSet<IResourceDescription>((Set<? extends IResourceDescription>) value);
-				if (copiedValue.size() <= 1)
-					throw new IllegalStateException("Unexpected number of elements in the value set: " + copiedValue.size() + " for " + entry.getKey());
-				entry.setValue(copiedValue);
+				result.put(name, copiedValue);
+			} else {
+				result.put(name, value);
 			}
-		}
+		});
 		return result;
 	}
 
@@ -143,20 +207,25 @@ import com.google.common.collect.Sets;
 	}
 
 	public void removeDescription(URI uri) {
+		reverseDependencyIndex.remove(uri);
 		IResourceDescription oldDescription = resourceDescriptionMap.remove(uri);
 		if (oldDescription != null) {
 			for(IEObjectDescription object: oldDescription.getExportedObjects()) {
-				QualifiedName objectName = object.getName().toLowerCase();
+				QualifiedName objectName = object.getName();
 				Object existing = lookupMap.get(objectName);
 				if (existing == oldDescription) {
 					lookupMap.remove(objectName);
 				} else if (existing instanceof Set<?>) {
 					Set<?> casted = (Set<?>) existing;
-					if (casted.remove(oldDescription)) {
-						if (casted.size() == 1) {
-							lookupMap.put(objectName, casted.iterator().next());
-						} else if (casted.isEmpty()) {
-							lookupMap.remove(objectName);
+					if (casted.contains(oldDescription)) {
+						if (casted.size() == 2) {
+							for (Object remaining : casted) {
+								if (remaining != oldDescription) {
+									lookupMap.put(objectName, remaining);
+								}
+							}
+						} else {
+							editableSet(objectName, casted).remove(oldDescription);
 						}
 					}
 				}
@@ -166,7 +235,7 @@ import com.google.common.collect.Sets;
 	
 	@Override
 	public Iterable<IEObjectDescription> getExportedObjects(final EClass type, final QualifiedName qualifiedName, final boolean ignoreCase) {
-		Object existing = lookupMap.get(qualifiedName.toLowerCase());
+		Object existing = lookupMap.get(qualifiedName);
 		if (existing instanceof IResourceDescription) {
 			return ((IResourceDescription) existing).getExportedObjects(type, qualifiedName, ignoreCase);
 		} else if (existing instanceof Set<?>) {
@@ -207,10 +276,92 @@ import com.google.common.collect.Sets;
 		removeDescription(uri);
 		if (newDescription != null) {
 			resourceDescriptionMap.put(uri, newDescription);
-			registerDescription(newDescription, lookupMap);
+			registerDescription(newDescription);
+			reverseDependencyIndex.add(uri);
+		}
+	}
+	
+	/**
+	 * Returns the URIs of the resources that import the given name according to their
+	 * {@link IResourceDescription#getImportedNames() imported names}.
+	 * 
+	 * @since 2.15
+	 */
+	public Set<URI> getImportingResources(QualifiedName importedName) {
+		return reverseDependencyIndex.getImportingResources(importedName, this);
+	}
+	
+	/**
+	 * Returns the URIs of the resources that have a {@link IResourceDescription#getReferenceDescriptions() reference}
+	 * to an element of the resource with the given URI.
+	 * 
+	 * @since 2.15
+	 */
+	@Override
+	public Set<URI> getReferencingResources(URI resourceURI) {
+		return reverseDependencyIndex.getReferencingResources(resourceURI, this);
+	}
+
+	/**
+	 * Returns the URIs of the resources that have a {@link IResourceDescription#getReferenceDescriptions() reference}
+	 * to the object with the given URI.
+	 * 
+	 * @since 2.15
+	 */
+	@Override
+	public Set<URI> getResourcesReferencingEObject(URI objectURI) {
+		return reverseDependencyIndex.getResourcesReferencingEObject(objectURI, this);
+	}
+
+	/**
+	 * Adds the exported names of the given description to the lookup map. Invoked by the constructor and by
+	 * {@link #addDescription(URI, IResourceDescription)} in place of the deprecated
+	 * {@link #registerDescription(IResourceDescription, Map)}.
+	 * 
+	 * @since 2.15
+	 */
+	protected void registerDescription(IResourceDescription description) {
+		for(IEObjectDescription object: description.getExportedObjects()) {
+			QualifiedName lowerCase = object.getName().toLowerCase();
+			Object existing = lookupMap.put(lowerCase, description);
+			if (existing != null && existing != description) {
+				if (existing instanceof IResourceDescription) {
+					Set<IResourceDescription> set = new OwnedSet(owner);
+					set.add((IResourceDescription)existing);
+					set.add(description);
+					lookupMap.put(lowerCase, set);
+				} else {
+					Set<IResourceDescription> set = editableSet(lowerCase, existing);
+					set.add(description);
+				}
+			}
 		}
 	}
 
+	/**
+	 * Returns the given set of the lookup map if it may be modified. Otherwise it is copied and the copy is put into
+	 * the lookup map.
+	 */
+	@SuppressWarnings("unchecked")
+	private Set<IResourceDescription> editableSet(QualifiedName name, Object set) {
+		if (set instanceof OwnedSet && ((OwnedSet) set).owner == owner) {
+			return (OwnedSet) set;
+		}
+		OwnedSet result = new OwnedSet(owner);
+		result.addAll((Set<IResourceDescription>) set);
+		lookupMap.put(name, result);
+		return result;
+	}
+
+	/**
+	 * Since 2.15 this method is no longer invoked by the constructors and by
+	 * {@link #addDescription(URI, IResourceDescription)}. Subclasses that override it to customize the registration
+	 * of a description have to override {@link #registerDescription(IResourceDescription)} instead.
+	 * 
+	 * @deprecated the lookup map is a {@link PersistentHashMap} now, use
+	 *             {@link #registerDescription(IResourceDescription)} instead.
+	 */
+	@Deprecated
 	@SuppressWarnings("unchecked")
 	protected void registerDescription(IResourceDescription description, Map<QualifiedName, Object> target) {
 		for(IEObjectDescription object: description.getExportedObjects()) {
@@ -246,4 +397,18 @@ import com.google.common.collect.Sets;
 			addDescription(delta.getUri(), newDesc);
 		}
 	}
+
+	/**
+	 * A set of the lookup map that is tagged with the edit token of the index that created it.
+	 */
+	private static class OwnedSet extends LinkedHashSet<IResourceDescription> {
+		private static final long serialVersionUID = 1L;
+
+		private final transient Object owner;
+
+		OwnedSet(Object owner) {
+			super(4);
+			this.owner = owner;
+		}
+	}
 }
@@ -0,0 +1,242 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.resource.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.eclipse.xtext.resource.IResourceDescription;
+import org.eclipse.xtext.resource.persistence.SerializableResourceDescription;
+
+import com.google.common.annotations.Beta;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+
+/**
+ * Bounds the number of index chunks that are kept in memory. The chunks that are {@link #page(String,
+ * ResourceDescriptionsData) handed out} by the pager are {@link PagedResourceDescriptionsData paged}: when more chunks
+ * are resident than {@link #MAX_RESIDENT_CHUNKS allowed}, the least recently used ones are written to a page file in
+ * the binary format of {@link SerializableResourceDescription} and dropped from memory. They are read back as soon as
+ * a query needs their contents.
+ * <p>
+ * Paging is disabled unless the maximum number of resident chunks is bound.
+ *
+ * @since 2.15
+ */
+@Beta
+@Singleton
+public class ResourceDescriptionsPager {
+
+	private static final Logger LOG = Logger.getLogger(ResourceDescriptionsPager.class);
+
+	/**
+	 * The number of chunks that are kept in memory at most. If it is not bound, chunks are never paged out.
+	 */
+	public static final String MAX_RESIDENT_CHUNKS = "org.eclipse.xtext.resource.impl.ResourceDescriptionsPager.maxResidentChunks";
+
+	/**
+	 * The directory the page files are written to. If it is not bound, a temporary directory is used.
+	 */
+	public static final String PAGE_DIRECTORY = "org.eclipse.xtext.resource.impl.ResourceDescriptionsPager.pageDirectory";
+
+	@Inject(optional = true)
+	@Named(MAX_RESIDENT_CHUNKS)
+	private int maxResidentChunks = -1;
+
+	@Inject(optional = true)
+	@Named(PAGE_DIRECTORY)
+	private String pageDirectory;
+
+	private final Set<PagedResourceDescriptionsData> resident = new LinkedHashSet<PagedResourceDescriptionsData>();
+
+	private final AtomicLong clock = new AtomicLong();
+
+	private File directory;
+
+	private final Deque<File> freePageFiles = new ArrayDeque<File>();
+
+	public boolean isEnabled() {
+		return maxResidentChunks > 0;
+	}
+
+	/**
+	 * Returns a paged chunk with the contents of the given data, or the data itself if paging is disabled. The given
+	 * data must not be modified afterwards.
+	 */
+	public ResourceDescriptionsData page(String name, ResourceDescriptionsData data) {
+		if (!isEnabled() || data instanceof PagedResourceDescriptionsData) {
+			return data;
+		}
+		PagedResourceDescriptionsData result = new PagedResourceDescriptionsData(this, name, data);
+		pagedIn(result);
+		return result;
+	}
+
+	/**
+	 * Stops tracking a chunk that has been replaced, e.g. by the result of a new build. The chunk keeps working for
+	 * the clients that still refer to it, but it is not paged out anymore. Its page file is reused for other chunks
+	 * as soon as the chunk does not need it anymore.
+	 */
+	public void release(ResourceDescriptionsData data) {
+		if (data instanceof PagedResourceDescriptionsData) {
+			synchronized (resident) {
+				resident.remove(data);
+			}
+			File pageFile = ((PagedResourceDescriptionsData) data).release();
+			if (pageFile != null) {
+				recyclePageFile(pageFile);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of chunks that are currently in memory.
+	 */
+	public int getResidentChunkCount() {
+		synchronized (resident) {
+			return resident.size();
+		}
+	}
+
+	protected long tick() {
+		return clock.incrementAndGet();
+	}
+
+	/**
+	 * Records that the given chunk has been read into memory and pages out the least recently used chunks if the
+	 * number of resident chunks exceeds the maximum.
+	 */
+	protected void pagedIn(PagedResourceDescriptionsData chunk) {
+		List<PagedResourceDescriptionsData> evicted = new ArrayList<PagedResourceDescriptionsData>();
+		synchronized (resident) {
+			resident.add(chunk);
+			while (resident.size() > maxResidentChunks) {
+				PagedResourceDescriptionsData leastRecentlyUsed = null;
+				for (PagedResourceDescriptionsData candidate : resident) {
+					if (candidate != chunk && (leastRecentlyUsed == null
+							|| candidate.getLastAccess() < leastRecentlyUsed.getLastAccess())) {
+						leastRecentlyUsed = candidate;
+					}
+				}
+				if (leastRecentlyUsed == null) {
+					break;
+				}
+				resident.remove(leastRecentlyUsed);
+				evicted.add(leastRecentlyUsed);
+			}
+		}
+		for (PagedResourceDescriptionsData chunkToPageOut : evicted) {
+			if (!chunkToPageOut.pageOut()) {
+				synchronized (resident) {
+					resident.add(chunkToPageOut);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns a page file that has been {@link #recyclePageFile(File) recycled} or creates a new one. The files are
+	 * deleted when the VM exits.
+	 */
+	protected File createPageFile(String name) throws IOException {
+		synchronized (freePageFiles) {
+			File recycled = freePageFiles.poll();
+			if (recycled != null) {
+				return recycled;
+			}
+		}
+		File result = File.createTempFile(name.replaceAll("[^\\w.-]", "_") + "-", ".page", getDirectory());
+		result.deleteOnExit();
+		return result;
+	}
+
+	/**
+	 * Makes the page file of a released chunk available for other chunks.
+	 */
+	protected void recyclePageFile(File pageFile) {
+		synchronized (freePageFiles) {
+			freePageFiles.push(pageFile);
+		}
+	}
+
+	protected synchronized File getDirectory() throws IOException {
+		if (directory == null) {
+			if (pageDirectory != null && !pageDirectory.isEmpty()) {
+				directory = new File(pageDirectory);
+				directory.mkdirs();
+			} else {
+				directory = Files.createTempDirectory("xtext-index-pages").toFile();
+				directory.deleteOnExit();
+			}
+		}
+		return directory;
+	}
+
+	protected void write(File file, ResourceDescriptionsData data) throws IOException {
+		List<IResourceDescription> descriptions = new ArrayList<IResourceDescription>();
+		for (IResourceDescription description : data.getAllResourceDescriptions()) {
+			descriptions.add(description);
+		}
+		try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(descriptions.size());
+			for (IResourceDescription description : descriptions) {
+				SerializableResourceDescription.createCopy(description).writeExternal(out);
+			}
+		}
+	}
+
+	protected ResourceDescriptionsData read(File file) throws IOException, ClassNotFoundException {
+		try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			int descriptionCount = in.readInt();
+			List<IResourceDescription> descriptions = new ArrayList<IResourceDescription>(descriptionCount);
+			for (int i = 0; i < descriptionCount; i++) {
+				SerializableResourceDescription description = new SerializableResourceDescription();
+				description.readExternal(in);
+				descriptions.add(description);
+			}
+			return new ResourceDescriptionsData(descriptions);
+		}
+	}
+
+	protected void handlePageOutFailure(String name, IOException e) {
+		LOG.warn("Cannot page out the index chunk " + name + ", it is kept in memory.", e);
+	}
+
+	public int getMaxResidentChunks() {
+		return maxResidentChunks;
+	}
+
+	public void setMaxResidentChunks(int maxResidentChunks) {
+		this.maxResidentChunks = maxResidentChunks;
+	}
+
+	public String getPageDirectory() {
+		return pageDirectory;
+	}
+
+	public void setPageDirectory(String pageDirectory) {
+		this.pageDirectory = pageDirectory;
+	}
+
+}
@@ -0,0 +1,270 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.resource.impl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.IReferenceDescription;
+import org.eclipse.xtext.resource.IResourceDescription;
+
+import com.google.common.annotations.Beta;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Maps imported names, referenced resources and referenced objects to the resources that depend on them. It is
+ * maintained by
+ * {@link ResourceDescriptionsData} and allows to find the resources that may be affected by a change without
+ * visiting all resource descriptions.
+ * <p>
+ * Added descriptions are not asked for their {@link IResourceDescription#getImportedNames() imported names} or
+ * {@link IResourceDescription#getReferenceDescriptions() references} immediately, since the index may contain
+ * descriptions that do not provide them yet, e.g. during indexing. Pending descriptions are processed on the first
+ * query instead.
+ * <p>
+ * The maps are shared with the {@link #copy() copies} of this index, so copying it does not depend on its size.
+ *
+ * @since 2.15
+ */
+@Beta
+public class ReverseDependencyIndex {
+
+	/**
+	 * Lower case imported names to the URIs of the importing resources.
+	 */
+	private final PersistentHashMap<QualifiedName, Set<URI>> importers;
+
+	/**
+	 * Resource URIs to the URIs of the resources that refer to them.
+	 */
+	private final PersistentHashMap<URI, Set<URI>> referrers;
+
+	/**
+	 * The URIs of referenced objects to the URIs of the resources that refer to them.
+	 */
+	private final PersistentHashMap<URI, Set<URI>> objectReferrers;
+
+	/**
+	 * The names, resources and objects that have been registered for a resource URI. Used to unregister the entries again.
+	 */
+	private final PersistentHashMap<URI, Dependencies> dependencies;
+
+	/**
+	 * The URIs of the resources that have been added but not yet processed.
+	 */
+	private final Set<URI> pending;
+
+	/**
+	 * Tags the sets of URIs that have been created since this index was copied for the last time. Only these sets may
+	 * be modified in place.
+	 */
+	private Object owner = new Object();
+
+	public ReverseDependencyIndex(Collection<URI> pending) {
+		this.importers = new PersistentHashMap<QualifiedName, Set<URI>>(ResourceDescriptionsData.IGNORE_CASE);
+		this.referrers = new PersistentHashMap<URI, Set<URI>>();
+		this.objectReferrers = new PersistentHashMap<URI, Set<URI>>();
+		this.dependencies = new PersistentHashMap<URI, Dependencies>();
+		this.pending = new LinkedHashSet<URI>(pending);
+	}
+
+	protected ReverseDependencyIndex(ReverseDependencyIndex original) {
+		original.owner = new Object();
+		this.importers = original.importers.copy();
+		this.referrers = original.referrers.copy();
+		this.objectReferrers = original.objectReferrers.copy();
+		this.dependencies = original.dependencies.copy();
+		this.pending = new LinkedHashSet<URI>(original.pending);
+	}
+
+	public synchronized ReverseDependencyIndex copy() {
+		return new ReverseDependencyIndex(this);
+	}
+
+	/**
+	 * Marks the resource with the given URI as added or changed. Its dependencies are recorded lazily.
+	 */
+	public synchronized void add(URI uri) {
+		remove(uri);
+		pending.add(uri);
+	}
+
+	public synchronized void remove(URI uri) {
+		pending.remove(uri);
+		Dependencies removed = dependencies.remove(uri);
+		if (removed != null) {
+			for (QualifiedName name : removed.importedNames) {
+				unregister(importers, name, uri);
+			}
+			for (URI target : removed.referencedResources) {
+				unregister(referrers, target, uri);
+			}
+			for (URI target : removed.referencedObjects) {
+				unregister(objectReferrers, target, uri);
+			}
+		}
+	}
+
+	/**
+	 * Returns the URIs of the resources that import the given name.
+	 *
+	 * @param importedName
+	 *            the imported name. It is converted to lower case.
+	 * @param descriptions
+	 *            the index that is used to process pending resources.
+	 */
+	public synchronized Set<URI> getImportingResources(QualifiedName importedName, ResourceDescriptionsData descriptions) {
+		processPending(descriptions);
+		return unmodifiable(importers.get(importedName));
+	}
+
+	/**
+	 * Returns the URIs of the resources that refer to an element of the resource with the given URI.
+	 *
+	 * @param resourceURI
+	 *            the URI of the referenced resource.
+	 * @param descriptions
+	 *            the index that is used to process pending resources.
+	 */
+	public synchronized Set<URI> getReferencingResources(URI resourceURI, ResourceDescriptionsData descriptions) {
+		processPending(descriptions);
+		return unmodifiable(referrers.get(resourceURI.trimFragment()));
+	}
+
+	/**
+	 * Returns the URIs of the resources that have a reference to the object with the given URI.
+	 *
+	 * @param objectURI
+	 *            the URI of the referenced object as it appears in the {@link IReferenceDescription#getTargetEObjectUri()
+	 *            reference descriptions}.
+	 * @param descriptions
+	 *            the index that is used to process pending resources.
+	 * @since 2.15
+	 */
+	public synchronized Set<URI> getResourcesReferencingEObject(URI objectURI, ResourceDescriptionsData descriptions) {
+		processPending(descriptions);
+		return unmodifiable(objectReferrers.get(objectURI));
+	}
+
+	protected void processPending(ResourceDescriptionsData descriptions) {
+		if (pending.isEmpty())
+			return;
+		for (URI uri : pending) {
+			IResourceDescription description = descriptions.getResourceDescription(uri);
+			if (description != null) {
+				Dependencies recorded = computeDependencies(description);
+				dependencies.put(uri, recorded);
+				for (QualifiedName name : recorded.importedNames) {
+					register(importers, name, uri);
+				}
+				for (URI target : recorded.referencedResources) {
+					register(referrers, target, uri);
+				}
+				for (URI target : recorded.referencedObjects) {
+					register(objectReferrers, target, uri);
+				}
+			}
+		}
+		pending.clear();
+	}
+
+	protected Dependencies computeDependencies(IResourceDescription description) {
+		Set<QualifiedName> importedNames = Sets.newHashSet();
+		for (QualifiedName name : description.getImportedNames()) {
+			importedNames.add(name.toLowerCase());
+		}
+		URI resourceURI = description.getURI();
+		Set<URI> referencedResources = Sets.newHashSet();
+		Set<URI> referencedObjects = Sets.newHashSet();
+		for (IReferenceDescription reference : description.getReferenceDescriptions()) {
+			URI targetObject = reference.getTargetEObjectUri();
+			if (targetObject == null)
+				continue;
+			referencedObjects.add(targetObject);
+			URI targetResource = targetObject.trimFragment();
+			if (!resourceURI.equals(targetResource)) {
+				referencedResources.add(targetResource);
+			}
+		}
+		return new Dependencies(Lists.newArrayList(importedNames), Lists.newArrayList(referencedResources),
+				Lists.newArrayList(referencedObjects));
+	}
+
+	private <K> void register(PersistentHashMap<K, Set<URI>> map, K key, URI uri) {
+		Set<URI> uris = map.get(key);
+		if (uris == null) {
+			uris = new OwnedSet(owner);
+			map.put(key, uris);
+		} else if (!uris.contains(uri)) {
+			uris = editable(map, key, uris);
+		}
+		uris.add(uri);
+	}
+
+	private <K> void unregister(PersistentHashMap<K, Set<URI>> map, K key, URI uri) {
+		Set<URI> uris = map.get(key);
+		if (uris != null && uris.contains(uri)) {
+			if (uris.size() == 1) {
+				map.remove(key);
+			} else {
+				editable(map, key, uris).remove(uri);
+			}
+		}
+	}
+
+	/**
+	 * Returns the given set if it may be modified. Otherwise it is copied and the copy is put into the map.
+	 */
+	private <K> Set<URI> editable(PersistentHashMap<K, Set<URI>> map, K key, Set<URI> uris) {
+		if (uris instanceof OwnedSet && ((OwnedSet) uris).owner == owner) {
+			return uris;
+		}
+		OwnedSet result = new OwnedSet(owner);
+		result.addAll(uris);
+		map.put(key, result);
+		return result;
+	}
+
+	private static Set<URI> unmodifiable(Set<URI> uris) {
+		if (uris == null)
+			return Collections.emptySet();
+		return ImmutableSet.copyOf(uris);
+	}
+
+	private static class OwnedSet extends HashSet<URI> {
+		private static final long serialVersionUID = 1L;
+
+		private final transient Object owner;
+
+		OwnedSet(Object owner) {
+			super(4);
+			this.owner = owner;
+		}
+	}
+
+	protected static class Dependencies {
+		private final List<QualifiedName> importedNames;
+		private final List<URI> referencedResources;
+		private final List<URI> referencedObjects;
+
+		protected Dependencies(List<QualifiedName> importedNames, List<URI> referencedResources,
+				List<URI> referencedObjects) {
+			this.importedNames = importedNames;
+			this.referencedResources = referencedResources;
+			this.referencedObjects = referencedObjects;
+		}
+	}
+}
@@ -34,6 +34,12 @@ class ResourceStorageFacade implements IResourceStorageFacade {
 	
 	@Accessors boolean storeNodeModel = false
 	
+	/**
+	 * Whether resources are stored in the uncompressed {@link ResourceStorageFormat}. Storages in both formats can be loaded.
+	 * @since 2.15
+	 */
+	@Accessors boolean storeUncompressed = false
+	
 	/**
 	 * @return whether the given resource should be loaded from stored resource state
 	 */
@@ -91,7 +97,9 @@ class ResourceStorageFacade implements IResourceStorageFacade {
 	}
 	
 	override ResourceStorageWritable createResourceStorageWritable(OutputStream out) {
-		return new ResourceStorageWritable(out, isStoreNodeModel)
+		val result = new ResourceStorageWritable(out, isStoreNodeModel)
+		result.storeUncompressed = isStoreUncompressed
+		return result
 	}
 	
 	/**
@@ -0,0 +1,413 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.resource.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.ENamedElement;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.xtext.naming.QualifiedName;
+
+import com.google.common.annotations.Beta;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+
+/**
+ * The uncompressed storage format for {@link StorageAwareResource resources}. A storage starts with a versioned header
+ * that holds an offset table of named sections, followed by the raw section data. The sections are exposed as slices
+ * of a single heap buffer, so a section is only decoded if it is read. The EMF contents of a
+ * {@link StorageAwareResource} are decoded on first access.
+ * <p>
+ * The resource description section does not use Java serialization. Strings are written once per storage and are
+ * interned with an interner that is shared by all loaded storages.
+ *
+ * @since 2.15
+ */
+@Beta
+public class ResourceStorageFormat {
+
+	public static final String CONTENTS = "emf-contents";
+
+	public static final String RESOURCE_DESCRIPTION = "resource-description";
+
+	public static final String NODE_MODEL = "node-model";
+
+	public static final int VERSION = 1;
+
+	private static final Logger LOG = Logger.getLogger(ResourceStorageFormat.class);
+
+	private static final byte[] MAGIC = { 'X', 'T', 'X', 'T', 'B', 'I', 'N', 0 };
+
+	private static final Interner<String> STRINGS = Interners.newWeakInterner();
+
+	/**
+	 * Writes the header and the given sections in their iteration order.
+	 */
+	public static void writeSections(Map<String, ByteArrayOutputStream> sections, OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(out);
+		data.write(MAGIC);
+		data.writeInt(VERSION);
+		data.writeInt(sections.size());
+		int offset = 0;
+		for (Map.Entry<String, ByteArrayOutputStream> section : sections.entrySet()) {
+			int length = section.getValue().size();
+			data.writeUTF(section.getKey());
+			data.writeInt(offset);
+			data.writeInt(length);
+			offset += length;
+		}
+		for (ByteArrayOutputStream section : sections.values()) {
+			section.writeTo(data);
+		}
+		data.flush();
+	}
+
+	/**
+	 * Reads the complete storage from the given stream into the heap. Storage files are not memory mapped since a
+	 * mapping keeps the file locked on Windows until the buffer is garbage collected.
+	 */
+	public static ByteBuffer readFully(InputStream in) throws IOException {
+		return ByteBuffer.wrap(ByteStreams.toByteArray(in));
+	}
+
+	/**
+	 * @return whether the given buffer starts with the header of this format.
+	 */
+	public static boolean isResourceStorageFormat(ByteBuffer buffer) {
+		if (buffer.remaining() < MAGIC.length)
+			return false;
+		for (int i = 0; i < MAGIC.length; i++) {
+			if (buffer.get(buffer.position() + i) != MAGIC[i])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the offset table. The section data is not copied, the returned buffers are slices of the given buffer.
+	 */
+	public static Map<String, ByteBuffer> readSections(ByteBuffer buffer) throws IOException {
+		ByteBuffer header = buffer.duplicate();
+		DataInputStream in = new DataInputStream(new ByteBufferInputStream(header));
+		in.skipBytes(MAGIC.length);
+		int version = in.readInt();
+		if (version != VERSION)
+			throw new IOException("Unsupported storage format version " + version);
+		int count = in.readInt();
+		List<String> names = new ArrayList<String>(count);
+		int[] offsets = new int[count];
+		int[] lengths = new int[count];
+		for (int i = 0; i < count; i++) {
+			names.add(in.readUTF());
+			offsets[i] = in.readInt();
+			lengths[i] = in.readInt();
+		}
+		int dataStart = header.position();
+		Map<String, ByteBuffer> result = Maps.newLinkedHashMap();
+		for (int i = 0; i < count; i++) {
+			int start = dataStart + offsets[i];
+			int end = start + lengths[i];
+			if (offsets[i] < 0 || lengths[i] < 0 || end > buffer.limit())
+				throw new IOException("Invalid section '" + names.get(i) + "'");
+			ByteBuffer section = buffer.duplicate();
+			section.limit(end);
+			section.position(start);
+			result.put(names.get(i), section.slice());
+		}
+		return result;
+	}
+
+	/**
+	 * @return a stream on the section with the given name.
+	 * @throws IOException
+	 *             if there is no such section.
+	 */
+	public static InputStream getSection(Map<String, ByteBuffer> sections, String name) throws IOException {
+		ByteBuffer section = sections.get(name);
+		if (section == null)
+			throw new IOException("Missing section '" + name + "'");
+		return new ByteBufferInputStream(section.duplicate());
+	}
+
+	public static class ByteBufferInputStream extends InputStream {
+
+		private final ByteBuffer buffer;
+
+		public ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (!buffer.hasRemaining())
+				return -1;
+			return buffer.get() & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0)
+				return 0;
+			if (!buffer.hasRemaining())
+				return -1;
+			int count = Math.min(len, buffer.remaining());
+			buffer.get(b, off, count);
+			return count;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			if (n <= 0)
+				return 0;
+			int count = (int) Math.min(n, buffer.remaining());
+			buffer.position(buffer.position() + count);
+			return count;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return buffer.remaining();
+		}
+	}
+
+	/**
+	 * Writes a {@link SerializableResourceDescription} with a string table. URIs are split into the resource URI and
+	 * the fragment so the resource URI is written only once.
+	 */
+	public static class DescriptionWriter {
+
+		private final DataOutputStream out;
+
+		private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+		public DescriptionWriter(OutputStream out) {
+			this.out = new DataOutputStream(out);
+		}
+
+		public void write(SerializableResourceDescription description) throws IOException {
+			writeURI(description.getURI());
+			List<SerializableEObjectDescription> descriptions = description.getDescriptions();
+			out.writeInt(descriptions.size());
+			for (SerializableEObjectDescription desc : descriptions) {
+				writeURI(desc.getEObjectURI());
+				writeEcoreElement(desc.getEClass());
+				writeQualifiedName(desc.getQualifiedName());
+				Map<String, String> userData = desc.getUserData();
+				if (userData == null) {
+					out.writeInt(-1);
+				} else {
+					out.writeInt(userData.size());
+					for (Map.Entry<String, String> entry : userData.entrySet()) {
+						writeString(entry.getKey());
+						writeString(entry.getValue());
+					}
+				}
+			}
+			List<SerializableReferenceDescription> references = description.getReferences();
+			out.writeInt(references.size());
+			for (SerializableReferenceDescription ref : references) {
+				writeURI(ref.getSourceEObjectUri());
+				writeURI(ref.getTargetEObjectUri());
+				writeURI(ref.getContainerEObjectURI());
+				writeEcoreElement(ref.getEReference());
+				out.writeInt(ref.getIndexInList());
+			}
+			List<QualifiedName> importedNames = Lists.newArrayList(description.getImportedNames());
+			out.writeInt(importedNames.size());
+			for (QualifiedName name : importedNames) {
+				writeQualifiedName(name);
+			}
+			out.flush();
+		}
+
+		/**
+		 * Writes <code>0</code> for <code>null</code>, the one-based index of a string that was written before or
+		 * <code>-1</code> followed by the UTF-8 bytes of a new string.
+		 */
+		protected void writeString(String string) throws IOException {
+			if (string == null) {
+				out.writeInt(0);
+				return;
+			}
+			Integer index = strings.get(string);
+			if (index != null) {
+				out.writeInt(index);
+				return;
+			}
+			strings.put(string, strings.size() + 1);
+			byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(-1);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+
+		protected void writeURI(URI uri) throws IOException {
+			if (uri == null) {
+				writeString(null);
+			} else {
+				writeString(uri.trimFragment().toString());
+				writeString(uri.fragment());
+			}
+		}
+
+		protected void writeQualifiedName(QualifiedName name) throws IOException {
+			if (name == null) {
+				out.writeInt(-1);
+			} else {
+				out.writeInt(name.getSegmentCount());
+				for (String segment : name.getSegments()) {
+					writeString(segment);
+				}
+			}
+		}
+
+		protected void writeEcoreElement(ENamedElement element) throws IOException {
+			writeURI(element == null ? null : EcoreUtil.getURI(element));
+		}
+	}
+
+	/**
+	 * Reads a {@link SerializableResourceDescription} that was written by a {@link DescriptionWriter}.
+	 */
+	public static class DescriptionReader {
+
+		private final DataInputStream in;
+
+		private final List<String> strings = new ArrayList<String>();
+
+		private final Map<String, Resource> ePackageResources = new HashMap<String, Resource>();
+
+		private final Set<String> missingEPackages = new HashSet<String>();
+
+		public DescriptionReader(InputStream in) {
+			this.in = new DataInputStream(in);
+		}
+
+		public SerializableResourceDescription read() throws IOException {
+			SerializableResourceDescription result = new SerializableResourceDescription();
+			result.setURI(readURI());
+			int descriptionsSize = in.readInt();
+			List<SerializableEObjectDescription> descriptions = new ArrayList<SerializableEObjectDescription>(descriptionsSize);
+			for (int i = 0; i < descriptionsSize; i++) {
+				SerializableEObjectDescription desc = new SerializableEObjectDescription();
+				desc.setEObjectURI(readURI());
+				desc.setEClass((EClass) readEcoreElement());
+				desc.setQualifiedName(readQualifiedName());
+				int userDataSize = in.readInt();
+				if (userDataSize >= 0) {
+					HashMap<String, String> userData = new HashMap<String, String>(userDataSize);
+					for (int j = 0; j < userDataSize; j++) {
+						userData.put(readString(), readString());
+					}
+					desc.setUserData(userData);
+				}
+				descriptions.add(desc);
+			}
+			result.setDescriptions(descriptions);
+			int referencesSize = in.readInt();
+			List<SerializableReferenceDescription> references = new ArrayList<SerializableReferenceDescription>(referencesSize);
+			for (int i = 0; i < referencesSize; i++) {
+				SerializableReferenceDescription ref = new SerializableReferenceDescription();
+				ref.setSourceEObjectUri(readURI());
+				ref.setTargetEObjectUri(readURI());
+				ref.setContainerEObjectURI(readURI());
+				ref.setEReference((EReference) readEcoreElement());
+				ref.setIndexInList(in.readInt());
+				references.add(ref);
+			}
+			result.setReferences(references);
+			int importedNamesSize = in.readInt();
+			List<QualifiedName> importedNames = new ArrayList<QualifiedName>(importedNamesSize);
+			for (int i = 0; i < importedNamesSize; i++) {
+				importedNames.add(readQualifiedName());
+			}
+			result.setImportedNames(importedNames);
+			return result;
+		}
+
+		protected String readString() throws IOException {
+			int code = in.readInt();
+			if (code == 0)
+				return null;
+			if (code > 0) {
+				if (code > strings.size())
+					throw new IOException("Invalid string reference " + code);
+				return strings.get(code - 1);
+			}
+			byte[] bytes = new byte[in.readInt()];
+			in.readFully(bytes);
+			String result = STRINGS.intern(new String(bytes, StandardCharsets.UTF_8));
+			strings.add(result);
+			return result;
+		}
+
+		protected URI readURI() throws IOException {
+			String resourceURI = readString();
+			if (resourceURI == null)
+				return null;
+			URI result = URI.createURI(resourceURI);
+			String fragment = readString();
+			if (fragment != null)
+				result = result.appendFragment(fragment);
+			return result;
+		}
+
+		protected QualifiedName readQualifiedName() throws IOException {
+			int segmentCount = in.readInt();
+			if (segmentCount < 0)
+				return null;
+			String[] segments = new String[segmentCount];
+			for (int i = 0; i < segmentCount; i++) {
+				segments[i] = readString();
+			}
+			return QualifiedName.create(segments).intern();
+		}
+
+		protected ENamedElement readEcoreElement() throws IOException {
+			URI uri = readURI();
+			if (uri == null)
+				return null;
+			String nsURI = uri.trimFragment().toString();
+			Resource resource = ePackageResources.get(nsURI);
+			if (resource == null) {
+				EPackage ePackage = EPackage.Registry.INSTANCE.getEPackage(nsURI);
+				if (ePackage == null || ePackage.eResource() == null) {
+					if (missingEPackages.add(nsURI))
+						LOG.warn("Cannot resolve " + uri + ", the EPackage " + nsURI + " is not registered.");
+					return null;
+				}
+				resource = ePackage.eResource();
+				ePackageResources.put(nsURI, resource);
+			}
+			return (ENamedElement) resource.getEObject(uri.fragment());
+		}
+	}
+
+}
@@ -14,6 +14,8 @@ import java.io.IOException
 import java.io.InputStream
 import java.io.InputStreamReader
 import java.io.ObjectInputStream
+import java.nio.ByteBuffer
+import java.util.Map
 import java.util.zip.ZipInputStream
 import org.apache.log4j.Logger
 import org.eclipse.emf.ecore.InternalEObject
@@ -38,11 +40,34 @@ import org.eclipse.xtext.parser.ParseResult
 		if (!resource.isLoadedFromStorage) {
 			throw new IllegalStateException("Please use StorageAwareResource#load(ResourceStorageLoadable).");
 		}
-		val zin = new ZipInputStream(in)
 		try {
-			loadEntries(resource, zin)
+			val buffer = ResourceStorageFormat.readFully(in)
+			if (ResourceStorageFormat.isResourceStorageFormat(buffer)) {
+				loadSections(resource, ResourceStorageFormat.readSections(buffer))
+			} else {
+				loadEntries(resource, new ZipInputStream(new ResourceStorageFormat.ByteBufferInputStream(buffer)))
+			}
 		} finally {
-			zin.close
+			in.close
+		}
+	}
+	
+	/**
+	 * Load the sections of the uncompressed storage format. The EMF contents are decoded when they are first
+	 * accessed, so a resource that is only loaded for its description does not decode them.
+	 * Overriding methods should first delegate to super before reading their own sections.
+	 * @since 2.15
+	 */
+	protected def void loadSections(StorageAwareResource resource, Map<String, ByteBuffer> sections) throws IOException {
+		val contents = ResourceStorageFormat.getSection(sections, ResourceStorageFormat.CONTENTS)
+		resource.deferContents [
+			readContents(resource, contents)
+		]
+		
+		readCompactResourceDescription(resource, ResourceStorageFormat.getSection(sections, ResourceStorageFormat.RESOURCE_DESCRIPTION))
+		
+		if (storeNodeModel && sections.containsKey(ResourceStorageFormat.NODE_MODEL)) {
+			readNodeModel(resource, ResourceStorageFormat.getSection(sections, ResourceStorageFormat.NODE_MODEL))
 		}
 	}
 	
@@ -93,6 +118,16 @@ import org.eclipse.xtext.parser.ParseResult
 		resource.resourceDescription = description
 	}
 	
+	/**
+	 * Read a resource description that was written without Java serialization.
+	 * @since 2.15
+	 */
+	protected def void readCompactResourceDescription(StorageAwareResource resource, InputStream inputStream) throws IOException {
+		val description = new ResourceStorageFormat.DescriptionReader(inputStream).read
+		description.updateResourceURI(resource.URI)
+		resource.resourceDescription = description
+	}
+	
 	protected def void readNodeModel(StorageAwareResource resource, InputStream inputStream) throws IOException {
 		val serializableNodeModel = new SerializableNodeModel(resource)
 		// if this is a synthetic resource (i.e. tests or so, don't load the node model)
@@ -8,16 +8,20 @@
 package org.eclipse.xtext.resource.persistence
 
 import java.io.BufferedOutputStream
+import java.io.ByteArrayOutputStream
 import java.io.DataOutputStream
 import java.io.IOException
 import java.io.ObjectOutputStream
 import java.io.OutputStream
+import java.util.LinkedHashMap
+import java.util.Map
 import java.util.zip.ZipEntry
 import java.util.zip.ZipOutputStream
 import org.eclipse.emf.common.util.URI
 import org.eclipse.emf.ecore.InternalEObject
 import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl
 import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl.EObjectOutputStream
+import org.eclipse.xtend.lib.annotations.Accessors
 import org.eclipse.xtend.lib.annotations.FinalFieldsConstructor
 import org.eclipse.xtext.nodemodel.impl.SerializableNodeModel
 import org.eclipse.xtext.nodemodel.serialization.SerializationConversionContext
@@ -30,10 +34,26 @@ import org.eclipse.xtext.nodemodel.serialization.SerializationConversionContext
 	val OutputStream out
 	val boolean storeNodeModel
 	
+	/**
+	 * Whether the resource is written in the uncompressed {@link ResourceStorageFormat} instead of a zip file.
+	 * @since 2.15
+	 */
+	@Accessors boolean storeUncompressed = false
+	
 	def void writeResource(StorageAwareResource resource) throws IOException {
 		if (resource.isLoadedFromStorage) {
 			throw new IllegalStateException("cannot write resources loaded from storage. URI was "+resource.URI)
 		}
+		if (storeUncompressed) {
+			val sections = new LinkedHashMap<String, ByteArrayOutputStream>
+			try {
+				writeSections(resource, sections)
+				ResourceStorageFormat.writeSections(sections, out)
+			} finally {
+				out.close
+			}
+			return
+		}
 		val zipOut = new ZipOutputStream(out)
 		try {
 			writeEntries(resource, zipOut)
@@ -75,6 +95,26 @@ import org.eclipse.xtext.nodemodel.serialization.SerializationConversionContext
 		}
 	}
 	
+	/**
+	 * Write the sections of the uncompressed storage format.
+	 * Overriding methods should first delegate to super before adding their own sections.
+	 * @since 2.15
+	 */
+	protected def void writeSections(StorageAwareResource resource, Map<String, ByteArrayOutputStream> sections) throws IOException {
+		val contents = new ByteArrayOutputStream
+		writeContents(resource, contents)
+		sections.put(ResourceStorageFormat.CONTENTS, contents)
+		
+		val description = new ByteArrayOutputStream
+		writeCompactResourceDescription(resource, description)
+		sections.put(ResourceStorageFormat.RESOURCE_DESCRIPTION, description)
+		
+		if (storeNodeModel) {
+			val nodeModel = new ByteArrayOutputStream
+			writeNodeModel(resource, nodeModel)
+			sections.put(ResourceStorageFormat.NODE_MODEL, nodeModel)
+		}
+	}
 	
 	protected def void writeContents(StorageAwareResource storageAwareResource, OutputStream outputStream) throws IOException {
 		val out = new BinaryResourceImpl.EObjectOutputStream(outputStream, emptyMap) {
@@ -109,9 +149,7 @@ import org.eclipse.xtext.nodemodel.serialization.SerializationConversionContext
 	}
 	
 	protected def void writeResourceDescription(StorageAwareResource resource, OutputStream outputStream) throws IOException {
-		val description = resource.resourceServiceProvider.resourceDescriptionManager.getResourceDescription(resource);
-		val serializableDescription = SerializableResourceDescription.createCopy(description)
-		convertExternalURIsToPortableURIs(serializableDescription, resource) 
+		val serializableDescription = createSerializableResourceDescription(resource)
 		val out = new ObjectOutputStream(outputStream);
 		try {
 			out.writeObject(serializableDescription);
@@ -120,6 +158,25 @@ import org.eclipse.xtext.nodemodel.serialization.SerializationConversionContext
 		}
 	}
 	
+	/**
+	 * Write the resource description without Java serialization.
+	 * @since 2.15
+	 */
+	protected def void writeCompactResourceDescription(StorageAwareResource resource, OutputStream outputStream) throws IOException {
+		val serializableDescription = createSerializableResourceDescription(resource)
+		new ResourceStorageFormat.DescriptionWriter(outputStream).write(serializableDescription)
+	}
+	
+	/**
+	 * @since 2.15
+	 */
+	protected def SerializableResourceDescription createSerializableResourceDescription(StorageAwareResource resource) {
+		val description = resource.resourceServiceProvider.resourceDescriptionManager.getResourceDescription(resource);
+		val serializableDescription = SerializableResourceDescription.createCopy(description)
+		convertExternalURIsToPortableURIs(serializableDescription, resource) 
+		return serializableDescription
+	}
+	
 	def protected void convertExternalURIsToPortableURIs(SerializableResourceDescription description, StorageAwareResource resource) {
 		for (ref : description.referenceDescriptions) {
 			if (ref.targetEObjectUri.trimFragment != resource.URI) {
@@ -272,7 +272,7 @@ class SerializationExtensions {
 	}
 	
 	def static QualifiedName readQualifiedName(ObjectInput in) throws IOException {
-		return QualifiedName.create(in.readObject as ArrayList<String>)
+		return QualifiedName.create(in.readObject as ArrayList<String>).intern
 	}
 	
 	def static void writeQualifiedName(ObjectOutput out, QualifiedName name) throws IOException {
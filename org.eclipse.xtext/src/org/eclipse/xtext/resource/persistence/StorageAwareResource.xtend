@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2017 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2014, 2018 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,7 +11,9 @@ import com.google.inject.Inject
 import java.io.IOException
 import java.util.Map
 import org.apache.log4j.Logger
+import org.eclipse.emf.common.util.WrappedException
 import org.eclipse.xtend.lib.annotations.Accessors
+import org.eclipse.xtext.diagnostics.ExceptionDiagnostic
 import org.eclipse.xtext.linking.lazy.LazyLinkingResource
 import org.eclipse.xtext.resource.IResourceDescription
 import org.eclipse.xtext.util.internal.Stopwatches
@@ -33,6 +35,11 @@ class StorageAwareResource extends LazyLinkingResource {
 	
 	@Accessors IResourceDescription resourceDescription = null;
 	
+	volatile ()=>void deferredContents
+	
+	// the thread that decodes the deferred contents, it accesses the contents while they are incomplete
+	Thread decodingThread
+	
 	override load(Map<?, ?> options) throws IOException {
 		if (!isLoaded && !isLoading && resourceStorageFacade !== null && resourceStorageFacade.shouldLoadFromStorage(this)) {
 			if (LOG.isDebugEnabled) {
@@ -69,12 +76,63 @@ class StorageAwareResource extends LazyLinkingResource {
 		}
 	}
 	
+	/**
+	 * Defers decoding the contents of a resource that is loaded from storage until they are accessed.
+	 * @since 2.15
+	 */
+	protected def void deferContents(()=>void decoder) {
+		deferredContents = decoder
+	}
+	
+	/**
+	 * Decodes the deferred contents before they are returned. Callers that see pending contents wait until they are
+	 * completely decoded. If decoding fails, the partially decoded contents are discarded, the failure is added to the
+	 * {@link #getErrors() errors} and thrown, and the resource remains empty.
+	 */
+	override getContents() {
+		if (deferredContents !== null) {
+			loadDeferredContents
+		}
+		return super.getContents
+	}
+	
+	private def synchronized void loadDeferredContents() {
+		val decoder = deferredContents
+		if (decoder === null || decodingThread === Thread.currentThread) {
+			return;
+		}
+		decodingThread = Thread.currentThread
+		val wasLoading = isLoading
+		isLoading = true
+		try {
+			decoder.apply
+		} catch (Exception e) {
+			super.getContents.clear
+			errors += new ExceptionDiagnostic(e)
+			if (e instanceof RuntimeException) {
+				throw e
+			}
+			throw new WrappedException(e)
+		} finally {
+			// only now other threads may access the contents without the lock
+			deferredContents = null
+			decodingThread = null
+			isLoading = wasLoading
+		}
+	}
+	
+	override unload() {
+		deferredContents = null
+		super.unload
+	}
+	
 	override protected doUnload() {
 		super.doUnload
 		isLoadedFromStorage = false;
 	}
 	
 	override protected clearInternalState() {
+		deferredContents = null
 		isLoadedFromStorage = false;
 		super.clearInternalState();
 	}
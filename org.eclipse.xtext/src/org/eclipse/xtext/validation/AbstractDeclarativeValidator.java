@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2008, 2018 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,27 +7,35 @@
  *******************************************************************************/
 package org.eclipse.xtext.validation;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
 import org.eclipse.emf.common.util.Diagnostic;
 import org.eclipse.emf.common.util.DiagnosticChain;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EFactory;
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
 import org.eclipse.emf.ecore.EStructuralFeature;
 import org.eclipse.xtext.diagnostics.Severity;
 import org.eclipse.xtext.util.Exceptions;
-import org.eclipse.xtext.util.SimpleCache;
 
-import com.google.common.base.Function;
 import com.google.common.collect.Sets;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
@@ -79,6 +87,9 @@ public abstract class AbstractDeclarativeValidator extends AbstractInjectableVal
 	}
 
 	/**
+	 * Invokes a check method. The method is compiled into a {@link MethodHandle} once, so its invocation does not pay
+	 * for the access checks and the argument boxing of reflection.
+	 * 
 	 * @since 2.6
 	 */
 	protected static class MethodWrapper {
@@ -86,6 +97,7 @@ public abstract class AbstractDeclarativeValidator extends AbstractInjectableVal
 		private final String s;
 		private final AbstractDeclarativeValidator instance;
 		private final CheckType checkType;
+		private final MethodHandle handle;
 
 		protected MethodWrapper(AbstractDeclarativeValidator instance, Method m) {
 			this.instance = instance;
@@ -93,6 +105,25 @@ public abstract class AbstractDeclarativeValidator extends AbstractInjectableVal
 			this.s = m.getName() + ":" + m.getParameterTypes()[0].getName();
 			Check annotation = m.getAnnotation(Check.class);
 			checkType = annotation.value();
+			handle = createHandle(m);
+		}
+
+		/**
+		 * Returns a handle of type <code>(AbstractDeclarativeValidator, EObject)void</code> for the given check method,
+		 * or <code>null</code> if the method has to be invoked reflectively.
+		 */
+		private static MethodHandle createHandle(Method m) {
+			try {
+				m.setAccessible(true);
+				MethodHandle result = MethodHandles.lookup().unreflect(m);
+				if (Modifier.isStatic(m.getModifiers())) {
+					result = MethodHandles.dropArguments(result, 0, AbstractDeclarativeValidator.class);
+				}
+				return result.asType(MethodType.methodType(void.class, AbstractDeclarativeValidator.class, EObject.class));
+			} catch (IllegalAccessException | RuntimeException e) {
+				log.debug("Cannot create a method handle for " + m + ", it is invoked reflectively.", e);
+				return null;
+			}
 		}
 
 		@Override
@@ -105,17 +136,26 @@ public abstract class AbstractDeclarativeValidator extends AbstractInjectableVal
 		}
 
 		public void invoke(State state) {
-			if (instance.state.get() != null && instance.state.get() != state)
+			State assigned = instance.state.get();
+			if (assigned != null && assigned != state)
 				throw new IllegalStateException("State is already assigned.");
-			boolean wasNull = instance.state.get() == null;
+			if (!state.checkMode.shouldCheck(checkType))
+				return;
+			boolean wasNull = assigned == null;
 			if (wasNull)
 				instance.state.set(state);
 			try {
-				if (!state.checkMode.shouldCheck(checkType))
+				state.currentMethod = method;
+				state.currentCheckType = checkType;
+				if (handle != null) {
+					try {
+						handle.invokeExact(instance, state.currentObject);
+					} catch (Throwable e) {
+						handleInvocationTargetException(e, state);
+					}
 					return;
+				}
 				try {
-					state.currentMethod = method;
-					state.currentCheckType = checkType;
 					method.setAccessible(true);
 					method.invoke(instance, state.currentObject);
 				} catch (IllegalArgumentException e) {
@@ -158,6 +198,9 @@ public abstract class AbstractDeclarativeValidator extends AbstractInjectableVal
 
 	private volatile Set<MethodWrapper> checkMethods = null;
 
+	// the distinct validators that own the check methods
+	private volatile AbstractDeclarativeValidator[] checkInstances = null;
+
 	private ValidationMessageAcceptor messageAcceptor;
 
 	@Inject
@@ -245,18 +288,94 @@ public abstract class AbstractDeclarativeValidator extends AbstractInjectableVal
 		return instanceToUse;
 	}
 
-	private final SimpleCache<Class<?>, List<MethodWrapper>> methodsForType = new SimpleCache<Class<?>, List<MethodWrapper>>(
-			new Function<Class<?>, List<MethodWrapper>>() {
-				@Override
-				public List<MethodWrapper> apply(Class<?> param) {
-					List<MethodWrapper> result = new ArrayList<MethodWrapper>();
-					for (MethodWrapper mw : checkMethods) {
-						if (mw.isMatching(param))
-							result.add(mw);
+	private final Map<Class<?>, MethodWrapper[]> methodsForType = new ConcurrentHashMap<Class<?>, MethodWrapper[]>();
+
+	private MethodWrapper[] getMethodsForType(Class<?> type, MethodWrapper[] knownMatches) {
+		MethodWrapper[] result = methodsForType.get(type);
+		if (result == null) {
+			Set<MethodWrapper> known = knownMatches != null ? Sets.newHashSet(knownMatches)
+					: Collections.<MethodWrapper>emptySet();
+			List<MethodWrapper> matching = new ArrayList<MethodWrapper>();
+			for (MethodWrapper mw : checkMethods) {
+				if (known.contains(mw) || mw.isMatching(type))
+					matching.add(mw);
+			}
+			result = matching.toArray(new MethodWrapper[matching.size()]);
+			methodsForType.put(type, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the check methods for the runtime class of the given object. They have usually been
+	 * {@link #initMethodsForType() computed upfront}. Otherwise they are resolved when the first object of that class
+	 * is validated. The check methods that match the {@link EClass#getInstanceClass() instance class} of the object's
+	 * EClass also match its runtime class, so only the remaining ones have to be matched.
+	 */
+	private MethodWrapper[] getMethodsForObject(EObject object) {
+		Class<?> type = object.getClass();
+		MethodWrapper[] result = methodsForType.get(type);
+		if (result == null) {
+			Class<?> instanceClass = object.eClass().getInstanceClass();
+			MethodWrapper[] knownMatches = null;
+			if (instanceClass != null && instanceClass.isAssignableFrom(type)) {
+				knownMatches = methodsForType.get(instanceClass);
+			}
+			result = getMethodsForType(type, knownMatches);
+		}
+		return result;
+	}
+
+	/**
+	 * Computes the check methods for the {@link EClass#getInstanceClass() instance classes} and the
+	 * {@link #getImplementationClass(EClass) implementation classes} of the {@link #getEPackages() validated packages}
+	 * upfront, so validating an object only looks up the methods of its runtime class.
+	 */
+	private void initMethodsForType() {
+		List<EPackage> ePackages;
+		try {
+			ePackages = getEPackages();
+		} catch (UnsupportedOperationException e) {
+			return;
+		}
+		for (EPackage ePackage : ePackages) {
+			for (EClassifier classifier : ePackage.getEClassifiers()) {
+				if (classifier instanceof EClass && classifier.getInstanceClass() != null) {
+					MethodWrapper[] matches = getMethodsForType(classifier.getInstanceClass(), null);
+					Class<?> implementationClass = getImplementationClass((EClass) classifier);
+					if (implementationClass != null) {
+						getMethodsForType(implementationClass, matches);
 					}
-					return result;
 				}
-			});
+			}
+		}
+	}
+
+	/**
+	 * Returns the implementation class of the given EClass if it follows the conventions of generated EMF code, i.e.
+	 * it is named <code>&lt;EClass name&gt;Impl</code> and lives in the package of the
+	 * {@link EPackage#getEFactoryInstance() factory}. The class is looked up without creating an instance.
+	 * 
+	 * @return the implementation class or <code>null</code> if there is no such class.
+	 */
+	private Class<?> getImplementationClass(EClass eClass) {
+		if (eClass.isAbstract() || eClass.isInterface() || eClass.getEPackage() == null)
+			return null;
+		EFactory factory = eClass.getEPackage().getEFactoryInstance();
+		if (factory == null)
+			return null;
+		Class<?> factoryClass = factory.getClass();
+		String factoryName = factoryClass.getName();
+		String implementationName = factoryName.substring(0, factoryName.lastIndexOf('.') + 1) + eClass.getName() + "Impl";
+		try {
+			Class<?> result = Class.forName(implementationName, false, factoryClass.getClassLoader());
+			if (eClass.getInstanceClass().isAssignableFrom(result))
+				return result;
+		} catch (ClassNotFoundException | LinkageError e) {
+			// not generated by EMF, resolved once an object of that class is validated
+		}
+		return null;
+	}
 
 	public static class State {
 		public DiagnosticChain chain = null;
@@ -298,7 +417,13 @@ public abstract class AbstractDeclarativeValidator extends AbstractInjectableVal
 				if (checkMethods == null) {
 					Set<MethodWrapper> checkMethods = Sets.newLinkedHashSet();
 					checkMethods.addAll(collectMethods(getClass()));
+					Set<AbstractDeclarativeValidator> checkInstances = new LinkedHashSet<AbstractDeclarativeValidator>();
+					for (MethodWrapper method : checkMethods) {
+						checkInstances.add(method.getInstance());
+					}
+					this.checkInstances = checkInstances.toArray(new AbstractDeclarativeValidator[checkInstances.size()]);
 					this.checkMethods = checkMethods;
+					initMethodsForType();
 				}
 			}
 		}
@@ -310,8 +435,24 @@ public abstract class AbstractDeclarativeValidator extends AbstractInjectableVal
 		state.checkMode = checkMode;
 		state.context = context;
 
-		for (MethodWrapper method : methodsForType.get(object.getClass())) {
-			method.invoke(state);
+		MethodWrapper[] methods = getMethodsForObject(object);
+		if (methods.length == 0)
+			return true;
+		// assign the state once per validated object rather than once per check method
+		AbstractDeclarativeValidator[] instances = checkInstances;
+		for (AbstractDeclarativeValidator instance : instances) {
+			if (instance.state.get() == null)
+				instance.state.set(state);
+		}
+		try {
+			for (MethodWrapper method : methods) {
+				method.invoke(state);
+			}
+		} finally {
+			for (AbstractDeclarativeValidator instance : instances) {
+				if (instance.state.get() == state)
+					instance.state.set(null);
+			}
 		}
 
 		return !state.hasErrors;
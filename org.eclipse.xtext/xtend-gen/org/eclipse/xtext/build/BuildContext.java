@@ -7,6 +7,7 @@
  */
 package org.eclipse.xtext.build;
 
+import java.util.List;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.xtend.lib.annotations.Accessors;
@@ -55,6 +56,23 @@ public class BuildContext {
     return this.loader.<T>executeClustered(IterableExtensions.<URI>filter(uri, _function), operation);
   }
   
+  /**
+   * Like {@link #executeClustered}, but passes each cluster of loaded resources to the operation
+   * at once.
+   * 
+   * @since 2.15
+   */
+  public <T extends Object> Iterable<T> executeClusterwise(final Iterable<URI> uri, final Function1<? super List<Resource>, ? extends Iterable<? extends T>> operation) {
+    if ((this.loader == null)) {
+      ClusteringStorageAwareResourceLoader _clusteringStorageAwareResourceLoader = new ClusteringStorageAwareResourceLoader(this);
+      this.loader = _clusteringStorageAwareResourceLoader;
+    }
+    final Function1<URI, Boolean> _function = (URI it) -> {
+      return Boolean.valueOf(this.canHandle(it));
+    };
+    return this.loader.<T>executeClusterwise(IterableExtensions.<URI>filter(uri, _function), operation);
+  }
+  
   protected boolean canHandle(final URI uri) {
     final IResourceServiceProvider resourceServiceProvider = this.resourceServiceProviderProvider.apply(uri);
     if ((resourceServiceProvider == null)) {
@@ -68,6 +86,15 @@ public class BuildContext {
     return resourceServiceProvider;
   }
   
+  /**
+   * Creates a context with the same state that loads resources into the given resource set.
+   * 
+   * @since 2.15
+   */
+  public BuildContext withResourceSet(final XtextResourceSet resourceSet) {
+    return new BuildContext(this.resourceServiceProviderProvider, resourceSet, this.oldState, this.clusteringPolicy, this.cancelIndicator);
+  }
+  
   public BuildContext(final Function1<? super URI, ? extends IResourceServiceProvider> resourceServiceProviderProvider, final XtextResourceSet resourceSet, final IndexState oldState, final IResourceClusteringPolicy clusteringPolicy, final CancelIndicator cancelIndicator) {
     super();
     this.resourceServiceProviderProvider = resourceServiceProviderProvider;
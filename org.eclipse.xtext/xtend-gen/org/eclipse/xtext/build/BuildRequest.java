@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2015, 2016 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2015, 2018 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,6 +7,7 @@
  */
 package org.eclipse.xtext.build;
 
+import com.google.inject.Provider;
 import java.io.File;
 import java.util.List;
 import org.apache.log4j.Logger;
@@ -110,6 +111,62 @@ public class BuildRequest {
   
   private CancelIndicator cancelIndicator = CancelIndicator.NullImpl;
   
+  /**
+   * The number of threads that are used to index the changed and affected resources.
+   * Values greater than one only take effect if a {@link #workerResourceSetProvider} is set.
+   * 
+   * @since 2.15
+   */
+  private int indexingThreads = 1;
+  
+  /**
+   * Creates the resource sets for the parallel indexing workers. Each worker loads its
+   * resources into a fresh resource set which has to be configured like the {@link #resourceSet}.
+   * 
+   * @since 2.15
+   */
+  private Provider<XtextResourceSet> workerResourceSetProvider;
+  
+  /**
+   * The number of threads that are used to validate the resources of a cluster once they are linked.
+   * Generation is not affected, see {@link #generatorThreads}. Values greater than one require the
+   * resource validators of all languages to be safe to run concurrently on different resources of
+   * the same resource set, which has to be {@link org.eclipse.xtext.resource.ISynchronizable synchronizable},
+   * e.g. a {@link org.eclipse.xtext.resource.SynchronizedXtextResourceSet}. Otherwise the resources are
+   * validated sequentially.
+   * 
+   * @since 2.15
+   */
+  private int validationThreads = 1;
+  
+  /**
+   * The number of threads that are used to generate the resources of a cluster once they are validated.
+   * With values greater than one, the generators run concurrently on different resources of the same
+   * resource set, unless they {@link org.eclipse.xtext.generator.GeneratorDelegate#isParallelSafe() opt out}.
+   * The resource set has to be {@link org.eclipse.xtext.resource.ISynchronizable synchronizable}, otherwise
+   * the resources are generated sequentially.
+   * 
+   * @since 2.15
+   */
+  private int generatorThreads = 1;
+  
+  /**
+   * Whether dirty files are skipped if their content still matches the {@link IndexState#getFingerprints()
+   * fingerprint} that has been recorded when they were built. Fingerprints are only recorded if this is enabled.
+   * 
+   * @since 2.15
+   */
+  private boolean skipUnchangedFiles = false;
+  
+  /**
+   * Whether generated files whose current content is identical to the generated content are left untouched instead
+   * of being written again, see {@link org.eclipse.xtext.generator.URIBasedFileSystemAccess#isSkipUnchangedWrites()
+   * URIBasedFileSystemAccess}.
+   * 
+   * @since 2.15
+   */
+  private boolean skipUnchangedWrites = false;
+  
   public void setBaseDir(final URI baseDir) {
     this.baseDir = baseDir;
   }
@@ -212,4 +269,58 @@ public class BuildRequest {
   public void setCancelIndicator(final CancelIndicator cancelIndicator) {
     this.cancelIndicator = cancelIndicator;
   }
+  
+  @Pure
+  public int getIndexingThreads() {
+    return this.indexingThreads;
+  }
+  
+  public void setIndexingThreads(final int indexingThreads) {
+    this.indexingThreads = indexingThreads;
+  }
+  
+  @Pure
+  public Provider<XtextResourceSet> getWorkerResourceSetProvider() {
+    return this.workerResourceSetProvider;
+  }
+  
+  public void setWorkerResourceSetProvider(final Provider<XtextResourceSet> workerResourceSetProvider) {
+    this.workerResourceSetProvider = workerResourceSetProvider;
+  }
+  
+  @Pure
+  public int getValidationThreads() {
+    return this.validationThreads;
+  }
+  
+  public void setValidationThreads(final int validationThreads) {
+    this.validationThreads = validationThreads;
+  }
+  
+  @Pure
+  public int getGeneratorThreads() {
+    return this.generatorThreads;
+  }
+  
+  public void setGeneratorThreads(final int generatorThreads) {
+    this.generatorThreads = generatorThreads;
+  }
+  
+  @Pure
+  public boolean isSkipUnchangedFiles() {
+    return this.skipUnchangedFiles;
+  }
+  
+  public void setSkipUnchangedFiles(final boolean skipUnchangedFiles) {
+    this.skipUnchangedFiles = skipUnchangedFiles;
+  }
+  
+  @Pure
+  public boolean isSkipUnchangedWrites() {
+    return this.skipUnchangedWrites;
+  }
+  
+  public void setSkipUnchangedWrites(final boolean skipUnchangedWrites) {
+    this.skipUnchangedWrites = skipUnchangedWrites;
+  }
 }
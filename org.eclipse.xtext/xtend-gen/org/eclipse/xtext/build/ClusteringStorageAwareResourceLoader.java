@@ -19,6 +19,7 @@ import org.eclipse.xtext.resource.IResourceServiceProvider;
 import org.eclipse.xtext.resource.IResourceServiceProviderExtension;
 import org.eclipse.xtext.resource.persistence.SourceLevelURIsAdapter;
 import org.eclipse.xtext.resource.persistence.StorageAwareResource;
+import org.eclipse.xtext.xbase.lib.CollectionExtensions;
 import org.eclipse.xtext.xbase.lib.CollectionLiterals;
 import org.eclipse.xtext.xbase.lib.Extension;
 import org.eclipse.xtext.xbase.lib.Functions.Function1;
@@ -34,6 +35,22 @@ public class ClusteringStorageAwareResourceLoader {
   private final BuildContext context;
   
   public <T extends Object> Iterable<T> executeClustered(final Iterable<URI> uris, final Function1<? super Resource, ? extends T> operation) {
+    final Function1<List<Resource>, List<T>> _function = (List<Resource> resources) -> {
+      final Function1<Resource, T> _function_1 = (Resource it) -> {
+        return operation.apply(it);
+      };
+      return ListExtensions.<Resource, T>map(resources, _function_1);
+    };
+    return this.<T>executeClusterwise(uris, _function);
+  }
+  
+  /**
+   * Loads the resources cluster by cluster and passes each complete cluster to the given operation before the
+   * resource set is cleared for the next one.
+   * 
+   * @since 2.15
+   */
+  public <T extends Object> Iterable<T> executeClusterwise(final Iterable<URI> uris, final Function1<? super List<Resource>, ? extends Iterable<? extends T>> operation) {
     ArrayList<T> _xblockexpression = null;
     {
       final ArrayList<URI> loadedURIs = CollectionLiterals.<URI>newArrayList();
@@ -47,11 +64,8 @@ public class ClusteringStorageAwareResourceLoader {
           boolean _continueProcessing = this.context.getClusteringPolicy().continueProcessing(this.context.getResourceSet(), uri, loadedURIs.size());
           boolean _not = (!_continueProcessing);
           if (_not) {
-            final Function1<Resource, T> _function = (Resource it) -> {
-              return operation.apply(it);
-            };
-            List<T> _map = ListExtensions.<Resource, T>map(resources, _function);
-            Iterables.<T>addAll(result, _map);
+            Iterable<? extends T> _apply = operation.apply(CollectionExtensions.<Resource>unmodifiableView(resources));
+            Iterables.<T>addAll(result, _apply);
             resources.clear();
             this.clearResourceSet();
             loadedURIs.clear();
@@ -73,11 +87,8 @@ public class ClusteringStorageAwareResourceLoader {
           resources.add(_resource);
         }
       }
-      final Function1<Resource, T> _function = (Resource it) -> {
-        return operation.apply(it);
-      };
-      List<T> _map = ListExtensions.<Resource, T>map(resources, _function);
-      Iterables.<T>addAll(result, _map);
+      Iterable<? extends T> _apply = operation.apply(CollectionExtensions.<Resource>unmodifiableView(resources));
+      Iterables.<T>addAll(result, _apply);
       _xblockexpression = result;
     }
     return _xblockexpression;
@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2015, 2017 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2015, 2018 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,18 +14,28 @@ import com.google.inject.Provider;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import org.apache.log4j.Logger;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.URIConverter;
 import org.eclipse.xtend.lib.annotations.AccessorType;
 import org.eclipse.xtend.lib.annotations.Accessors;
 import org.eclipse.xtend.lib.annotations.Data;
 import org.eclipse.xtext.EcoreUtil2;
 import org.eclipse.xtext.build.BuildContext;
 import org.eclipse.xtext.build.BuildRequest;
+import org.eclipse.xtext.build.ContentFingerprints;
+import org.eclipse.xtext.build.FingerprintingURIHandler;
 import org.eclipse.xtext.build.IndexState;
 import org.eclipse.xtext.build.Indexer;
 import org.eclipse.xtext.build.Source2GeneratedMapping;
@@ -42,6 +52,7 @@ import org.eclipse.xtext.generator.trace.TraceRegionSerializer;
 import org.eclipse.xtext.parser.IEncodingProvider;
 import org.eclipse.xtext.resource.IResourceDescription;
 import org.eclipse.xtext.resource.IResourceServiceProvider;
+import org.eclipse.xtext.resource.ISynchronizable;
 import org.eclipse.xtext.resource.XtextResourceSet;
 import org.eclipse.xtext.resource.clustering.DisabledClusteringPolicy;
 import org.eclipse.xtext.resource.clustering.IResourceClusteringPolicy;
@@ -51,6 +62,7 @@ import org.eclipse.xtext.resource.persistence.SerializableResourceDescription;
 import org.eclipse.xtext.resource.persistence.StorageAwareResource;
 import org.eclipse.xtext.service.OperationCanceledManager;
 import org.eclipse.xtext.util.CancelIndicator;
+import org.eclipse.xtext.util.concurrent.WorkerThreadPools;
 import org.eclipse.xtext.util.internal.Log;
 import org.eclipse.xtext.validation.CheckMode;
 import org.eclipse.xtext.validation.IResourceValidator;
@@ -60,10 +72,14 @@ import org.eclipse.xtext.workspace.IProjectConfigProvider;
 import org.eclipse.xtext.workspace.ISourceFolder;
 import org.eclipse.xtext.xbase.lib.CollectionLiterals;
 import org.eclipse.xtext.xbase.lib.Exceptions;
+import org.eclipse.xtext.xbase.lib.ExclusiveRange;
 import org.eclipse.xtext.xbase.lib.Extension;
 import org.eclipse.xtext.xbase.lib.Functions.Function1;
 import org.eclipse.xtext.xbase.lib.IterableExtensions;
+import org.eclipse.xtext.xbase.lib.ListExtensions;
 import org.eclipse.xtext.xbase.lib.ObjectExtensions;
+import org.eclipse.xtext.xbase.lib.Pair;
+import org.eclipse.xtext.xbase.lib.Procedures.Procedure0;
 import org.eclipse.xtext.xbase.lib.Procedures.Procedure1;
 import org.eclipse.xtext.xbase.lib.Pure;
 import org.eclipse.xtext.xbase.lib.util.ToStringBuilder;
@@ -81,10 +97,56 @@ public class IncrementalBuilder {
     
     private final List<IResourceDescription.Delta> affectedResources;
     
+    /**
+     * The number of dirty files that have not been built because their content matched their fingerprint.
+     * 
+     * @since 2.15
+     */
+    private final int skippedFiles;
+    
+    /**
+     * The number of dirty files whose fingerprint had been recorded by a previous build.
+     * 
+     * @since 2.15
+     */
+    private final int fingerprintHits;
+    
+    /**
+     * The number of generated files that have been written, including trace files.
+     * 
+     * @since 2.15
+     */
+    private final int writtenFiles;
+    
+    /**
+     * The number of generated files that have not been written because their contents were unchanged.
+     * 
+     * @see BuildRequest#isSkipUnchangedWrites()
+     * @since 2.15
+     */
+    private final int skippedWrites;
+    
     public Result(final IndexState indexState, final List<IResourceDescription.Delta> affectedResources) {
-      super();
+      this(indexState, affectedResources, 0, 0);
+    }
+    
+    /**
+     * @since 2.15
+     */
+    public Result(final IndexState indexState, final List<IResourceDescription.Delta> affectedResources, final int skippedFiles, final int fingerprintHits) {
+      this(indexState, affectedResources, skippedFiles, fingerprintHits, 0, 0);
+    }
+    
+    /**
+     * @since 2.15
+     */
+    public Result(final IndexState indexState, final List<IResourceDescription.Delta> affectedResources, final int skippedFiles, final int fingerprintHits, final int writtenFiles, final int skippedWrites) {
       this.indexState = indexState;
       this.affectedResources = affectedResources;
+      this.skippedFiles = skippedFiles;
+      this.fingerprintHits = fingerprintHits;
+      this.writtenFiles = writtenFiles;
+      this.skippedWrites = skippedWrites;
     }
     
     @Override
@@ -93,7 +155,11 @@ public class IncrementalBuilder {
       final int prime = 31;
       int result = 1;
       result = prime * result + ((this.indexState== null) ? 0 : this.indexState.hashCode());
-      return prime * result + ((this.affectedResources== null) ? 0 : this.affectedResources.hashCode());
+      result = prime * result + ((this.affectedResources== null) ? 0 : this.affectedResources.hashCode());
+      result = prime * result + this.skippedFiles;
+      result = prime * result + this.fingerprintHits;
+      result = prime * result + this.writtenFiles;
+      return prime * result + this.skippedWrites;
     }
     
     @Override
@@ -116,6 +182,14 @@ public class IncrementalBuilder {
           return false;
       } else if (!this.affectedResources.equals(other.affectedResources))
         return false;
+      if (other.skippedFiles != this.skippedFiles)
+        return false;
+      if (other.fingerprintHits != this.fingerprintHits)
+        return false;
+      if (other.writtenFiles != this.writtenFiles)
+        return false;
+      if (other.skippedWrites != this.skippedWrites)
+        return false;
       return true;
     }
     
@@ -125,6 +199,10 @@ public class IncrementalBuilder {
       ToStringBuilder b = new ToStringBuilder(this);
       b.add("indexState", this.indexState);
       b.add("affectedResources", this.affectedResources);
+      b.add("skippedFiles", this.skippedFiles);
+      b.add("fingerprintHits", this.fingerprintHits);
+      b.add("writtenFiles", this.writtenFiles);
+      b.add("skippedWrites", this.skippedWrites);
       return b.toString();
     }
     
@@ -137,6 +215,47 @@ public class IncrementalBuilder {
     public List<IResourceDescription.Delta> getAffectedResources() {
       return this.affectedResources;
     }
+    
+    /**
+     * The number of dirty files that have not been built because their content matched their fingerprint.
+     * 
+     * @since 2.15
+     */
+    @Pure
+    public int getSkippedFiles() {
+      return this.skippedFiles;
+    }
+    
+    /**
+     * The number of dirty files whose fingerprint had been recorded by a previous build.
+     * 
+     * @since 2.15
+     */
+    @Pure
+    public int getFingerprintHits() {
+      return this.fingerprintHits;
+    }
+    
+    /**
+     * The number of generated files that have been written, including trace files.
+     * 
+     * @since 2.15
+     */
+    @Pure
+    public int getWrittenFiles() {
+      return this.writtenFiles;
+    }
+    
+    /**
+     * The number of generated files that have not been written because their contents were unchanged.
+     * 
+     * @see BuildRequest#isSkipUnchangedWrites()
+     * @since 2.15
+     */
+    @Pure
+    public int getSkippedWrites() {
+      return this.skippedWrites;
+    }
   }
   
   @Log
@@ -155,6 +274,15 @@ public class IncrementalBuilder {
     @Extension
     private OperationCanceledManager _operationCanceledManager;
     
+    @Inject
+    private WorkerThreadPools workerThreadPools;
+    
+    private ExecutorService generatorExecutor;
+    
+    private int writtenFiles;
+    
+    private int skippedWrites;
+    
     protected void unloadResource(final URI uri) {
       final Resource resource = this.request.getResourceSet().getResource(uri, false);
       if ((resource != null)) {
@@ -163,8 +291,58 @@ public class IncrementalBuilder {
       }
     }
     
+    private FingerprintingURIHandler fingerprinting;
+    
     public IncrementalBuilder.Result launch() {
+      boolean _isSkipUnchangedFiles = this.request.isSkipUnchangedFiles();
+      if (_isSkipUnchangedFiles) {
+        URIConverter _uRIConverter = this.request.getResourceSet().getURIConverter();
+        ContentFingerprints _fingerprints = this.request.getState().getFingerprints();
+        FingerprintingURIHandler _fingerprintingURIHandler = new FingerprintingURIHandler(_uRIConverter, _fingerprints);
+        this.fingerprinting = _fingerprintingURIHandler;
+        this.fingerprinting.install();
+      }
+      try {
+        return this.internalLaunch();
+      } finally {
+        if (this.fingerprinting!=null) {
+          this.fingerprinting.uninstall();
+        }
+        this.fingerprinting = null;
+      }
+    }
+    
+    private IncrementalBuilder.Result internalLaunch() {
       final Source2GeneratedMapping newSource2GeneratedMapping = this.request.getState().getFileMappings();
+      int fingerprintHits = 0;
+      int skippedFiles = 0;
+      if ((this.fingerprinting != null)) {
+        final ArrayList<URI> changedFiles = CollectionLiterals.<URI>newArrayList();
+        List<URI> _dirtyFiles = this.request.getDirtyFiles();
+        for (final URI dirty : _dirtyFiles) {
+          {
+            final String fingerprint = this.request.getState().getFingerprints().get(dirty);
+            if ((fingerprint != null)) {
+              fingerprintHits++;
+            }
+            boolean _checkFingerprint = this.checkFingerprint(dirty, fingerprint);
+            boolean _not = (!_checkFingerprint);
+            if (_not) {
+              changedFiles.add(dirty);
+            }
+          }
+        }
+        int _size = this.request.getDirtyFiles().size();
+        int _size_1 = changedFiles.size();
+        int _minus = (_size - _size_1);
+        skippedFiles = _minus;
+        this.request.setDirtyFiles(changedFiles);
+      } else {
+        List<URI> _dirtyFiles_1 = this.request.getDirtyFiles();
+        for (final URI dirty_1 : _dirtyFiles_1) {
+          this.request.getState().getFingerprints().remove(dirty_1);
+        }
+      }
       final HashSet<URI> unloaded = CollectionLiterals.<URI>newHashSet();
       List<URI> _deletedFiles = this.request.getDeletedFiles();
       for (final URI deleted : _deletedFiles) {
@@ -173,14 +351,15 @@ public class IncrementalBuilder {
           this.unloadResource(deleted);
         }
       }
-      List<URI> _dirtyFiles = this.request.getDirtyFiles();
-      for (final URI dirty : _dirtyFiles) {
-        boolean _add_1 = unloaded.add(dirty);
+      List<URI> _dirtyFiles_2 = this.request.getDirtyFiles();
+      for (final URI dirty_2 : _dirtyFiles_2) {
+        boolean _add_1 = unloaded.add(dirty_2);
         if (_add_1) {
-          this.unloadResource(dirty);
+          this.unloadResource(dirty_2);
         }
       }
       final Consumer<URI> _function = (URI source) -> {
+        this.request.getState().getFingerprints().remove(source);
         this.request.getAfterValidate().afterValidate(source, CollectionLiterals.<Issue>newArrayList());
         final Consumer<URI> _function_1 = (URI generated) -> {
           try {
@@ -230,41 +409,293 @@ public class IncrementalBuilder {
       final Function1<IResourceDescription.Delta, URI> _function_3 = (IResourceDescription.Delta it) -> {
         return it.getUri();
       };
-      final Function1<Resource, IResourceDescription.Delta> _function_4 = (Resource resource) -> {
-        this._operationCanceledManager.checkCanceled(this.request.getCancelIndicator());
-        resource.getContents();
-        EcoreUtil2.resolveLazyCrossReferences(resource, CancelIndicator.NullImpl);
-        this._operationCanceledManager.checkCanceled(this.request.getCancelIndicator());
-        final IResourceServiceProvider serviceProvider = this.context.getResourceServiceProvider(resource.getURI());
-        final IResourceDescription.Manager manager = serviceProvider.getResourceDescriptionManager();
-        final IResourceDescription description = manager.getResourceDescription(resource);
-        final SerializableResourceDescription copiedDescription = SerializableResourceDescription.createCopy(description);
-        result.getNewIndex().addDescription(resource.getURI(), copiedDescription);
-        this._operationCanceledManager.checkCanceled(this.request.getCancelIndicator());
-        if ((((!this.request.isIndexOnly()) && this.validate(resource)) && serviceProvider.<IShouldGenerate>get(IShouldGenerate.class).shouldGenerate(resource, CancelIndicator.NullImpl))) {
-          this._operationCanceledManager.checkCanceled(this.request.getCancelIndicator());
-          this.generate(resource, this.request, newSource2GeneratedMapping);
+      final Iterable<URI> changedURIs = IterableExtensions.<IResourceDescription.Delta, URI>map(IterableExtensions.<IResourceDescription.Delta>filter(result.getResourceDeltas(), _function_2), _function_3);
+      boolean _isGenerateInParallel = this.isGenerateInParallel();
+      if (_isGenerateInParallel) {
+        this.generatorExecutor = this.workerThreadPools.get("generation", this.request.getGeneratorThreads());
+      }
+      try {
+        boolean _isValidateInParallel = this.isValidateInParallel();
+        if (_isValidateInParallel) {
+          List<IResourceDescription.Delta> _validateInParallel = this.validateInParallel(changedURIs, result.getNewIndex(), newSource2GeneratedMapping);
+          Iterables.<IResourceDescription.Delta>addAll(resolvedDeltas, _validateInParallel);
+        } else {
+          if ((this.generatorExecutor != null)) {
+            final Function1<List<Resource>, List<IResourceDescription.Delta>> _function_4 = (List<Resource> resources) -> {
+              final ArrayList<Resource> toGenerate = CollectionLiterals.<Resource>newArrayList();
+              final ArrayList<IResourceDescription.Delta> deltas = CollectionLiterals.<IResourceDescription.Delta>newArrayList();
+              for (final Resource resource : resources) {
+                {
+                  final IResourceDescription copiedDescription = this.linkAndIndex(resource, result.getNewIndex());
+                  if ((this.validate(resource) && this.shouldGenerate(resource))) {
+                    toGenerate.add(resource);
+                  }
+                  IResourceDescription.Delta _createDelta = this.createDelta(resource, copiedDescription);
+                  deltas.add(_createDelta);
+                }
+              }
+              this.generateInParallel(toGenerate, newSource2GeneratedMapping);
+              return deltas;
+            };
+            List<IResourceDescription.Delta> _list = IterableExtensions.<IResourceDescription.Delta>toList(this.context.<IResourceDescription.Delta>executeClusterwise(changedURIs, _function_4));
+            Iterables.<IResourceDescription.Delta>addAll(resolvedDeltas, _list);
+          } else {
+            final Function1<Resource, IResourceDescription.Delta> _function_5 = (Resource resource) -> {
+              final IResourceDescription copiedDescription = this.linkAndIndex(resource, result.getNewIndex());
+              if ((((!this.request.isIndexOnly()) && this.validate(resource)) && this.shouldGenerate(resource))) {
+                this._operationCanceledManager.checkCanceled(this.request.getCancelIndicator());
+                this.generate(resource, this.request, newSource2GeneratedMapping);
+              }
+              return this.createDelta(resource, copiedDescription);
+            };
+            Iterable<IResourceDescription.Delta> _executeClustered = this.context.<IResourceDescription.Delta>executeClustered(changedURIs, _function_5);
+            Iterables.<IResourceDescription.Delta>addAll(resolvedDeltas, _executeClustered);
+          }
         }
-        final IResourceDescription old = this.context.getOldState().getResourceDescriptions().getResourceDescription(resource.getURI());
-        return manager.createDelta(old, copiedDescription);
-      };
-      Iterable<IResourceDescription.Delta> _executeClustered = this.context.<IResourceDescription.Delta>executeClustered(IterableExtensions.<IResourceDescription.Delta, URI>map(IterableExtensions.<IResourceDescription.Delta>filter(result.getResourceDeltas(), _function_2), _function_3), _function_4);
-      Iterables.<IResourceDescription.Delta>addAll(resolvedDeltas, _executeClustered);
+      } finally {
+        this.generatorExecutor = null;
+      }
       IndexState _state = this.request.getState();
-      return new IncrementalBuilder.Result(_state, resolvedDeltas);
+      return new IncrementalBuilder.Result(_state, resolvedDeltas, skippedFiles, fingerprintHits, this.writtenFiles, this.skippedWrites);
+    }
+    
+    /**
+     * Records the fingerprint of the current content of a dirty file. Files that are only indexed are not recorded,
+     * since they still have to be validated and generated by a later build.
+     * 
+     * @param fingerprint the fingerprint that has been recorded by a previous build or <code>null</code>.
+     * @return whether the file is unchanged since it has been built and does not have to be built again.
+     * @since 2.15
+     */
+    protected boolean checkFingerprint(final URI uri, final String fingerprint) {
+      if (((fingerprint == null) || (this.context.getOldState().getResourceDescriptions().getResourceDescription(uri) == null))) {
+        this.request.getState().getFingerprints().remove(uri);
+        boolean _isIndexOnly = this.request.isIndexOnly();
+        boolean _not = (!_isIndexOnly);
+        if (_not) {
+          this.fingerprinting.record(uri);
+        }
+        return false;
+      }
+      final byte[] content = this.fingerprinting.read(uri);
+      String _xifexpression = null;
+      if ((content != null)) {
+        _xifexpression = ContentFingerprints.compute(content);
+      }
+      final String current = _xifexpression;
+      if (((current != null) && Objects.equal(current, fingerprint))) {
+        return true;
+      }
+      if (((current != null) && (!this.request.isIndexOnly()))) {
+        this.request.getState().getFingerprints().put(uri, current);
+      } else {
+        this.request.getState().getFingerprints().remove(uri);
+      }
+      if ((content != null)) {
+        this.fingerprinting.provide(uri, content);
+      }
+      return false;
+    }
+    
+    /**
+     * Resolves all cross references of the resource and puts its description into the new index.
+     * 
+     * @return the description that was put into the index.
+     * @since 2.15
+     */
+    protected IResourceDescription linkAndIndex(final Resource resource, final ResourceDescriptionsData newIndex) {
+      this._operationCanceledManager.checkCanceled(this.request.getCancelIndicator());
+      resource.getContents();
+      EcoreUtil2.resolveLazyCrossReferences(resource, CancelIndicator.NullImpl);
+      this._operationCanceledManager.checkCanceled(this.request.getCancelIndicator());
+      final IResourceDescription.Manager manager = this.context.getResourceServiceProvider(resource.getURI()).getResourceDescriptionManager();
+      final IResourceDescription description = manager.getResourceDescription(resource);
+      final SerializableResourceDescription copiedDescription = SerializableResourceDescription.createCopy(description);
+      newIndex.addDescription(resource.getURI(), copiedDescription);
+      this._operationCanceledManager.checkCanceled(this.request.getCancelIndicator());
+      return copiedDescription;
+    }
+    
+    /**
+     * @since 2.15
+     */
+    protected IResourceDescription.Delta createDelta(final Resource resource, final IResourceDescription newDescription) {
+      final IResourceDescription.Manager manager = this.context.getResourceServiceProvider(resource.getURI()).getResourceDescriptionManager();
+      final IResourceDescription old = this.context.getOldState().getResourceDescriptions().getResourceDescription(resource.getURI());
+      return manager.createDelta(old, newDescription);
+    }
+    
+    /**
+     * @since 2.15
+     */
+    protected boolean shouldGenerate(final Resource resource) {
+      final IResourceServiceProvider serviceProvider = this.context.getResourceServiceProvider(resource.getURI());
+      return serviceProvider.<IShouldGenerate>get(IShouldGenerate.class).shouldGenerate(resource, CancelIndicator.NullImpl);
+    }
+    
+    /**
+     * Whether the resources of a cluster are {@link #validateInParallel validated concurrently}. This requires
+     * a request with more than one {@link BuildRequest#getValidationThreads() validation thread}, an
+     * {@link ISynchronizable synchronizable} resource set, since validators may load further resources, and a
+     * builder that {@link #isParallelValidationSupported() supports parallel validation}.
+     * 
+     * @since 2.15
+     */
+    protected boolean isValidateInParallel() {
+      if (((this.request.isIndexOnly() || (this.request.getValidationThreads() <= 1)) || (!this.isParallelValidationSupported()))) {
+        return false;
+      }
+      XtextResourceSet _resourceSet = this.request.getResourceSet();
+      boolean _not = (!(_resourceSet instanceof ISynchronizable<?>));
+      if (_not) {
+        IncrementalBuilder.InternalStatefulIncrementalBuilder.LOG.info("Validating sequentially since the resource set is not synchronizable.");
+        return false;
+      }
+      return true;
+    }
+    
+    /**
+     * Whether this builder may validate resources concurrently. Parallel validation uses
+     * {@link #validate(Resource, CancelIndicator)} and the validation callbacks directly, thus
+     * {@link #validate(Resource)} is not invoked. Builders that override it have to return <code>false</code>
+     * here, so that the override is called.
+     * 
+     * @since 2.15
+     */
+    protected boolean isParallelValidationSupported() {
+      return true;
+    }
+    
+    /**
+     * Whether the {@link GeneratorDelegate#isParallelSafe() parallel safe} generators of a cluster are
+     * {@link #generateInParallel run concurrently}. This requires a request with more than one
+     * {@link BuildRequest#getGeneratorThreads() generator thread} and an {@link ISynchronizable synchronizable}
+     * resource set, since generators may load further resources.
+     * 
+     * @since 2.15
+     */
+    protected boolean isGenerateInParallel() {
+      if ((this.request.isIndexOnly() || (this.request.getGeneratorThreads() <= 1))) {
+        return false;
+      }
+      XtextResourceSet _resourceSet = this.request.getResourceSet();
+      boolean _not = (!(_resourceSet instanceof ISynchronizable<?>));
+      if (_not) {
+        IncrementalBuilder.InternalStatefulIncrementalBuilder.LOG.info("Generating sequentially since the resource set is not synchronizable.");
+        return false;
+      }
+      return true;
+    }
+    
+    /**
+     * Links and indexes the resources cluster by cluster. The resources of a cluster are validated concurrently
+     * with {@link #validate(Resource, CancelIndicator)} by up to {@link BuildRequest#getValidationThreads()
+     * validationThreads} workers of a shared pool once the whole cluster is linked. The validation callbacks
+     * happen afterwards on the calling thread in the order of the resources, followed by the generation of the
+     * valid ones.
+     * 
+     * @since 2.15
+     */
+    protected List<IResourceDescription.Delta> validateInParallel(final Iterable<URI> uris, final ResourceDescriptionsData newIndex, final Source2GeneratedMapping newMappings) {
+      final ExecutorService executor = this.workerThreadPools.get("validation", this.request.getValidationThreads());
+      final Function1<List<Resource>, List<IResourceDescription.Delta>> _function = (List<Resource> resources) -> {
+        final Function1<Resource, IResourceDescription> _function_1 = (Resource resource) -> {
+          return this.linkAndIndex(resource, newIndex);
+        };
+        final List<IResourceDescription> descriptions = IterableExtensions.<IResourceDescription>toList(ListExtensions.<Resource, IResourceDescription>map(resources, _function_1));
+        final Function1<Resource, Future<List<Issue>>> _function_2 = (Resource resource) -> {
+          final Callable<List<Issue>> _function_3 = () -> {
+            this._operationCanceledManager.checkCanceled(this.request.getCancelIndicator());
+            return this.validate(resource, this.request.getCancelIndicator());
+          };
+          final Callable<List<Issue>> task = _function_3;
+          return executor.<List<Issue>>submit(task);
+        };
+        final List<Future<List<Issue>>> futures = IterableExtensions.<Future<List<Issue>>>toList(ListExtensions.<Resource, Future<List<Issue>>>map(resources, _function_2));
+        final ArrayList<List<Issue>> issues = CollectionLiterals.<List<Issue>>newArrayList();
+        try {
+          for (final Future<List<Issue>> future : futures) {
+            List<Issue> _waitFor = this.<List<Issue>>waitFor(future);
+            issues.add(_waitFor);
+          }
+        } finally {
+          final Consumer<Future<List<Issue>>> _function_4 = (Future<List<Issue>> it) -> {
+            it.cancel(true);
+          };
+          futures.forEach(_function_4);
+        }
+        final ArrayList<Resource> toGenerate = CollectionLiterals.<Resource>newArrayList();
+        final ArrayList<IResourceDescription.Delta> deltas = CollectionLiterals.<IResourceDescription.Delta>newArrayList();
+        int _size = resources.size();
+        ExclusiveRange _doubleDotLessThan = new ExclusiveRange(0, _size, true);
+        for (final Integer i : _doubleDotLessThan) {
+          {
+            final Resource resource = resources.get((i).intValue());
+            final List<Issue> resourceIssues = issues.get((i).intValue());
+            if ((((resourceIssues == null) || this.request.getAfterValidate().afterValidate(resource.getURI(), resourceIssues)) && this.shouldGenerate(resource))) {
+              if ((this.generatorExecutor != null)) {
+                toGenerate.add(resource);
+              } else {
+                this._operationCanceledManager.checkCanceled(this.request.getCancelIndicator());
+                this.generate(resource, this.request, newMappings);
+              }
+            }
+            IResourceDescription.Delta _createDelta = this.createDelta(resource, descriptions.get((i).intValue()));
+            deltas.add(_createDelta);
+          }
+        }
+        boolean _isEmpty = toGenerate.isEmpty();
+        boolean _not = (!_isEmpty);
+        if (_not) {
+          this.generateInParallel(toGenerate, newMappings);
+        }
+        return deltas;
+      };
+      return IterableExtensions.<IResourceDescription.Delta>toList(this.context.<IResourceDescription.Delta>executeClusterwise(uris, _function));
+    }
+    
+    private <T extends Object> T waitFor(final Future<T> future) {
+      try {
+        try {
+          return future.get();
+        } catch (final Throwable _t) {
+          if (_t instanceof ExecutionException) {
+            final ExecutionException e = (ExecutionException)_t;
+            throw e.getCause();
+          } else {
+            throw Exceptions.sneakyThrow(_t);
+          }
+        }
+      } catch (Throwable _e) {
+        throw Exceptions.sneakyThrow(_e);
+      }
     }
     
     protected boolean validate(final Resource resource) {
+      final List<Issue> validationResult = this.validate(resource, null);
+      if ((validationResult == null)) {
+        return true;
+      }
+      return this.request.getAfterValidate().afterValidate(resource.getURI(), validationResult);
+    }
+    
+    /**
+     * Validates the resource. May be called concurrently for different resources if the request allows for more
+     * than one {@link BuildRequest#getValidationThreads() validation thread}.
+     * 
+     * @return the issues or <code>null</code> if the language does not have a resource validator.
+     * @since 2.15
+     */
+    protected List<Issue> validate(final Resource resource, final CancelIndicator cancelIndicator) {
       final IResourceValidator resourceValidator = this.context.getResourceServiceProvider(resource.getURI()).getResourceValidator();
       if ((resourceValidator == null)) {
-        return true;
+        return null;
       }
       String _lastSegment = resource.getURI().lastSegment();
       String _plus = ("Starting validation for input: \'" + _lastSegment);
       String _plus_1 = (_plus + "\'");
       IncrementalBuilder.InternalStatefulIncrementalBuilder.LOG.info(_plus_1);
-      final List<Issue> validationResult = resourceValidator.validate(resource, CheckMode.ALL, null);
-      return this.request.getAfterValidate().afterValidate(resource.getURI(), validationResult);
+      return resourceValidator.validate(resource, CheckMode.ALL, cancelIndicator);
     }
     
     protected void generate(final Resource resource, final BuildRequest request, final Source2GeneratedMapping newMappings) {
@@ -274,18 +705,137 @@ public class IncrementalBuilder {
         return;
       }
       final Set<URI> previous = newMappings.deleteSource(resource.getURI());
+      final URIBasedFileSystemAccess fileSystemAccess = this.prepareFileSystemAccess(serviceProvider, resource, request, previous, newMappings);
+      generator.generate(resource, fileSystemAccess, this.createGeneratorContext(request));
+      this.recordWrites(fileSystemAccess);
+      this.deleteStaleFiles(previous, request);
+    }
+    
+    /**
+     * Generates the resources of a cluster. For each resource, the generator's {@link GeneratorDelegate#beforeGenerate
+     * beforeGenerate}, {@link GeneratorDelegate#doGenerate doGenerate} and {@link GeneratorDelegate#afterGenerate
+     * afterGenerate} are invoked in this order, like in {@link GeneratorDelegate#generate generate}. The
+     * {@link GeneratorDelegate#isParallelSafe() parallel safe} generators run doGenerate on up to
+     * {@link BuildRequest#getGeneratorThreads() generatorThreads} workers of a shared pool. Their afterGenerate is
+     * invoked on the calling thread in the order of the resources once doGenerate has completed. The other
+     * generators run completely on the calling thread. afterGenerate is invoked even if doGenerate fails or the
+     * build is cancelled. The file mappings and the callbacks of the request are updated while holding the lock of
+     * the mappings.
+     * 
+     * @since 2.15
+     */
+    protected void generateInParallel(final List<Resource> resources, final Source2GeneratedMapping newMappings) {
+      final LinkedList<Pair<Future<?>, Procedure0>> pending = new LinkedList<Pair<Future<?>, Procedure0>>();
+      final ArrayList<Set<URI>> stale = CollectionLiterals.<Set<URI>>newArrayList();
+      try {
+        for (final Resource resource : resources) {
+          {
+            this._operationCanceledManager.checkCanceled(this.request.getCancelIndicator());
+            final IResourceServiceProvider serviceProvider = this.context.getResourceServiceProvider(resource.getURI());
+            final GeneratorDelegate generator = serviceProvider.<GeneratorDelegate>get(GeneratorDelegate.class);
+            if ((generator != null)) {
+              Set<URI> _xsynchronizedexpression = null;
+              synchronized (newMappings) {
+                _xsynchronizedexpression = newMappings.deleteSource(resource.getURI());
+              }
+              final Set<URI> previous = _xsynchronizedexpression;
+              final URIBasedFileSystemAccess fileSystemAccess = this.prepareFileSystemAccess(serviceProvider, resource, this.request, previous, newMappings);
+              final GeneratorContext generatorContext = this.createGeneratorContext(this.request);
+              stale.add(previous);
+              generator.beforeGenerate(resource, fileSystemAccess, generatorContext);
+              boolean _isParallelSafe = generator.isParallelSafe();
+              if (_isParallelSafe) {
+                final AtomicBoolean started = new AtomicBoolean();
+                final CountDownLatch finished = new CountDownLatch(1);
+                final Runnable _function = () -> {
+                  boolean _compareAndSet = started.compareAndSet(false, true);
+                  if (_compareAndSet) {
+                    try {
+                      generator.doGenerate(resource, fileSystemAccess, generatorContext);
+                    } finally {
+                      finished.countDown();
+                    }
+                  }
+                };
+                final Runnable task = _function;
+                Future<?> _submit = this.generatorExecutor.submit(task);
+                final Procedure0 _function_1 = () -> {
+                  try {
+                    boolean _compareAndSet = started.compareAndSet(false, true);
+                    boolean _not = (!_compareAndSet);
+                    if (_not) {
+                      finished.await();
+                    }
+                    generator.afterGenerate(resource, fileSystemAccess, generatorContext);
+                    this.recordWrites(fileSystemAccess);
+                  } catch (Throwable _e) {
+                    throw Exceptions.sneakyThrow(_e);
+                  }
+                };
+                Pair<Future<?>, Procedure0> _mappedTo = Pair.<Future<?>, Procedure0>of(_submit, _function_1);
+                pending.add(_mappedTo);
+              } else {
+                try {
+                  generator.doGenerate(resource, fileSystemAccess, generatorContext);
+                } finally {
+                  generator.afterGenerate(resource, fileSystemAccess, generatorContext);
+                }
+                this.recordWrites(fileSystemAccess);
+              }
+            }
+            this.completeGeneration(pending, false);
+          }
+        }
+        this.completeGeneration(pending, true);
+      } finally {
+        final Consumer<Pair<Future<?>, Procedure0>> _function = (Pair<Future<?>, Procedure0> it) -> {
+          it.getKey().cancel(true);
+        };
+        pending.forEach(_function);
+        final Consumer<Pair<Future<?>, Procedure0>> _function_1 = (Pair<Future<?>, Procedure0> it) -> {
+          it.getValue().apply();
+        };
+        pending.forEach(_function_1);
+      }
+      for (final Set<URI> previous : stale) {
+        this.deleteStaleFiles(previous, this.request);
+      }
+    }
+    
+    /**
+     * Invokes the completions of the submitted tasks in order, as long as the tasks are done. Waits for each task
+     * if <code>wait</code> is <code>true</code>. The failure of a task is rethrown after its completion.
+     */
+    private void completeGeneration(final LinkedList<Pair<Future<?>, Procedure0>> pending, final boolean wait) {
+      while (((!pending.isEmpty()) && (wait || pending.peekFirst().getKey().isDone()))) {
+        {
+          final Pair<Future<?>, Procedure0> next = pending.removeFirst();
+          try {
+            this.waitFor(next.getKey());
+          } finally {
+            next.getValue().apply();
+          }
+        }
+      }
+    }
+    
+    private URIBasedFileSystemAccess prepareFileSystemAccess(final IResourceServiceProvider serviceProvider, final Resource resource, final BuildRequest request, final Set<URI> previous, final Source2GeneratedMapping newMappings) {
       URIBasedFileSystemAccess _createFileSystemAccess = this.createFileSystemAccess(serviceProvider, resource);
       final Procedure1<URIBasedFileSystemAccess> _function = (URIBasedFileSystemAccess it) -> {
         final URIBasedFileSystemAccess.BeforeWrite _function_1 = (URI uri, String outputCfgName, InputStream contents) -> {
-          newMappings.addSource2Generated(resource.getURI(), uri, outputCfgName);
-          previous.remove(uri);
-          request.getAfterGenerateFile().apply(resource.getURI(), uri);
+          synchronized (newMappings) {
+            newMappings.addSource2Generated(resource.getURI(), uri, outputCfgName);
+            previous.remove(uri);
+            request.getAfterGenerateFile().apply(resource.getURI(), uri);
+          }
           return contents;
         };
         it.setBeforeWrite(_function_1);
         final URIBasedFileSystemAccess.BeforeDelete _function_2 = (URI uri) -> {
-          newMappings.deleteGenerated(uri);
-          request.getAfterDeleteFile().apply(uri);
+          synchronized (newMappings) {
+            newMappings.deleteGenerated(uri);
+            request.getAfterDeleteFile().apply(uri);
+          }
           return true;
         };
         it.setBeforeDelete(_function_2);
@@ -304,10 +854,29 @@ public class IncrementalBuilder {
           }
         }
       }
+      return fileSystemAccess;
+    }
+    
+    /**
+     * Adds the files that have been written or skipped by a file system access to the result of the build.
+     */
+    private void recordWrites(final URIBasedFileSystemAccess fileSystemAccess) {
+      int _writtenFiles = this.writtenFiles;
+      int _writtenFiles_1 = fileSystemAccess.getWrittenFiles();
+      this.writtenFiles = (_writtenFiles + _writtenFiles_1);
+      int _skippedWrites = this.skippedWrites;
+      int _skippedFiles = fileSystemAccess.getSkippedFiles();
+      this.skippedWrites = (_skippedWrites + _skippedFiles);
+    }
+    
+    private GeneratorContext createGeneratorContext(final BuildRequest request) {
       final GeneratorContext generatorContext = new GeneratorContext();
       generatorContext.setCancelIndicator(request.getCancelIndicator());
-      generator.generate(resource, fileSystemAccess, generatorContext);
-      final Consumer<URI> _function_1 = (URI it) -> {
+      return generatorContext;
+    }
+    
+    private void deleteStaleFiles(final Set<URI> previous, final BuildRequest request) {
+      final Consumer<URI> _function = (URI it) -> {
         try {
           IncrementalBuilder.InternalStatefulIncrementalBuilder.LOG.info(("Deleting stale generated file " + it));
           this.context.getResourceSet().getURIConverter().delete(it, CollectionLiterals.<Object, Object>emptyMap());
@@ -316,7 +885,7 @@ public class IncrementalBuilder {
           throw Exceptions.sneakyThrow(_e);
         }
       };
-      previous.forEach(_function_1);
+      previous.forEach(_function);
     }
     
     protected URIBasedFileSystemAccess createFileSystemAccess(final IResourceServiceProvider serviceProvider, final Resource resource) {
@@ -348,6 +917,7 @@ public class IncrementalBuilder {
           it.setTraceFileNameProvider(serviceProvider.<TraceFileNameProvider>get(TraceFileNameProvider.class));
           it.setTraceRegionSerializer(serviceProvider.<TraceRegionSerializer>get(TraceRegionSerializer.class));
           it.setGenerateTraces(true);
+          it.setSkipUnchangedWrites(this.request.isSkipUnchangedWrites());
           it.setBaseDir(this.request.getBaseDir());
           String _name = null;
           if (sourceFolder!=null) {
@@ -397,9 +967,7 @@ public class IncrementalBuilder {
   public IncrementalBuilder.Result build(final BuildRequest request, final Function1<? super URI, ? extends IResourceServiceProvider> languages, final IResourceClusteringPolicy clusteringPolicy) {
     try {
       final XtextResourceSet resourceSet = request.getResourceSet();
-      ResourceDescriptionsData _copy = request.getState().getResourceDescriptions().copy();
-      Source2GeneratedMapping _copy_1 = request.getState().getFileMappings().copy();
-      final IndexState oldState = new IndexState(_copy, _copy_1);
+      final IndexState oldState = request.getState().copy();
       CancelIndicator _cancelIndicator = request.getCancelIndicator();
       final BuildContext context = new BuildContext(languages, resourceSet, oldState, clusteringPolicy, _cancelIndicator);
       final IncrementalBuilder.InternalStatefulIncrementalBuilder builder = this.provider.get();
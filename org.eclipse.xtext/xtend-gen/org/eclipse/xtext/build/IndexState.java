@@ -9,6 +9,7 @@ package org.eclipse.xtext.build;
 
 import org.eclipse.xtend.lib.annotations.Accessors;
 import org.eclipse.xtend.lib.annotations.FinalFieldsConstructor;
+import org.eclipse.xtext.build.ContentFingerprints;
 import org.eclipse.xtext.build.Source2GeneratedMapping;
 import org.eclipse.xtext.resource.IResourceDescription;
 import org.eclipse.xtext.resource.impl.ResourceDescriptionsData;
@@ -26,14 +27,38 @@ public class IndexState {
   
   private final Source2GeneratedMapping fileMappings;
   
+  /**
+   * The fingerprints of the contents of the built files.
+   * 
+   * @since 2.15
+   */
+  private final ContentFingerprints fingerprints;
+  
   public IndexState() {
     this(new ResourceDescriptionsData(CollectionLiterals.<IResourceDescription>emptySet()), new Source2GeneratedMapping());
   }
   
   public IndexState(final ResourceDescriptionsData resourceDescriptions, final Source2GeneratedMapping fileMappings) {
+    this(resourceDescriptions, fileMappings, new ContentFingerprints());
+  }
+  
+  /**
+   * Returns a copy of this state that can be modified independently.
+   * 
+   * @since 2.15
+   */
+  public IndexState copy() {
+    ResourceDescriptionsData _copy = this.resourceDescriptions.copy();
+    Source2GeneratedMapping _copy_1 = this.fileMappings.copy();
+    ContentFingerprints _copy_2 = this.fingerprints.copy();
+    return new IndexState(_copy, _copy_1, _copy_2);
+  }
+  
+  public IndexState(final ResourceDescriptionsData resourceDescriptions, final Source2GeneratedMapping fileMappings, final ContentFingerprints fingerprints) {
     super();
     this.resourceDescriptions = resourceDescriptions;
     this.fileMappings = fileMappings;
+    this.fingerprints = fingerprints;
   }
   
   @Pure
@@ -45,4 +70,14 @@ public class IndexState {
   public Source2GeneratedMapping getFileMappings() {
     return this.fileMappings;
   }
+  
+  /**
+   * The fingerprints of the contents of the built files.
+   * 
+   * @since 2.15
+   */
+  @Pure
+  public ContentFingerprints getFingerprints() {
+    return this.fingerprints;
+  }
 }
@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2015, 2016 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2015, 2018 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -8,14 +8,22 @@
 package org.eclipse.xtext.build;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 import org.apache.log4j.Logger;
 import org.eclipse.emf.common.util.URI;
@@ -37,13 +45,17 @@ import org.eclipse.xtext.resource.IReferenceDescription;
 import org.eclipse.xtext.resource.IResourceDescription;
 import org.eclipse.xtext.resource.IResourceDescriptions;
 import org.eclipse.xtext.resource.IResourceServiceProvider;
+import org.eclipse.xtext.resource.XtextResourceSet;
 import org.eclipse.xtext.resource.impl.AbstractResourceDescription;
 import org.eclipse.xtext.resource.impl.DefaultResourceDescriptionDelta;
+import org.eclipse.xtext.resource.impl.DefaultResourceDescriptionManager;
 import org.eclipse.xtext.resource.impl.ResourceDescriptionsData;
 import org.eclipse.xtext.resource.persistence.SerializableEObjectDescriptionProvider;
 import org.eclipse.xtext.service.OperationCanceledManager;
+import org.eclipse.xtext.util.concurrent.WorkerThreadPools;
 import org.eclipse.xtext.util.internal.Log;
 import org.eclipse.xtext.xbase.lib.CollectionLiterals;
+import org.eclipse.xtext.xbase.lib.Exceptions;
 import org.eclipse.xtext.xbase.lib.Extension;
 import org.eclipse.xtext.xbase.lib.Functions.Function1;
 import org.eclipse.xtext.xbase.lib.IterableExtensions;
@@ -198,6 +210,12 @@ public class Indexer {
   @Extension
   private OperationCanceledManager _operationCanceledManager;
   
+  @Inject
+  private WorkerThreadPools workerThreadPools;
+  
+  @Inject
+  private IResourceServiceProvider.Registry resourceServiceProviderRegistry;
+  
   public Indexer.IndexResult computeAndIndexAffected(final BuildRequest request, @Extension final BuildContext context) {
     final ResourceDescriptionsData previousIndex = context.getOldState().getResourceDescriptions();
     final ResourceDescriptionsData newIndex = request.getState().getResourceDescriptions();
@@ -213,7 +231,7 @@ public class Indexer {
       Indexer.LOG.info(_plus_3);
     }
     deltas.addAll(this.getDeltasForDeletedResources(request, previousIndex, context));
-    deltas.addAll(this.getDeltasForChangedResources(request.getDirtyFiles(), previousIndex, context));
+    deltas.addAll(this.getDeltasForChangedResources(request, request.getDirtyFiles(), previousIndex, context));
     for (final IResourceDescription.Delta delta : deltas) {
       newIndex.register(delta);
     }
@@ -223,28 +241,31 @@ public class Indexer {
     if (_not) {
       allDeltas.addAll(request.getExternalDeltas());
     }
-    final Function1<IResourceDescription, URI> _function = (IResourceDescription it) -> {
-      return it.getURI();
-    };
-    final Set<URI> remainingURIs = IterableExtensions.<URI>toSet(IterableExtensions.<IResourceDescription, URI>map(previousIndex.getAllResourceDescriptions(), _function));
-    final Function1<IResourceDescription.Delta, URI> _function_1 = (IResourceDescription.Delta it) -> {
+    final HashMap<IResourceDescription.Manager, Set<URI>> candidates = CollectionLiterals.<IResourceDescription.Manager, Set<URI>>newHashMap();
+    final Set<URI> remainingURIs = this.getAffectionCandidates(candidates, allDeltas, previousIndex);
+    final Function1<IResourceDescription.Delta, URI> _function = (IResourceDescription.Delta it) -> {
       return it.getUri();
     };
-    remainingURIs.removeAll(ListExtensions.<IResourceDescription.Delta, URI>map(deltas, _function_1));
-    final Function1<URI, Boolean> _function_2 = (URI it) -> {
+    remainingURIs.removeAll(ListExtensions.<IResourceDescription.Delta, URI>map(deltas, _function));
+    final Function1<URI, Boolean> _function_1 = (URI it) -> {
       final IResourceDescription.Manager manager = context.getResourceServiceProvider(it).getResourceDescriptionManager();
+      boolean _isAffectionCandidate = this.isAffectionCandidate(it, manager, candidates, allDeltas, previousIndex);
+      boolean _not_1 = (!_isAffectionCandidate);
+      if (_not_1) {
+        return Boolean.valueOf(false);
+      }
       final IResourceDescription resourceDescription = previousIndex.getResourceDescription(it);
       final boolean isAffected = this.isAffected(resourceDescription, manager, allDeltas, allDeltas, newIndex);
       return Boolean.valueOf(isAffected);
     };
-    final List<URI> allAffected = IterableExtensions.<URI>toList(IterableExtensions.<URI>filter(remainingURIs, _function_2));
+    final List<URI> allAffected = IterableExtensions.<URI>toList(IterableExtensions.<URI>filter(remainingURIs, _function_1));
     if ((Indexer.LOG.isInfoEnabled() && (!allAffected.isEmpty()))) {
       Set<URI> _set_2 = IterableExtensions.<URI>toSet(allAffected);
       String _plus_4 = ("Creating Deltas for affected resources : " + _set_2);
       String _plus_5 = (_plus_4 + ".");
       Indexer.LOG.info(_plus_5);
     }
-    deltas.addAll(this.getDeltasForChangedResources(allAffected, previousIndex, context));
+    deltas.addAll(this.getDeltasForChangedResources(request, allAffected, previousIndex, context));
     return new Indexer.IndexResult(deltas, newIndex);
   }
   
@@ -282,6 +303,83 @@ public class Indexer {
     }
   }
   
+  /**
+   * Computes the deltas for the given URIs. If the request allows for more than one
+   * {@link BuildRequest#getIndexingThreads() indexing thread}, the URIs are indexed concurrently.
+   * 
+   * @since 2.15
+   */
+  protected List<IResourceDescription.Delta> getDeltasForChangedResources(final BuildRequest request, final Iterable<URI> affectedUris, final ResourceDescriptionsData oldIndex, final BuildContext context) {
+    final List<URI> uris = IterableExtensions.<URI>toList(affectedUris);
+    final int threads = Math.min(request.getIndexingThreads(), uris.size());
+    if (((threads <= 1) || (request.getWorkerResourceSetProvider() == null))) {
+      return this.getDeltasForChangedResources(uris, oldIndex, context);
+    }
+    return this.getDeltasForChangedResourcesInParallel(uris, threads, request.getWorkerResourceSetProvider(), oldIndex, context);
+  }
+  
+  /**
+   * Splits the URIs into consecutive partitions that are indexed by separate workers. Each worker uses its own
+   * resource set and clustering loader. The workers run on a shared pool. The deltas are returned in the order of
+   * the given URIs.
+   * 
+   * @since 2.15
+   */
+  protected List<IResourceDescription.Delta> getDeltasForChangedResourcesInParallel(final List<URI> uris, final int threads, final Provider<XtextResourceSet> resourceSetProvider, final ResourceDescriptionsData oldIndex, final BuildContext context) {
+    int _size = uris.size();
+    int _plus = (_size + threads);
+    int _minus = (_plus - 1);
+    int _divide = (_minus / threads);
+    final List<List<URI>> partitions = Lists.<URI>partition(uris, _divide);
+    final ExecutorService executor = this.workerThreadPools.get("indexing", threads);
+    final ArrayList<Future<List<IResourceDescription.Delta>>> futures = CollectionLiterals.<Future<List<IResourceDescription.Delta>>>newArrayList();
+    try {
+      for (final List<URI> partition : partitions) {
+        {
+          final Callable<List<IResourceDescription.Delta>> _function = () -> {
+            final XtextResourceSet workerResourceSet = resourceSetProvider.get();
+            try {
+              return this.getDeltasForChangedResources(partition, oldIndex, context.withResourceSet(workerResourceSet));
+            } finally {
+              workerResourceSet.getResources().clear();
+            }
+          };
+          final Callable<List<IResourceDescription.Delta>> task = _function;
+          Future<List<IResourceDescription.Delta>> _submit = executor.<List<IResourceDescription.Delta>>submit(task);
+          futures.add(_submit);
+        }
+      }
+      final ArrayList<IResourceDescription.Delta> result = CollectionLiterals.<IResourceDescription.Delta>newArrayList();
+      for (final Future<List<IResourceDescription.Delta>> future : futures) {
+        List<IResourceDescription.Delta> _waitFor = this.<List<IResourceDescription.Delta>>waitFor(future);
+        Iterables.<IResourceDescription.Delta>addAll(result, _waitFor);
+      }
+      return result;
+    } finally {
+      final Consumer<Future<List<IResourceDescription.Delta>>> _function = (Future<List<IResourceDescription.Delta>> it) -> {
+        it.cancel(true);
+      };
+      futures.forEach(_function);
+    }
+  }
+  
+  private <T extends Object> T waitFor(final Future<T> future) {
+    try {
+      try {
+        return future.get();
+      } catch (final Throwable _t) {
+        if (_t instanceof ExecutionException) {
+          final ExecutionException e = (ExecutionException)_t;
+          throw e.getCause();
+        } else {
+          throw Exceptions.sneakyThrow(_t);
+        }
+      }
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+  
   protected IResourceDescription.Delta addToIndex(final Resource resource, final boolean isPreIndexing, final ResourceDescriptionsData oldIndex, final BuildContext context) {
     this._operationCanceledManager.checkCanceled(context.getCancelIndicator());
     final URI uri = resource.getURI();
@@ -297,6 +395,93 @@ public class Indexer {
     return delta;
   }
   
+  /**
+   * Whether the resource with the given URI has to be checked with {@link #isAffected}. The candidates
+   * of a {@link DefaultResourceDescriptionManager} are looked up in the reverse dependency index of the
+   * previous index if the manager {@link DefaultResourceDescriptionManager#getAffectedCandidates supports
+   * that}, all other resources are always checked.
+   * 
+   * @since 2.15
+   */
+  protected boolean isAffectionCandidate(final URI uri, final IResourceDescription.Manager manager, final Map<IResourceDescription.Manager, Set<URI>> candidates, final Collection<IResourceDescription.Delta> allDeltas, final ResourceDescriptionsData previousIndex) {
+    final Set<URI> managerCandidates = this.getCandidates(manager, candidates, allDeltas, previousIndex);
+    return ((managerCandidates == null) || managerCandidates.contains(uri));
+  }
+  
+  /**
+   * Returns the URIs of the resources in the previous index that have to be checked with {@link #isAffected}. If the
+   * managers of all {@link #getRegisteredManagers() registered languages} look up their candidates in the reverse
+   * dependency index, these are only the looked up candidates. Otherwise all resources of the previous index are
+   * checked. The returned set may be modified.
+   * 
+   * @since 2.15
+   */
+  protected Set<URI> getAffectionCandidates(final Map<IResourceDescription.Manager, Set<URI>> candidates, final Collection<IResourceDescription.Delta> allDeltas, final ResourceDescriptionsData previousIndex) {
+    final Set<IResourceDescription.Manager> managers = this.getRegisteredManagers();
+    if ((managers != null)) {
+      final HashSet<URI> result = CollectionLiterals.<URI>newHashSet();
+      for (final IResourceDescription.Manager manager : managers) {
+        {
+          final Set<URI> managerCandidates = this.getCandidates(manager, candidates, allDeltas, previousIndex);
+          if ((managerCandidates == null)) {
+            Set<URI> _allURIs = previousIndex.getAllURIs();
+            return new HashSet<URI>(_allURIs);
+          }
+          Iterables.<URI>addAll(result, managerCandidates);
+        }
+      }
+      return result;
+    }
+    Set<URI> _allURIs = previousIndex.getAllURIs();
+    return new HashSet<URI>(_allURIs);
+  }
+  
+  /**
+   * Returns the resource description managers of the languages in the {@link IResourceServiceProvider.Registry}, or
+   * <code>null</code> if they cannot be determined without a concrete URI. The resources of languages that are not
+   * registered are only checked if they are candidates of a registered language.
+   * 
+   * @since 2.15
+   */
+  protected Set<IResourceDescription.Manager> getRegisteredManagers() {
+    final HashSet<IResourceDescription.Manager> result = CollectionLiterals.<IResourceDescription.Manager>newHashSet();
+    Collection<Object> _values = this.resourceServiceProviderRegistry.getExtensionToFactoryMap().values();
+    Collection<Object> _values_1 = this.resourceServiceProviderRegistry.getProtocolToFactoryMap().values();
+    Iterable<Object> _plus = Iterables.<Object>concat(_values, _values_1);
+    Collection<Object> _values_2 = this.resourceServiceProviderRegistry.getContentTypeToFactoryMap().values();
+    Iterable<Object> _plus_1 = Iterables.<Object>concat(_plus, _values_2);
+    for (final Object registered : _plus_1) {
+      {
+        if ((!(registered instanceof IResourceServiceProvider))) {
+          return null;
+        }
+        IResourceDescription.Manager _resourceDescriptionManager = ((IResourceServiceProvider) registered).getResourceDescriptionManager();
+        result.add(_resourceDescriptionManager);
+      }
+    }
+    boolean _isEmpty = result.isEmpty();
+    if (_isEmpty) {
+      return null;
+    }
+    return result;
+  }
+  
+  /**
+   * The candidates that the given manager looks up in the reverse dependency index, or <code>null</code> if all
+   * resources have to be checked.
+   */
+  private Set<URI> getCandidates(final IResourceDescription.Manager manager, final Map<IResourceDescription.Manager, Set<URI>> candidates, final Collection<IResourceDescription.Delta> allDeltas, final ResourceDescriptionsData previousIndex) {
+    if (((!(manager instanceof DefaultResourceDescriptionManager)) || (manager instanceof IResourceDescription.Manager.AllChangeAware))) {
+      return null;
+    }
+    boolean _containsKey = candidates.containsKey(manager);
+    boolean _not = (!_containsKey);
+    if (_not) {
+      candidates.put(manager, ((DefaultResourceDescriptionManager) manager).getAffectedCandidates(allDeltas, previousIndex));
+    }
+    return candidates.get(manager);
+  }
+  
   protected boolean isAffected(final IResourceDescription affectionCandidate, final IResourceDescription.Manager manager, final Collection<IResourceDescription.Delta> newDeltas, final Collection<IResourceDescription.Delta> allDeltas, final IResourceDescriptions resourceDescriptions) {
     if ((manager instanceof IResourceDescription.Manager.AllChangeAware)) {
       return ((IResourceDescription.Manager.AllChangeAware)manager).isAffectedByAny(allDeltas, affectionCandidate, resourceDescriptions);
@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2015, 2017 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2015, 2018 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -16,6 +16,7 @@ import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.resource.URIConverter;
 import org.eclipse.xtend.lib.annotations.Accessors;
@@ -86,6 +87,37 @@ public class URIBasedFileSystemAccess extends AbstractFileSystemAccess2 {
     return $1;
   });
   
+  /**
+   * If set to <code>true</code>, files whose current contents are identical to the generated contents are not
+   * written again, so their time stamps stay untouched. The {@link BeforeWrite} callback is invoked anyway.
+   * 
+   * @since 2.15
+   */
+  @Accessors
+  private boolean skipUnchangedWrites = false;
+  
+  private final AtomicInteger writtenFiles = new AtomicInteger();
+  
+  private final AtomicInteger skippedFiles = new AtomicInteger();
+  
+  /**
+   * The number of files that have been written, including trace files.
+   * 
+   * @since 2.15
+   */
+  public int getWrittenFiles() {
+    return this.writtenFiles.get();
+  }
+  
+  /**
+   * The number of files that have not been written because their contents were unchanged.
+   * 
+   * @since 2.15
+   */
+  public int getSkippedFiles() {
+    return this.skippedFiles.get();
+  }
+  
   @Override
   public void setPostProcessor(final IFilePostProcessor filePostProcessor) {
     super.setPostProcessor(filePostProcessor);
@@ -155,12 +187,49 @@ public class URIBasedFileSystemAccess extends AbstractFileSystemAccess2 {
   public void generateFile(final String fileName, final String outputCfgName, final InputStream content) throws RuntimeIOException {
     try {
       final URI uri = this.getURI(fileName, outputCfgName);
-      final OutputStream out = this.converter.createOutputStream(uri);
+      if (this.skipUnchangedWrites) {
+        final byte[] processedContent = ByteStreams.toByteArray(this.beforeWrite.beforeWrite(uri, outputCfgName, content));
+        boolean _hasContents = this.hasContents(uri, processedContent);
+        if (_hasContents) {
+          this.skippedFiles.incrementAndGet();
+          return;
+        }
+        final OutputStream out = this.converter.createOutputStream(uri);
+        try {
+          out.write(processedContent);
+        } finally {
+          out.close();
+        }
+      } else {
+        final OutputStream out_1 = this.converter.createOutputStream(uri);
+        try {
+          final InputStream processedContent_1 = this.beforeWrite.beforeWrite(uri, outputCfgName, content);
+          ByteStreams.copy(processedContent_1, out_1);
+        } finally {
+          out_1.close();
+        }
+      }
+      this.writtenFiles.incrementAndGet();
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+  
+  /**
+   * @since 2.15
+   */
+  protected boolean hasContents(final URI uri, final byte[] contents) {
+    try {
+      boolean _exists = this.converter.exists(uri, CollectionLiterals.<Object, Object>emptyMap());
+      boolean _not = (!_exists);
+      if (_not) {
+        return false;
+      }
+      final InputStream in = this.converter.createInputStream(uri);
       try {
-        final InputStream processedContent = this.beforeWrite.beforeWrite(uri, outputCfgName, content);
-        ByteStreams.copy(processedContent, out);
+        return this.contentEquals(in, contents);
       } finally {
-        out.close();
+        in.close();
       }
     } catch (Throwable _e) {
       throw Exceptions.sneakyThrow(_e);
@@ -280,4 +349,13 @@ public class URIBasedFileSystemAccess extends AbstractFileSystemAccess2 {
   public void setBeforeRead(final URIBasedFileSystemAccess.BeforeRead beforeRead) {
     this.beforeRead = beforeRead;
   }
+  
+  @Pure
+  public boolean isSkipUnchangedWrites() {
+    return this.skipUnchangedWrites;
+  }
+  
+  public void setSkipUnchangedWrites(final boolean skipUnchangedWrites) {
+    this.skipUnchangedWrites = skipUnchangedWrites;
+  }
 }
@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2015, 2016 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2015, 2018 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,8 +17,11 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import org.eclipse.emf.common.notify.Adapter;
@@ -34,10 +37,12 @@ import org.eclipse.xtext.resource.impl.AbstractCompoundSelectable;
 import org.eclipse.xtext.resource.impl.ResourceDescriptionsData;
 import org.eclipse.xtext.resource.persistence.SerializableResourceDescription;
 import org.eclipse.xtext.util.internal.EmfAdaptable;
+import org.eclipse.xtext.xbase.lib.CollectionLiterals;
 import org.eclipse.xtext.xbase.lib.Exceptions;
 import org.eclipse.xtext.xbase.lib.ExclusiveRange;
 import org.eclipse.xtext.xbase.lib.Functions.Function1;
 import org.eclipse.xtext.xbase.lib.IterableExtensions;
+import org.eclipse.xtext.xbase.lib.IteratorExtensions;
 
 /**
  * A IResourceDescriptions implementation that holds its resource description in chunks, each identified by a string.
@@ -53,7 +58,7 @@ import org.eclipse.xtext.xbase.lib.IterableExtensions;
 @Beta
 @EmfAdaptable
 @SuppressWarnings("all")
-public class ChunkedResourceDescriptions extends AbstractCompoundSelectable implements IResourceDescriptions, Externalizable {
+public class ChunkedResourceDescriptions extends AbstractCompoundSelectable implements IResourceDescriptions.IReferenceIndex, Externalizable {
   public static class ChunkedResourceDescriptionsAdapter extends AdapterImpl {
     private ChunkedResourceDescriptions element;
     
@@ -130,12 +135,19 @@ public class ChunkedResourceDescriptions extends AbstractCompoundSelectable impl
     return this.chunk2resourceDescriptions.values();
   }
   
+  /**
+   * Returns the descriptions of one chunk after the other. A chunk is only asked for its descriptions when an iteration
+   * reaches it, so {@link PagedResourceDescriptionsData paged out} chunks are read one at a time.
+   */
   @Override
   public Iterable<IResourceDescription> getAllResourceDescriptions() {
-    final Function1<ResourceDescriptionsData, Iterable<IResourceDescription>> _function = (ResourceDescriptionsData it) -> {
-      return it.getAllResourceDescriptions();
+    final Iterable<IResourceDescription> _function = () -> {
+      final Function1<ResourceDescriptionsData, Iterator<IResourceDescription>> _function_1 = (ResourceDescriptionsData it) -> {
+        return it.getAllResourceDescriptions().iterator();
+      };
+      return IteratorExtensions.<IResourceDescription>flatten(IteratorExtensions.<ResourceDescriptionsData, Iterator<IResourceDescription>>map(this.chunk2resourceDescriptions.values().iterator(), _function_1));
     };
-    return Iterables.<IResourceDescription>concat(IterableExtensions.<ResourceDescriptionsData, Iterable<IResourceDescription>>map(this.chunk2resourceDescriptions.values(), _function));
+    return _function;
   }
   
   @Override
@@ -169,6 +181,34 @@ public class ChunkedResourceDescriptions extends AbstractCompoundSelectable impl
     return this.chunk2resourceDescriptions.get(containerHandle);
   }
   
+  /**
+   * @since 2.15
+   */
+  @Override
+  public Set<URI> getReferencingResources(final URI resourceURI) {
+    final LinkedHashSet<URI> result = CollectionLiterals.<URI>newLinkedHashSet();
+    Collection<ResourceDescriptionsData> _values = this.chunk2resourceDescriptions.values();
+    for (final ResourceDescriptionsData container : _values) {
+      Set<URI> _referencingResources = container.getReferencingResources(resourceURI);
+      Iterables.<URI>addAll(result, _referencingResources);
+    }
+    return result;
+  }
+  
+  /**
+   * @since 2.15
+   */
+  @Override
+  public Set<URI> getResourcesReferencingEObject(final URI objectURI) {
+    final LinkedHashSet<URI> result = CollectionLiterals.<URI>newLinkedHashSet();
+    Collection<ResourceDescriptionsData> _values = this.chunk2resourceDescriptions.values();
+    for (final ResourceDescriptionsData container : _values) {
+      Set<URI> _resourcesReferencingEObject = container.getResourcesReferencingEObject(objectURI);
+      Iterables.<URI>addAll(result, _resourcesReferencingEObject);
+    }
+    return result;
+  }
+  
   @Override
   public void readExternal(final ObjectInput in) throws IOException, ClassNotFoundException {
     final int numChunks = in.readInt();
@@ -62,6 +62,13 @@ public class ResourceStorageFacade implements IResourceStorageFacade {
   @Accessors
   private boolean storeNodeModel = false;
   
+  /**
+   * Whether resources are stored in the uncompressed {@link ResourceStorageFormat}. Storages in both formats can be loaded.
+   * @since 2.15
+   */
+  @Accessors
+  private boolean storeUncompressed = false;
+  
   /**
    * @return whether the given resource should be loaded from stored resource state
    */
@@ -149,7 +156,9 @@ public class ResourceStorageFacade implements IResourceStorageFacade {
   @Override
   public ResourceStorageWritable createResourceStorageWritable(final OutputStream out) {
     boolean _isStoreNodeModel = this.isStoreNodeModel();
-    return new ResourceStorageWritable(out, _isStoreNodeModel);
+    final ResourceStorageWritable result = new ResourceStorageWritable(out, _isStoreNodeModel);
+    result.setStoreUncompressed(this.isStoreUncompressed());
+    return result;
   }
   
   /**
@@ -216,4 +225,13 @@ public class ResourceStorageFacade implements IResourceStorageFacade {
   public void setStoreNodeModel(final boolean storeNodeModel) {
     this.storeNodeModel = storeNodeModel;
   }
+  
+  @Pure
+  public boolean isStoreUncompressed() {
+    return this.storeUncompressed;
+  }
+  
+  public void setStoreUncompressed(final boolean storeUncompressed) {
+    this.storeUncompressed = storeUncompressed;
+  }
 }
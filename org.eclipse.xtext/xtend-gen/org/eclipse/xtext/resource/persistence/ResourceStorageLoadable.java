@@ -14,6 +14,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.zip.ZipInputStream;
 import org.apache.log4j.Logger;
@@ -25,11 +26,13 @@ import org.eclipse.xtend.lib.annotations.FinalFieldsConstructor;
 import org.eclipse.xtext.nodemodel.impl.SerializableNodeModel;
 import org.eclipse.xtext.nodemodel.serialization.DeserializationConversionContext;
 import org.eclipse.xtext.parser.ParseResult;
+import org.eclipse.xtext.resource.persistence.ResourceStorageFormat;
 import org.eclipse.xtext.resource.persistence.SerializableResourceDescription;
 import org.eclipse.xtext.resource.persistence.StorageAwareResource;
 import org.eclipse.xtext.xbase.lib.CollectionLiterals;
 import org.eclipse.xtext.xbase.lib.Exceptions;
 import org.eclipse.xtext.xbase.lib.IterableExtensions;
+import org.eclipse.xtext.xbase.lib.Procedures.Procedure0;
 
 /**
  * @author Sven Efftinge - Initial contribution and API
@@ -49,11 +52,40 @@ public class ResourceStorageLoadable {
     if (_not) {
       throw new IllegalStateException("Please use StorageAwareResource#load(ResourceStorageLoadable).");
     }
-    final ZipInputStream zin = new ZipInputStream(this.in);
     try {
-      this.loadEntries(resource, zin);
+      final ByteBuffer buffer = ResourceStorageFormat.readFully(this.in);
+      boolean _isResourceStorageFormat = ResourceStorageFormat.isResourceStorageFormat(buffer);
+      if (_isResourceStorageFormat) {
+        this.loadSections(resource, ResourceStorageFormat.readSections(buffer));
+      } else {
+        ResourceStorageFormat.ByteBufferInputStream _byteBufferInputStream = new ResourceStorageFormat.ByteBufferInputStream(buffer);
+        ZipInputStream _zipInputStream = new ZipInputStream(_byteBufferInputStream);
+        this.loadEntries(resource, _zipInputStream);
+      }
     } finally {
-      zin.close();
+      this.in.close();
+    }
+  }
+  
+  /**
+   * Load the sections of the uncompressed storage format. The EMF contents are decoded when they are first
+   * accessed, so a resource that is only loaded for its description does not decode them.
+   * Overriding methods should first delegate to super before reading their own sections.
+   * @since 2.15
+   */
+  protected void loadSections(final StorageAwareResource resource, final Map<String, ByteBuffer> sections) throws IOException {
+    final InputStream contents = ResourceStorageFormat.getSection(sections, ResourceStorageFormat.CONTENTS);
+    final Procedure0 _function = () -> {
+      try {
+        this.readContents(resource, contents);
+      } catch (Throwable _e) {
+        throw Exceptions.sneakyThrow(_e);
+      }
+    };
+    resource.deferContents(_function);
+    this.readCompactResourceDescription(resource, ResourceStorageFormat.getSection(sections, ResourceStorageFormat.RESOURCE_DESCRIPTION));
+    if ((this.storeNodeModel && sections.containsKey(ResourceStorageFormat.NODE_MODEL))) {
+      this.readNodeModel(resource, ResourceStorageFormat.getSection(sections, ResourceStorageFormat.NODE_MODEL));
     }
   }
   
@@ -114,6 +146,16 @@ public class ResourceStorageLoadable {
     }
   }
   
+  /**
+   * Read a resource description that was written without Java serialization.
+   * @since 2.15
+   */
+  protected void readCompactResourceDescription(final StorageAwareResource resource, final InputStream inputStream) throws IOException {
+    final SerializableResourceDescription description = new ResourceStorageFormat.DescriptionReader(inputStream).read();
+    description.updateResourceURI(resource.getURI());
+    resource.setResourceDescription(description);
+  }
+  
   protected void readNodeModel(final StorageAwareResource resource, final InputStream inputStream) throws IOException {
     final SerializableNodeModel serializableNodeModel = new SerializableNodeModel(resource);
     boolean _exists = resource.getResourceSet().getURIConverter().exists(resource.getURI(), resource.getResourceSet().getLoadOptions());
@@ -9,25 +9,30 @@ package org.eclipse.xtext.resource.persistence;
 
 import com.google.common.base.Objects;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.InternalEObject;
 import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
+import org.eclipse.xtend.lib.annotations.Accessors;
 import org.eclipse.xtend.lib.annotations.FinalFieldsConstructor;
 import org.eclipse.xtext.nodemodel.impl.SerializableNodeModel;
 import org.eclipse.xtext.nodemodel.serialization.SerializationConversionContext;
 import org.eclipse.xtext.resource.IReferenceDescription;
 import org.eclipse.xtext.resource.IResourceDescription;
+import org.eclipse.xtext.resource.persistence.ResourceStorageFormat;
 import org.eclipse.xtext.resource.persistence.SerializableReferenceDescription;
 import org.eclipse.xtext.resource.persistence.SerializableResourceDescription;
 import org.eclipse.xtext.resource.persistence.StorageAwareResource;
 import org.eclipse.xtext.xbase.lib.CollectionLiterals;
+import org.eclipse.xtext.xbase.lib.Pure;
 
 /**
  * @author Sven Efftinge - Initial contribution and API
@@ -39,6 +44,13 @@ public class ResourceStorageWritable {
   
   private final boolean storeNodeModel;
   
+  /**
+   * Whether the resource is written in the uncompressed {@link ResourceStorageFormat} instead of a zip file.
+   * @since 2.15
+   */
+  @Accessors
+  private boolean storeUncompressed = false;
+  
   public void writeResource(final StorageAwareResource resource) throws IOException {
     boolean _isLoadedFromStorage = resource.isLoadedFromStorage();
     if (_isLoadedFromStorage) {
@@ -46,6 +58,16 @@ public class ResourceStorageWritable {
       String _plus = ("cannot write resources loaded from storage. URI was " + _uRI);
       throw new IllegalStateException(_plus);
     }
+    if (this.storeUncompressed) {
+      final LinkedHashMap<String, ByteArrayOutputStream> sections = new LinkedHashMap<String, ByteArrayOutputStream>();
+      try {
+        this.writeSections(resource, sections);
+        ResourceStorageFormat.writeSections(sections, this.out);
+      } finally {
+        this.out.close();
+      }
+      return;
+    }
     final ZipOutputStream zipOut = new ZipOutputStream(this.out);
     try {
       this.writeEntries(resource, zipOut);
@@ -88,6 +110,25 @@ public class ResourceStorageWritable {
     }
   }
   
+  /**
+   * Write the sections of the uncompressed storage format.
+   * Overriding methods should first delegate to super before adding their own sections.
+   * @since 2.15
+   */
+  protected void writeSections(final StorageAwareResource resource, final Map<String, ByteArrayOutputStream> sections) throws IOException {
+    final ByteArrayOutputStream contents = new ByteArrayOutputStream();
+    this.writeContents(resource, contents);
+    sections.put(ResourceStorageFormat.CONTENTS, contents);
+    final ByteArrayOutputStream description = new ByteArrayOutputStream();
+    this.writeCompactResourceDescription(resource, description);
+    sections.put(ResourceStorageFormat.RESOURCE_DESCRIPTION, description);
+    if (this.storeNodeModel) {
+      final ByteArrayOutputStream nodeModel = new ByteArrayOutputStream();
+      this.writeNodeModel(resource, nodeModel);
+      sections.put(ResourceStorageFormat.NODE_MODEL, nodeModel);
+    }
+  }
+  
   protected void writeContents(final StorageAwareResource storageAwareResource, final OutputStream outputStream) throws IOException {
     Map<Object, Object> _emptyMap = CollectionLiterals.<Object, Object>emptyMap();
     final BinaryResourceImpl.EObjectOutputStream out = new BinaryResourceImpl.EObjectOutputStream(outputStream, _emptyMap) {
@@ -127,9 +168,7 @@ public class ResourceStorageWritable {
   }
   
   protected void writeResourceDescription(final StorageAwareResource resource, final OutputStream outputStream) throws IOException {
-    final IResourceDescription description = resource.getResourceServiceProvider().getResourceDescriptionManager().getResourceDescription(resource);
-    final SerializableResourceDescription serializableDescription = SerializableResourceDescription.createCopy(description);
-    this.convertExternalURIsToPortableURIs(serializableDescription, resource);
+    final SerializableResourceDescription serializableDescription = this.createSerializableResourceDescription(resource);
     final ObjectOutputStream out = new ObjectOutputStream(outputStream);
     try {
       out.writeObject(serializableDescription);
@@ -138,6 +177,25 @@ public class ResourceStorageWritable {
     }
   }
   
+  /**
+   * Write the resource description without Java serialization.
+   * @since 2.15
+   */
+  protected void writeCompactResourceDescription(final StorageAwareResource resource, final OutputStream outputStream) throws IOException {
+    final SerializableResourceDescription serializableDescription = this.createSerializableResourceDescription(resource);
+    new ResourceStorageFormat.DescriptionWriter(outputStream).write(serializableDescription);
+  }
+  
+  /**
+   * @since 2.15
+   */
+  protected SerializableResourceDescription createSerializableResourceDescription(final StorageAwareResource resource) {
+    final IResourceDescription description = resource.getResourceServiceProvider().getResourceDescriptionManager().getResourceDescription(resource);
+    final SerializableResourceDescription serializableDescription = SerializableResourceDescription.createCopy(description);
+    this.convertExternalURIsToPortableURIs(serializableDescription, resource);
+    return serializableDescription;
+  }
+  
   protected void convertExternalURIsToPortableURIs(final SerializableResourceDescription description, final StorageAwareResource resource) {
     Iterable<IReferenceDescription> _referenceDescriptions = description.getReferenceDescriptions();
     for (final IReferenceDescription ref : _referenceDescriptions) {
@@ -171,4 +229,13 @@ public class ResourceStorageWritable {
     this.out = out;
     this.storeNodeModel = storeNodeModel;
   }
+  
+  @Pure
+  public boolean isStoreUncompressed() {
+    return this.storeUncompressed;
+  }
+  
+  public void setStoreUncompressed(final boolean storeUncompressed) {
+    this.storeUncompressed = storeUncompressed;
+  }
 }
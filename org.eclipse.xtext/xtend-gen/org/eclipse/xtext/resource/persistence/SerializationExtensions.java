@@ -75,7 +75,7 @@ public class SerializationExtensions {
   public static QualifiedName readQualifiedName(final ObjectInput in) throws IOException {
     try {
       Object _readObject = in.readObject();
-      return QualifiedName.create(((ArrayList<String>) _readObject));
+      return QualifiedName.create(((ArrayList<String>) _readObject)).intern();
     } catch (Throwable _e) {
       throw Exceptions.sneakyThrow(_e);
     }
@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2014, 2017 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2014, 2018 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,10 +13,14 @@ import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 import org.apache.log4j.Logger;
+import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.common.util.WrappedException;
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.xtend.lib.annotations.AccessorType;
 import org.eclipse.xtend.lib.annotations.Accessors;
+import org.eclipse.xtext.diagnostics.ExceptionDiagnostic;
 import org.eclipse.xtext.linking.lazy.LazyLinkingResource;
 import org.eclipse.xtext.resource.IResourceDescription;
 import org.eclipse.xtext.resource.persistence.IResourceStorageFacade;
@@ -25,6 +29,7 @@ import org.eclipse.xtext.resource.persistence.ResourceStorageLoadable;
 import org.eclipse.xtext.util.internal.Stopwatches;
 import org.eclipse.xtext.xbase.lib.CollectionLiterals;
 import org.eclipse.xtext.xbase.lib.Exceptions;
+import org.eclipse.xtext.xbase.lib.Procedures.Procedure0;
 import org.eclipse.xtext.xbase.lib.Pure;
 
 /**
@@ -52,6 +57,10 @@ public class StorageAwareResource extends LazyLinkingResource {
   @Accessors
   private IResourceDescription resourceDescription = null;
   
+  private volatile Procedure0 deferredContents;
+  
+  private Thread decodingThread;
+  
   @Override
   public void load(final Map<?, ?> options) throws IOException {
     if (((((!this.isLoaded) && (!this.isLoading)) && (this.resourceStorageFacade != null)) && this.resourceStorageFacade.shouldLoadFromStorage(this))) {
@@ -96,6 +105,64 @@ public class StorageAwareResource extends LazyLinkingResource {
     }
   }
   
+  /**
+   * Defers decoding the contents of a resource that is loaded from storage until they are accessed.
+   * @since 2.15
+   */
+  protected void deferContents(final Procedure0 decoder) {
+    this.deferredContents = decoder;
+  }
+  
+  /**
+   * Decodes the deferred contents before they are returned. Callers that see pending contents wait until they are
+   * completely decoded. If decoding fails, the partially decoded contents are discarded, the failure is added to the
+   * {@link #getErrors() errors} and thrown, and the resource remains empty.
+   */
+  @Override
+  public EList<EObject> getContents() {
+    if ((this.deferredContents != null)) {
+      this.loadDeferredContents();
+    }
+    return super.getContents();
+  }
+  
+  private synchronized void loadDeferredContents() {
+    final Procedure0 decoder = this.deferredContents;
+    if (((decoder == null) || (this.decodingThread == Thread.currentThread()))) {
+      return;
+    }
+    this.decodingThread = Thread.currentThread();
+    final boolean wasLoading = this.isLoading;
+    this.isLoading = true;
+    try {
+      decoder.apply();
+    } catch (final Throwable _t) {
+      if (_t instanceof Exception) {
+        final Exception e = (Exception)_t;
+        super.getContents().clear();
+        EList<Resource.Diagnostic> _errors = this.getErrors();
+        ExceptionDiagnostic _exceptionDiagnostic = new ExceptionDiagnostic(e);
+        _errors.add(_exceptionDiagnostic);
+        if ((e instanceof RuntimeException)) {
+          throw ((RuntimeException)e);
+        }
+        throw new WrappedException(e);
+      } else {
+        throw Exceptions.sneakyThrow(_t);
+      }
+    } finally {
+      this.deferredContents = null;
+      this.decodingThread = null;
+      this.isLoading = wasLoading;
+    }
+  }
+  
+  @Override
+  public void unload() {
+    this.deferredContents = null;
+    super.unload();
+  }
+  
   @Override
   protected void doUnload() {
     super.doUnload();
@@ -104,6 +171,7 @@ public class StorageAwareResource extends LazyLinkingResource {
   
   @Override
   protected void clearInternalState() {
+    this.deferredContents = null;
     this.isLoadedFromStorage = false;
     super.clearInternalState();
   }